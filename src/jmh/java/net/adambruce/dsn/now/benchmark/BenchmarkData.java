@@ -0,0 +1,92 @@
+package net.adambruce.dsn.now.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loads the recorded responses used by the benchmarks, and enlarges them synthetically.
+ * Enlarged documents repeat the sites, stations, dishes and spacecraft with suffixed names, so that every copy still
+ * merges with the matching copy of the configuration.
+ */
+public final class BenchmarkData {
+
+    private static final Pattern NAME = Pattern.compile("(<(?:site|station|dish|spacecraft) name=\")([^\"]*)\"");
+    private static final Pattern TIMESTAMP = Pattern.compile("<timestamp>[^<]*</timestamp>");
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Loads the DSN Now configuration, repeated the given number of times.
+     *
+     * @param scale the number of copies of each site and spacecraft
+     * @return the configuration document
+     */
+    public static byte[] configuration(int scale) {
+        String document = resource("config/config.xml");
+        document = repeat(document, "<sites>", "</sites>", scale);
+        document = repeat(document, "<spacecraftMap>", "</spacecraftMap>", scale);
+        return document.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads the DSN state, repeated the given number of times.
+     *
+     * @param scale the number of copies of each station and dish
+     * @return the state document
+     */
+    public static byte[] state(int scale) {
+        return repeat(resource("dsn/dsn.xml"), "<dsn>", "<timestamp>", scale).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads the DSN state, repeated the given number of times, with its timestamp replaced.
+     * States with different timestamps are different documents, so the client parses each of them.
+     *
+     * @param scale the number of copies of each station and dish
+     * @param timestamp the timestamp of the state in epoch milliseconds
+     * @return the state document
+     */
+    public static byte[] state(int scale, long timestamp) {
+        String document = new String(state(scale), StandardCharsets.UTF_8);
+        return TIMESTAMP.matcher(document).replaceFirst("<timestamp>" + timestamp + "</timestamp>")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(String document, String start, String end, int scale) {
+        int from = document.indexOf(start) + start.length();
+        int to = document.indexOf(end, from);
+        String body = document.substring(from, to);
+
+        StringBuilder repeated = new StringBuilder(document.substring(0, to));
+        for (int copy = 1; copy < scale; copy++) {
+            Matcher matcher = NAME.matcher(body);
+            StringBuffer renamed = new StringBuffer();
+            while (matcher.find()) {
+                matcher.appendReplacement(renamed, "$1$2_" + copy + "\"");
+            }
+            matcher.appendTail(renamed);
+            repeated.append(renamed);
+        }
+        return repeated.append(document.substring(to)).toString();
+    }
+
+    private static String resource(String path) {
+        try (InputStream stream = BenchmarkData.class.getClassLoader().getResourceAsStream(path)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
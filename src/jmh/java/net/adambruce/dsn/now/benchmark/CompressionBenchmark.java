@@ -0,0 +1,140 @@
+package net.adambruce.dsn.now.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.adambruce.dsn.now.client.DeepSpaceNetworkClient;
+import net.adambruce.dsn.now.metrics.ClientMetrics;
+import net.adambruce.dsn.now.metrics.Endpoint;
+import net.adambruce.dsn.now.model.state.State;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares fetching the DSN state with and without compression, against a local server which answers requests
+ * accepting gzip with a precompressed document, as a CDN would.
+ * <p>
+ * Besides the end-to-end latency, the {@code wireBytes} and {@code fetches} counters report the response bytes
+ * received and the number of fetches in each iteration, so their ratio is the bytes on the wire per poll. Over
+ * loopback the latency only shows the cost of decompression; the saving in transfer time grows as bandwidth falls.
+ * As the document never changes, polls after the first are recognised as unchanged and are not parsed again.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// Without TCP_NODELAY, the server's separate header and body writes wait on delayed ACKs, hiding everything else
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class CompressionBenchmark {
+
+    @Param({"true", "false"})
+    private boolean compression;
+
+    @Param({"1", "10"})
+    private int scale;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private DeepSpaceNetworkClient client;
+    private long responseBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] document = BenchmarkData.state(scale);
+        byte[] compressed = gzip(document);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/dsn.xml", exchange -> {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                respond(exchange, compressed);
+            } else {
+                respond(exchange, document);
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        client = DeepSpaceNetworkClient.builder()
+                .stateUrl("http://localhost:" + server.getAddress().getPort() + "/dsn.xml")
+                .compression(compression)
+                .metrics(new ClientMetrics() {
+                    @Override
+                    public void recordRequest(Endpoint endpoint, long durationNanos, int status, long bytes) {
+                        responseBytes = bytes;
+                    }
+                })
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+        serverExecutor.shutdown();
+    }
+
+    @Benchmark
+    public State fetchState(WireCounters counters) throws Exception {
+        State state = client.fetchState();
+        counters.wireBytes += responseBytes;
+        counters.fetches++;
+        return state;
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(body);
+        }
+    }
+
+    private static byte[] gzip(byte[] document) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(document);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Counts the bytes received and the fetches made in each iteration.
+     */
+    @org.openjdk.jmh.annotations.State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireCounters {
+
+        public long wireBytes;
+        public long fetches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+            fetches = 0;
+        }
+    }
+}
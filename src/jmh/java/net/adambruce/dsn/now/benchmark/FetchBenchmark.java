@@ -0,0 +1,152 @@
+package net.adambruce.dsn.now.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import net.adambruce.dsn.now.client.DeepSpaceNetworkClient;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.transport.InMemoryTransport;
+import net.adambruce.dsn.now.transport.Transport;
+import net.adambruce.dsn.now.transport.TransportRequest;
+import net.adambruce.dsn.now.transport.TransportResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures end-to-end fetches against a local stand-in for DSN Now.
+ * With {@code changed} states, consecutive polls alternate between two states with different timestamps, so every
+ * fetch goes from the request to the deserialized (and merged) model. With {@code unchanged} states, every poll
+ * receives the same document, so only the first is parsed, and the rest measure reading the body and recognising it
+ * as unchanged.
+ * The {@code memory} transport serves the same documents without a network, isolating the cost of the client itself.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FetchBenchmark {
+
+    @Param({"apache", "memory"})
+    private String transport;
+
+    @Param({"changed", "unchanged"})
+    private String states;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private DeepSpaceNetworkClient client;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] configuration = BenchmarkData.configuration(1);
+        byte[] state = BenchmarkData.state(1);
+        byte[] nextState = states.equals("changed") ? BenchmarkData.state(1, 0) : state;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serve("/config.xml", configuration, configuration);
+        serve("/dsn.xml", state, nextState);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        DeepSpaceNetworkClient.Builder builder = DeepSpaceNetworkClient.builder()
+                .configurationUrl(baseUrl + "/config.xml")
+                .stateUrl(baseUrl + "/dsn.xml");
+        if (transport.equals("memory")) {
+            builder.transport(new AlternatingTransport(
+                    new InMemoryTransport()
+                            .put(baseUrl + "/config.xml", configuration)
+                            .put(baseUrl + "/dsn.xml", state),
+                    new InMemoryTransport()
+                            .put(baseUrl + "/config.xml", configuration)
+                            .put(baseUrl + "/dsn.xml", nextState)));
+        }
+        client = builder.build();
+        client.fetchConfiguration();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+        serverExecutor.shutdown();
+    }
+
+    @Benchmark
+    public State fetchState() throws Exception {
+        return client.fetchState();
+    }
+
+    @Benchmark
+    public MergedData fetchMergedData() throws Exception {
+        return client.fetchMergedData();
+    }
+
+    @Benchmark
+    public MergedData fetchMergedDataAsync() throws Exception {
+        return client.fetchMergedDataAsync().get();
+    }
+
+    /**
+     * Serves two documents at a path, alternating between them on each request.
+     */
+    private void serve(String path, byte[] firstBody, byte[] nextBody) {
+        AtomicLong requests = new AtomicLong();
+        server.createContext(path, exchange -> {
+            byte[] body = (requests.getAndIncrement() & 1) == 0 ? firstBody : nextBody;
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(body);
+            }
+        });
+    }
+
+    /**
+     * Alternates between two transports on each request, and drops the validators from each request, so that every
+     * poll is answered in full, as by the stand-in server.
+     */
+    private static final class AlternatingTransport implements Transport {
+
+        private final Transport first;
+        private final Transport next;
+        private final AtomicLong requests = new AtomicLong();
+
+        private AlternatingTransport(Transport first, Transport next) {
+            this.first = first;
+            this.next = next;
+        }
+
+        @Override
+        public TransportResponse fetch(TransportRequest request) throws IOException {
+            Transport delegate = (requests.getAndIncrement() & 1) == 0 ? first : next;
+            return delegate.fetch(new TransportRequest(request.getUrl(), null, null, request.getMaxBodySize()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            first.close();
+            next.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package net.adambruce.dsn.now.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import net.adambruce.dsn.now.serde.JacksonStateParser;
+import net.adambruce.dsn.now.serde.StateParser;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deserializing the configuration and the state, at their recorded size and enlarged.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int scale;
+
+    private final ObjectMapper mapper = DsnXmlMapper.create();
+    private final StateParser jacksonParser = new JacksonStateParser(mapper);
+    private final StateParser staxParser = new StaxStateParser();
+
+    private byte[] configuration;
+    private byte[] state;
+
+    @Setup
+    public void setUp() {
+        configuration = BenchmarkData.configuration(scale);
+        state = BenchmarkData.state(scale);
+    }
+
+    @Benchmark
+    public Configuration configuration() throws IOException {
+        return mapper.readValue(new ByteArrayInputStream(configuration), Configuration.class);
+    }
+
+    @Benchmark
+    public State stateWithJackson() throws IOException {
+        return jacksonParser.parse(new ByteArrayInputStream(state));
+    }
+
+    @Benchmark
+    public State stateWithStax() throws IOException {
+        return staxParser.parse(new ByteArrayInputStream(state));
+    }
+}
@@ -0,0 +1,81 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.benchmark.BenchmarkData;
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures merging the state with the configuration, as done by {@link DeepSpaceNetworkClient#fetchMergedData()}.
+ * This lives in the client package, as the merge is not part of the public API.
+ * <p>
+ * {@code mergeIncrementally} merges the next poll against the previous merge, as the client does, where the next poll
+ * differs from the previous one by its timestamps and the position of one dish.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int scale;
+
+    private Configuration configuration;
+    private ConfigurationIndex index;
+    private State state;
+    private State nextState;
+    private CachedMerge previous;
+
+    @Setup
+    public void setUp() throws IOException {
+        configuration = DsnXmlMapper.create()
+                .readValue(new ByteArrayInputStream(BenchmarkData.configuration(scale)), Configuration.class);
+        index = new ConfigurationIndex(configuration);
+        state = new StaxStateParser().parse(new ByteArrayInputStream(BenchmarkData.state(scale)));
+        previous = new CachedMerge(configuration, state, StateMerger.merge(configuration, index, state, null));
+
+        nextState = new StaxStateParser().parse(new ByteArrayInputStream(BenchmarkData.state(scale)));
+        nextState.setTimestamp(nextState.getTimestamp().plusSeconds(5));
+        for (Station station : nextState.getStations()) {
+            station.setTime(station.getTime().plusSeconds(5));
+        }
+        Dish dish = nextState.getDishes().get(0);
+        dish.setAzimuth(dish.getAzimuth() + 1);
+    }
+
+    @Benchmark
+    public MergedData merge() {
+        return StateMerger.merge(configuration, index, state, null);
+    }
+
+    @Benchmark
+    public MergedData mergeIncrementally() {
+        return StateMerger.merge(configuration, index, nextState, previous);
+    }
+
+    @Benchmark
+    public ConfigurationIndex index() {
+        return new ConfigurationIndex(configuration);
+    }
+}
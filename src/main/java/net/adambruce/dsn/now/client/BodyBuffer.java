@@ -0,0 +1,127 @@
+package net.adambruce.dsn.now.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A reusable buffer holding a response body.
+ * The buffer grows as required up to the maximum body size, and keeps its capacity between responses, so that a
+ * steady stream of similarly sized responses is read without allocating.
+ * <p>
+ * A CRC-32 checksum of the body is computed as it is read, so that a body which differs from a previous one is almost
+ * always recognised without a second pass over the bytes. Only a body whose checksum matches is compared in full.
+ */
+final class BodyBuffer {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * Reads a whole body into the buffer, replacing any previous body.
+     *
+     * @param body the body
+     * @param contentLength the length of the body if known in advance, otherwise -1
+     * @param maxSize the maximum size of the body
+     * @throws IOException the body could not be read, or is larger than the maximum size
+     */
+    void readFrom(InputStream body, long contentLength, int maxSize) throws IOException {
+        if (contentLength > maxSize) {
+            throw tooLarge(maxSize);
+        }
+        if (contentLength > buffer.length) {
+            buffer = new byte[(int) contentLength];
+        }
+
+        size = 0;
+        checksum.reset();
+        int limit = Math.min(buffer.length, maxSize);
+        while (true) {
+            if (size == limit) {
+                // Only grow if there is more to read, as a body often fills the buffer exactly
+                int next = body.read();
+                if (next == -1) {
+                    return;
+                }
+                if (size == maxSize) {
+                    throw tooLarge(maxSize);
+                }
+                buffer = Arrays.copyOf(buffer, (int) Math.min(buffer.length * 2L, maxSize));
+                limit = buffer.length;
+                buffer[size++] = (byte) next;
+                checksum.update(next);
+            }
+
+            int read = body.read(buffer, size, limit - size);
+            if (read == -1) {
+                return;
+            }
+            checksum.update(buffer, size, read);
+            size += read;
+        }
+    }
+
+    /**
+     * Gets the size of the body.
+     *
+     * @return the size of the body in bytes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the CRC-32 checksum of the body.
+     *
+     * @return the checksum of the body
+     */
+    long checksum() {
+        return checksum.getValue();
+    }
+
+    /**
+     * Gets the capacity of the buffer.
+     *
+     * @return the capacity of the buffer in bytes
+     */
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Checks whether the body is the same as the body of another buffer.
+     *
+     * @param other the buffer to compare the body with
+     * @return true if the bodies have the same length and contents
+     */
+    boolean contentEquals(BodyBuffer other) {
+        if (other.size != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (buffer[i] != other.buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a stream over the body, without copying it.
+     * The stream must not be used once the buffer has been reused.
+     *
+     * @return a stream over the body
+     */
+    InputStream toInputStream() {
+        return new ByteArrayInputStream(buffer, 0, size);
+    }
+
+    private static IOException tooLarge(int maxSize) {
+        return new IOException("response body exceeds the maximum size of " + maxSize + " bytes");
+    }
+}
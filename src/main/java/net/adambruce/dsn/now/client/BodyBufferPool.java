@@ -0,0 +1,37 @@
+package net.adambruce.dsn.now.client;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of {@link BodyBuffer}s.
+ * A buffer is created when the pool is empty, and discarded when it is returned to a full pool, so the pool never
+ * blocks and retains at most its capacity in buffers.
+ */
+final class BodyBufferPool {
+
+    private final BlockingQueue<BodyBuffer> buffers;
+
+    BodyBufferPool(int capacity) {
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Takes a buffer from the pool, or creates a new buffer if the pool is empty.
+     *
+     * @return a buffer
+     */
+    BodyBuffer acquire() {
+        BodyBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : new BodyBuffer();
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used once it has been returned.
+     *
+     * @param buffer the buffer
+     */
+    void release(BodyBuffer buffer) {
+        buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,42 @@
+package net.adambruce.dsn.now.client;
+
+import lombok.Value;
+import net.adambruce.dsn.now.model.config.Configuration;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The current configuration, along with its index and the time it was last refreshed.
+ * These are held together so that they can be swapped atomically.
+ */
+@Value
+class CachedConfiguration {
+    /**
+     * the configuration
+     * @return the configuration
+     */
+    Configuration configuration;
+
+    /**
+     * the index of the configuration, used when merging
+     * @return the index of the configuration
+     */
+    ConfigurationIndex index;
+
+    /**
+     * the time the configuration was last refreshed
+     * @return the time the configuration was last refreshed
+     */
+    Instant refreshed;
+
+    /**
+     * Checks whether the configuration is older than the given age.
+     *
+     * @param maxAge the maximum configuration age
+     * @return true if the configuration has expired
+     */
+    boolean isExpired(Duration maxAge) {
+        return Instant.now().isAfter(refreshed.plus(maxAge));
+    }
+}
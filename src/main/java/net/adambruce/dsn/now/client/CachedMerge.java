@@ -0,0 +1,42 @@
+package net.adambruce.dsn.now.client;
+
+import lombok.Value;
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+
+/**
+ * The most recently merged data, along with the configuration and state it was merged from.
+ */
+@Value
+class CachedMerge {
+    /**
+     * the configuration
+     * @return the configuration
+     */
+    Configuration configuration;
+
+    /**
+     * the state
+     * @return the state
+     */
+    State state;
+
+    /**
+     * the merged data
+     * @return the merged data
+     */
+    MergedData mergedData;
+
+    /**
+     * Checks whether this merge was made from the given instances.
+     * Instances are compared by identity, as an unchanged document is served as the previously deserialized instance.
+     *
+     * @param configuration the configuration
+     * @param state the state
+     * @return true if the merged data can be reused
+     */
+    boolean isMergeOf(Configuration configuration, State state) {
+        return this.configuration == configuration && this.state == state;
+    }
+}
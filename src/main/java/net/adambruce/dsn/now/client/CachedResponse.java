@@ -0,0 +1,56 @@
+package net.adambruce.dsn.now.client;
+
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * The last deserialized response from an endpoint, along with the validators required to make a conditional request,
+ * and the body from which it was deserialized with its checksum.
+ *
+ * @param <T> the type of the deserialized response
+ */
+@Value
+class CachedResponse<T> {
+    /**
+     * the value of the ETag header, or null if the server did not send one
+     * @return the value of the ETag header
+     */
+    String entityTag;
+
+    /**
+     * the value of the Last-Modified header, or null if the server did not send one
+     * @return the value of the Last-Modified header
+     */
+    String lastModified;
+
+    /**
+     * the deserialized response
+     * @return the deserialized response
+     */
+    T value;
+
+    /**
+     * the pooled buffer holding the response body, which is returned to the pool once the response is replaced
+     * @return the response body
+     */
+    @ToString.Exclude
+    BodyBuffer body;
+
+    /**
+     * the CRC-32 checksum of the response body
+     * @return the checksum of the response body
+     */
+    long checksum;
+
+    /**
+     * Checks whether a body is the same as the body of this response.
+     * The length and checksum reject almost every changed body without comparing it, and a body which matches both
+     * is compared byte for byte, so that a checksum collision is never mistaken for an unchanged body.
+     *
+     * @param other the body
+     * @return true if the body is the same as the body of this response
+     */
+    boolean hasSameBody(BodyBuffer other) {
+        return body.size() == other.size() && checksum == other.checksum() && other.contentEquals(body);
+    }
+}
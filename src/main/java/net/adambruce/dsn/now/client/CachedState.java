@@ -0,0 +1,35 @@
+package net.adambruce.dsn.now.client;
+
+import lombok.Value;
+import net.adambruce.dsn.now.model.state.State;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The most recently fetched state, along with the time it was fetched.
+ */
+@Value
+class CachedState {
+    /**
+     * the state
+     * @return the state
+     */
+    State state;
+
+    /**
+     * the time the state was fetched
+     * @return the time the state was fetched
+     */
+    Instant fetched;
+
+    /**
+     * Checks whether the state is no older than the given age.
+     *
+     * @param maxAge the maximum state age
+     * @return true if the state can be served from the cache
+     */
+    boolean isFresh(Duration maxAge) {
+        return !Instant.now().isAfter(fetched.plus(maxAge));
+    }
+}
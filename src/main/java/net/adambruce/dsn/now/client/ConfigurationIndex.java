@@ -0,0 +1,85 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.config.Dish;
+import net.adambruce.dsn.now.model.config.Site;
+import net.adambruce.dsn.now.model.config.Spacecraft;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * An immutable, indexed view of a configuration.
+ * The index is built once when the configuration is fetched and reused for every merge. Names are compared without
+ * regard to case, so lookups do not allocate.
+ */
+class ConfigurationIndex {
+
+    private final Map<String, Site> sitesByName;
+    private final Map<String, Dish> dishesByName;
+    private final Map<String, Spacecraft> spacecraftByName;
+
+    /**
+     * Indexes the sites, dishes and spacecraft of the configuration by name.
+     * If more than one entry has the same name, the first is indexed.
+     *
+     * @param configuration the configuration to index
+     */
+    ConfigurationIndex(Configuration configuration) {
+        sitesByName = index(configuration.getSites(), Site::getName);
+        spacecraftByName = index(configuration.getSpacecraft(), Spacecraft::getName);
+
+        Map<String, Dish> dishes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Site site : configuration.getSites()) {
+            for (Dish dish : site.getDishes()) {
+                dishes.putIfAbsent(dish.getName(), dish);
+            }
+        }
+        dishesByName = Collections.unmodifiableMap(dishes);
+    }
+
+    /**
+     * Finds a site by name.
+     *
+     * @param name the name of the site, in any case
+     * @return the site, or null if the configuration has no site with the name
+     */
+    Site getSite(String name) {
+        return sitesByName.get(name);
+    }
+
+    /**
+     * Finds a dish by name.
+     *
+     * @param name the name of the dish, in any case
+     * @return the dish, or null if the configuration has no dish with the name
+     */
+    Dish getDish(String name) {
+        return dishesByName.get(name);
+    }
+
+    /**
+     * Finds a spacecraft by name.
+     *
+     * @param name the name of the spacecraft, in any case
+     * @return the spacecraft, or null if the configuration has no spacecraft with the name
+     */
+    Spacecraft getSpacecraft(String name) {
+        return spacecraftByName.get(name);
+    }
+
+    /**
+     * Indexes the values by name, ignoring case.
+     * The returned map does not allocate on lookup, unlike a map keyed by lower-cased names.
+     */
+    static <T> Map<String, T> index(List<T> values, Function<T, String> name) {
+        Map<String, T> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (T value : values) {
+            index.putIfAbsent(name.apply(value), value);
+        }
+        return Collections.unmodifiableMap(index);
+    }
+}
@@ -0,0 +1,50 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Merges states with a fixed configuration, as {@link DeepSpaceNetworkClient#fetchMergedData()} does, for states which
+ * were not fetched by a client, such as states replayed from a journal.
+ * The configuration is indexed once when the merger is created, and the merger is safe for concurrent use.
+ * Each merge reuses the dishes which have not changed since the last merge, and the dish lists of stations whose
+ * dishes are all unchanged.
+ */
+public final class ConfigurationMerger implements Function<State, MergedData> {
+
+    private final Configuration configuration;
+    private final ConfigurationIndex index;
+    private final AtomicReference<CachedMerge> lastMerge = new AtomicReference<>();
+
+    /**
+     * Creates a new merger for the given configuration.
+     *
+     * @param configuration the configuration
+     */
+    public ConfigurationMerger(Configuration configuration) {
+        this.configuration = configuration;
+        this.index = new ConfigurationIndex(configuration);
+    }
+
+    /**
+     * Merges a state with the configuration.
+     *
+     * @param state the state
+     * @return the merged data
+     */
+    @Override
+    public MergedData apply(State state) {
+        CachedMerge last = lastMerge.get();
+        if (last != null && last.isMergeOf(configuration, state)) {
+            return last.getMergedData();
+        }
+
+        MergedData merged = StateMerger.merge(configuration, index, state, last);
+        lastMerge.set(new CachedMerge(configuration, state, merged));
+        return merged;
+    }
+}
@@ -0,0 +1,59 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.util.LimitedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes response bodies sent with a content coding.
+ * A body is decompressed as it is parsed, so the decompressed document is never held in memory as a whole. As a
+ * small compressed body can expand to many times its size, decoding fails once the decompressed body exceeds the
+ * maximum body size.
+ */
+final class ContentDecoding {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Wraps a body in the decoders for its content codings, which are undone in the reverse of the order listed.
+     *
+     * @param body the body as it was sent
+     * @param contentEncoding the content codings of the body, or null if it is not encoded
+     * @param maxSize the maximum size of the decoded body
+     * @return a stream of the decoded body, which must be closed to release the decoders
+     * @throws IOException a content coding is not supported, or the body does not start with a valid header
+     */
+    static InputStream decode(InputStream body, String contentEncoding, int maxSize) throws IOException {
+        if (contentEncoding == null) {
+            return body;
+        }
+
+        InputStream decoded = body;
+        String[] codings = contentEncoding.split(",");
+        for (int i = codings.length - 1; i >= 0; i--) {
+            switch (codings[i].trim().toLowerCase(Locale.ROOT)) {
+                case "gzip":
+                case "x-gzip":
+                    decoded = new GZIPInputStream(decoded, BUFFER_SIZE);
+                    break;
+                case "deflate":
+                    decoded = new InflaterInputStream(decoded);
+                    break;
+                case "identity":
+                case "":
+                    break;
+                default:
+                    throw new IOException("unsupported content encoding: " + contentEncoding);
+            }
+        }
+        // The body is already in memory, so exceeding the maximum has no request to abort
+        return decoded != body ? new LimitedInputStream(decoded, maxSize, () -> { }) : body;
+    }
+}
@@ -1,66 +1,86 @@
 package net.adambruce.dsn.now.client;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
 import net.adambruce.dsn.now.model.config.Configuration;
 import net.adambruce.dsn.now.model.merged.MergedData;
-import net.adambruce.dsn.now.model.merged.MergedDishData;
-import net.adambruce.dsn.now.model.merged.MergedStationData;
-import net.adambruce.dsn.now.model.merged.MergedTargetData;
-import net.adambruce.dsn.now.model.config.Dish;
-import net.adambruce.dsn.now.model.config.Site;
-import net.adambruce.dsn.now.model.config.Spacecraft;
+import net.adambruce.dsn.now.metrics.ClientMetrics;
+import net.adambruce.dsn.now.metrics.Endpoint;
 import net.adambruce.dsn.now.model.state.State;
-import net.adambruce.dsn.now.model.state.Station;
-import net.adambruce.dsn.now.model.state.Target;
-import net.adambruce.dsn.now.serde.DurationDeserializer;
-import net.adambruce.dsn.now.serde.ZoneOffsetDeserializer;
-import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import net.adambruce.dsn.now.serde.JacksonStateParser;
+import net.adambruce.dsn.now.serde.StateParser;
+import net.adambruce.dsn.now.serde.StringPool;
+import net.adambruce.dsn.now.transport.ApacheHttpTransport;
+import net.adambruce.dsn.now.transport.Transport;
+import net.adambruce.dsn.now.transport.TransportRequest;
+import net.adambruce.dsn.now.transport.TransportResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.time.Duration;
 import java.time.Instant;
-import java.time.ZoneOffset;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * Client for requesting information from the DSN Now API.
+ * The client owns a {@link Transport}, by default a pool of HTTP connections which are reused between requests, and
+ * should be closed once it is no longer required.
  */
 @Slf4j
-public class DeepSpaceNetworkClient {
+public class DeepSpaceNetworkClient implements DsnClient {
 
     private static final String DSN_CONFIG_URL = "https://eyes.nasa.gov/apps/dsn-now/config.xml";
     private static final String DSN_STATE_URL = "https://eyes.nasa.gov/dsn/data/dsn.xml";
 
-    private static final SimpleModule SERDE_MODULE = new SimpleModule()
-            .addDeserializer(ZoneOffset.class, new ZoneOffsetDeserializer())
-            .addDeserializer(Duration.class, new DurationDeserializer());
+    private static final ObjectMapper MAPPER = DsnXmlMapper.create();
+    private static final int MAX_POOLED_BUFFERS = 4;
 
-    private static final ObjectMapper MAPPER = XmlMapper.builder()
-            .addModule(new JavaTimeModule())
-            .addModule(SERDE_MODULE)
-            .configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, false)
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-            .build();
+    private final AtomicReference<CachedConfiguration> configuration = new AtomicReference<>();
+    private final SingleFlight<CachedConfiguration> configurationRefresh = new SingleFlight<>();
 
-    private final AtomicReference<Configuration> CONFIG = new AtomicReference<>();
-    private final AtomicReference<Instant> LAST_CONFIG_REFRESH = new AtomicReference<>();
+    private final AtomicReference<CachedState> state = new AtomicReference<>();
+    private final SingleFlight<State> stateRefresh = new SingleFlight<>();
 
+    private final AtomicReference<CachedResponse<Configuration>> configResponse = new AtomicReference<>();
+    private final AtomicReference<CachedResponse<State>> stateResponse = new AtomicReference<>();
+    private final AtomicReference<CachedMerge> lastMerge = new AtomicReference<>();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong unchangedCount = new AtomicLong();
+    private final BodyBufferPool bodyBuffers = new BodyBufferPool(MAX_POOLED_BUFFERS);
+
+    private final String configurationUrl;
+    private final String stateUrl;
     private final Duration maxConfigAge;
+    private final Duration stateCacheTtl;
+    private final int maxBodySize;
+    private final StateParser stateParser;
+    private final StringPool strings;
+    private final Executor executor;
+    private final ClientMetrics metrics;
+    private final boolean metricsEnabled;
+    private final Transport transport;
 
-    private DeepSpaceNetworkClient(Duration maxConfigurationAge) {
-        this.maxConfigAge = maxConfigurationAge;
+    private DeepSpaceNetworkClient(Builder builder, Transport transport) {
+        this.configurationUrl = builder.configurationUrl;
+        this.stateUrl = builder.stateUrl;
+        this.maxConfigAge = builder.maxConfigurationAge;
+        this.stateCacheTtl = builder.stateCacheTtl;
+        this.maxBodySize = builder.maxBodySize;
+        this.stateParser = builder.stateParser;
+        this.strings = builder.stringPoolSize > 0 ? new StringPool(builder.stringPoolSize) : null;
+        this.executor = builder.executor;
+        this.metrics = builder.metrics;
+        this.metricsEnabled = builder.metrics != ClientMetrics.NOOP;
+        this.transport = transport;
     }
 
     /**
@@ -69,7 +89,7 @@ public class DeepSpaceNetworkClient {
      * @return a new client
      */
     public static DeepSpaceNetworkClient newDeepSpaceNetworkClient() {
-        return newDeepSpaceNetworkClient(Duration.ofMinutes(30));
+        return builder().build();
     }
 
     /**
@@ -79,140 +99,720 @@ public class DeepSpaceNetworkClient {
      * @return a new client
      */
     public static DeepSpaceNetworkClient newDeepSpaceNetworkClient(Duration maxConfigurationAge) {
-        return new DeepSpaceNetworkClient(maxConfigurationAge);
+        return builder().maxConfigurationAge(maxConfigurationAge).build();
+    }
+
+    /**
+     * Creates a new builder for configuring the client and its transport.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
      * Fetches the DSN Now configuration, and caches it for later use.
+     * If the server reports that the configuration has not been modified since the last fetch, the previously
+     * fetched configuration is returned without being deserialized again.
+     * If a configuration fetch is already in flight, this method waits for and returns its result instead of
+     * making another request.
      *
      * @return the configuration
      * @throws Exception the network request failed, or the response could not be deserialized
      */
+    @Override
     public Configuration fetchConfiguration() throws Exception {
-        log.debug("fetching configuration from {}", DSN_CONFIG_URL);
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(DSN_CONFIG_URL);
-            byte[] response = httpClient.execute(request, classicHttpResponse -> EntityUtils.toByteArray(classicHttpResponse.getEntity()));
-            Configuration configuration = MAPPER.readValue(response, Configuration.class);
-            CONFIG.set(configuration);
-            LAST_CONFIG_REFRESH.set(Instant.now());
-            return configuration;
-        }
+        return refreshConfiguration().getConfiguration();
+    }
+
+    /**
+     * Asynchronously fetches the DSN Now configuration, and caches it for later use.
+     * The response is deserialized on the client's executor, never on an I/O thread.
+     * If a configuration fetch is already in flight, the returned future completes with its result.
+     *
+     * @return a future completed with the configuration, or completed exceptionally if the network request failed or
+     * the response could not be deserialized
+     */
+    @Override
+    public CompletableFuture<Configuration> fetchConfigurationAsync() {
+        return refreshConfigurationAsync().thenApply(CachedConfiguration::getConfiguration);
     }
 
     /**
      * Fetches the current state of the DSN.
+     * If the server reports that the state has not been modified since the last fetch, or sends the same document
+     * again, the previously fetched state is returned without being deserialized again.
+     * If a state cache TTL has been set on the builder, this is equivalent to {@link #fetchState(Duration)} with the
+     * TTL as the maximum age; otherwise, every call makes its own request.
      *
      * @return the current DSN state
      * @throws Exception the network request failed, or the response could not be deserialized
      */
+    @Override
     public State fetchState() throws Exception {
-        log.debug("fetching state from {}", DSN_STATE_URL);
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(DSN_STATE_URL);
-            byte[] response = httpClient.execute(request, classicHttpResponse -> EntityUtils.toByteArray(classicHttpResponse.getEntity()));
-            return MAPPER.readValue(response, State.class);
+        return stateCacheTtl != null ? fetchState(stateCacheTtl) : downloadState();
+    }
+
+    /**
+     * Fetches the current state of the DSN, accepting a previously fetched state no older than the given age.
+     * If the most recently fetched state is too old, concurrent callers share a single request rather than making
+     * one each.
+     *
+     * @param maxAge the maximum age of a previously fetched state, or {@link Duration#ZERO} to only share an
+     *               in-flight request
+     * @return the current DSN state
+     * @throws Exception the network request failed, or the response could not be deserialized
+     */
+    @Override
+    public State fetchState(Duration maxAge) throws Exception {
+        CachedState cached = state.get();
+        if (cached != null && cached.isFresh(maxAge)) {
+            return cached.getState();
+        }
+
+        return stateRefresh.call(() -> {
+            // The state may have been refreshed while this caller was waiting to claim the request
+            CachedState current = state.get();
+            return current != null && current.isFresh(maxAge) ? current.getState() : downloadState();
+        });
+    }
+
+    /**
+     * Asynchronously fetches the current state of the DSN.
+     * The response is deserialized on the client's executor, never on an I/O thread.
+     * If a state cache TTL has been set on the builder, this is equivalent to {@link #fetchStateAsync(Duration)}
+     * with the TTL as the maximum age; otherwise, every call makes its own request.
+     *
+     * @return a future completed with the current DSN state, or completed exceptionally if the network request failed
+     * or the response could not be deserialized
+     */
+    @Override
+    public CompletableFuture<State> fetchStateAsync() {
+        return stateCacheTtl != null ? fetchStateAsync(stateCacheTtl) : downloadStateAsync();
+    }
+
+    /**
+     * Asynchronously fetches the current state of the DSN, accepting a previously fetched state no older than the
+     * given age.
+     * If the most recently fetched state is too old, concurrent callers share a single request rather than making
+     * one each.
+     *
+     * @param maxAge the maximum age of a previously fetched state, or {@link Duration#ZERO} to only share an
+     *               in-flight request
+     * @return a future completed with the current DSN state, or completed exceptionally if the network request failed
+     * or the response could not be deserialized
+     */
+    @Override
+    public CompletableFuture<State> fetchStateAsync(Duration maxAge) {
+        CachedState cached = state.get();
+        if (cached != null && cached.isFresh(maxAge)) {
+            return CompletableFuture.completedFuture(cached.getState());
         }
+
+        return stateRefresh.callAsync(() -> {
+            CachedState current = state.get();
+            return current != null && current.isFresh(maxAge)
+                    ? CompletableFuture.completedFuture(current.getState())
+                    : downloadStateAsync();
+        });
+    }
+
+    /**
+     * Gets the number of fetches which were answered with 304 Not Modified, and served from the previous response.
+     *
+     * @return the number of fetches answered with 304 Not Modified
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Gets the number of fetches which received a document identical to the previous response, and were served from
+     * the previous response without being deserialized.
+     * An unchanged document is returned as the same instance as before, so callers can detect it with {@code ==} and
+     * skip any further processing.
+     *
+     * @return the number of fetches which received an unchanged document
+     */
+    public long getUnchangedCount() {
+        return unchangedCount.get();
     }
 
     /**
      * Fetches the current state of the DSN and merges the response with the DSN Now configuration to
      * provide a complete representation of DSN's current state.
-     * If the configuration is uninitialized or expired, a new configuration will be fetched.
+     * If the configuration is uninitialized, it is fetched before the state. If the configuration has expired, it is
+     * refreshed in the background while the current configuration continues to be used.
+     * If neither the state nor the configuration has changed since the last merge, the previously merged data is
+     * returned without merging again. Otherwise, the merged stations and dishes which have not changed since the last
+     * merge are reused, so they can be compared with {@code ==}.
      *
      * @return the current DSN state merged with the DSN Now configuration
      * @throws Exception the network request failed, or the response could not be deserialized
      */
+    @Override
     public MergedData fetchMergedData() throws Exception {
-        if (CONFIG.get() == null) {
+        return fetchMergedData(this::fetchState);
+    }
+
+    /**
+     * Fetches the current state of the DSN, accepting a previously fetched state no older than the given age, and
+     * merges it with the DSN Now configuration.
+     * The state is fetched as by {@link #fetchState(Duration)}, and the configuration as by {@link #fetchMergedData()}.
+     *
+     * @param maxAge the maximum age of a previously fetched state
+     * @return the current DSN state merged with the DSN Now configuration
+     * @throws Exception the network request failed, or the response could not be deserialized
+     */
+    @Override
+    public MergedData fetchMergedData(Duration maxAge) throws Exception {
+        return fetchMergedData(() -> fetchState(maxAge));
+    }
+
+    /**
+     * Merges a previously fetched state with the DSN Now configuration.
+     * The configuration is fetched or refreshed as by {@link #fetchMergedData()}, but the state is not fetched again.
+     *
+     * @param state the state
+     * @return the state merged with the DSN Now configuration
+     * @throws Exception the configuration could not be fetched, or the response could not be deserialized
+     */
+    @Override
+    public MergedData merge(State state) throws Exception {
+        return fetchMergedData(() -> state);
+    }
+
+    private MergedData fetchMergedData(Callable<State> stateFetch) throws Exception {
+        CachedConfiguration cached = configuration.get();
+        if (cached == null) {
+            metrics.recordConfigurationCacheMiss();
             log.debug("configuration has not yet been set, updating configuration before fetching state");
-            fetchConfiguration();
-        }
-        if (Instant.now().isAfter(LAST_CONFIG_REFRESH.get().plus(maxConfigAge))) {
-            log.debug("configuration has expired, updating configuration before fetching state");
-            fetchConfiguration();
-        }
-
-        Configuration configuration = CONFIG.get();
-        State state = fetchState();
-
-        Map<String, Station> dsnStationByName = state.getStations().stream()
-                .collect(Collectors.toMap(s -> s.getName().toLowerCase(), Function.identity()));
-
-        Map<String, net.adambruce.dsn.now.model.state.Dish> dsnDishByName = state.getDishes().stream()
-                .collect(Collectors.toMap(d -> d.getName().toLowerCase(), Function.identity()));
-
-        Map<String, Spacecraft> configSpacecraftByName = configuration.getSpacecraft().stream()
-                .collect(Collectors.toMap(s -> s.getName().toLowerCase(), Function.identity()));
-
-        List<MergedStationData> stations = configuration.getSites().stream()
-                .map(site -> getMergedStation(site, dsnStationByName, dsnDishByName, configSpacecraftByName))
-                .collect(Collectors.toList());
-
-        return new MergedData(
-                stations,
-                state.getTimestamp()
-        );
-    }
-
-    private MergedTargetData getMergedTarget(Target target, Map<String, Spacecraft> spacecraftMap) {
-        Spacecraft spacecraft = spacecraftMap.get(target.getName().toLowerCase());
-
-        return new MergedTargetData(
-                target.getName(),
-                target.getId(),
-                target.getUpLegRange(),
-                target.getDownLegRange(),
-                target.getRoundTripLightTime(),
-                spacecraft != null ? spacecraft.getExplorerName() : null,
-                spacecraft != null ? spacecraft.getFriendlyAcronym() : null,
-                spacecraft != null ? spacecraft.getFriendlyName() : null,
-                spacecraft != null ? spacecraft.getThumbnail() : null
-        );
-    }
-
-    private MergedDishData getMergedDish(Dish configDish,
-                                         Map<String, net.adambruce.dsn.now.model.state.Dish> dishMap,
-                                         Map<String, Spacecraft> spacecraftMap) {
-        net.adambruce.dsn.now.model.state.Dish dish = dishMap.get(configDish.getName().toLowerCase());
-
-        return new MergedDishData(
-                configDish.getName(),
-                configDish.getFriendlyName(),
-                configDish.getType(),
-                dish != null ? dish.getAzimuth() : null,
-                dish != null ? dish.getElevation() : null,
-                dish != null ? dish.getWindSpeed() : null,
-                dish != null ? dish.getMultipleSpacecraftPerAperture() : null,
-                dish != null ? dish.getArray() : null,
-                dish != null ? dish.getDeltaDifferentialOneWayRanging() : null,
-                dish != null ? dish.getActivity() : null,
-                dish != null ? dish.getUpSignals() : null,
-                dish != null ? dish.getDownSignals() : null,
-                dish != null
-                        ? dish.getTargets().stream().map(t -> getMergedTarget(t, spacecraftMap))
-                            .collect(Collectors.toList())
-                        : Collections.emptyList()
-        );
-    }
-
-    private MergedStationData getMergedStation(Site configSite,
-                                               Map<String, Station> stationMap,
-                                               Map<String, net.adambruce.dsn.now.model.state.Dish> dishMap,
-                                               Map<String, Spacecraft> spacecraftMap) {
-        Station station = stationMap.get(configSite.getName().toLowerCase());
-
-        return new MergedStationData(
-                configSite.getName(),
-                configSite.getFriendlyName(),
-                configSite.getLongitude(),
-                configSite.getLatitude(),
-                station != null ? station.getTime() : null,
-                station != null ? station.getTimeZoneOffset() : null,
-                configSite.getDishes().stream()
-                        .map(dish -> getMergedDish(dish, dishMap, spacecraftMap))
-                        .collect(Collectors.toList())
-        );
+            return merge(refreshConfiguration(), stateFetch.call());
+        }
+
+        refreshConfigurationIfExpired(cached);
+        return merge(cached, stateFetch.call());
     }
 
+    /**
+     * Asynchronously fetches the current state of the DSN and merges the response with the DSN Now configuration.
+     * If the configuration is uninitialized, it is fetched at the same time as the state. If the configuration has
+     * expired, it is refreshed in the background while the current configuration continues to be used.
+     *
+     * @return a future completed with the current DSN state merged with the DSN Now configuration, or completed
+     * exceptionally if a network request failed or a response could not be deserialized
+     */
+    @Override
+    public CompletableFuture<MergedData> fetchMergedDataAsync() {
+        return fetchMergedDataAsync(this::fetchStateAsync);
+    }
+
+    /**
+     * Asynchronously fetches the current state of the DSN, accepting a previously fetched state no older than the
+     * given age, and merges it with the DSN Now configuration.
+     * The state is fetched as by {@link #fetchStateAsync(Duration)}, and the configuration as by
+     * {@link #fetchMergedDataAsync()}.
+     *
+     * @param maxAge the maximum age of a previously fetched state
+     * @return a future completed with the current DSN state merged with the DSN Now configuration, or completed
+     * exceptionally if a network request failed or a response could not be deserialized
+     */
+    @Override
+    public CompletableFuture<MergedData> fetchMergedDataAsync(Duration maxAge) {
+        return fetchMergedDataAsync(() -> fetchStateAsync(maxAge));
+    }
+
+    private CompletableFuture<MergedData> fetchMergedDataAsync(Supplier<CompletableFuture<State>> stateFetch) {
+        CachedConfiguration cached = configuration.get();
+        if (cached == null) {
+            metrics.recordConfigurationCacheMiss();
+            log.debug("configuration has not yet been set, updating configuration alongside state");
+            return refreshConfigurationAsync().thenCombine(stateFetch.get(), this::merge);
+        }
+
+        refreshConfigurationIfExpired(cached);
+        return stateFetch.get().thenApply(state -> merge(cached, state));
+    }
+
+    private State downloadState() throws IOException {
+        log.debug("fetching state from {}", stateUrl);
+        return updateState(fetch(Endpoint.STATE, stateUrl, this::parseState, stateResponse));
+    }
+
+    private CompletableFuture<State> downloadStateAsync() {
+        log.debug("asynchronously fetching state from {}", stateUrl);
+        return fetchAsync(Endpoint.STATE, stateUrl, this::parseState, stateResponse).thenApply(this::updateState);
+    }
+
+    private State updateState(State state) {
+        this.state.set(new CachedState(state, Instant.now()));
+        return state;
+    }
+
+    private void refreshConfigurationIfExpired(CachedConfiguration cached) {
+        if (!cached.isExpired(maxConfigAge)) {
+            metrics.recordConfigurationCacheHit();
+        } else {
+            metrics.recordConfigurationCacheMiss();
+            log.debug("configuration has expired, refreshing configuration in the background");
+            refreshConfigurationAsync().exceptionally(ex -> {
+                log.warn("failed to refresh configuration, continuing with expired configuration", ex);
+                return null;
+            });
+        }
+    }
+
+    private CachedConfiguration refreshConfiguration() throws Exception {
+        return configurationRefresh.call(() -> {
+            log.debug("fetching configuration from {}", configurationUrl);
+            metrics.recordConfigurationRefresh();
+            return updateConfiguration(fetch(Endpoint.CONFIGURATION, configurationUrl,
+                    this::parseConfiguration, configResponse));
+        });
+    }
+
+    private CompletableFuture<CachedConfiguration> refreshConfigurationAsync() {
+        return configurationRefresh.callAsync(() -> {
+            log.debug("asynchronously fetching configuration from {}", configurationUrl);
+            metrics.recordConfigurationRefresh();
+            return fetchAsync(Endpoint.CONFIGURATION, configurationUrl, this::parseConfiguration,
+                    configResponse)
+                    .thenApply(this::updateConfiguration);
+        });
+    }
+
+    private CachedConfiguration updateConfiguration(Configuration configuration) {
+        // A not modified response returns the same configuration, so the existing index can be reused
+        CachedConfiguration previous = this.configuration.get();
+        ConfigurationIndex index = previous != null && previous.getConfiguration() == configuration
+                ? previous.getIndex()
+                : new ConfigurationIndex(configuration);
+
+        CachedConfiguration updated = new CachedConfiguration(configuration, index, Instant.now());
+        this.configuration.set(updated);
+        return updated;
+    }
+
+    private MergedData merge(CachedConfiguration configuration, State state) {
+        CachedMerge last = lastMerge.get();
+        if (last != null && last.isMergeOf(configuration.getConfiguration(), state)) {
+            return last.getMergedData();
+        }
+
+        long start = startTiming();
+        MergedData merged = StateMerger.merge(configuration.getConfiguration(), configuration.getIndex(), state, last);
+        if (metricsEnabled) {
+            metrics.recordMerge(System.nanoTime() - start);
+        }
+        lastMerge.set(new CachedMerge(configuration.getConfiguration(), state, merged));
+        return merged;
+    }
+
+    private <T> T fetch(Endpoint endpoint, String url, BodyParser<T> parser, AtomicReference<CachedResponse<T>> cache)
+            throws IOException {
+        CachedResponse<T> cached = cache.get();
+        long start = startTiming();
+        try (TransportResponse response = transport.fetch(newRequest(url, cached))) {
+            return readResponse(endpoint, url, start, response, cached, parser, cache);
+        } catch (IOException | RuntimeException ex) {
+            metrics.recordFailure(endpoint, ex);
+            throw ex;
+        }
+    }
+
+    private <T> CompletableFuture<T> fetchAsync(Endpoint endpoint, String url, BodyParser<T> parser,
+                                                AtomicReference<CachedResponse<T>> cache) {
+        CachedResponse<T> cached = cache.get();
+        long start = startTiming();
+
+        // Read and parse on the executor, as transports may complete on their I/O threads
+        CompletableFuture<T> result = transport.fetchAsync(newRequest(url, cached)).thenApplyAsync(response -> {
+            try (TransportResponse closeable = response) {
+                return readResponse(endpoint, url, start, closeable, cached, parser, cache);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+
+        if (metricsEnabled) {
+            // The result is a dependent stage, so its failures are always wrapped in a CompletionException
+            result.whenComplete((value, ex) -> {
+                if (ex != null) {
+                    metrics.recordFailure(endpoint, ex.getCause());
+                }
+            });
+        }
+        return result;
+    }
+
+    private TransportRequest newRequest(String url, CachedResponse<?> cached) {
+        return cached != null
+                ? new TransportRequest(url, cached.getEntityTag(), cached.getLastModified(), maxBodySize)
+                : new TransportRequest(url, null, null, maxBodySize);
+    }
+
+    private long startTiming() {
+        return metricsEnabled ? System.nanoTime() : 0;
+    }
+
+    private void recordRequest(Endpoint endpoint, long start, TransportResponse response, long responseBytes) {
+        if (metricsEnabled) {
+            metrics.recordRequest(endpoint, System.nanoTime() - start, response.getStatus(), responseBytes);
+        }
+    }
+
+    private boolean isNotModified(String url, TransportResponse response, CachedResponse<?> cached) {
+        if (cached != null && response.getStatus() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            log.debug("{} has not been modified, using cached response", url);
+            notModifiedCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private <T> T readResponse(Endpoint endpoint, String url, long start, TransportResponse response,
+                               CachedResponse<T> cached, BodyParser<T> parser,
+                               AtomicReference<CachedResponse<T>> cache) throws IOException {
+        if (isNotModified(url, response, cached)) {
+            recordRequest(endpoint, start, response, 0);
+            return cached.getValue();
+        }
+
+        BodyBuffer body = bodyBuffers.acquire();
+        BodyBuffer released = body;
+        try {
+            body.readFrom(response.getBody(), response.getContentLength(), maxBodySize);
+            recordRequest(endpoint, start, response, body.size());
+
+            CachedResponse<T> unchanged = keepIfUnchanged(response, body, cache);
+            if (unchanged != null) {
+                log.debug("{} is unchanged, using cached response", url);
+                unchangedCount.incrementAndGet();
+                return unchanged.getValue();
+            }
+
+            long parseStart = startTiming();
+            T value;
+            // A compressed body is buffered as it was sent, and decompressed as it is parsed
+            try (InputStream decoded = ContentDecoding.decode(body.toInputStream(),
+                    response.getContentEncoding(), maxBodySize)) {
+                value = parser.parse(decoded);
+            }
+            if (metricsEnabled) {
+                metrics.recordParse(endpoint, System.nanoTime() - parseStart);
+            }
+            // The cache keeps this buffer to compare the next body against, and gives up the buffer it held before
+            released = replace(cache, new CachedResponse<>(response.getEntityTag(), response.getLastModified(), value,
+                    body, body.checksum()));
+            return value;
+        } finally {
+            if (released != null) {
+                bodyBuffers.release(released);
+            }
+        }
+    }
+
+    // The cache is locked while its body is compared or replaced, as a replaced body is returned to the pool for reuse
+    private static <T> CachedResponse<T> keepIfUnchanged(TransportResponse response, BodyBuffer body,
+                                                         AtomicReference<CachedResponse<T>> cache) {
+        synchronized (cache) {
+            CachedResponse<T> cached = cache.get();
+            if (cached == null || !cached.hasSameBody(body)) {
+                return null;
+            }
+            // Keep the new validators even when the body is unchanged, so the next request can be conditional
+            cache.set(new CachedResponse<>(response.getEntityTag(), response.getLastModified(), cached.getValue(),
+                    cached.getBody(), cached.getChecksum()));
+            return cached;
+        }
+    }
+
+    private static <T> BodyBuffer replace(AtomicReference<CachedResponse<T>> cache, CachedResponse<T> updated) {
+        synchronized (cache) {
+            CachedResponse<T> previous = cache.getAndSet(updated);
+            return previous != null ? previous.getBody() : null;
+        }
+    }
+
+    private Configuration parseConfiguration(InputStream body) throws IOException {
+        Configuration configuration = MAPPER.readValue(body, Configuration.class);
+        if (strings != null) {
+            strings.seed(configuration);
+        }
+        return configuration;
+    }
+
+    private State parseState(InputStream body) throws IOException {
+        State state = stateParser.parse(body);
+        if (strings != null) {
+            strings.canonicalizeState(state);
+        }
+        return state;
+    }
+
+    @FunctionalInterface
+    private interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    /**
+     * Closes the client and its transport, releasing all pooled connections.
+     *
+     * @throws IOException the transport could not be closed cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        log.debug("closing client");
+        transport.close();
+    }
+
+    /**
+     * Builder for {@link DeepSpaceNetworkClient}.
+     * Unless another transport is set, documents are fetched with an {@link ApacheHttpTransport}, configured by the
+     * connection settings of this builder.
+     */
+    public static final class Builder {
+
+        private String configurationUrl = DSN_CONFIG_URL;
+        private String stateUrl = DSN_STATE_URL;
+        private Duration maxConfigurationAge = Duration.ofMinutes(30);
+        private final ApacheHttpTransport.Builder httpTransport = ApacheHttpTransport.builder();
+        private Transport transport;
+        private StateParser stateParser = new JacksonStateParser(MAPPER);
+        private Executor executor = ForkJoinPool.commonPool();
+        private ClientMetrics metrics = ClientMetrics.NOOP;
+        private Duration stateCacheTtl;
+        private int maxBodySize = 8 * 1024 * 1024;
+        private int stringPoolSize = 4096;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the URL of the DSN Now configuration (default https://eyes.nasa.gov/apps/dsn-now/config.xml).
+         * This is useful for fetching from a mirror or caching proxy.
+         *
+         * @param configurationUrl the configuration URL
+         * @return this builder
+         */
+        public Builder configurationUrl(String configurationUrl) {
+            this.configurationUrl = configurationUrl;
+            return this;
+        }
+
+        /**
+         * Sets the URL of the DSN state (default https://eyes.nasa.gov/dsn/data/dsn.xml).
+         * This is useful for fetching from a mirror or caching proxy.
+         *
+         * @param stateUrl the state URL
+         * @return this builder
+         */
+        public Builder stateUrl(String stateUrl) {
+            this.stateUrl = stateUrl;
+            return this;
+        }
+
+        /**
+         * Sets the maximum configuration age before {@link #fetchMergedData()} will trigger refresh (default 30 mins).
+         *
+         * @param maxConfigurationAge the maximum configuration age
+         * @return this builder
+         */
+        public Builder maxConfigurationAge(Duration maxConfigurationAge) {
+            this.maxConfigurationAge = maxConfigurationAge;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections across all routes (default 4).
+         *
+         * @param maxConnectionsTotal the maximum number of pooled connections
+         * @return this builder
+         */
+        public Builder maxConnectionsTotal(int maxConnectionsTotal) {
+            httpTransport.maxConnectionsTotal(maxConnectionsTotal);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections per route (default 2).
+         *
+         * @param maxConnectionsPerRoute the maximum number of pooled connections per route
+         * @return this builder
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            httpTransport.maxConnectionsPerRoute(maxConnectionsPerRoute);
+            return this;
+        }
+
+        /**
+         * Sets how long an idle connection is kept alive when the server does not specify a keep-alive duration
+         * (default 1 min). Idle connections are evicted from the pool after this duration.
+         *
+         * @param keepAlive the keep-alive duration
+         * @return this builder
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            httpTransport.keepAlive(keepAlive);
+            return this;
+        }
+
+        /**
+         * Sets the total time to live of a pooled connection, regardless of activity (default 15 mins).
+         *
+         * @param connectionTimeToLive the connection time to live
+         * @return this builder
+         */
+        public Builder connectionTimeToLive(Duration connectionTimeToLive) {
+            httpTransport.connectionTimeToLive(connectionTimeToLive);
+            return this;
+        }
+
+        /**
+         * Sets the timeout for establishing a new connection (default 10 secs).
+         *
+         * @param connectTimeout the connect timeout
+         * @return this builder
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            httpTransport.connectTimeout(connectTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the maximum period of inactivity between two consecutive data packets (default 30 secs).
+         *
+         * @param socketTimeout the socket timeout
+         * @return this builder
+         */
+        public Builder socketTimeout(Duration socketTimeout) {
+            httpTransport.socketTimeout(socketTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for a response once the request has been sent (default 30 secs).
+         *
+         * @param responseTimeout the response timeout
+         * @return this builder
+         */
+        public Builder responseTimeout(Duration responseTimeout) {
+            httpTransport.responseTimeout(responseTimeout);
+            return this;
+        }
+
+        /**
+         * Sets whether documents are requested with gzip or deflate compression (default true).
+         * A compressed response is buffered as it was received, and decompressed as it is parsed. The maximum body size
+         * applies to both the compressed and the decompressed body.
+         *
+         * @param compression whether to request compression
+         * @return this builder
+         */
+        public Builder compression(boolean compression) {
+            httpTransport.compression(compression);
+            return this;
+        }
+
+        /**
+         * Sets the parser used to read the DSN state (default {@link JacksonStateParser}).
+         * {@link net.adambruce.dsn.now.serde.StaxStateParser} produces the same state with considerably less
+         * allocation, which is worthwhile when polling frequently.
+         *
+         * @param stateParser the state parser
+         * @return this builder
+         */
+        public Builder stateParser(StateParser stateParser) {
+            this.stateParser = stateParser;
+            return this;
+        }
+
+        /**
+         * Sets the executor used to deserialize responses to asynchronous requests (default
+         * {@link ForkJoinPool#commonPool()}).
+         *
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the metrics which record the client's requests, parsing and merging (default {@link ClientMetrics#NOOP}).
+         * See {@link net.adambruce.dsn.now.metrics.micrometer.MicrometerClientMetrics} for recording to Micrometer.
+         *
+         * @param metrics the metrics
+         * @return this builder
+         */
+        public Builder metrics(ClientMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Enables sharing of state fetches between callers, serving the most recently fetched state for up to the given
+         * TTL (default disabled).
+         * Once enabled, {@link #fetchState()} and the methods built on it behave as their overloads taking a maximum
+         * age, with the TTL as that age. A TTL of {@link Duration#ZERO} only shares in-flight requests.
+         *
+         * @param stateCacheTtl the state cache TTL
+         * @return this builder
+         */
+        public Builder stateCacheTtl(Duration stateCacheTtl) {
+            this.stateCacheTtl = stateCacheTtl;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a response body (default 8 MiB).
+         * A larger response fails rather than being read, protecting against a misbehaving server or proxy.
+         * Response bodies are read into buffers which are reused between requests, and grow up to this size.
+         *
+         * @param maxBodySize the maximum body size in bytes
+         * @return this builder
+         */
+        public Builder maxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * Sets the number of strings held by the client's {@link StringPool} (default 4096), or disables the pool if
+         * zero.
+         * The names, activities, bands and signal types of each state, and the names in the configuration, are
+         * replaced with pooled instances, so consecutive states share their strings rather than each holding copies.
+         *
+         * @param stringPoolSize the number of pooled strings
+         * @return this builder
+         */
+        public Builder stringPoolSize(int stringPoolSize) {
+            this.stringPoolSize = stringPoolSize;
+            return this;
+        }
+
+        /**
+         * Sets the transport used to fetch documents (default an {@link ApacheHttpTransport}).
+         * Once a transport is set, the connection settings of this builder are ignored. The transport is closed when the
+         * client is closed.
+         *
+         * @param transport the transport
+         * @return this builder
+         */
+        public Builder transport(Transport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Creates a new client, along with its transport if one has not been set.
+         *
+         * @return a new client
+         */
+        public DeepSpaceNetworkClient build() {
+            return new DeepSpaceNetworkClient(this, transport != null ? transport : httpTransport.build());
+        }
+    }
 }
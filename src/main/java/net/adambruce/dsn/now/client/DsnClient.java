@@ -0,0 +1,112 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A source of DSN Now configurations and states.
+ * <p>
+ * {@link DeepSpaceNetworkClient} fetches them from the DSN Now API, and {@link ReplayClient} serves previously
+ * recorded documents, so code written against this interface can be driven by either. Implementations must be
+ * thread-safe, and should be closed once they are no longer required.
+ */
+public interface DsnClient extends Closeable {
+
+    /**
+     * Fetches the DSN Now configuration.
+     *
+     * @return the configuration
+     * @throws Exception the configuration could not be fetched
+     */
+    Configuration fetchConfiguration() throws Exception;
+
+    /**
+     * Asynchronously fetches the DSN Now configuration.
+     *
+     * @return a future completed with the configuration, or completed exceptionally if it could not be fetched
+     */
+    CompletableFuture<Configuration> fetchConfigurationAsync();
+
+    /**
+     * Fetches the current state of the DSN.
+     *
+     * @return the current DSN state
+     * @throws Exception the state could not be fetched
+     */
+    State fetchState() throws Exception;
+
+    /**
+     * Fetches the current state of the DSN, accepting a previously fetched state no older than the given age.
+     *
+     * @param maxAge the maximum age of a previously fetched state
+     * @return the current DSN state
+     * @throws Exception the state could not be fetched
+     */
+    State fetchState(Duration maxAge) throws Exception;
+
+    /**
+     * Asynchronously fetches the current state of the DSN.
+     *
+     * @return a future completed with the current DSN state, or completed exceptionally if it could not be fetched
+     */
+    CompletableFuture<State> fetchStateAsync();
+
+    /**
+     * Asynchronously fetches the current state of the DSN, accepting a previously fetched state no older than the
+     * given age.
+     *
+     * @param maxAge the maximum age of a previously fetched state
+     * @return a future completed with the current DSN state, or completed exceptionally if it could not be fetched
+     */
+    CompletableFuture<State> fetchStateAsync(Duration maxAge);
+
+    /**
+     * Fetches the current state of the DSN and merges it with the DSN Now configuration.
+     *
+     * @return the current DSN state merged with the DSN Now configuration
+     * @throws Exception the state or configuration could not be fetched
+     */
+    MergedData fetchMergedData() throws Exception;
+
+    /**
+     * Fetches the current state of the DSN, accepting a previously fetched state no older than the given age, and
+     * merges it with the DSN Now configuration.
+     *
+     * @param maxAge the maximum age of a previously fetched state
+     * @return the current DSN state merged with the DSN Now configuration
+     * @throws Exception the state or configuration could not be fetched
+     */
+    MergedData fetchMergedData(Duration maxAge) throws Exception;
+
+    /**
+     * Merges a previously fetched state with the DSN Now configuration, without fetching the state again.
+     *
+     * @param state the state
+     * @return the state merged with the DSN Now configuration
+     * @throws Exception the configuration could not be fetched
+     */
+    MergedData merge(State state) throws Exception;
+
+    /**
+     * Asynchronously fetches the current state of the DSN and merges it with the DSN Now configuration.
+     *
+     * @return a future completed with the current DSN state merged with the DSN Now configuration, or completed
+     * exceptionally if the state or configuration could not be fetched
+     */
+    CompletableFuture<MergedData> fetchMergedDataAsync();
+
+    /**
+     * Asynchronously fetches the current state of the DSN, accepting a previously fetched state no older than the
+     * given age, and merges it with the DSN Now configuration.
+     *
+     * @param maxAge the maximum age of a previously fetched state
+     * @return a future completed with the current DSN state merged with the DSN Now configuration, or completed
+     * exceptionally if the state or configuration could not be fetched
+     */
+    CompletableFuture<MergedData> fetchMergedDataAsync(Duration maxAge);
+}
@@ -0,0 +1,429 @@
+package net.adambruce.dsn.now.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.adambruce.dsn.now.journal.JournalReader;
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import net.adambruce.dsn.now.serde.StateParser;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Client which serves previously recorded DSN Now documents instead of fetching them from the DSN Now API.
+ * <p>
+ * The states are read from a directory of dsn.xml documents, in file name order, or from a {@link JournalReader
+ * journal}. Each fetch of a state returns the next recorded state, so concurrent callers each receive a different
+ * state unless they share a fetch through a maximum age. The configuration is read from a config.xml document in the
+ * same directory, unless one is set on the builder.
+ * <p>
+ * By default, states are replayed in real time: a fetch waits until as much time has passed since the first state was
+ * replayed as passed between the recording of the two states. A speed of N replays N times faster, and
+ * {@link #AS_FAST_AS_POSSIBLE} never waits. Once every state has been replayed, fetches fail with an
+ * {@link EOFException}.
+ */
+public class ReplayClient implements DsnClient {
+
+    /**
+     * The speed at which states are replayed as soon as they are fetched, without waiting.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private static final ObjectMapper MAPPER = DsnXmlMapper.create();
+    private static final String CONFIGURATION_FILE = "config.xml";
+
+    private final AtomicReference<CachedState> state = new AtomicReference<>();
+    private final SingleFlight<State> stateRefresh = new SingleFlight<>();
+
+    private final Iterator<State> states;
+    private final Closeable source;
+    private final Configuration configuration;
+    private final ConfigurationMerger merger;
+    private final double speed;
+    private final Executor executor;
+    private final LongSupplier nanoTime;
+    private final Sleeper sleeper;
+
+    // Guarded by this
+    private Instant firstTimestamp;
+    private long firstNanos;
+
+    private ReplayClient(Builder builder, Configuration configuration, Iterator<State> states, Closeable source) {
+        this.states = states;
+        this.source = source;
+        this.configuration = configuration;
+        this.merger = configuration != null ? new ConfigurationMerger(configuration) : null;
+        this.speed = builder.speed;
+        this.executor = builder.executor;
+        this.nanoTime = builder.nanoTime;
+        this.sleeper = builder.sleeper;
+    }
+
+    /**
+     * Creates a new builder for a client replaying the dsn.xml documents in a directory.
+     * Every document with an .xml extension other than config.xml is replayed, in file name order.
+     *
+     * @param directory the directory of recorded documents
+     * @return a new builder
+     */
+    public static Builder fromDirectory(Path directory) {
+        return new Builder(directory, false);
+    }
+
+    /**
+     * Creates a new builder for a client replaying every state in a journal.
+     *
+     * @param directory the journal directory
+     * @return a new builder
+     */
+    public static Builder fromJournal(Path directory) {
+        return new Builder(directory, true);
+    }
+
+    /**
+     * Gets the recorded configuration.
+     *
+     * @return the configuration
+     * @throws IllegalStateException no configuration was recorded or set on the builder
+     */
+    @Override
+    public Configuration fetchConfiguration() {
+        if (configuration == null) {
+            throw new IllegalStateException("no configuration was recorded or set for the replay");
+        }
+        return configuration;
+    }
+
+    /**
+     * Asynchronously gets the recorded configuration.
+     *
+     * @return a future completed with the configuration, or completed exceptionally if no configuration was recorded
+     * or set on the builder
+     */
+    @Override
+    public CompletableFuture<Configuration> fetchConfigurationAsync() {
+        return async(this::fetchConfiguration);
+    }
+
+    /**
+     * Replays the next recorded state, waiting until it is due.
+     *
+     * @return the next recorded state
+     * @throws EOFException every recorded state has been replayed
+     * @throws IOException the next recorded state could not be read
+     * @throws InterruptedException the thread was interrupted while waiting for the state to be due
+     */
+    @Override
+    public State fetchState() throws Exception {
+        State next;
+        long due;
+        synchronized (this) {
+            try {
+                if (!states.hasNext()) {
+                    throw new EOFException("every recorded state has been replayed");
+                }
+                next = states.next();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            due = dueNanos(next.getTimestamp());
+        }
+
+        long delay = due - nanoTime.getAsLong();
+        if (delay > 0) {
+            sleeper.sleep(delay);
+        }
+        state.set(new CachedState(next, Instant.now()));
+        return next;
+    }
+
+    /**
+     * Returns the most recently replayed state if it was replayed no longer ago than the given age, or otherwise
+     * replays the next recorded state. Concurrent callers share the replay of a single state.
+     *
+     * @param maxAge the maximum age of a previously replayed state
+     * @return the most recently replayed state, or the next recorded state
+     * @throws Exception the next recorded state could not be replayed, as for {@link #fetchState()}
+     */
+    @Override
+    public State fetchState(Duration maxAge) throws Exception {
+        CachedState cached = state.get();
+        if (cached != null && cached.isFresh(maxAge)) {
+            return cached.getState();
+        }
+
+        return stateRefresh.call(this::fetchState);
+    }
+
+    /**
+     * Asynchronously replays the next recorded state, waiting on the client's executor until it is due.
+     *
+     * @return a future completed with the next recorded state, or completed exceptionally if it could not be replayed
+     */
+    @Override
+    public CompletableFuture<State> fetchStateAsync() {
+        return async(this::fetchState);
+    }
+
+    /**
+     * Asynchronously replays a state as for {@link #fetchState(Duration)}, on the client's executor.
+     *
+     * @param maxAge the maximum age of a previously replayed state
+     * @return a future completed with the most recently replayed state, or the next recorded state, or completed
+     * exceptionally if it could not be replayed
+     */
+    @Override
+    public CompletableFuture<State> fetchStateAsync(Duration maxAge) {
+        return async(() -> fetchState(maxAge));
+    }
+
+    /**
+     * Replays the next recorded state as for {@link #fetchState()}, and merges it with the recorded configuration.
+     *
+     * @return the next recorded state merged with the recorded configuration
+     * @throws IllegalStateException no configuration was recorded or set on the builder
+     * @throws Exception the next recorded state could not be replayed
+     */
+    @Override
+    public MergedData fetchMergedData() throws Exception {
+        return merger().apply(fetchState());
+    }
+
+    /**
+     * Replays a state as for {@link #fetchState(Duration)}, and merges it with the recorded configuration.
+     *
+     * @param maxAge the maximum age of a previously replayed state
+     * @return the replayed state merged with the recorded configuration
+     * @throws IllegalStateException no configuration was recorded or set on the builder
+     * @throws Exception the next recorded state could not be replayed
+     */
+    @Override
+    public MergedData fetchMergedData(Duration maxAge) throws Exception {
+        return merger().apply(fetchState(maxAge));
+    }
+
+    /**
+     * Merges a state with the recorded configuration, without replaying another state.
+     *
+     * @param state the state
+     * @return the state merged with the recorded configuration
+     * @throws IllegalStateException no configuration was recorded or set on the builder
+     */
+    @Override
+    public MergedData merge(State state) {
+        return merger().apply(state);
+    }
+
+    /**
+     * Asynchronously replays the next recorded state as for {@link #fetchStateAsync()}, and merges it with the
+     * recorded configuration.
+     *
+     * @return a future completed with the next recorded state merged with the recorded configuration, or completed
+     * exceptionally if no configuration was recorded or the state could not be replayed
+     */
+    @Override
+    public CompletableFuture<MergedData> fetchMergedDataAsync() {
+        return async(this::fetchMergedData);
+    }
+
+    /**
+     * Asynchronously replays a state as for {@link #fetchStateAsync(Duration)}, and merges it with the recorded
+     * configuration.
+     *
+     * @param maxAge the maximum age of a previously replayed state
+     * @return a future completed with the replayed state merged with the recorded configuration, or completed
+     * exceptionally if no configuration was recorded or the state could not be replayed
+     */
+    @Override
+    public CompletableFuture<MergedData> fetchMergedDataAsync(Duration maxAge) {
+        return async(() -> fetchMergedData(maxAge));
+    }
+
+    /**
+     * Closes the client, and the journal it replays from.
+     *
+     * @throws IOException the journal could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private ConfigurationMerger merger() {
+        fetchConfiguration();
+        return merger;
+    }
+
+    private long dueNanos(Instant timestamp) {
+        long now = nanoTime.getAsLong();
+        if (timestamp == null) {
+            return now;
+        }
+        if (firstTimestamp == null) {
+            firstTimestamp = timestamp;
+            firstNanos = now;
+        }
+        return firstNanos + (long) (Duration.between(firstTimestamp, timestamp).toNanos() / speed);
+    }
+
+    private <T> CompletableFuture<T> async(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Exception ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    private static Iterator<State> recordedStates(Path directory, StateParser parser) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.xml")) {
+            for (Path file : stream) {
+                if (!file.getFileName().toString().equals(CONFIGURATION_FILE)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files.stream().map(file -> parse(parser, file)).iterator();
+    }
+
+    private static State parse(StateParser parser, Path file) {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return parser.parse(stream);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Waits for a number of nanoseconds.
+     */
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    /**
+     * Builder for {@link ReplayClient}.
+     */
+    public static final class Builder {
+
+        private final Path directory;
+        private final boolean journal;
+        private Configuration configuration;
+        private double speed = 1;
+        private StateParser stateParser = new StaxStateParser();
+        private Executor executor = ForkJoinPool.commonPool();
+        private LongSupplier nanoTime = System::nanoTime;
+        private Sleeper sleeper = TimeUnit.NANOSECONDS::sleep;
+
+        private Builder(Path directory, boolean journal) {
+            this.directory = directory;
+            this.journal = journal;
+        }
+
+        /**
+         * Sets the configuration to replay, instead of the config.xml document in the directory.
+         *
+         * @param configuration the configuration
+         * @return this builder
+         */
+        public Builder configuration(Configuration configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        /**
+         * Sets the speed of the replay relative to real time (default 1).
+         * Use {@link #AS_FAST_AS_POSSIBLE} to replay each state as soon as it is fetched.
+         *
+         * @param speed the replay speed
+         * @return this builder
+         */
+        public Builder speed(double speed) {
+            this.speed = speed;
+            return this;
+        }
+
+        /**
+         * Sets the parser used to parse recorded dsn.xml documents (default {@link StaxStateParser}).
+         *
+         * @param stateParser the state parser
+         * @return this builder
+         */
+        public Builder stateParser(StateParser stateParser) {
+            this.stateParser = stateParser;
+            return this;
+        }
+
+        /**
+         * Sets the executor used to replay states for asynchronous requests (default
+         * {@link ForkJoinPool#commonPool()}). Replaying waits on the executor until each state is due, so a dedicated
+         * executor is recommended unless the replay runs as fast as possible.
+         *
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        Builder sleeper(Sleeper sleeper) {
+            this.sleeper = sleeper;
+            return this;
+        }
+
+        /**
+         * Creates the client, reading the recorded configuration and opening the recorded states.
+         *
+         * @return the client
+         * @throws IOException the directory or configuration could not be read, or the journal could not be opened
+         */
+        public ReplayClient build() throws IOException {
+            Configuration replayed = configuration != null ? configuration : readConfiguration();
+            if (journal) {
+                JournalReader reader = JournalReader.open(directory, stateParser);
+                Iterator<State> states = reader.iterator(Instant.ofEpochMilli(Long.MIN_VALUE),
+                        Instant.ofEpochMilli(Long.MAX_VALUE));
+                return new ReplayClient(this, replayed, states, reader);
+            }
+            return new ReplayClient(this, replayed, recordedStates(directory, stateParser), () -> { });
+        }
+
+        private Configuration readConfiguration() throws IOException {
+            Path file = directory.resolve(CONFIGURATION_FILE);
+            return Files.exists(file) ? MAPPER.readValue(file.toFile(), Configuration.class) : null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package net.adambruce.dsn.now.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls, so that at most one task is in flight at a time and all other callers share its result.
+ *
+ * @param <T> the type of the task result
+ */
+class SingleFlight<T> {
+
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+
+    /**
+     * Runs the task on the calling thread, or waits for the result of the task already in flight.
+     *
+     * @param task the task to run
+     * @return the result of the task
+     * @throws Exception the task failed
+     */
+    T call(Callable<T> task) throws Exception {
+        CompletableFuture<T> candidate = new CompletableFuture<>();
+        CompletableFuture<T> current = inFlight.updateAndGet(future -> future != null ? future : candidate);
+        if (current != candidate) {
+            return await(current);
+        }
+
+        try {
+            T value = task.call();
+            candidate.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            candidate.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.compareAndSet(candidate, null);
+        }
+    }
+
+    /**
+     * Starts the asynchronous task, or joins the task already in flight.
+     * Each caller receives its own future, so that a caller cancelling or completing its future does not affect the
+     * others.
+     *
+     * @param task the task to start
+     * @return a future completed with the result of the task
+     */
+    CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> candidate = new CompletableFuture<>();
+        CompletableFuture<T> current = inFlight.updateAndGet(future -> future != null ? future : candidate);
+        if (current != candidate) {
+            return current.thenApply(Function.identity());
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = task.get();
+        } catch (Throwable ex) {
+            inFlight.compareAndSet(candidate, null);
+            candidate.completeExceptionally(ex);
+            return candidate.thenApply(Function.identity());
+        }
+        result.whenComplete((value, ex) -> {
+            inFlight.compareAndSet(candidate, null);
+            if (ex != null) {
+                candidate.completeExceptionally(ex);
+            } else {
+                candidate.complete(value);
+            }
+        });
+        return candidate.thenApply(Function.identity());
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+}
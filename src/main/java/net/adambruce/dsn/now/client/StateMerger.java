@@ -0,0 +1,331 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.config.Dish;
+import net.adambruce.dsn.now.model.config.Site;
+import net.adambruce.dsn.now.model.config.Spacecraft;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedSpacecraftData;
+import net.adambruce.dsn.now.model.merged.MergedStationData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+import net.adambruce.dsn.now.util.LongMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Merges the DSN state with the DSN Now configuration.
+ * <p>
+ * Targets and signals are joined to the configured spacecraft by spacecraft ID. The configuration does not number its
+ * spacecraft, so each ID is joined by name the first time it is reported in a state, and by ID alone from then on.
+ * <p>
+ * A merge can reuse the unchanged parts of the previous merge. A merged dish is reused when its dish in the state
+ * would be merged into the same data, so the dishes of consecutive snapshots which did not change are the same
+ * instances. A station reports its current time, which advances with every state, so merged stations are in practice
+ * rebuilt on every poll; a rebuilt station shares the previous list of dishes when all of them were reused. A merged
+ * station, and the list of stations, is only reused when the station times are also unchanged, such as when the same
+ * state is merged again.
+ */
+final class StateMerger {
+
+    private final Map<String, Station> dsnStationByName;
+    private final Map<String, net.adambruce.dsn.now.model.state.Dish> dsnDishByName;
+    private final SpacecraftJoin join;
+
+    private StateMerger(ConfigurationIndex index, State state, MergedData previous) {
+        dsnStationByName = ConfigurationIndex.index(state.getStations(), Station::getName);
+        dsnDishByName = ConfigurationIndex.index(state.getDishes(), net.adambruce.dsn.now.model.state.Dish::getName);
+        join = new SpacecraftJoin(index, previous);
+    }
+
+    /**
+     * Merges the state with the configuration, reusing the unchanged parts of a previous merge.
+     * The previous merge is only used if it was made with the same configuration.
+     *
+     * @param configuration the configuration
+     * @param index the index of the configuration
+     * @param state the state
+     * @param previous the previous merge, or null
+     * @return the merged data
+     */
+    static MergedData merge(Configuration configuration, ConfigurationIndex index, State state,
+                            CachedMerge previous) {
+        MergedData previousData = previous != null && previous.getConfiguration() == configuration
+                ? previous.getMergedData()
+                : null;
+        StateMerger merger = new StateMerger(index, state, previousData);
+
+        List<Site> sites = configuration.getSites();
+        List<MergedStationData> previousStations = previousData != null ? previousData.getStations() : null;
+        List<MergedStationData> stations = new ArrayList<>(sites.size());
+        for (int i = 0; i < sites.size(); i++) {
+            // The previous merge was made with the same configuration, so its stations are in the same order
+            MergedStationData previousStation = previousStations != null ? previousStations.get(i) : null;
+            stations.add(merger.getMergedStation(sites.get(i), previousStation));
+        }
+        List<MergedSpacecraftData> spacecraft = Collections.unmodifiableList(merger.join.spacecraft);
+
+        if (previousData != null) {
+            stations = reuse(stations, previousData.getStations());
+            spacecraft = reuse(spacecraft, previousData.getSpacecraft());
+            // Unchanged stations hold the same dishes, and so the same spacecraft. As station times advance with every
+            // state, consecutive polls rarely leave every station unchanged
+            if (stations == previousData.getStations()
+                    && Objects.equals(state.getTimestamp(), previousData.getTimestamp())) {
+                return previousData;
+            }
+        }
+
+        return new MergedData(
+                stations,
+                state.getTimestamp(),
+                spacecraft
+        );
+    }
+
+    private MergedTargetData getMergedTarget(Target target) {
+        MergedSpacecraftData spacecraft = join.join(target.getId(), target.getName());
+
+        return new MergedTargetData(
+                target.getName(),
+                target.getId(),
+                target.getUpLegRange(),
+                target.getDownLegRange(),
+                target.getRoundTripLightTime(),
+                spacecraft != null ? spacecraft.getExplorerName() : null,
+                spacecraft != null ? spacecraft.getFriendlyAcronym() : null,
+                spacecraft != null ? spacecraft.getFriendlyName() : null,
+                spacecraft != null ? spacecraft.getThumbnail() : null
+        );
+    }
+
+    private MergedDishData getMergedDish(Dish configDish, MergedDishData previous) {
+        net.adambruce.dsn.now.model.state.Dish dish = dsnDishByName.get(configDish.getName());
+
+        if (previous != null && isUnchanged(dish, previous)) {
+            if (dish != null) {
+                // The spacecraft of the dish are still part of this state
+                for (Target target : dish.getTargets()) {
+                    join.join(target.getId(), target.getName());
+                }
+                join.joinSignals(dish.getUpSignals());
+                join.joinSignals(dish.getDownSignals());
+            }
+            return previous;
+        }
+
+        List<MergedTargetData> targets = Collections.emptyList();
+        if (dish != null) {
+            targets = dish.getTargets().stream().map(this::getMergedTarget).collect(Collectors.toList());
+            // Signals are joined after the targets, whose IDs they share, so that they are usually joined by ID alone
+            join.joinSignals(dish.getUpSignals());
+            join.joinSignals(dish.getDownSignals());
+        }
+
+        return new MergedDishData(
+                configDish.getName(),
+                configDish.getFriendlyName(),
+                configDish.getType(),
+                dish != null ? dish.getAzimuth() : null,
+                dish != null ? dish.getElevation() : null,
+                dish != null ? dish.getWindSpeed() : null,
+                dish != null ? dish.getMultipleSpacecraftPerAperture() : null,
+                dish != null ? dish.getArray() : null,
+                dish != null ? dish.getDeltaDifferentialOneWayRanging() : null,
+                dish != null ? dish.getActivity() : null,
+                dish != null ? dish.getUpSignals() : null,
+                dish != null ? dish.getDownSignals() : null,
+                targets
+        );
+    }
+
+    private MergedStationData getMergedStation(Site configSite, MergedStationData previous) {
+        Station station = dsnStationByName.get(configSite.getName());
+
+        List<Dish> configDishes = configSite.getDishes();
+        List<MergedDishData> previousDishes = previous != null ? previous.getDishes() : null;
+        List<MergedDishData> dishes = new ArrayList<>(configDishes.size());
+        for (int i = 0; i < configDishes.size(); i++) {
+            dishes.add(getMergedDish(configDishes.get(i), previousDishes != null ? previousDishes.get(i) : null));
+        }
+
+        if (previous != null) {
+            dishes = reuse(dishes, previousDishes);
+            if (dishes == previousDishes
+                    && Objects.equals(station != null ? station.getTime() : null, previous.getTime())
+                    && Objects.equals(station != null ? station.getTimeZoneOffset() : null,
+                        previous.getTimeZoneOffset())) {
+                return previous;
+            }
+        }
+
+        return new MergedStationData(
+                configSite.getName(),
+                configSite.getFriendlyName(),
+                configSite.getLongitude(),
+                configSite.getLatitude(),
+                station != null ? station.getTime() : null,
+                station != null ? station.getTimeZoneOffset() : null,
+                dishes
+        );
+    }
+
+    /**
+     * Checks whether a dish in the state would be merged into the same data as a previously merged dish.
+     * The dish is compared with the merged dish directly rather than with the previous state, so the previous state
+     * does not need to be indexed. A merged dish has signal lists if, and only if, it was merged with a dish.
+     */
+    private static boolean isUnchanged(net.adambruce.dsn.now.model.state.Dish dish, MergedDishData previous) {
+        if (dish == null) {
+            return previous.getUpSignals() == null;
+        }
+        return previous.getUpSignals() != null
+                && Objects.equals(dish.getAzimuth(), previous.getAzimuth())
+                && Objects.equals(dish.getElevation(), previous.getElevation())
+                && Objects.equals(dish.getWindSpeed(), previous.getWindSpeed())
+                && Objects.equals(dish.getMultipleSpacecraftPerAperture(), previous.getMultipleSpacecraftPerAperture())
+                && Objects.equals(dish.getArray(), previous.getArray())
+                && Objects.equals(dish.getDeltaDifferentialOneWayRanging(),
+                    previous.getDeltaDifferentialOneWayRanging())
+                && Objects.equals(dish.getActivity(), previous.getActivity())
+                && dish.getUpSignals().equals(previous.getUpSignals())
+                && dish.getDownSignals().equals(previous.getDownSignals())
+                && isUnchanged(dish.getTargets(), previous.getTarget());
+    }
+
+    /**
+     * Checks whether targets would be merged into the same data as previously merged targets. The configured details of
+     * a spacecraft depend only on its name.
+     */
+    private static boolean isUnchanged(List<Target> targets, List<MergedTargetData> previous) {
+        if (targets.size() != previous.size()) {
+            return false;
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            Target target = targets.get(i);
+            MergedTargetData merged = previous.get(i);
+            if (!Objects.equals(target.getName(), merged.getName())
+                    || !Objects.equals(target.getId(), merged.getId())
+                    || !Objects.equals(target.getUpLegRange(), merged.getUpLegRange())
+                    || !Objects.equals(target.getDownLegRange(), merged.getDownLegRange())
+                    || !Objects.equals(target.getRoundTripLightTime(), merged.getRoundTripLightTime())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the previous list if it holds the same instances as the new one, so that an unchanged list is shared.
+     */
+    private static <T> List<T> reuse(List<T> values, List<T> previous) {
+        if (values.size() != previous.size()) {
+            return values;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) != previous.get(i)) {
+                return values;
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Joins the spacecraft reported by the targets and signals of a state to the configuration.
+     * Spacecraft are keyed by the absolute value of their ID, as targets report the ID of a spacecraft and signals
+     * report its negation. An entry without an ID, or with a different name to the one first reported with its ID
+     * (the DSN reports several placeholder targets under one ID), is joined by name instead.
+     */
+    private static final class SpacecraftJoin {
+
+        private final ConfigurationIndex index;
+        private final MergedData previous;
+        private final LongMap<MergedSpacecraftData> spacecraftById = new LongMap<>();
+        private final Map<String, MergedSpacecraftData> spacecraftWithoutId = new HashMap<>();
+        private final List<MergedSpacecraftData> spacecraft = new ArrayList<>();
+
+        SpacecraftJoin(ConfigurationIndex index, MergedData previous) {
+            this.index = index;
+            this.previous = previous;
+        }
+
+        /**
+         * Joins a spacecraft to the configuration, adding it to the spacecraft of the state if it is new.
+         *
+         * @param id the ID of the spacecraft, of either sign, or null if it has none
+         * @param name the name of the spacecraft, or null if it has none
+         * @return the spacecraft, or null if it has neither an ID nor a name
+         */
+        MergedSpacecraftData join(Long id, String name) {
+            if (id == null) {
+                if (name == null) {
+                    return null;
+                }
+                MergedSpacecraftData joined = spacecraftWithoutId.get(name);
+                if (joined == null) {
+                    joined = reuseWithoutId(name);
+                    spacecraftWithoutId.put(name, joined);
+                    spacecraft.add(joined);
+                }
+                return joined;
+            }
+
+            long key = Math.abs(id);
+            MergedSpacecraftData joined = spacecraftById.get(key);
+            if (joined == null) {
+                MergedSpacecraftData reused = previous != null ? previous.getSpacecraftById(key) : null;
+                joined = reused != null && Objects.equals(reused.getName(), name) ? reused : joinByName(key, name);
+                spacecraftById.put(key, joined);
+                spacecraft.add(joined);
+            } else if (name != null && !name.equalsIgnoreCase(joined.getName())) {
+                // Pooled names are the same instance, so equalsIgnoreCase returns without comparing characters
+                return joinByName(key, name);
+            }
+            return joined;
+        }
+
+        void joinSignals(List<Signal> signals) {
+            for (Signal signal : signals) {
+                join(signal.getSpacecraftId(), signal.getSpacecraft());
+            }
+        }
+
+        /**
+         * Finds a spacecraft without an ID in the previous merge, or joins it if there is none.
+         * The previous spacecraft are scanned, as nearly every spacecraft has an ID.
+         */
+        private MergedSpacecraftData reuseWithoutId(String name) {
+            if (previous != null) {
+                for (MergedSpacecraftData reused : previous.getSpacecraft()) {
+                    if (reused.getId() == null && name.equals(reused.getName())) {
+                        return reused;
+                    }
+                }
+            }
+            return joinByName(null, name);
+        }
+
+        private MergedSpacecraftData joinByName(Long id, String name) {
+            Spacecraft configured = name != null ? index.getSpacecraft(name) : null;
+
+            return new MergedSpacecraftData(
+                    id,
+                    name,
+                    configured != null ? configured.getExplorerName() : null,
+                    configured != null ? configured.getFriendlyAcronym() : null,
+                    configured != null ? configured.getFriendlyName() : null,
+                    configured != null ? configured.getThumbnail() : null
+            );
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package net.adambruce.dsn.now.diff;
+
+import lombok.Value;
+
+/**
+ * A dish whose activity has changed.
+ */
+@Value
+public class ActivityChanged implements DishEvent {
+    /**
+     * the name of the dish
+     * @return the name of the dish
+     */
+    String dishName;
+
+    /**
+     * the previous activity of the dish
+     * @return the previous activity of the dish
+     */
+    String previousActivity;
+
+    /**
+     * the activity of the dish
+     * @return the activity of the dish
+     */
+    String activity;
+}
@@ -0,0 +1,39 @@
+package net.adambruce.dsn.now.diff;
+
+import lombok.Value;
+
+/**
+ * A dish whose azimuth or elevation has changed.
+ */
+@Value
+public class AntennaMoved implements DishEvent {
+    /**
+     * the name of the dish
+     * @return the name of the dish
+     */
+    String dishName;
+
+    /**
+     * the previous azimuth of the dish (degrees)
+     * @return the previous azimuth of the dish (degrees)
+     */
+    Long previousAzimuth;
+
+    /**
+     * the previous elevation of the dish (degrees)
+     * @return the previous elevation of the dish (degrees)
+     */
+    Long previousElevation;
+
+    /**
+     * the azimuth of the dish (degrees)
+     * @return the azimuth of the dish (degrees)
+     */
+    Long azimuth;
+
+    /**
+     * the elevation of the dish (degrees)
+     * @return the elevation of the dish (degrees)
+     */
+    Long elevation;
+}
@@ -0,0 +1,45 @@
+package net.adambruce.dsn.now.diff;
+
+import lombok.Value;
+
+/**
+ * A signal whose data rate has changed.
+ */
+@Value
+public class DataRateChanged implements DishEvent {
+    /**
+     * the name of the dish
+     * @return the name of the dish
+     */
+    String dishName;
+
+    /**
+     * the direction of the signal
+     * @return the direction of the signal
+     */
+    SignalDirection direction;
+
+    /**
+     * the ID of the spacecraft
+     * @return the ID of the spacecraft
+     */
+    Long spacecraftId;
+
+    /**
+     * the band of the signal
+     * @return the band of the signal
+     */
+    String band;
+
+    /**
+     * the previous rate of data transmitted / received
+     * @return the previous rate of data transmitted / received
+     */
+    Long previousDataRate;
+
+    /**
+     * the rate of data transmitted / received
+     * @return the rate of data transmitted / received
+     */
+    Long dataRate;
+}
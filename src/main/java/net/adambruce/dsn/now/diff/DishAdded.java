@@ -0,0 +1,15 @@
+package net.adambruce.dsn.now.diff;
+
+import lombok.Value;
+
+/**
+ * A dish which has appeared in the snapshot.
+ */
+@Value
+public class DishAdded implements DishEvent {
+    /**
+     * the name of the dish
+     * @return the name of the dish
+     */
+    String dishName;
+}
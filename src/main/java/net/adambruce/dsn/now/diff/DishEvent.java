@@ -0,0 +1,14 @@
+package net.adambruce.dsn.now.diff;
+
+/**
+ * A change to a dish between two consecutive snapshots.
+ */
+public interface DishEvent {
+
+    /**
+     * Gets the name of the dish which changed.
+     *
+     * @return the name of the dish
+     */
+    String getDishName();
+}
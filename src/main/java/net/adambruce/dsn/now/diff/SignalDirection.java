@@ -0,0 +1,16 @@
+package net.adambruce.dsn.now.diff;
+
+/**
+ * The direction of a signal, relative to the dish.
+ */
+public enum SignalDirection {
+    /**
+     * An uplink signal, transmitted from the dish to the spacecraft.
+     */
+    UP,
+
+    /**
+     * A downlink signal, received by the dish from the spacecraft.
+     */
+    DOWN
+}
@@ -0,0 +1,33 @@
+package net.adambruce.dsn.now.diff;
+
+import lombok.Value;
+
+/**
+ * A signal which has become active on a dish.
+ */
+@Value
+public class SignalStarted implements DishEvent {
+    /**
+     * the name of the dish
+     * @return the name of the dish
+     */
+    String dishName;
+
+    /**
+     * the direction of the signal
+     * @return the direction of the signal
+     */
+    SignalDirection direction;
+
+    /**
+     * the ID of the spacecraft
+     * @return the ID of the spacecraft
+     */
+    Long spacecraftId;
+
+    /**
+     * the band of the signal
+     * @return the band of the signal
+     */
+    String band;
+}
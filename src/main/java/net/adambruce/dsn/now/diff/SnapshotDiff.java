@@ -0,0 +1,374 @@
+package net.adambruce.dsn.now.diff;
+
+import lombok.Value;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedStationData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Target;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Compares two consecutive snapshots of the DSN, and emits an event for each change to a dish.
+ * <p>
+ * Dishes are matched by name, targets by ID, and signals by spacecraft ID and band within each direction. Targets or
+ * signals of a dish which share a key, such as the placeholder targets the DSN reports with the same ID, are paired in
+ * the order they appear, so only a change in their number is reported. Each comparison runs in time linear in the size
+ * of the snapshots, and a dish which is the same instance in both snapshots, as merged data shares between merges, is
+ * not compared at all.
+ * <p>
+ * A dish which appears is reported as {@link DishAdded}, followed by events for each of its active signals and
+ * targets. A dish which disappears is reported with events for each of its active signals and targets, followed by
+ * {@link DishRemoved}.
+ */
+public final class SnapshotDiff {
+
+    private SnapshotDiff() {
+    }
+
+    /**
+     * Compares two DSN states.
+     *
+     * @param previous the previous state, or null if there is no previous state
+     * @param current the current state, or null if there is no current state
+     * @return the changes from the previous state to the current state, in dish order
+     */
+    public static List<DishEvent> diff(State previous, State current) {
+        return diff(
+                previous != null ? previous.getDishes() : Collections.emptyList(),
+                current != null ? current.getDishes() : Collections.emptyList(),
+                StateDishAccessor.INSTANCE
+        );
+    }
+
+    /**
+     * Compares two merged DSN states.
+     *
+     * @param previous the previous merged data, or null if there is no previous merged data
+     * @param current the current merged data, or null if there is no current merged data
+     * @return the changes from the previous merged data to the current merged data, in dish order
+     */
+    public static List<DishEvent> diff(MergedData previous, MergedData current) {
+        return diff(getDishes(previous), getDishes(current), MergedDishAccessor.INSTANCE);
+    }
+
+    private static List<MergedDishData> getDishes(MergedData data) {
+        if (data == null) {
+            return Collections.emptyList();
+        }
+        List<MergedDishData> dishes = new ArrayList<>();
+        for (MergedStationData station : data.getStations()) {
+            dishes.addAll(station.getDishes());
+        }
+        return dishes;
+    }
+
+    private static <D, T> List<DishEvent> diff(List<D> previous, List<D> current, DishAccessor<D, T> accessor) {
+        Map<String, D> previousByName = new LinkedHashMap<>();
+        for (D dish : previous) {
+            previousByName.putIfAbsent(accessor.getName(dish), dish);
+        }
+
+        List<DishEvent> events = new ArrayList<>();
+        for (D dish : current) {
+            String name = accessor.getName(dish);
+            D previousDish = previousByName.remove(name);
+            if (previousDish == null) {
+                events.add(new DishAdded(name));
+            }
+            if (previousDish != dish) {
+                diffDish(name, previousDish, dish, accessor, events);
+            }
+        }
+
+        // Any dish left unmatched is no longer in the snapshot
+        for (Map.Entry<String, D> removed : previousByName.entrySet()) {
+            diffDish(removed.getKey(), removed.getValue(), null, accessor, events);
+            events.add(new DishRemoved(removed.getKey()));
+        }
+        return events;
+    }
+
+    private static <D, T> void diffDish(String name, D previous, D current, DishAccessor<D, T> accessor,
+                                        List<DishEvent> events) {
+        if (previous != null && current != null) {
+            Long previousAzimuth = accessor.getAzimuth(previous);
+            Long previousElevation = accessor.getElevation(previous);
+            Long azimuth = accessor.getAzimuth(current);
+            Long elevation = accessor.getElevation(current);
+            if (!Objects.equals(previousAzimuth, azimuth) || !Objects.equals(previousElevation, elevation)) {
+                events.add(new AntennaMoved(name, previousAzimuth, previousElevation, azimuth, elevation));
+            }
+
+            String previousActivity = accessor.getActivity(previous);
+            String activity = accessor.getActivity(current);
+            if (!Objects.equals(previousActivity, activity)) {
+                events.add(new ActivityChanged(name, previousActivity, activity));
+            }
+        }
+
+        diffSignals(name, SignalDirection.UP, getUpSignals(previous, accessor), getUpSignals(current, accessor),
+                events);
+        diffSignals(name, SignalDirection.DOWN, getDownSignals(previous, accessor), getDownSignals(current, accessor),
+                events);
+        diffTargets(name, getTargets(previous, accessor), getTargets(current, accessor), accessor, events);
+    }
+
+    private static void diffSignals(String name, SignalDirection direction, List<Signal> previous,
+                                    List<Signal> current, List<DishEvent> events) {
+        PreviousItems<SignalKey> previousByKey = new PreviousItems<>(previous,
+                signal -> new SignalKey(signal.getSpacecraftId(), signal.getBand()));
+
+        for (Signal signal : current) {
+            int index = previousByKey.match(new SignalKey(signal.getSpacecraftId(), signal.getBand()));
+            Signal previousSignal = index != -1 ? previous.get(index) : null;
+            boolean wasActive = previousSignal != null && isActive(previousSignal);
+            boolean active = isActive(signal);
+            if (active && !wasActive) {
+                events.add(new SignalStarted(name, direction, signal.getSpacecraftId(), signal.getBand()));
+            } else if (wasActive && !active) {
+                events.add(new SignalStopped(name, direction, signal.getSpacecraftId(), signal.getBand()));
+            } else if (active && !Objects.equals(previousSignal.getDataRate(), signal.getDataRate())) {
+                events.add(new DataRateChanged(name, direction, signal.getSpacecraftId(), signal.getBand(),
+                        previousSignal.getDataRate(), signal.getDataRate()));
+            }
+        }
+
+        for (int i = 0; i < previous.size(); i++) {
+            Signal signal = previous.get(i);
+            if (!previousByKey.isMatched(i) && isActive(signal)) {
+                events.add(new SignalStopped(name, direction, signal.getSpacecraftId(), signal.getBand()));
+            }
+        }
+    }
+
+    private static <D, T> void diffTargets(String name, List<T> previous, List<T> current,
+                                           DishAccessor<D, T> accessor, List<DishEvent> events) {
+        PreviousItems<Long> previousById = new PreviousItems<>(previous, accessor::getTargetId);
+
+        for (T target : current) {
+            Long id = accessor.getTargetId(target);
+            if (previousById.match(id) == -1) {
+                events.add(new TargetAcquired(name, id, accessor.getTargetName(target)));
+            }
+        }
+
+        for (int i = 0; i < previous.size(); i++) {
+            if (!previousById.isMatched(i)) {
+                T target = previous.get(i);
+                events.add(new TargetLost(name, accessor.getTargetId(target), accessor.getTargetName(target)));
+            }
+        }
+    }
+
+    private static boolean isActive(Signal signal) {
+        return Boolean.TRUE.equals(signal.getActive());
+    }
+
+    private static <D> List<Signal> getUpSignals(D dish, DishAccessor<D, ?> accessor) {
+        return dish != null ? nullToEmpty(accessor.getUpSignals(dish)) : Collections.emptyList();
+    }
+
+    private static <D> List<Signal> getDownSignals(D dish, DishAccessor<D, ?> accessor) {
+        return dish != null ? nullToEmpty(accessor.getDownSignals(dish)) : Collections.emptyList();
+    }
+
+    private static <D, T> List<T> getTargets(D dish, DishAccessor<D, T> accessor) {
+        return dish != null ? nullToEmpty(accessor.getTargets(dish)) : Collections.emptyList();
+    }
+
+    private static <E> List<E> nullToEmpty(List<E> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+
+    /**
+     * Indexes the previous items of a dish by key, and pairs each current item with the first previous item with the
+     * same key which has not yet been paired, so that items with duplicate keys are matched by count.
+     * The previous items with each key are chained by position, so duplicates need no list of their own.
+     *
+     * @param <K> the type of key
+     */
+    private static final class PreviousItems<K> {
+
+        private final Map<K, Integer> firstUnmatched = new HashMap<>();
+        private final int[] nextWithSameKey;
+        private final boolean[] matched;
+
+        <T> PreviousItems(List<T> items, Function<? super T, K> key) {
+            nextWithSameKey = new int[items.size()];
+            matched = new boolean[items.size()];
+            // Chain from the last item back, so each key maps to its first item
+            for (int i = items.size() - 1; i >= 0; i--) {
+                Integer next = firstUnmatched.put(key.apply(items.get(i)), i);
+                nextWithSameKey[i] = next != null ? next : -1;
+            }
+        }
+
+        /**
+         * Pairs a current item with the first unpaired previous item with the same key.
+         *
+         * @return the position of the previous item, or -1 if every previous item with the key has been paired
+         */
+        int match(K key) {
+            Integer index = firstUnmatched.get(key);
+            if (index == null) {
+                return -1;
+            }
+            if (nextWithSameKey[index] != -1) {
+                firstUnmatched.put(key, nextWithSameKey[index]);
+            } else {
+                firstUnmatched.remove(key);
+            }
+            matched[index] = true;
+            return index;
+        }
+
+        boolean isMatched(int index) {
+            return matched[index];
+        }
+    }
+
+    /**
+     * Identifies a signal within the signals of a dish in one direction.
+     */
+    @Value
+    private static class SignalKey {
+        Long spacecraftId;
+        String band;
+    }
+
+    /**
+     * Reads the fields compared by the diff, so that the same comparison can be used for each snapshot type.
+     *
+     * @param <D> the type of dish
+     * @param <T> the type of target
+     */
+    private interface DishAccessor<D, T> {
+        String getName(D dish);
+
+        Long getAzimuth(D dish);
+
+        Long getElevation(D dish);
+
+        String getActivity(D dish);
+
+        List<Signal> getUpSignals(D dish);
+
+        List<Signal> getDownSignals(D dish);
+
+        List<T> getTargets(D dish);
+
+        Long getTargetId(T target);
+
+        String getTargetName(T target);
+    }
+
+    private enum StateDishAccessor implements DishAccessor<Dish, Target> {
+        INSTANCE;
+
+        @Override
+        public String getName(Dish dish) {
+            return dish.getName();
+        }
+
+        @Override
+        public Long getAzimuth(Dish dish) {
+            return dish.getAzimuth();
+        }
+
+        @Override
+        public Long getElevation(Dish dish) {
+            return dish.getElevation();
+        }
+
+        @Override
+        public String getActivity(Dish dish) {
+            return dish.getActivity();
+        }
+
+        @Override
+        public List<Signal> getUpSignals(Dish dish) {
+            return dish.getUpSignals();
+        }
+
+        @Override
+        public List<Signal> getDownSignals(Dish dish) {
+            return dish.getDownSignals();
+        }
+
+        @Override
+        public List<Target> getTargets(Dish dish) {
+            return dish.getTargets();
+        }
+
+        @Override
+        public Long getTargetId(Target target) {
+            return target.getId();
+        }
+
+        @Override
+        public String getTargetName(Target target) {
+            return target.getName();
+        }
+    }
+
+    private enum MergedDishAccessor implements DishAccessor<MergedDishData, MergedTargetData> {
+        INSTANCE;
+
+        @Override
+        public String getName(MergedDishData dish) {
+            return dish.getName();
+        }
+
+        @Override
+        public Long getAzimuth(MergedDishData dish) {
+            return dish.getAzimuth();
+        }
+
+        @Override
+        public Long getElevation(MergedDishData dish) {
+            return dish.getElevation();
+        }
+
+        @Override
+        public String getActivity(MergedDishData dish) {
+            return dish.getActivity();
+        }
+
+        @Override
+        public List<Signal> getUpSignals(MergedDishData dish) {
+            return dish.getUpSignals();
+        }
+
+        @Override
+        public List<Signal> getDownSignals(MergedDishData dish) {
+            return dish.getDownSignals();
+        }
+
+        @Override
+        public List<MergedTargetData> getTargets(MergedDishData dish) {
+            return dish.getTarget();
+        }
+
+        @Override
+        public Long getTargetId(MergedTargetData target) {
+            return target.getId();
+        }
+
+        @Override
+        public String getTargetName(MergedTargetData target) {
+            return target.getName();
+        }
+    }
+}
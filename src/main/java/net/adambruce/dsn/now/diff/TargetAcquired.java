@@ -0,0 +1,27 @@
+package net.adambruce.dsn.now.diff;
+
+import lombok.Value;
+
+/**
+ * A target which a dish has started tracking.
+ */
+@Value
+public class TargetAcquired implements DishEvent {
+    /**
+     * the name of the dish
+     * @return the name of the dish
+     */
+    String dishName;
+
+    /**
+     * the ID of the target
+     * @return the ID of the target
+     */
+    Long targetId;
+
+    /**
+     * the name of the target
+     * @return the name of the target
+     */
+    String targetName;
+}
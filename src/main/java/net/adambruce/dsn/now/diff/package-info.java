@@ -0,0 +1,4 @@
+/**
+ * Contains the snapshot diff engine and the change events it emits.
+ */
+package net.adambruce.dsn.now.diff;
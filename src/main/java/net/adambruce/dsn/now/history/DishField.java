@@ -0,0 +1,31 @@
+package net.adambruce.dsn.now.history;
+
+/**
+ * A numeric field of a dish which can be queried as a {@link LongSeries}.
+ */
+public enum DishField {
+    /**
+     * The azimuth in degrees.
+     */
+    AZIMUTH(DishSample.AZIMUTH),
+
+    /**
+     * The elevation in degrees.
+     */
+    ELEVATION(DishSample.ELEVATION),
+
+    /**
+     * The wind speed in km/h.
+     */
+    WIND_SPEED(DishSample.WIND_SPEED);
+
+    private final int column;
+
+    DishField(int column) {
+        this.column = column;
+    }
+
+    int getColumn() {
+        return column;
+    }
+}
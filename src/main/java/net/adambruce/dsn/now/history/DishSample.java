@@ -0,0 +1,98 @@
+package net.adambruce.dsn.now.history;
+
+import java.time.Instant;
+
+/**
+ * A view of one recorded sample of a dish.
+ * <p>
+ * The view reads directly from the history, and is reused for each sample passed to a query's consumer, so it must
+ * not be retained once the consumer returns.
+ */
+public final class DishSample {
+
+    static final int LONG_COLUMNS = 4;
+    static final int AZIMUTH = 1;
+    static final int ELEVATION = 2;
+    static final int WIND_SPEED = 3;
+
+    static final int INT_COLUMNS = 2;
+    static final int NAME = 0;
+    static final int ACTIVITY = 1;
+
+    private final RingTable table;
+    private final StringDictionary strings;
+    private int slot;
+
+    DishSample(RingTable table, StringDictionary strings) {
+        this.table = table;
+        this.strings = strings;
+    }
+
+    DishSample at(int slot) {
+        this.slot = slot;
+        return this;
+    }
+
+    /**
+     * Gets the timestamp of the snapshot.
+     *
+     * @return the timestamp, in milliseconds since the epoch
+     */
+    public long getTimestampMillis() {
+        return table.getTimestamp(slot);
+    }
+
+    /**
+     * Gets the timestamp of the snapshot.
+     *
+     * @return the timestamp
+     */
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(getTimestampMillis());
+    }
+
+    /**
+     * Gets the name of the dish.
+     *
+     * @return the name of the dish
+     */
+    public String getName() {
+        return strings.decode(table.getInt(slot, NAME));
+    }
+
+    /**
+     * Gets the activity of the dish.
+     *
+     * @return the activity of the dish, or null if it was not reported
+     */
+    public String getActivity() {
+        return strings.decode(table.getInt(slot, ACTIVITY));
+    }
+
+    /**
+     * Gets the azimuth of the dish.
+     *
+     * @return the azimuth in degrees, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getAzimuth() {
+        return table.getLong(slot, AZIMUTH);
+    }
+
+    /**
+     * Gets the elevation of the dish.
+     *
+     * @return the elevation in degrees, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getElevation() {
+        return table.getLong(slot, ELEVATION);
+    }
+
+    /**
+     * Gets the wind speed at the dish.
+     *
+     * @return the wind speed in km/h, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getWindSpeed() {
+        return table.getLong(slot, WIND_SPEED);
+    }
+}
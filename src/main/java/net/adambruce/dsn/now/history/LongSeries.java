@@ -0,0 +1,91 @@
+package net.adambruce.dsn.now.history;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * A series of numeric values, each with the timestamp of the snapshot it was recorded from, in timestamp order.
+ * The series is a copy, so it remains valid as the history changes.
+ */
+public final class LongSeries {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] timestamps;
+    private long[] values;
+    private int size;
+
+    LongSeries() {
+        this.timestamps = new long[INITIAL_CAPACITY];
+        this.values = new long[INITIAL_CAPACITY];
+    }
+
+    void add(long timestamp, long value) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Gets the number of values in the series.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the timestamp of a value.
+     *
+     * @param index the index of the value
+     * @return the timestamp, in milliseconds since the epoch
+     * @throws IndexOutOfBoundsException the index is outside the series
+     */
+    public long getTimestampMillis(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    /**
+     * Gets the timestamp of a value.
+     *
+     * @param index the index of the value
+     * @return the timestamp
+     * @throws IndexOutOfBoundsException the index is outside the series
+     */
+    public Instant getTimestamp(int index) {
+        return Instant.ofEpochMilli(getTimestampMillis(index));
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param index the index of the value
+     * @return the value
+     * @throws IndexOutOfBoundsException the index is outside the series
+     */
+    public long getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Copies the values of the series.
+     *
+     * @return the values, in timestamp order
+     */
+    public long[] toValueArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " is outside a series of size " + size);
+        }
+    }
+}
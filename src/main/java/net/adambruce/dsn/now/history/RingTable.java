@@ -0,0 +1,191 @@
+package net.adambruce.dsn.now.history;
+
+/**
+ * A table of samples held in primitive column arrays, which are used as a ring buffer.
+ * <p>
+ * Rows are appended in timestamp order, so the oldest rows are always evicted first and a time range can be found by
+ * binary search. Rows are addressed by their slot in the column arrays, which does not change until the row is
+ * evicted or the table is resized. The first long column holds the timestamp of each row, in epoch milliseconds.
+ */
+final class RingTable {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final long[][] longs;
+    private final int[][] ints;
+    private int capacity;
+    private int head;
+    private int size;
+
+    /**
+     * Creates a new, empty table.
+     *
+     * @param longColumns the number of long columns, including the timestamp
+     * @param intColumns the number of int columns
+     */
+    RingTable(int longColumns, int intColumns) {
+        this.longs = new long[longColumns][0];
+        this.ints = new int[intColumns][0];
+    }
+
+    /**
+     * Appends a row, growing the table if it is full.
+     *
+     * @param timestamp the timestamp of the row, which must be no earlier than that of the newest row
+     * @return the slot of the new row
+     */
+    int append(long timestamp) {
+        if (size == capacity) {
+            resize(nextCapacity());
+        }
+        int slot = slot(size++);
+        longs[0][slot] = timestamp;
+        return slot;
+    }
+
+    /**
+     * Evicts every row older than the given timestamp.
+     *
+     * @param timestamp the timestamp of the oldest row to keep
+     */
+    void evictBefore(long timestamp) {
+        int evicted = firstIndexAtOrAfter(timestamp);
+        head = slot(evicted);
+        size -= evicted;
+    }
+
+    /**
+     * Finds the first row no older than the given timestamp.
+     *
+     * @param timestamp the timestamp
+     * @return the index of the row, counting from the oldest row, or the size of the table if there is no such row
+     */
+    int firstIndexAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (longs[0][slot(mid)] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Converts the index of a row, counting from the oldest row, to its slot.
+     *
+     * @param index the index of the row
+     * @return the slot of the row
+     */
+    int slot(int index) {
+        int slot = head + index;
+        return slot < capacity ? slot : slot - capacity;
+    }
+
+    long getLong(int slot, int column) {
+        return longs[column][slot];
+    }
+
+    void setLong(int slot, int column, long value) {
+        longs[column][slot] = value;
+    }
+
+    int getInt(int slot, int column) {
+        return ints[column][slot];
+    }
+
+    void setInt(int slot, int column, int value) {
+        ints[column][slot] = value;
+    }
+
+    /**
+     * Gets the timestamp of a row.
+     *
+     * @param slot the slot of the row
+     * @return the timestamp of the row
+     */
+    long getTimestamp(int slot) {
+        return longs[0][slot];
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the number of rows
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of rows the table can hold before it grows.
+     *
+     * @return the capacity of the table
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the capacity the table grows to when it is full.
+     *
+     * @return the next capacity of the table
+     */
+    int nextCapacity() {
+        return Math.max(INITIAL_CAPACITY, capacity * 2);
+    }
+
+    /**
+     * Changes the number of rows the table can hold, keeping every row.
+     *
+     * @param newCapacity the new capacity, which must be at least the number of rows
+     */
+    void resize(int newCapacity) {
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = unwrap(longs[i], newCapacity);
+        }
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = unwrap(ints[i], newCapacity);
+        }
+        capacity = newCapacity;
+        head = 0;
+    }
+
+    /**
+     * Gets the estimated size of a row.
+     *
+     * @return the estimated size of a row in bytes
+     */
+    long rowBytes() {
+        return longs.length * Long.BYTES + ints.length * Integer.BYTES;
+    }
+
+    /**
+     * Estimates the memory used by the table, including the capacity which is not yet used by rows.
+     *
+     * @return the estimated size of the table in bytes
+     */
+    long bytes() {
+        return capacity * rowBytes();
+    }
+
+    private long[] unwrap(long[] column, int newCapacity) {
+        // The oldest rows run from the head to the end of the array, and then wrap around to its start
+        int first = Math.min(size, capacity - head);
+        long[] resized = new long[newCapacity];
+        System.arraycopy(column, head, resized, 0, first);
+        System.arraycopy(column, 0, resized, first, size - first);
+        return resized;
+    }
+
+    private int[] unwrap(int[] column, int newCapacity) {
+        int first = Math.min(size, capacity - head);
+        int[] resized = new int[newCapacity];
+        System.arraycopy(column, head, resized, 0, first);
+        System.arraycopy(column, 0, resized, first, size - first);
+        return resized;
+    }
+}
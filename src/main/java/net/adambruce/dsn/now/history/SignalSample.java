@@ -0,0 +1,132 @@
+package net.adambruce.dsn.now.history;
+
+import net.adambruce.dsn.now.diff.SignalDirection;
+
+import java.time.Instant;
+
+/**
+ * A view of one recorded sample of a signal between a dish and a spacecraft.
+ * <p>
+ * The view reads directly from the history, and is reused for each sample passed to a query's consumer, so it must
+ * not be retained once the consumer returns.
+ */
+public final class SignalSample {
+
+    static final int LONG_COLUMNS = 5;
+    static final int SPACECRAFT_ID = 1;
+    static final int DATA_RATE = 2;
+    static final int FREQUENCY = 3;
+    static final int POWER = 4;
+
+    static final int INT_COLUMNS = 3;
+    static final int DISH = 0;
+    static final int BAND = 1;
+    static final int FLAGS = 2;
+
+    static final int FLAG_DOWN = 1;
+    static final int FLAG_ACTIVE = 2;
+
+    private final RingTable table;
+    private final StringDictionary strings;
+    private int slot;
+
+    SignalSample(RingTable table, StringDictionary strings) {
+        this.table = table;
+        this.strings = strings;
+    }
+
+    SignalSample at(int slot) {
+        this.slot = slot;
+        return this;
+    }
+
+    /**
+     * Gets the timestamp of the snapshot.
+     *
+     * @return the timestamp, in milliseconds since the epoch
+     */
+    public long getTimestampMillis() {
+        return table.getTimestamp(slot);
+    }
+
+    /**
+     * Gets the timestamp of the snapshot.
+     *
+     * @return the timestamp
+     */
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(getTimestampMillis());
+    }
+
+    /**
+     * Gets the name of the dish carrying the signal.
+     *
+     * @return the name of the dish
+     */
+    public String getDish() {
+        return strings.decode(table.getInt(slot, DISH));
+    }
+
+    /**
+     * Gets the ID of the spacecraft, as reported in the signal.
+     *
+     * @return the spacecraft ID, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getSpacecraftId() {
+        return table.getLong(slot, SPACECRAFT_ID);
+    }
+
+    /**
+     * Gets the direction of the signal.
+     *
+     * @return the direction of the signal
+     */
+    public SignalDirection getDirection() {
+        return (table.getInt(slot, FLAGS) & FLAG_DOWN) != 0 ? SignalDirection.DOWN : SignalDirection.UP;
+    }
+
+    /**
+     * Checks whether the signal was active.
+     *
+     * @return true if the signal was active
+     */
+    public boolean isActive() {
+        return (table.getInt(slot, FLAGS) & FLAG_ACTIVE) != 0;
+    }
+
+    /**
+     * Gets the band of the signal.
+     *
+     * @return the band, or null if it was not reported
+     */
+    public String getBand() {
+        return strings.decode(table.getInt(slot, BAND));
+    }
+
+    /**
+     * Gets the data rate of the signal.
+     *
+     * @return the data rate in bits per second, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getDataRate() {
+        return table.getLong(slot, DATA_RATE);
+    }
+
+    /**
+     * Gets the frequency of the signal.
+     *
+     * @return the frequency in Hz, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getFrequency() {
+        return table.getLong(slot, FREQUENCY);
+    }
+
+    /**
+     * Gets the power of the signal.
+     *
+     * @return the power in dBm, or {@link Double#NaN} if it was not reported
+     */
+    public double getPower() {
+        return Double.longBitsToDouble(table.getLong(slot, POWER));
+    }
+}
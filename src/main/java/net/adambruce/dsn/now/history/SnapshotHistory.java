@@ -0,0 +1,449 @@
+package net.adambruce.dsn.now.history;
+
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedStationData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Signal;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * A bounded history of DSN snapshots, held in a compact columnar layout rather than as {@link MergedData} objects.
+ * <p>
+ * Each snapshot is recorded as one row per dish, per signal and per target, with numeric fields in primitive arrays
+ * and strings such as dish names and activities dictionary-encoded. Rows are held in ring buffers, and the oldest
+ * snapshots are evicted once they are older than the maximum age, or to keep the ring buffers and the dictionary
+ * within the history's memory budget.
+ * <p>
+ * Queries read the columns directly and never build {@link MergedData} objects. Numeric fields which were not
+ * reported are recorded as {@link #MISSING}.
+ * <p>
+ * The history is safe for concurrent use. Queries run concurrently with each other, but not with recording, so
+ * query consumers should be quick.
+ */
+public class SnapshotHistory {
+
+    /**
+     * The value recorded for a numeric field which was not reported.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final long maxAgeMillis;
+    private final long maxBytes;
+
+    private final StringDictionary strings = new StringDictionary();
+    private final RingTable dishes = new RingTable(DishSample.LONG_COLUMNS, DishSample.INT_COLUMNS);
+    private final RingTable signals = new RingTable(SignalSample.LONG_COLUMNS, SignalSample.INT_COLUMNS);
+    private final RingTable targets = new RingTable(TargetSample.LONG_COLUMNS, TargetSample.INT_COLUMNS);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long newest = Long.MIN_VALUE;
+
+    SnapshotHistory(Builder builder) {
+        this.maxAgeMillis = builder.maxAge.toMillis();
+        this.maxBytes = builder.maxBytes;
+    }
+
+    /**
+     * Creates a new builder for a history.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Records a snapshot, evicting any snapshots which have fallen outside the history's bounds.
+     *
+     * @param data the snapshot
+     * @throws IllegalArgumentException the snapshot has no timestamp, or is older than the newest recorded snapshot
+     */
+    public void record(MergedData data) {
+        if (data.getTimestamp() == null) {
+            throw new IllegalArgumentException("snapshot has no timestamp");
+        }
+        long timestamp = data.getTimestamp().toEpochMilli();
+        lock.writeLock().lock();
+        try {
+            if (timestamp < newest) {
+                throw new IllegalArgumentException("snapshot at " + data.getTimestamp()
+                        + " is older than the newest recorded snapshot");
+            }
+            newest = timestamp;
+            evictBefore(timestamp - maxAgeMillis);
+            reserve(data, timestamp);
+            for (MergedStationData station : data.getStations()) {
+                for (MergedDishData dish : station.getDishes()) {
+                    recordDish(timestamp, dish);
+                }
+            }
+            fitBudget(timestamp);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reserve(MergedData data, long timestamp) {
+        int dishRows = 0;
+        int signalRows = 0;
+        int targetRows = 0;
+        for (MergedStationData station : data.getStations()) {
+            for (MergedDishData dish : station.getDishes()) {
+                dishRows++;
+                signalRows += size(dish.getUpSignals()) + size(dish.getDownSignals());
+                targetRows += size(dish.getTarget());
+            }
+        }
+        reserve(dishes, dishRows, timestamp);
+        reserve(signals, signalRows, timestamp);
+        reserve(targets, targetRows, timestamp);
+    }
+
+    private void reserve(RingTable table, int rows, long timestamp) {
+        // Once growing would exceed the budget, evict the oldest snapshots to make room in the ring instead
+        while (table.size() + rows > table.capacity()) {
+            int required = table.size() + rows;
+            long affordable = table.capacity() + Math.max(0, maxBytes - bytes()) / table.rowBytes();
+            long oldest = oldest();
+            if (required <= affordable || oldest >= timestamp) {
+                table.resize((int) Math.max(required, Math.min(table.nextCapacity(), affordable)));
+                return;
+            }
+            evictBefore(oldest + 1);
+        }
+    }
+
+    private void recordDish(long timestamp, MergedDishData dish) {
+        int name = strings.encode(dish.getName());
+        int slot = dishes.append(timestamp);
+        dishes.setLong(slot, DishSample.AZIMUTH, orMissing(dish.getAzimuth()));
+        dishes.setLong(slot, DishSample.ELEVATION, orMissing(dish.getElevation()));
+        dishes.setLong(slot, DishSample.WIND_SPEED, orMissing(dish.getWindSpeed()));
+        dishes.setInt(slot, DishSample.NAME, name);
+        dishes.setInt(slot, DishSample.ACTIVITY, strings.encode(dish.getActivity()));
+
+        recordSignals(timestamp, name, dish.getUpSignals(), 0);
+        recordSignals(timestamp, name, dish.getDownSignals(), SignalSample.FLAG_DOWN);
+        if (dish.getTarget() != null) {
+            for (MergedTargetData target : dish.getTarget()) {
+                slot = targets.append(timestamp);
+                targets.setLong(slot, TargetSample.ID, orMissing(target.getId()));
+                targets.setLong(slot, TargetSample.UP_LEG_RANGE, orMissing(target.getUpLegRange()));
+                targets.setLong(slot, TargetSample.DOWN_LEG_RANGE, orMissing(target.getDownLegRange()));
+                targets.setLong(slot, TargetSample.ROUND_TRIP_LIGHT_TIME, target.getRoundTripLightTime() != null
+                        ? target.getRoundTripLightTime().toMillis() : MISSING);
+                targets.setInt(slot, TargetSample.DISH, strings.retain(name));
+                targets.setInt(slot, TargetSample.NAME, strings.encode(target.getName()));
+            }
+        }
+    }
+
+    private void recordSignals(long timestamp, int dish, List<Signal> dishSignals, int direction) {
+        if (dishSignals == null) {
+            return;
+        }
+        for (Signal signal : dishSignals) {
+            int slot = signals.append(timestamp);
+            signals.setLong(slot, SignalSample.SPACECRAFT_ID, orMissing(signal.getSpacecraftId()));
+            signals.setLong(slot, SignalSample.DATA_RATE, orMissing(signal.getDataRate()));
+            signals.setLong(slot, SignalSample.FREQUENCY, orMissing(signal.getFrequency()));
+            signals.setLong(slot, SignalSample.POWER,
+                    Double.doubleToRawLongBits(signal.getPower() != null ? signal.getPower() : Double.NaN));
+            signals.setInt(slot, SignalSample.DISH, strings.retain(dish));
+            signals.setInt(slot, SignalSample.BAND, strings.encode(signal.getBand()));
+            signals.setInt(slot, SignalSample.FLAGS,
+                    Boolean.TRUE.equals(signal.getActive()) ? direction | SignalSample.FLAG_ACTIVE : direction);
+        }
+    }
+
+    private void fitBudget(long timestamp) {
+        // Rows are reserved within the budget, so only new strings can exceed it. Release the spare capacity first,
+        // and then evict whole snapshots, oldest first, but never the snapshot which was just recorded
+        while (bytes() > maxBytes) {
+            if (!trim()) {
+                long oldest = oldest();
+                if (oldest >= timestamp) {
+                    return;
+                }
+                evictBefore(oldest + 1);
+            }
+        }
+    }
+
+    private boolean trim() {
+        boolean trimmed = false;
+        for (RingTable table : new RingTable[]{dishes, signals, targets}) {
+            if (table.capacity() > table.size()) {
+                table.resize(table.size());
+                trimmed = true;
+            }
+        }
+        return trimmed;
+    }
+
+    private void evictBefore(long timestamp) {
+        evictBefore(dishes, timestamp, DishSample.NAME, DishSample.ACTIVITY);
+        evictBefore(signals, timestamp, SignalSample.DISH, SignalSample.BAND);
+        evictBefore(targets, timestamp, TargetSample.DISH, TargetSample.NAME);
+    }
+
+    private void evictBefore(RingTable table, long timestamp, int... stringColumns) {
+        int evicted = table.firstIndexAtOrAfter(timestamp);
+        for (int i = 0; i < evicted; i++) {
+            int slot = table.slot(i);
+            for (int column : stringColumns) {
+                strings.release(table.getInt(slot, column));
+            }
+        }
+        table.evictBefore(timestamp);
+    }
+
+    private long oldest() {
+        long oldest = Long.MAX_VALUE;
+        for (RingTable table : new RingTable[]{dishes, signals, targets}) {
+            if (table.size() > 0) {
+                oldest = Math.min(oldest, table.getTimestamp(table.slot(0)));
+            }
+        }
+        return oldest;
+    }
+
+    private long bytes() {
+        return dishes.bytes() + signals.bytes() + targets.bytes() + strings.bytes();
+    }
+
+    /**
+     * Gets the timestamp of the oldest recorded sample.
+     *
+     * @return the timestamp of the oldest sample, or null if the history is empty
+     */
+    public Instant getOldest() {
+        lock.readLock().lock();
+        try {
+            long oldest = oldest();
+            return oldest != Long.MAX_VALUE ? Instant.ofEpochMilli(oldest) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the memory used by the recorded samples, which is the figure bounded by the memory budget.
+     * The estimate includes the spare capacity of the ring buffers, and the strings held in the dictionary.
+     *
+     * @return the estimated size of the samples in bytes
+     */
+    public long getEstimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return bytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes each sample of a dish between two times to a consumer, in timestamp order.
+     *
+     * @param dish the name of the dish, such as {@code DSS43}
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @param consumer the consumer, which must not retain the sample
+     */
+    public void forEachDishSample(String dish, Instant from, Instant to, Consumer<? super DishSample> consumer) {
+        lock.readLock().lock();
+        try {
+            int code = strings.find(dish);
+            if (code == StringDictionary.NULL) {
+                return;
+            }
+            DishSample sample = new DishSample(dishes, strings);
+            scan(dishes, from, to, slot -> dishes.getInt(slot, DishSample.NAME) == code,
+                    slot -> consumer.accept(sample.at(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a field of a dish between two times, such as the elevation of DSS43 over the last hour.
+     * Samples where the field was not reported are left out.
+     *
+     * @param dish the name of the dish, such as {@code DSS43}
+     * @param field the field
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @return the values of the field, in timestamp order
+     */
+    public LongSeries getDishSeries(String dish, DishField field, Instant from, Instant to) {
+        lock.readLock().lock();
+        try {
+            int code = strings.find(dish);
+            if (code == StringDictionary.NULL) {
+                return new LongSeries();
+            }
+            return series(dishes, field.getColumn(), from, to,
+                    slot -> dishes.getInt(slot, DishSample.NAME) == code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes each signal sample of a spacecraft between two times to a consumer, in timestamp order.
+     * The DSN reports signals with the negated spacecraft ID, and targets with the positive ID, so either form
+     * matches.
+     *
+     * @param spacecraftId the spacecraft ID
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @param consumer the consumer, which must not retain the sample
+     */
+    public void forEachSignalSample(long spacecraftId, Instant from, Instant to,
+                                    Consumer<? super SignalSample> consumer) {
+        lock.readLock().lock();
+        try {
+            SignalSample sample = new SignalSample(signals, strings);
+            scan(signals, from, to, slot -> isSpacecraft(signals.getLong(slot, SignalSample.SPACECRAFT_ID),
+                    spacecraftId), slot -> consumer.accept(sample.at(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes each target sample of a spacecraft between two times to a consumer, in timestamp order.
+     * Either the positive or the negated spacecraft ID matches, as for {@link #forEachSignalSample}.
+     *
+     * @param spacecraftId the spacecraft ID
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @param consumer the consumer, which must not retain the sample
+     */
+    public void forEachTargetSample(long spacecraftId, Instant from, Instant to,
+                                    Consumer<? super TargetSample> consumer) {
+        lock.readLock().lock();
+        try {
+            TargetSample sample = new TargetSample(targets, strings);
+            scan(targets, from, to, slot -> isSpacecraft(targets.getLong(slot, TargetSample.ID), spacecraftId),
+                    slot -> consumer.accept(sample.at(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a field of a spacecraft's target between two times, such as its range over the last day.
+     * Either the positive or the negated spacecraft ID matches. Samples where the field was not reported are left out.
+     *
+     * @param spacecraftId the spacecraft ID
+     * @param field the field
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @return the values of the field, in timestamp order
+     */
+    public LongSeries getTargetSeries(long spacecraftId, TargetField field, Instant from, Instant to) {
+        lock.readLock().lock();
+        try {
+            return series(targets, field.getColumn(), from, to,
+                    slot -> isSpacecraft(targets.getLong(slot, TargetSample.ID), spacecraftId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static LongSeries series(RingTable table, int column, Instant from, Instant to, IntPredicate filter) {
+        LongSeries series = new LongSeries();
+        scan(table, from, to, filter, slot -> {
+            long value = table.getLong(slot, column);
+            if (value != MISSING) {
+                series.add(table.getTimestamp(slot), value);
+            }
+        });
+        return series;
+    }
+
+    private static void scan(RingTable table, Instant from, Instant to, IntPredicate filter, SlotConsumer consumer) {
+        long end = to.toEpochMilli();
+        for (int i = table.firstIndexAtOrAfter(from.toEpochMilli()); i < table.size(); i++) {
+            int slot = table.slot(i);
+            if (table.getTimestamp(slot) > end) {
+                return;
+            }
+            if (filter.test(slot)) {
+                consumer.accept(slot);
+            }
+        }
+    }
+
+    private static boolean isSpacecraft(long id, long spacecraftId) {
+        return id != MISSING && Math.abs(id) == Math.abs(spacecraftId);
+    }
+
+    private static int size(List<?> list) {
+        return list != null ? list.size() : 0;
+    }
+
+    private static long orMissing(Long value) {
+        return value != null ? value : MISSING;
+    }
+
+    @FunctionalInterface
+    private interface SlotConsumer {
+        void accept(int slot);
+    }
+
+    /**
+     * Builder for {@link SnapshotHistory}.
+     */
+    public static final class Builder {
+
+        private Duration maxAge = Duration.ofHours(24);
+        private long maxBytes = 64L * 1024 * 1024;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum age of a snapshot, relative to the newest snapshot, before it is evicted (default 24
+         * hours).
+         *
+         * @param maxAge the maximum snapshot age
+         * @return this builder
+         */
+        public Builder maxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * Sets the memory budget for recorded samples (default 64 MiB).
+         * The ring buffers only grow within the budget, and once they are full the oldest snapshots are evicted to
+         * make room, although the newest snapshot is always kept. See {@link SnapshotHistory#getEstimatedBytes()}.
+         *
+         * @param maxBytes the memory budget in bytes
+         * @return this builder
+         */
+        public Builder maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Creates a new, empty history.
+         *
+         * @return a new history
+         */
+        public SnapshotHistory build() {
+            return new SnapshotHistory(this);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package net.adambruce.dsn.now.history;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes strings as small integer codes, so that each distinct string is stored once however often it is recorded.
+ * Each row holding a code holds a reference to it, and a string is removed once the last row referencing it has been
+ * evicted, so that its code can be reused.
+ */
+final class StringDictionary {
+
+    /**
+     * The code of a null string.
+     */
+    static final int NULL = -1;
+
+    // The estimated overhead of each string: its map entry, boxed code, string header and character array header
+    private static final long ENTRY_BYTES = 96;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Deque<Integer> freeCodes = new ArrayDeque<>();
+    private int[] references = new int[0];
+    private long bytes;
+
+    /**
+     * Gets the code of a string, assigning a new code if the string is not in the dictionary, and adds a reference
+     * to it.
+     *
+     * @param string the string, or null
+     * @return the code of the string
+     */
+    int encode(String string) {
+        if (string == null) {
+            return NULL;
+        }
+        Integer code = codes.get(string);
+        if (code == null) {
+            code = freeCodes.poll();
+            if (code != null) {
+                strings.set(code, string);
+            } else {
+                code = strings.size();
+                strings.add(string);
+                if (code == references.length) {
+                    references = Arrays.copyOf(references, Math.max(16, code * 2));
+                }
+            }
+            codes.put(string, code);
+            bytes += entryBytes(string);
+        }
+        references[code]++;
+        return code;
+    }
+
+    /**
+     * Adds a reference to a code which is already referenced.
+     *
+     * @param code the code
+     * @return the code
+     */
+    int retain(int code) {
+        if (code != NULL) {
+            references[code]++;
+        }
+        return code;
+    }
+
+    /**
+     * Removes a reference to a code, removing its string once it is no longer referenced.
+     *
+     * @param code the code
+     */
+    void release(int code) {
+        if (code != NULL && --references[code] == 0) {
+            String string = strings.set(code, null);
+            codes.remove(string);
+            freeCodes.push(code);
+            bytes -= entryBytes(string);
+        }
+    }
+
+    /**
+     * Gets the code of a string without assigning one.
+     *
+     * @param string the string
+     * @return the code of the string, or {@link #NULL} if the string is not in the dictionary
+     */
+    int find(String string) {
+        Integer code = codes.get(string);
+        return code != null ? code : NULL;
+    }
+
+    /**
+     * Gets the string with the given code.
+     *
+     * @param code the code
+     * @return the string, or null if the code is {@link #NULL}
+     */
+    String decode(int code) {
+        return code != NULL ? strings.get(code) : null;
+    }
+
+    /**
+     * Estimates the memory used by the strings in the dictionary.
+     *
+     * @return the estimated size of the strings in bytes
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    private static long entryBytes(String string) {
+        return ENTRY_BYTES + (long) string.length() * Character.BYTES;
+    }
+}
@@ -0,0 +1,31 @@
+package net.adambruce.dsn.now.history;
+
+/**
+ * A numeric field of a target which can be queried as a {@link LongSeries}.
+ */
+public enum TargetField {
+    /**
+     * The up leg range in km.
+     */
+    UP_LEG_RANGE(TargetSample.UP_LEG_RANGE),
+
+    /**
+     * The down leg range in km.
+     */
+    DOWN_LEG_RANGE(TargetSample.DOWN_LEG_RANGE),
+
+    /**
+     * The round trip light time in milliseconds.
+     */
+    ROUND_TRIP_LIGHT_TIME(TargetSample.ROUND_TRIP_LIGHT_TIME);
+
+    private final int column;
+
+    TargetField(int column) {
+        this.column = column;
+    }
+
+    int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,108 @@
+package net.adambruce.dsn.now.history;
+
+import java.time.Instant;
+
+/**
+ * A view of one recorded sample of a dish's target.
+ * <p>
+ * The view reads directly from the history, and is reused for each sample passed to a query's consumer, so it must
+ * not be retained once the consumer returns.
+ */
+public final class TargetSample {
+
+    static final int LONG_COLUMNS = 5;
+    static final int ID = 1;
+    static final int UP_LEG_RANGE = 2;
+    static final int DOWN_LEG_RANGE = 3;
+    static final int ROUND_TRIP_LIGHT_TIME = 4;
+
+    static final int INT_COLUMNS = 2;
+    static final int DISH = 0;
+    static final int NAME = 1;
+
+    private final RingTable table;
+    private final StringDictionary strings;
+    private int slot;
+
+    TargetSample(RingTable table, StringDictionary strings) {
+        this.table = table;
+        this.strings = strings;
+    }
+
+    TargetSample at(int slot) {
+        this.slot = slot;
+        return this;
+    }
+
+    /**
+     * Gets the timestamp of the snapshot.
+     *
+     * @return the timestamp, in milliseconds since the epoch
+     */
+    public long getTimestampMillis() {
+        return table.getTimestamp(slot);
+    }
+
+    /**
+     * Gets the timestamp of the snapshot.
+     *
+     * @return the timestamp
+     */
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(getTimestampMillis());
+    }
+
+    /**
+     * Gets the name of the dish tracking the target.
+     *
+     * @return the name of the dish
+     */
+    public String getDish() {
+        return strings.decode(table.getInt(slot, DISH));
+    }
+
+    /**
+     * Gets the ID of the target.
+     *
+     * @return the target ID, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getId() {
+        return table.getLong(slot, ID);
+    }
+
+    /**
+     * Gets the name of the target.
+     *
+     * @return the name of the target, or null if it was not reported
+     */
+    public String getName() {
+        return strings.decode(table.getInt(slot, NAME));
+    }
+
+    /**
+     * Gets the up leg range of the target.
+     *
+     * @return the up leg range in km, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getUpLegRange() {
+        return table.getLong(slot, UP_LEG_RANGE);
+    }
+
+    /**
+     * Gets the down leg range of the target.
+     *
+     * @return the down leg range in km, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getDownLegRange() {
+        return table.getLong(slot, DOWN_LEG_RANGE);
+    }
+
+    /**
+     * Gets the round trip light time to the target.
+     *
+     * @return the round trip light time in milliseconds, or {@link SnapshotHistory#MISSING} if it was not reported
+     */
+    public long getRoundTripLightTimeMillis() {
+        return table.getLong(slot, ROUND_TRIP_LIGHT_TIME);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains a bounded, columnar history of DSN snapshots, and the views used to query it.
+ */
+package net.adambruce.dsn.now.history;
@@ -0,0 +1,219 @@
+package net.adambruce.dsn.now.journal;
+
+import net.adambruce.dsn.now.client.ConfigurationMerger;
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.serde.StateParser;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Replays the snapshots of a {@link SnapshotJournal}.
+ * <p>
+ * Segments are memory-mapped, so replay reads directly from the page cache without copying entries onto the heap,
+ * and the sparse index of each segment allows a replay to start at any time without scanning earlier entries.
+ * Binary entries are decoded directly, and raw dsn.xml entries are parsed with the reader's {@link StateParser}.
+ * <p>
+ * The reader sees the segments which existed when it was opened. The mappings are released once the reader is closed
+ * and no longer reachable.
+ */
+public class JournalReader implements Closeable {
+
+    private final StateParser parser;
+    private final List<Segment> segments;
+    private final long[] firstTimestamps;
+
+    private JournalReader(StateParser parser, List<Segment> segments) {
+        this.parser = parser;
+        this.segments = segments;
+        this.firstTimestamps = new long[segments.size()];
+        Segment.Entry entry = new Segment.Entry();
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            firstTimestamps[i] = segment.read(segment.firstOffset(), entry) ? entry.timestamp : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Opens the journal in the given directory, parsing raw dsn.xml entries with a {@link StaxStateParser}.
+     *
+     * @param directory the journal directory
+     * @return the reader
+     * @throws IOException the journal could not be opened
+     */
+    public static JournalReader open(Path directory) throws IOException {
+        return open(directory, new StaxStateParser());
+    }
+
+    /**
+     * Opens the journal in the given directory.
+     *
+     * @param directory the journal directory
+     * @param parser the parser for raw dsn.xml entries
+     * @return the reader
+     * @throws IOException the journal could not be opened
+     */
+    public static JournalReader open(Path directory, StateParser parser) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                long sequence = Segment.sequenceOf(file);
+                if (sequence >= 0) {
+                    sequences.add(sequence);
+                }
+            }
+        }
+        Collections.sort(sequences);
+
+        List<Segment> segments = new ArrayList<>(sequences.size());
+        for (long sequence : sequences) {
+            segments.add(Segment.open(directory, sequence));
+        }
+        return new JournalReader(parser, segments);
+    }
+
+    /**
+     * Replays the states journalled between two times, in the order they were appended.
+     *
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @param consumer the consumer of each state
+     * @throws IOException an entry could not be decoded
+     */
+    public void replay(Instant from, Instant to, Consumer<? super State> consumer) throws IOException {
+        Iterator<State> states = iterator(from, to);
+        while (states.hasNext()) {
+            State state;
+            try {
+                state = states.next();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            consumer.accept(state);
+        }
+    }
+
+    /**
+     * Iterates over the states journalled between two times, in the order they were appended.
+     * Each state is decoded as it is reached, so the reader must stay open until the iteration is complete.
+     *
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @return an iterator over the states, whose {@code next} method throws {@link UncheckedIOException} if an entry
+     * could not be decoded
+     */
+    public Iterator<State> iterator(Instant from, Instant to) {
+        return new Replay(from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    /**
+     * Replays the states journalled between two times, merged with the given configuration.
+     *
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @param configuration the configuration to merge each state with
+     * @param consumer the consumer of each merged state
+     * @throws IOException an entry could not be decoded
+     */
+    public void replayMergedData(Instant from, Instant to, Configuration configuration,
+                                 Consumer<? super MergedData> consumer) throws IOException {
+        ConfigurationMerger merger = new ConfigurationMerger(configuration);
+        replay(from, to, state -> consumer.accept(merger.apply(state)));
+    }
+
+    /**
+     * Closes the reader. Replaying after the reader has been closed replays nothing.
+     */
+    @Override
+    public void close() {
+        segments.clear();
+    }
+
+    private int firstSegment(long timestamp) {
+        // The range may start in the last segment which begins before it
+        int first = 0;
+        for (int i = 0; i < firstTimestamps.length; i++) {
+            if (firstTimestamps[i] < timestamp) {
+                first = i;
+            }
+        }
+        return first;
+    }
+
+    private State decode(Segment.Entry entry) throws IOException {
+        switch (entry.format) {
+            case Segment.FORMAT_BINARY:
+                return StateCodec.decode(entry.payload);
+            case Segment.FORMAT_XML:
+                return parser.parse(new ByteBufferInputStream(entry.payload));
+            default:
+                throw new IOException("journal entry has unknown format " + entry.format);
+        }
+    }
+
+    /**
+     * Scans the segments for entries in a range, starting at the last segment which begins before it.
+     */
+    private final class Replay implements Iterator<State> {
+
+        private final long start;
+        private final long end;
+        private final Segment.Entry entry = new Segment.Entry();
+        private int segment;
+        private int offset;
+        private boolean ready;
+
+        Replay(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.segment = firstSegment(start);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && segment < segments.size()) {
+                Segment current = segments.get(segment);
+                if (offset == 0) {
+                    offset = current.seek(start);
+                }
+                if (!current.read(offset, entry)) {
+                    segment++;
+                    offset = 0;
+                } else if (entry.timestamp > end) {
+                    segment = segments.size();
+                } else {
+                    offset = entry.next;
+                    ready = entry.timestamp >= start;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public State next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            try {
+                return decode(entry);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
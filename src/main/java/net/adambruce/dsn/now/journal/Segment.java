@@ -0,0 +1,203 @@
+package net.adambruce.dsn.now.journal;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A read-only, memory-mapped segment of a journal, along with its sparse timestamp index.
+ * <p>
+ * A segment file starts with a header holding {@link #MAGIC} and {@link #VERSION}, followed by entries. Each entry is
+ * a header of the payload length, the snapshot timestamp in epoch milliseconds, the payload format and the CRC-32 of
+ * the payload, followed by the payload. The index file holds a timestamp and segment offset for the first entry and
+ * then roughly every {@code indexInterval} bytes.
+ * <p>
+ * Reading stops at the first entry which is incomplete or fails its checksum, which is how a write torn by a crash
+ * appears.
+ */
+final class Segment {
+
+    static final int MAGIC = 0x44534E4A;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + 1;
+    static final int ENTRY_HEADER_SIZE = Integer.BYTES + Long.BYTES + 1 + Integer.BYTES;
+    static final int INDEX_ENTRY_SIZE = Long.BYTES + Long.BYTES;
+
+    static final byte FORMAT_XML = 1;
+    static final byte FORMAT_BINARY = 2;
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String INDEX_SUFFIX = ".index";
+
+    private final ByteBuffer buffer;
+    private final long[] indexTimestamps;
+    private final int[] indexOffsets;
+
+    private Segment(ByteBuffer buffer, long[] indexTimestamps, int[] indexOffsets) {
+        this.buffer = buffer;
+        this.indexTimestamps = indexTimestamps;
+        this.indexOffsets = indexOffsets;
+    }
+
+    /**
+     * Gets the path of the segment file with the given sequence number.
+     *
+     * @param directory the journal directory
+     * @param sequence the sequence number
+     * @return the path of the segment file
+     */
+    static Path segmentPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Gets the path of the index file of the segment with the given sequence number.
+     *
+     * @param directory the journal directory
+     * @param sequence the sequence number
+     * @return the path of the index file
+     */
+    static Path indexPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, INDEX_SUFFIX));
+    }
+
+    /**
+     * Gets the sequence number of a segment file.
+     *
+     * @param path the path of a file in the journal directory
+     * @return the sequence number, or -1 if the file is not a segment file
+     */
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Maps a segment and loads its index.
+     * A missing or partially written index is tolerated, as it only speeds up seeking.
+     *
+     * @param directory the journal directory
+     * @param sequence the sequence number of the segment
+     * @return the segment
+     * @throws IOException the segment could not be mapped, or is not a journal segment
+     */
+    static Segment open(Path directory, long sequence) throws IOException {
+        Path path = segmentPath(directory, sequence);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        // A segment shorter than its header was created just before a crash, and holds no entries
+        if (buffer.limit() >= HEADER_SIZE && (buffer.getInt(0) != MAGIC || buffer.get(Integer.BYTES) != VERSION)) {
+            throw new IOException(path + " is not a journal segment");
+        }
+
+        Path indexPath = indexPath(directory, sequence);
+        byte[] index = Files.exists(indexPath) ? Files.readAllBytes(indexPath) : new byte[0];
+        ByteBuffer indexBuffer = ByteBuffer.wrap(index);
+        int count = index.length / INDEX_ENTRY_SIZE;
+        long[] timestamps = new long[count];
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = indexBuffer.getLong();
+            offsets[i] = (int) indexBuffer.getLong();
+        }
+        return new Segment(buffer, timestamps, offsets);
+    }
+
+    /**
+     * Gets the offset of the first entry.
+     *
+     * @return the offset of the first entry
+     */
+    int firstOffset() {
+        return HEADER_SIZE;
+    }
+
+    /**
+     * Finds an offset from which to scan for the first entry no older than the given timestamp.
+     * The offset is that of the last indexed entry older than the timestamp, or of the first entry.
+     *
+     * @param timestamp the timestamp, in epoch milliseconds
+     * @return the offset of an entry
+     */
+    int seek(long timestamp) {
+        int low = 0;
+        int high = indexTimestamps.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (indexTimestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low > 0 ? indexOffsets[low - 1] : HEADER_SIZE;
+    }
+
+    /**
+     * Reads the entry at the given offset.
+     *
+     * @param offset the offset of the entry
+     * @param entry the entry to fill in
+     * @return true if a complete, valid entry was read, or false if the end of the segment was reached
+     */
+    boolean read(int offset, Entry entry) {
+        if (buffer.limit() - offset < ENTRY_HEADER_SIZE) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        int payloadOffset = offset + ENTRY_HEADER_SIZE;
+        if (length < 0 || length > buffer.limit() - payloadOffset) {
+            return false;
+        }
+
+        ByteBuffer payload = buffer.duplicate();
+        // Called through Buffer, as ByteBuffer only overrides these methods from Java 9
+        ((Buffer) payload).limit(payloadOffset + length).position(payloadOffset);
+        if (checksum(payload.slice()) != buffer.getInt(offset + Integer.BYTES + Long.BYTES + 1)) {
+            return false;
+        }
+
+        entry.timestamp = buffer.getLong(offset + Integer.BYTES);
+        entry.format = buffer.get(offset + Integer.BYTES + Long.BYTES);
+        entry.payload = payload.slice();
+        entry.next = payloadOffset + length;
+        return true;
+    }
+
+    /**
+     * Computes the checksum of a payload.
+     *
+     * @param payload the payload, which is consumed
+     * @return the CRC-32 of the payload, truncated to an int
+     */
+    static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * An entry read from a segment. Instances are reused as a segment is scanned.
+     */
+    static final class Entry {
+        long timestamp;
+        byte format;
+        ByteBuffer payload;
+        int next;
+    }
+}
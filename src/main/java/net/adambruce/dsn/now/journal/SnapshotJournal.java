@@ -0,0 +1,357 @@
+package net.adambruce.dsn.now.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import net.adambruce.dsn.now.model.state.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+/**
+ * An append-only journal of DSN snapshots, written to segment files in a directory.
+ * <p>
+ * Each snapshot is written either in a compact binary encoding ({@link #append(State)}) or as the raw dsn.xml
+ * document ({@link #appendXml(Instant, byte[])}). Writes are only forced to disk every few entries or every sync
+ * interval, whichever comes first, so a crash may lose the most recent entries but never corrupts earlier ones.
+ * Segments are rotated once they reach the maximum segment size, and each has a sparse index of timestamps to
+ * offsets, so that {@link JournalReader} can seek to a time without scanning.
+ * <p>
+ * Snapshots must be appended in timestamp order, including across reopening. Reopening a journal continues it in a
+ * new segment, which replaces the last segment if that holds no entries. The journal is safe for concurrent use, and
+ * should be closed once it is no longer required.
+ */
+@Slf4j
+public class SnapshotJournal implements Closeable {
+
+    private static final byte[] ENTRY_HEADER = new byte[Segment.ENTRY_HEADER_SIZE];
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final int syncEvery;
+    private final long syncIntervalNanos;
+    private final long indexInterval;
+    private final LongSupplier nanoTime;
+
+    private final EntryBuffer entry = new EntryBuffer();
+    private final DataOutputStream entryOutput = new DataOutputStream(entry);
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(Segment.INDEX_ENTRY_SIZE);
+
+    private long sequence;
+    private FileChannel segment;
+    private FileChannel index;
+    private long position;
+    private long lastIndexed;
+    private long newest = Long.MIN_VALUE;
+    private int unsynced;
+    private long lastSync;
+    private boolean closed;
+
+    SnapshotJournal(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.maxSegmentSize = builder.maxSegmentSize;
+        this.syncEvery = builder.syncEvery;
+        this.syncIntervalNanos = builder.syncInterval.toNanos();
+        this.indexInterval = builder.indexInterval;
+        this.nanoTime = builder.nanoTime;
+
+        Files.createDirectories(directory);
+        long last = lastSequence(directory);
+        sequence = last + 1;
+        // Recover the newest timestamp from the newest segment holding an entry, replacing any empty segments after it
+        for (long previous = last; previous >= 0 && newest == Long.MIN_VALUE; previous--) {
+            Path path = Segment.segmentPath(directory, previous);
+            if (Files.exists(path)) {
+                newest = lastTimestamp(Segment.open(directory, previous));
+                if (newest == Long.MIN_VALUE && previous == sequence - 1) {
+                    Files.delete(path);
+                    Files.deleteIfExists(Segment.indexPath(directory, previous));
+                    sequence = previous;
+                }
+            }
+        }
+        lastSync = nanoTime.getAsLong();
+        openSegment();
+    }
+
+    /**
+     * Creates a new builder for a journal in the given directory.
+     *
+     * @param directory the journal directory, which is created if it does not exist
+     * @return a new builder
+     */
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * Appends a state in the compact binary encoding.
+     *
+     * @param state the state, which must have a timestamp
+     * @throws IOException the state could not be written
+     * @throws IllegalArgumentException the state has no timestamp, or is older than the newest snapshot
+     */
+    public synchronized void append(State state) throws IOException {
+        long timestamp = checkTimestamp(state.getTimestamp());
+        beginEntry();
+        StateCodec.encode(state, entryOutput);
+        writeEntry(timestamp, Segment.FORMAT_BINARY);
+    }
+
+    /**
+     * Appends a raw dsn.xml document, exactly as it was received.
+     *
+     * @param timestamp the timestamp of the document
+     * @param xml the document
+     * @throws IOException the document could not be written
+     * @throws IllegalArgumentException the document is older than the newest snapshot
+     */
+    public synchronized void appendXml(Instant timestamp, byte[] xml) throws IOException {
+        long millis = checkTimestamp(timestamp);
+        beginEntry();
+        entry.write(xml, 0, xml.length);
+        writeEntry(millis, Segment.FORMAT_XML);
+    }
+
+    /**
+     * Forces every appended snapshot, and the index entries pointing to them, to disk.
+     *
+     * @throws IOException the segment or its index could not be forced to disk
+     */
+    public synchronized void sync() throws IOException {
+        checkOpen();
+        segment.force(false);
+        index.force(false);
+        unsynced = 0;
+        lastSync = nanoTime.getAsLong();
+    }
+
+    /**
+     * Forces every appended snapshot to disk, and closes the current segment.
+     *
+     * @throws IOException the segment could not be forced to disk or closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            sync();
+        } finally {
+            closed = true;
+            closeSegment();
+        }
+    }
+
+    private long checkTimestamp(Instant timestamp) {
+        checkOpen();
+        if (timestamp == null) {
+            throw new IllegalArgumentException("snapshot has no timestamp");
+        }
+        long millis = timestamp.toEpochMilli();
+        if (millis < newest) {
+            throw new IllegalArgumentException("snapshot at " + timestamp
+                    + " is older than the newest journalled snapshot");
+        }
+        return millis;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("journal has been closed");
+        }
+    }
+
+    private void beginEntry() {
+        entry.reset();
+        entry.write(ENTRY_HEADER, 0, ENTRY_HEADER.length);
+    }
+
+    private void writeEntry(long timestamp, byte format) throws IOException {
+        ByteBuffer buffer = entry.toByteBuffer();
+        int length = buffer.remaining() - Segment.ENTRY_HEADER_SIZE;
+        int checksum = Segment.checksum(ByteBuffer.wrap(entry.array(), Segment.ENTRY_HEADER_SIZE, length));
+        buffer.putInt(0, length)
+                .putLong(Integer.BYTES, timestamp)
+                .put(Integer.BYTES + Long.BYTES, format)
+                .putInt(Integer.BYTES + Long.BYTES + 1, checksum);
+
+        if (position > Segment.HEADER_SIZE && position + buffer.remaining() > maxSegmentSize) {
+            rotate();
+        }
+        if (position == Segment.HEADER_SIZE || position - lastIndexed >= indexInterval) {
+            ((Buffer) indexEntry).clear();
+            indexEntry.putLong(timestamp).putLong(position);
+            ((Buffer) indexEntry).flip();
+            writeFully(index, indexEntry);
+            lastIndexed = position;
+        }
+        int size = buffer.remaining();
+        writeFully(segment, buffer);
+        position += size;
+        newest = timestamp;
+
+        unsynced++;
+        if (unsynced >= syncEvery || nanoTime.getAsLong() - lastSync >= syncIntervalNanos) {
+            sync();
+        }
+    }
+
+    private void rotate() throws IOException {
+        log.debug("rotating journal segment {}", sequence);
+        sync();
+        closeSegment();
+        sequence++;
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        segment = FileChannel.open(Segment.segmentPath(directory, sequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        index = FileChannel.open(Segment.indexPath(directory, sequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(Segment.HEADER_SIZE).putInt(Segment.MAGIC).put(Segment.VERSION);
+        ((Buffer) header).flip();
+        writeFully(segment, header);
+        position = Segment.HEADER_SIZE;
+        lastIndexed = Segment.HEADER_SIZE;
+    }
+
+    private void closeSegment() throws IOException {
+        try {
+            segment.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long lastSequence(Path directory) throws IOException {
+        long last = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                last = Math.max(last, Segment.sequenceOf(file));
+            }
+        }
+        return last;
+    }
+
+    private static long lastTimestamp(Segment segment) {
+        long timestamp = Long.MIN_VALUE;
+        Segment.Entry entry = new Segment.Entry();
+        for (int offset = segment.seek(Long.MAX_VALUE); segment.read(offset, entry); offset = entry.next) {
+            timestamp = entry.timestamp;
+        }
+        return timestamp;
+    }
+
+    /**
+     * A reusable buffer holding the entry being written, header first.
+     */
+    private static final class EntryBuffer extends ByteArrayOutputStream {
+
+        byte[] array() {
+            return buf;
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    /**
+     * Builder for {@link SnapshotJournal}.
+     */
+    public static final class Builder {
+
+        private final Path directory;
+        private long maxSegmentSize = 64L * 1024 * 1024;
+        private int syncEvery = 100;
+        private Duration syncInterval = Duration.ofSeconds(1);
+        private long indexInterval = 64L * 1024;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Sets the size at which a segment is rotated (default 64 MiB, at most 2 GiB).
+         * A snapshot larger than this is written to a segment of its own.
+         *
+         * @param maxSegmentSize the maximum segment size in bytes
+         * @return this builder
+         */
+        public Builder maxSegmentSize(long maxSegmentSize) {
+            this.maxSegmentSize = Math.min(maxSegmentSize, Integer.MAX_VALUE);
+            return this;
+        }
+
+        /**
+         * Sets the number of snapshots appended before they are forced to disk (default 100).
+         * A value of 1 forces every snapshot to disk as it is appended.
+         *
+         * @param syncEvery the number of snapshots between syncs
+         * @return this builder
+         */
+        public Builder syncEvery(int syncEvery) {
+            this.syncEvery = syncEvery;
+            return this;
+        }
+
+        /**
+         * Sets the time after which appended snapshots are forced to disk by the next append, even if fewer than
+         * {@link #syncEvery(int)} have been appended (default 1 sec).
+         *
+         * @param syncInterval the maximum time between syncs
+         * @return this builder
+         */
+        public Builder syncInterval(Duration syncInterval) {
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        /**
+         * Sets the number of bytes between entries of the sparse timestamp index (default 64 KiB).
+         * A seek scans at most this many bytes past the indexed entry.
+         *
+         * @param indexInterval the index interval in bytes
+         * @return this builder
+         */
+        public Builder indexInterval(long indexInterval) {
+            this.indexInterval = indexInterval;
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        /**
+         * Opens the journal, creating the directory and a new segment.
+         *
+         * @return the journal
+         * @throws IOException the directory or segment could not be created
+         */
+        public SnapshotJournal build() throws IOException {
+            return new SnapshotJournal(this);
+        }
+    }
+}
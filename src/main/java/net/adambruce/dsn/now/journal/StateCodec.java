@@ -0,0 +1,250 @@
+package net.adambruce.dsn.now.journal;
+
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * A compact binary encoding of a {@link State}.
+ * <p>
+ * Fields are written in declaration order. Each nullable field starts with a presence byte, integers are written as
+ * zig-zag variable-length integers, and strings as a variable-length UTF-8 byte count followed by the bytes, so a
+ * typical state encodes to a fraction of the size of its XML document.
+ */
+final class StateCodec {
+
+    private static final int NULL = 0;
+    private static final int PRESENT = 1;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+
+    private StateCodec() {
+    }
+
+    /**
+     * Encodes a state.
+     *
+     * @param state the state
+     * @param out the output to write the encoded state to
+     * @throws IOException the state could not be written
+     */
+    static void encode(State state, DataOutput out) throws IOException {
+        writeInstant(out, state.getTimestamp());
+        writeCount(out, state.getStations());
+        for (Station station : state.getStations()) {
+            writeString(out, station.getName());
+            writeString(out, station.getFriendlyName());
+            writeInstant(out, station.getTime());
+            if (station.getTimeZoneOffset() != null) {
+                out.writeByte(PRESENT);
+                writeVarLong(out, station.getTimeZoneOffset().getTotalSeconds());
+            } else {
+                out.writeByte(NULL);
+            }
+        }
+        writeCount(out, state.getDishes());
+        for (Dish dish : state.getDishes()) {
+            writeString(out, dish.getName());
+            writeLong(out, dish.getAzimuth());
+            writeLong(out, dish.getElevation());
+            writeLong(out, dish.getWindSpeed());
+            writeBoolean(out, dish.getMultipleSpacecraftPerAperture());
+            writeBoolean(out, dish.getArray());
+            writeBoolean(out, dish.getDeltaDifferentialOneWayRanging());
+            writeString(out, dish.getActivity());
+            writeSignals(out, dish.getUpSignals());
+            writeSignals(out, dish.getDownSignals());
+            writeCount(out, dish.getTargets());
+            for (Target target : dish.getTargets()) {
+                writeString(out, target.getName());
+                writeLong(out, target.getId());
+                writeLong(out, target.getUpLegRange());
+                writeLong(out, target.getDownLegRange());
+                if (target.getRoundTripLightTime() != null) {
+                    out.writeByte(PRESENT);
+                    writeVarLong(out, target.getRoundTripLightTime().getSeconds());
+                    writeVarLong(out, target.getRoundTripLightTime().getNano());
+                } else {
+                    out.writeByte(NULL);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes a state.
+     *
+     * @param in the encoded state, positioned at its start
+     * @return the state
+     */
+    static State decode(ByteBuffer in) {
+        State state = new State();
+        state.setTimestamp(readInstant(in));
+        for (int i = readCount(in); i > 0; i--) {
+            Station station = new Station();
+            station.setName(readString(in));
+            station.setFriendlyName(readString(in));
+            station.setTime(readInstant(in));
+            if (in.get() == PRESENT) {
+                station.setTimeZoneOffset(ZoneOffset.ofTotalSeconds((int) readVarLong(in)));
+            }
+            state.setStation(station);
+        }
+        for (int i = readCount(in); i > 0; i--) {
+            Dish dish = new Dish();
+            dish.setName(readString(in));
+            dish.setAzimuth(readLong(in));
+            dish.setElevation(readLong(in));
+            dish.setWindSpeed(readLong(in));
+            dish.setMultipleSpacecraftPerAperture(readBoolean(in));
+            dish.setArray(readBoolean(in));
+            dish.setDeltaDifferentialOneWayRanging(readBoolean(in));
+            dish.setActivity(readString(in));
+            readSignals(in, dish.getUpSignals());
+            readSignals(in, dish.getDownSignals());
+            for (int j = readCount(in); j > 0; j--) {
+                Target target = new Target();
+                target.setName(readString(in));
+                target.setId(readLong(in));
+                target.setUpLegRange(readLong(in));
+                target.setDownLegRange(readLong(in));
+                if (in.get() == PRESENT) {
+                    target.setRoundTripLightTime(Duration.ofSeconds(readVarLong(in), readVarLong(in)));
+                }
+                dish.setTarget(target);
+            }
+            state.setDish(dish);
+        }
+        return state;
+    }
+
+    private static void writeSignals(DataOutput out, List<Signal> signals) throws IOException {
+        writeCount(out, signals);
+        for (Signal signal : signals) {
+            writeBoolean(out, signal.getActive());
+            writeString(out, signal.getSignalType());
+            writeLong(out, signal.getDataRate());
+            writeLong(out, signal.getFrequency());
+            writeString(out, signal.getBand());
+            if (signal.getPower() != null) {
+                out.writeByte(PRESENT);
+                out.writeDouble(signal.getPower());
+            } else {
+                out.writeByte(NULL);
+            }
+            writeString(out, signal.getSpacecraft());
+            writeLong(out, signal.getSpacecraftId());
+        }
+    }
+
+    private static void readSignals(ByteBuffer in, List<Signal> signals) {
+        for (int i = readCount(in); i > 0; i--) {
+            Signal signal = new Signal();
+            signal.setActive(readBoolean(in));
+            signal.setSignalType(readString(in));
+            signal.setDataRate(readLong(in));
+            signal.setFrequency(readLong(in));
+            signal.setBand(readString(in));
+            signal.setPower(in.get() == PRESENT ? in.getDouble() : null);
+            signal.setSpacecraft(readString(in));
+            signal.setSpacecraftId(readLong(in));
+            signals.add(signal);
+        }
+    }
+
+    private static void writeCount(DataOutput out, List<?> values) throws IOException {
+        writeVarLong(out, values.size());
+    }
+
+    private static int readCount(ByteBuffer in) {
+        return (int) readVarLong(in);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        if (value != null) {
+            out.writeByte(PRESENT);
+            writeVarLong(out, value);
+        } else {
+            out.writeByte(NULL);
+        }
+    }
+
+    private static Long readLong(ByteBuffer in) {
+        return in.get() == PRESENT ? readVarLong(in) : null;
+    }
+
+    private static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        out.writeByte(value == null ? NULL : value ? TRUE : FALSE);
+    }
+
+    private static Boolean readBoolean(ByteBuffer in) {
+        byte value = in.get();
+        return value == NULL ? null : value == TRUE;
+    }
+
+    private static void writeInstant(DataOutput out, Instant value) throws IOException {
+        if (value != null) {
+            out.writeByte(PRESENT);
+            writeVarLong(out, value.getEpochSecond());
+            writeVarLong(out, value.getNano());
+        } else {
+            out.writeByte(NULL);
+        }
+    }
+
+    private static Instant readInstant(ByteBuffer in) {
+        return in.get() == PRESENT ? Instant.ofEpochSecond(readVarLong(in), readVarLong(in)) : null;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long zigZag = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = in.get();
+            zigZag |= (long) (next & 0x7F) << shift;
+            shift += 7;
+        } while ((next & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains an append-only, on-disk journal of DSN snapshots, and a memory-mapped reader for replaying it.
+ */
+package net.adambruce.dsn.now.journal;
@@ -0,0 +1,75 @@
+package net.adambruce.dsn.now.metrics;
+
+/**
+ * Receives measurements from the DSN Now Client.
+ * <p>
+ * Every method has an empty default implementation, so implementations only need to override the measurements they
+ * record. Methods are called on the thread which made the measurement, including the client's executor and I/O
+ * threads, so implementations must be thread-safe and should not block. Durations are given in nanoseconds.
+ * <p>
+ * The client skips taking measurements entirely when it is configured with {@link #NOOP}.
+ */
+public interface ClientMetrics {
+
+    /**
+     * Metrics which discard every measurement.
+     */
+    ClientMetrics NOOP = new ClientMetrics() {
+    };
+
+    /**
+     * Records a completed HTTP request, from sending the request to reading the whole response body.
+     *
+     * @param endpoint the endpoint requested
+     * @param durationNanos the duration of the request
+     * @param status the HTTP status code of the response
+     * @param responseBytes the size of the response body, which is zero for a not modified response
+     */
+    default void recordRequest(Endpoint endpoint, long durationNanos, int status, long responseBytes) {
+    }
+
+    /**
+     * Records the deserialization of a response body.
+     *
+     * @param endpoint the endpoint the response was from
+     * @param durationNanos the duration of the deserialization
+     */
+    default void recordParse(Endpoint endpoint, long durationNanos) {
+    }
+
+    /**
+     * Records merging the state with the configuration.
+     *
+     * @param durationNanos the duration of the merge
+     */
+    default void recordMerge(long durationNanos) {
+    }
+
+    /**
+     * Records a merge which used the cached configuration without refreshing it.
+     */
+    default void recordConfigurationCacheHit() {
+    }
+
+    /**
+     * Records a merge for which the configuration was missing or expired.
+     */
+    default void recordConfigurationCacheMiss() {
+    }
+
+    /**
+     * Records a request for the configuration, made because it was missing, expired or explicitly fetched.
+     * Concurrent callers which share a single request are recorded once.
+     */
+    default void recordConfigurationRefresh() {
+    }
+
+    /**
+     * Records a failed fetch, whether the request failed or its response could not be deserialized.
+     *
+     * @param endpoint the endpoint requested
+     * @param failure the cause of the failure
+     */
+    default void recordFailure(Endpoint endpoint, Throwable failure) {
+    }
+}
@@ -0,0 +1,31 @@
+package net.adambruce.dsn.now.metrics;
+
+/**
+ * The DSN Now endpoints requested by the client.
+ */
+public enum Endpoint {
+    /**
+     * The DSN Now configuration endpoint.
+     */
+    CONFIGURATION("configuration"),
+
+    /**
+     * The DSN state endpoint.
+     */
+    STATE("state");
+
+    private final String tag;
+
+    Endpoint(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Gets the value used to tag metrics for this endpoint.
+     *
+     * @return the tag value
+     */
+    public String getTag() {
+        return tag;
+    }
+}
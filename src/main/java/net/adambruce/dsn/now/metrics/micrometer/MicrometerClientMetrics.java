@@ -0,0 +1,167 @@
+package net.adambruce.dsn.now.metrics.micrometer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.adambruce.dsn.now.metrics.ClientMetrics;
+import net.adambruce.dsn.now.metrics.Endpoint;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the client's measurements to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * The following meters are registered, each tagged with the {@code endpoint} where applicable:
+ * <ul>
+ *     <li>{@code dsn.client.requests} - timer of HTTP requests</li>
+ *     <li>{@code dsn.client.responses} - counter of HTTP responses, tagged with the {@code status}</li>
+ *     <li>{@code dsn.client.response.size} - summary of response body sizes, in bytes</li>
+ *     <li>{@code dsn.client.parse} - timer of response deserialization</li>
+ *     <li>{@code dsn.client.merge} - timer of merging the state with the configuration</li>
+ *     <li>{@code dsn.client.configuration.cache} - counter of configuration lookups, tagged with the
+ *     {@code result} ({@code hit} or {@code miss})</li>
+ *     <li>{@code dsn.client.configuration.refreshes} - counter of configuration requests</li>
+ *     <li>{@code dsn.client.failures} - counter of failed fetches, tagged with the {@code exception} class</li>
+ * </ul>
+ * Meters are created once and then reused, so recording a measurement does not build tags.
+ */
+public class MicrometerClientMetrics implements ClientMetrics {
+
+    private static final int MAX_STATUS = 600;
+
+    private final MeterRegistry registry;
+    private final EndpointMeters[] endpoints;
+    private final Timer merge;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter refreshes;
+
+    /**
+     * Creates new metrics which record to the given registry.
+     *
+     * @param registry the registry
+     */
+    public MicrometerClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.endpoints = new EndpointMeters[Endpoint.values().length];
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints[endpoint.ordinal()] = new EndpointMeters(registry, endpoint);
+        }
+        this.merge = Timer.builder("dsn.client.merge")
+                .description("Time taken to merge the state with the configuration")
+                .register(registry);
+        this.cacheHits = cacheCounter(registry, "hit");
+        this.cacheMisses = cacheCounter(registry, "miss");
+        this.refreshes = Counter.builder("dsn.client.configuration.refreshes")
+                .description("Requests made for the configuration")
+                .register(registry);
+    }
+
+    @Override
+    public void recordRequest(Endpoint endpoint, long durationNanos, int status, long responseBytes) {
+        EndpointMeters meters = endpoints[endpoint.ordinal()];
+        meters.requests.record(durationNanos, TimeUnit.NANOSECONDS);
+        meters.responseSize.record(responseBytes);
+        meters.getResponses(registry, status).increment();
+    }
+
+    @Override
+    public void recordParse(Endpoint endpoint, long durationNanos) {
+        endpoints[endpoint.ordinal()].parse.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordMerge(long durationNanos) {
+        merge.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordConfigurationCacheHit() {
+        cacheHits.increment();
+    }
+
+    @Override
+    public void recordConfigurationCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    @Override
+    public void recordConfigurationRefresh() {
+        refreshes.increment();
+    }
+
+    @Override
+    public void recordFailure(Endpoint endpoint, Throwable failure) {
+        endpoints[endpoint.ordinal()].getFailures(registry, failure.getClass()).increment();
+    }
+
+    private static Counter cacheCounter(MeterRegistry registry, String result) {
+        return Counter.builder("dsn.client.configuration.cache")
+                .description("Lookups of the cached configuration")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * The meters for a single endpoint. Meters tagged with a status or exception are created on first use.
+     */
+    private static final class EndpointMeters {
+
+        private final Endpoint endpoint;
+        private final Timer requests;
+        private final DistributionSummary responseSize;
+        private final Timer parse;
+        private final AtomicReferenceArray<Counter> responses = new AtomicReferenceArray<>(MAX_STATUS);
+        private final ConcurrentMap<Class<?>, Counter> failures = new ConcurrentHashMap<>();
+
+        private EndpointMeters(MeterRegistry registry, Endpoint endpoint) {
+            this.endpoint = endpoint;
+            this.requests = Timer.builder("dsn.client.requests")
+                    .description("Time taken by HTTP requests, including reading the response body")
+                    .tag("endpoint", endpoint.getTag())
+                    .register(registry);
+            this.responseSize = DistributionSummary.builder("dsn.client.response.size")
+                    .description("Size of HTTP response bodies")
+                    .baseUnit("bytes")
+                    .tag("endpoint", endpoint.getTag())
+                    .register(registry);
+            this.parse = Timer.builder("dsn.client.parse")
+                    .description("Time taken to deserialize response bodies")
+                    .tag("endpoint", endpoint.getTag())
+                    .register(registry);
+        }
+
+        private Counter getResponses(MeterRegistry registry, int status) {
+            if (status < 0 || status >= MAX_STATUS) {
+                return responseCounter(registry, status);
+            }
+            Counter counter = responses.get(status);
+            if (counter == null) {
+                // Registration is idempotent, so callers racing here all get the same counter
+                counter = responseCounter(registry, status);
+                responses.set(status, counter);
+            }
+            return counter;
+        }
+
+        private Counter responseCounter(MeterRegistry registry, int status) {
+            return Counter.builder("dsn.client.responses")
+                    .description("HTTP responses received")
+                    .tag("endpoint", endpoint.getTag())
+                    .tag("status", Integer.toString(status))
+                    .register(registry);
+        }
+
+        private Counter getFailures(MeterRegistry registry, Class<?> type) {
+            return failures.computeIfAbsent(type, key -> Counter.builder("dsn.client.failures")
+                    .description("Failed fetches")
+                    .tag("endpoint", endpoint.getTag())
+                    .tag("exception", key.getSimpleName())
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains a Micrometer implementation of the metrics SPI. Micrometer is an optional dependency, and must be added to
+ * the classpath to use this package.
+ */
+package net.adambruce.dsn.now.metrics.micrometer;
@@ -0,0 +1,4 @@
+/**
+ * Contains the metrics SPI used to instrument the DSN Now Client.
+ */
+package net.adambruce.dsn.now.metrics;
@@ -0,0 +1,68 @@
+package net.adambruce.dsn.now.model.compact;
+
+/**
+ * The frequency band of a signal.
+ */
+public enum Band {
+    /**
+     * L band (1-2 GHz).
+     */
+    L("L"),
+
+    /**
+     * S band (2-4 GHz).
+     */
+    S("S"),
+
+    /**
+     * X band (8-12 GHz).
+     */
+    X("X"),
+
+    /**
+     * K band (18-27 GHz).
+     */
+    K("K"),
+
+    /**
+     * Ka band (27-40 GHz).
+     */
+    KA("Ka"),
+
+    /**
+     * A band which was not reported, or is not recognised.
+     */
+    UNKNOWN(null);
+
+    private static final Band[] VALUES = values();
+
+    private final String code;
+
+    Band(String code) {
+        this.code = code;
+    }
+
+    /**
+     * Gets the code of the band, as it appears in dsn.xml.
+     *
+     * @return the code of the band, or null for {@link #UNKNOWN}
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the band with the given code.
+     *
+     * @param code the code of the band, as it appears in dsn.xml
+     * @return the band, or {@link #UNKNOWN} if the code is null or not recognised
+     */
+    public static Band of(String code) {
+        for (Band band : VALUES) {
+            if (band.code != null && band.code.equalsIgnoreCase(code)) {
+                return band;
+            }
+        }
+        return UNKNOWN;
+    }
+}
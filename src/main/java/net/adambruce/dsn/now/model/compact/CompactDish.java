@@ -0,0 +1,303 @@
+package net.adambruce.dsn.now.model.compact;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Function;
+
+/**
+ * Compact, immutable DSN dish information.
+ * Numeric fields and flags are held as primitives alongside a mask of the fields which were reported. A dish created
+ * from {@link MergedDishData} also holds the friendly name and type from the DSN Now configuration.
+ */
+@EqualsAndHashCode
+@ToString
+public final class CompactDish {
+
+    private static final int AZIMUTH = 1;
+    private static final int ELEVATION = 1 << 1;
+    private static final int WIND_SPEED = 1 << 2;
+    private static final int MSPA = 1 << 3;
+    private static final int MSPA_PRESENT = 1 << 4;
+    private static final int ARRAY = 1 << 5;
+    private static final int ARRAY_PRESENT = 1 << 6;
+    private static final int DDOR = 1 << 7;
+    private static final int DDOR_PRESENT = 1 << 8;
+
+    private final short flags;
+    private final long azimuth;
+    private final long elevation;
+    private final long windSpeed;
+    private final String name;
+    private final String friendlyName;
+    private final String type;
+    private final String activity;
+    private final List<CompactSignal> upSignals;
+    private final List<CompactSignal> downSignals;
+    private final List<CompactTarget> targets;
+
+    private CompactDish(String name, String friendlyName, String type, Long azimuth, Long elevation, Long windSpeed,
+                        Boolean multipleSpacecraftPerAperture, Boolean array, Boolean deltaDifferentialOneWayRanging,
+                        String activity, List<CompactSignal> upSignals, List<CompactSignal> downSignals,
+                        List<CompactTarget> targets) {
+        int mask = Flags.of(multipleSpacecraftPerAperture, MSPA_PRESENT, MSPA)
+                | Flags.of(array, ARRAY_PRESENT, ARRAY)
+                | Flags.of(deltaDifferentialOneWayRanging, DDOR_PRESENT, DDOR);
+        mask |= azimuth != null ? AZIMUTH : 0;
+        mask |= elevation != null ? ELEVATION : 0;
+        mask |= windSpeed != null ? WIND_SPEED : 0;
+        this.flags = (short) mask;
+        this.azimuth = azimuth != null ? azimuth : 0;
+        this.elevation = elevation != null ? elevation : 0;
+        this.windSpeed = windSpeed != null ? windSpeed : 0;
+        this.name = name;
+        this.friendlyName = friendlyName;
+        this.type = type;
+        this.activity = activity;
+        this.upSignals = upSignals;
+        this.downSignals = downSignals;
+        this.targets = targets;
+    }
+
+    /**
+     * Creates the compact form of a dish.
+     *
+     * @param dish the dish
+     * @return the compact dish
+     */
+    public static CompactDish from(Dish dish) {
+        return new CompactDish(dish.getName(), null, null, dish.getAzimuth(), dish.getElevation(),
+                dish.getWindSpeed(), dish.getMultipleSpacecraftPerAperture(), dish.getArray(),
+                dish.getDeltaDifferentialOneWayRanging(), dish.getActivity(),
+                compact(dish.getUpSignals(), CompactSignal::from), compact(dish.getDownSignals(), CompactSignal::from),
+                compact(dish.getTargets(), CompactTarget::from));
+    }
+
+    /**
+     * Creates the compact form of a merged dish.
+     * A dish which did not report its signals has no signals in its compact form.
+     *
+     * @param dish the merged dish
+     * @return the compact dish
+     */
+    public static CompactDish from(MergedDishData dish) {
+        return new CompactDish(dish.getName(), dish.getFriendlyName(), dish.getType(), dish.getAzimuth(),
+                dish.getElevation(), dish.getWindSpeed(), dish.getMultipleSpacecraftPerAperture(), dish.getArray(),
+                dish.getDeltaDifferentialOneWayRanging(), dish.getActivity(),
+                compact(dish.getUpSignals(), CompactSignal::from), compact(dish.getDownSignals(), CompactSignal::from),
+                compact(dish.getTarget(), CompactTarget::from));
+    }
+
+    /**
+     * Gets the name of the dish.
+     *
+     * @return the name of the dish
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the friendly name of the dish, from the configuration.
+     *
+     * @return the friendly name, or null if the dish was not merged with the configuration
+     */
+    public String getFriendlyName() {
+        return friendlyName;
+    }
+
+    /**
+     * Gets the type of dish, from the configuration.
+     *
+     * @return the type of dish, or null if the dish was not merged with the configuration
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the azimuth of the dish (degrees).
+     *
+     * @return the azimuth, or empty if it was not reported
+     */
+    public OptionalLong getAzimuth() {
+        return optional(AZIMUTH, azimuth);
+    }
+
+    /**
+     * Gets the elevation of the dish (degrees).
+     *
+     * @return the elevation, or empty if it was not reported
+     */
+    public OptionalLong getElevation() {
+        return optional(ELEVATION, elevation);
+    }
+
+    /**
+     * Gets the wind speed at the dish (km/hr).
+     *
+     * @return the wind speed, or empty if it was not reported
+     */
+    public OptionalLong getWindSpeed() {
+        return optional(WIND_SPEED, windSpeed);
+    }
+
+    /**
+     * Checks whether the dish reported if it is configured for Multiple Spacecraft Per Aperture (MSPA).
+     *
+     * @return true if the dish reported if it is configured for MSPA
+     */
+    public boolean isMultipleSpacecraftPerApertureReported() {
+        return (flags & MSPA_PRESENT) != 0;
+    }
+
+    /**
+     * Checks whether the dish is configured for Multiple Spacecraft Per Aperture (MSPA).
+     *
+     * @return true if the dish is configured for MSPA, or false if it is not or did not report it
+     */
+    public boolean isMultipleSpacecraftPerAperture() {
+        return (flags & MSPA) != 0;
+    }
+
+    /**
+     * Checks whether the dish reported if it is configured as an array.
+     *
+     * @return true if the dish reported if it is configured as an array
+     */
+    public boolean isArrayReported() {
+        return (flags & ARRAY_PRESENT) != 0;
+    }
+
+    /**
+     * Checks whether the dish is configured as an array.
+     *
+     * @return true if the dish is configured as an array, or false if it is not or did not report it
+     */
+    public boolean isArray() {
+        return (flags & ARRAY) != 0;
+    }
+
+    /**
+     * Checks whether the dish reported if it is configured for Delta-Differential One-Way Ranging (DDOR).
+     *
+     * @return true if the dish reported if it is configured for DDOR
+     */
+    public boolean isDeltaDifferentialOneWayRangingReported() {
+        return (flags & DDOR_PRESENT) != 0;
+    }
+
+    /**
+     * Checks whether the dish is configured for Delta-Differential One-Way Ranging (DDOR).
+     *
+     * @return true if the dish is configured for DDOR, or false if it is not or did not report it
+     */
+    public boolean isDeltaDifferentialOneWayRanging() {
+        return (flags & DDOR) != 0;
+    }
+
+    /**
+     * Gets the activity of the dish.
+     *
+     * @return the activity, or null if it was not reported
+     */
+    public String getActivity() {
+        return activity;
+    }
+
+    /**
+     * Gets the uplink signals transmitting from the dish.
+     *
+     * @return the uplink signals, which cannot be modified
+     */
+    public List<CompactSignal> getUpSignals() {
+        return upSignals;
+    }
+
+    /**
+     * Gets the downlink signals received by the dish.
+     *
+     * @return the downlink signals, which cannot be modified
+     */
+    public List<CompactSignal> getDownSignals() {
+        return downSignals;
+    }
+
+    /**
+     * Gets the targets that the dish is tracking.
+     *
+     * @return the targets, which cannot be modified
+     */
+    public List<CompactTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Converts the dish back to its mutable form, without the information from the configuration.
+     *
+     * @return the dish
+     */
+    public Dish toDish() {
+        Dish dish = new Dish();
+        dish.setName(name);
+        dish.setAzimuth(boxed(AZIMUTH, azimuth));
+        dish.setElevation(boxed(ELEVATION, elevation));
+        dish.setWindSpeed(boxed(WIND_SPEED, windSpeed));
+        dish.setMultipleSpacecraftPerAperture(Flags.get(flags, MSPA_PRESENT, MSPA));
+        dish.setArray(Flags.get(flags, ARRAY_PRESENT, ARRAY));
+        dish.setDeltaDifferentialOneWayRanging(Flags.get(flags, DDOR_PRESENT, DDOR));
+        dish.setActivity(activity);
+        upSignals.forEach(signal -> dish.setUpSignal(signal.toSignal()));
+        downSignals.forEach(signal -> dish.setDownSignal(signal.toSignal()));
+        targets.forEach(target -> dish.setTarget(target.toTarget()));
+        return dish;
+    }
+
+    /**
+     * Converts the dish back to its merged form.
+     *
+     * @return the merged dish
+     */
+    public MergedDishData toMergedDishData() {
+        List<Signal> up = new ArrayList<>(upSignals.size());
+        upSignals.forEach(signal -> up.add(signal.toSignal()));
+        List<Signal> down = new ArrayList<>(downSignals.size());
+        downSignals.forEach(signal -> down.add(signal.toSignal()));
+        List<MergedTargetData> merged = new ArrayList<>(targets.size());
+        targets.forEach(target -> merged.add(target.toMergedTargetData()));
+        return new MergedDishData(name, friendlyName, type, boxed(AZIMUTH, azimuth), boxed(ELEVATION, elevation),
+                boxed(WIND_SPEED, windSpeed), Flags.get(flags, MSPA_PRESENT, MSPA),
+                Flags.get(flags, ARRAY_PRESENT, ARRAY), Flags.get(flags, DDOR_PRESENT, DDOR), activity, up, down,
+                merged);
+    }
+
+    private OptionalLong optional(int field, long value) {
+        return (flags & field) != 0 ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    private Long boxed(int field, long value) {
+        return (flags & field) != 0 ? value : null;
+    }
+
+    /**
+     * Converts a list to an unmodifiable list of its compact elements, sharing a single instance for empty lists.
+     */
+    static <T, C> List<C> compact(List<T> values, Function<T, C> converter) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<C> compact = new ArrayList<>(values.size());
+        for (T value : values) {
+            compact.add(converter.apply(value));
+        }
+        return Collections.unmodifiableList(compact);
+    }
+}
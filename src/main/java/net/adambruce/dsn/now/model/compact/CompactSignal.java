@@ -0,0 +1,169 @@
+package net.adambruce.dsn.now.model.compact;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import net.adambruce.dsn.now.model.state.Signal;
+
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+/**
+ * Compact, immutable DSN signal information.
+ * Numeric fields are held as primitives alongside a mask of the fields which were reported, and the band and signal
+ * type as enums.
+ */
+@EqualsAndHashCode
+@ToString
+public final class CompactSignal {
+
+    private static final int ACTIVE = 1;
+    private static final int ACTIVE_PRESENT = 1 << 1;
+    private static final int DATA_RATE = 1 << 2;
+    private static final int FREQUENCY = 1 << 3;
+    private static final int POWER = 1 << 4;
+    private static final int SPACECRAFT_ID = 1 << 5;
+
+    private final byte flags;
+    private final SignalType signalType;
+    private final Band band;
+    private final long dataRate;
+    private final long frequency;
+    private final double power;
+    private final long spacecraftId;
+    private final String spacecraft;
+
+    private CompactSignal(Signal signal) {
+        int mask = 0;
+        mask |= Flags.of(signal.getActive(), ACTIVE_PRESENT, ACTIVE);
+        mask |= signal.getDataRate() != null ? DATA_RATE : 0;
+        mask |= signal.getFrequency() != null ? FREQUENCY : 0;
+        mask |= signal.getPower() != null ? POWER : 0;
+        mask |= signal.getSpacecraftId() != null ? SPACECRAFT_ID : 0;
+        this.flags = (byte) mask;
+        this.signalType = SignalType.of(signal.getSignalType());
+        this.band = Band.of(signal.getBand());
+        this.dataRate = signal.getDataRate() != null ? signal.getDataRate() : 0;
+        this.frequency = signal.getFrequency() != null ? signal.getFrequency() : 0;
+        this.power = signal.getPower() != null ? signal.getPower() : 0;
+        this.spacecraftId = signal.getSpacecraftId() != null ? signal.getSpacecraftId() : 0;
+        this.spacecraft = signal.getSpacecraft();
+    }
+
+    /**
+     * Creates the compact form of a signal.
+     *
+     * @param signal the signal
+     * @return the compact signal
+     */
+    public static CompactSignal from(Signal signal) {
+        return new CompactSignal(signal);
+    }
+
+    /**
+     * Checks whether the signal reported if it is active.
+     *
+     * @return true if the signal reported if it is active
+     */
+    public boolean isActiveReported() {
+        return (flags & ACTIVE_PRESENT) != 0;
+    }
+
+    /**
+     * Checks whether the signal is active.
+     *
+     * @return true if the signal is active, or false if it is inactive or did not report it
+     */
+    public boolean isActive() {
+        return (flags & ACTIVE) != 0;
+    }
+
+    /**
+     * Gets the signal type.
+     *
+     * @return the signal type, or {@link SignalType#UNKNOWN} if it was not reported or is not recognised
+     */
+    public SignalType getSignalType() {
+        return signalType;
+    }
+
+    /**
+     * Gets the band of the signal.
+     *
+     * @return the band, or {@link Band#UNKNOWN} if it was not reported or is not recognised
+     */
+    public Band getBand() {
+        return band;
+    }
+
+    /**
+     * Gets the rate of data transmitted / received.
+     *
+     * @return the data rate, or empty if it was not reported
+     */
+    public OptionalLong getDataRate() {
+        return optional(DATA_RATE, dataRate);
+    }
+
+    /**
+     * Gets the frequency of the signal (Hz).
+     *
+     * @return the frequency, or empty if it was not reported
+     */
+    public OptionalLong getFrequency() {
+        return optional(FREQUENCY, frequency);
+    }
+
+    /**
+     * Gets the power of the signal (dBm).
+     *
+     * @return the power, or empty if it was not reported
+     */
+    public OptionalDouble getPower() {
+        return (flags & POWER) != 0 ? OptionalDouble.of(power) : OptionalDouble.empty();
+    }
+
+    /**
+     * Gets the spacecraft this signal is communicating with.
+     *
+     * @return the spacecraft, or null if it was not reported
+     */
+    public String getSpacecraft() {
+        return spacecraft;
+    }
+
+    /**
+     * Gets the ID of the spacecraft this signal is communicating with.
+     *
+     * @return the spacecraft ID, or empty if it was not reported
+     */
+    public OptionalLong getSpacecraftId() {
+        return optional(SPACECRAFT_ID, spacecraftId);
+    }
+
+    /**
+     * Converts the signal back to its mutable form.
+     * A band or signal type which was not recognised is converted to null.
+     *
+     * @return the signal
+     */
+    public Signal toSignal() {
+        Signal signal = new Signal();
+        signal.setActive(Flags.get(flags, ACTIVE_PRESENT, ACTIVE));
+        signal.setSignalType(signalType.getCode());
+        signal.setBand(band.getCode());
+        signal.setDataRate(boxed(DATA_RATE, dataRate));
+        signal.setFrequency(boxed(FREQUENCY, frequency));
+        signal.setPower((flags & POWER) != 0 ? power : null);
+        signal.setSpacecraft(spacecraft);
+        signal.setSpacecraftId(boxed(SPACECRAFT_ID, spacecraftId));
+        return signal;
+    }
+
+    private OptionalLong optional(int field, long value) {
+        return (flags & field) != 0 ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    private Long boxed(int field, long value) {
+        return (flags & field) != 0 ? value : null;
+    }
+}
@@ -0,0 +1,92 @@
+package net.adambruce.dsn.now.model.compact;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Compact, immutable DSN state information.
+ * <p>
+ * The dishes, signals and targets of a compact state hold their numeric fields and flags as primitives rather than
+ * boxed values, and signal bands and types as enums, so a compact state takes a fraction of the heap of the
+ * {@link State} it was created from. This suits applications which keep many snapshots, or share them between many
+ * consumers.
+ */
+@EqualsAndHashCode
+@ToString
+public final class CompactState {
+
+    private final Instant timestamp;
+    private final List<Station> stations;
+    private final List<CompactDish> dishes;
+
+    private CompactState(State state) {
+        this.timestamp = state.getTimestamp();
+        this.stations = CompactDish.compact(state.getStations(), CompactState::copy);
+        this.dishes = CompactDish.compact(state.getDishes(), CompactDish::from);
+    }
+
+    /**
+     * Creates the compact form of a state.
+     *
+     * @param state the state
+     * @return the compact state
+     */
+    public static CompactState from(State state) {
+        return new CompactState(state);
+    }
+
+    /**
+     * Gets the timestamp of the DSN state response.
+     *
+     * @return the timestamp, or null if it was not reported
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the DSN stations.
+     * The stations are copied from the original state when the compact state is created.
+     *
+     * @return the stations, which cannot be modified
+     */
+    public List<Station> getStations() {
+        return stations;
+    }
+
+    /**
+     * Gets the DSN dishes.
+     *
+     * @return the dishes, which cannot be modified
+     */
+    public List<CompactDish> getDishes() {
+        return dishes;
+    }
+
+    /**
+     * Converts the state back to its mutable form.
+     *
+     * @return the state
+     */
+    public State toState() {
+        State state = new State();
+        state.setTimestamp(timestamp);
+        stations.forEach(station -> state.setStation(copy(station)));
+        dishes.forEach(dish -> state.setDish(dish.toDish()));
+        return state;
+    }
+
+    private static Station copy(Station station) {
+        Station copy = new Station();
+        copy.setName(station.getName());
+        copy.setFriendlyName(station.getFriendlyName());
+        copy.setTime(station.getTime());
+        copy.setTimeZoneOffset(station.getTimeZoneOffset());
+        return copy;
+    }
+}
@@ -0,0 +1,205 @@
+package net.adambruce.dsn.now.model.compact;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Target;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Compact, immutable DSN spacecraft (target) information.
+ * Numeric fields are held as primitives alongside a mask of the fields which were reported. A target created from
+ * {@link MergedTargetData} also holds the spacecraft information from the DSN Now configuration.
+ */
+@EqualsAndHashCode
+@ToString
+public final class CompactTarget {
+
+    private static final int ID = 1;
+    private static final int UP_LEG_RANGE = 1 << 1;
+    private static final int DOWN_LEG_RANGE = 1 << 2;
+    private static final int ROUND_TRIP_LIGHT_TIME = 1 << 3;
+    private static final int THUMBNAIL = 1 << 4;
+    private static final int THUMBNAIL_PRESENT = 1 << 5;
+
+    private final byte flags;
+    private final long id;
+    private final long upLegRange;
+    private final long downLegRange;
+    private final long roundTripLightTimeNanos;
+    private final String name;
+    private final String explorerName;
+    private final String friendlyAcronym;
+    private final String friendlyName;
+
+    private CompactTarget(String name, Long id, Long upLegRange, Long downLegRange, Duration roundTripLightTime,
+                          String explorerName, String friendlyAcronym, String friendlyName, Boolean thumbnail) {
+        int mask = Flags.of(thumbnail, THUMBNAIL_PRESENT, THUMBNAIL);
+        mask |= id != null ? ID : 0;
+        mask |= upLegRange != null ? UP_LEG_RANGE : 0;
+        mask |= downLegRange != null ? DOWN_LEG_RANGE : 0;
+        mask |= roundTripLightTime != null ? ROUND_TRIP_LIGHT_TIME : 0;
+        this.flags = (byte) mask;
+        this.id = id != null ? id : 0;
+        this.upLegRange = upLegRange != null ? upLegRange : 0;
+        this.downLegRange = downLegRange != null ? downLegRange : 0;
+        this.roundTripLightTimeNanos = roundTripLightTime != null ? roundTripLightTime.toNanos() : 0;
+        this.name = name;
+        this.explorerName = explorerName;
+        this.friendlyAcronym = friendlyAcronym;
+        this.friendlyName = friendlyName;
+    }
+
+    /**
+     * Creates the compact form of a target.
+     *
+     * @param target the target
+     * @return the compact target
+     */
+    public static CompactTarget from(Target target) {
+        return new CompactTarget(target.getName(), target.getId(), target.getUpLegRange(), target.getDownLegRange(),
+                target.getRoundTripLightTime(), null, null, null, null);
+    }
+
+    /**
+     * Creates the compact form of a merged target.
+     *
+     * @param target the merged target
+     * @return the compact target
+     */
+    public static CompactTarget from(MergedTargetData target) {
+        return new CompactTarget(target.getName(), target.getId(), target.getUpLegRange(), target.getDownLegRange(),
+                target.getRoundTripLightTime(), target.getExplorerName(), target.getFriendlyAcronym(),
+                target.getFriendlyName(), target.getThumbnail());
+    }
+
+    /**
+     * Gets the name of the spacecraft.
+     *
+     * @return the name of the spacecraft
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the ID of the target.
+     *
+     * @return the ID, or empty if it was not reported
+     */
+    public OptionalLong getId() {
+        return optional(ID, id);
+    }
+
+    /**
+     * Gets the up leg range (m).
+     *
+     * @return the up leg range, or empty if it was not reported
+     */
+    public OptionalLong getUpLegRange() {
+        return optional(UP_LEG_RANGE, upLegRange);
+    }
+
+    /**
+     * Gets the down leg range (m).
+     *
+     * @return the down leg range, or empty if it was not reported
+     */
+    public OptionalLong getDownLegRange() {
+        return optional(DOWN_LEG_RANGE, downLegRange);
+    }
+
+    /**
+     * Gets the Round Trip Light Time (RTLT) in nanoseconds.
+     *
+     * @return the RTLT in nanoseconds, or empty if it was not reported
+     */
+    public OptionalLong getRoundTripLightTimeNanos() {
+        return optional(ROUND_TRIP_LIGHT_TIME, roundTripLightTimeNanos);
+    }
+
+    /**
+     * Gets the explorer name of the spacecraft, from the configuration.
+     *
+     * @return the explorer name, or null if the target was not merged with the configuration
+     */
+    public String getExplorerName() {
+        return explorerName;
+    }
+
+    /**
+     * Gets the friendly acronym of the spacecraft, from the configuration.
+     *
+     * @return the friendly acronym, or null if the target was not merged with the configuration
+     */
+    public String getFriendlyAcronym() {
+        return friendlyAcronym;
+    }
+
+    /**
+     * Gets the friendly name of the spacecraft, from the configuration.
+     *
+     * @return the friendly name, or null if the target was not merged with the configuration
+     */
+    public String getFriendlyName() {
+        return friendlyName;
+    }
+
+    /**
+     * Checks whether the configuration reported if the spacecraft has a thumbnail.
+     *
+     * @return true if the configuration reported if the spacecraft has a thumbnail
+     */
+    public boolean isThumbnailReported() {
+        return (flags & THUMBNAIL_PRESENT) != 0;
+    }
+
+    /**
+     * Checks whether the spacecraft has a thumbnail.
+     *
+     * @return true if the spacecraft has a thumbnail, or false if it does not or it was not reported
+     */
+    public boolean isThumbnail() {
+        return (flags & THUMBNAIL) != 0;
+    }
+
+    /**
+     * Converts the target back to its mutable form, without the spacecraft information from the configuration.
+     *
+     * @return the target
+     */
+    public Target toTarget() {
+        Target target = new Target();
+        target.setName(name);
+        target.setId(boxed(ID, id));
+        target.setUpLegRange(boxed(UP_LEG_RANGE, upLegRange));
+        target.setDownLegRange(boxed(DOWN_LEG_RANGE, downLegRange));
+        target.setRoundTripLightTime(roundTripLightTime());
+        return target;
+    }
+
+    /**
+     * Converts the target back to its merged form.
+     *
+     * @return the merged target
+     */
+    public MergedTargetData toMergedTargetData() {
+        return new MergedTargetData(name, boxed(ID, id), boxed(UP_LEG_RANGE, upLegRange),
+                boxed(DOWN_LEG_RANGE, downLegRange), roundTripLightTime(), explorerName, friendlyAcronym,
+                friendlyName, Flags.get(flags, THUMBNAIL_PRESENT, THUMBNAIL));
+    }
+
+    private Duration roundTripLightTime() {
+        return (flags & ROUND_TRIP_LIGHT_TIME) != 0 ? Duration.ofNanos(roundTripLightTimeNanos) : null;
+    }
+
+    private OptionalLong optional(int field, long value) {
+        return (flags & field) != 0 ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    private Long boxed(int field, long value) {
+        return (flags & field) != 0 ? value : null;
+    }
+}
@@ -0,0 +1,37 @@
+package net.adambruce.dsn.now.model.compact;
+
+/**
+ * Packs nullable flags into the bit masks of the compact models.
+ */
+final class Flags {
+
+    private Flags() {
+    }
+
+    /**
+     * Gets the bits recording a nullable flag.
+     *
+     * @param value the flag
+     * @param present the bit set when the flag was reported
+     * @param set the bit set when the flag is true
+     * @return the bits to set in the mask
+     */
+    static int of(Boolean value, int present, int set) {
+        if (value == null) {
+            return 0;
+        }
+        return value ? present | set : present;
+    }
+
+    /**
+     * Gets a nullable flag from a mask.
+     *
+     * @param mask the mask
+     * @param present the bit set when the flag was reported
+     * @param set the bit set when the flag is true
+     * @return the flag, or null if it was not reported
+     */
+    static Boolean get(int mask, int present, int set) {
+        return (mask & present) != 0 ? (mask & set) != 0 : null;
+    }
+}
@@ -0,0 +1,63 @@
+package net.adambruce.dsn.now.model.compact;
+
+/**
+ * The type of a signal.
+ */
+public enum SignalType {
+    /**
+     * A signal carrying data.
+     */
+    DATA("data"),
+
+    /**
+     * An unmodulated carrier.
+     */
+    CARRIER("carrier"),
+
+    /**
+     * A signal used for ranging.
+     */
+    RANGING("ranging"),
+
+    /**
+     * A signal reported as having no type.
+     */
+    NONE("none"),
+
+    /**
+     * A type which was not reported, or is not recognised.
+     */
+    UNKNOWN(null);
+
+    private static final SignalType[] VALUES = values();
+
+    private final String code;
+
+    SignalType(String code) {
+        this.code = code;
+    }
+
+    /**
+     * Gets the code of the signal type, as it appears in dsn.xml.
+     *
+     * @return the code of the signal type, or null for {@link #UNKNOWN}
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the signal type with the given code.
+     *
+     * @param code the code of the signal type, as it appears in dsn.xml
+     * @return the signal type, or {@link #UNKNOWN} if the code is null or not recognised
+     */
+    public static SignalType of(String code) {
+        for (SignalType type : VALUES) {
+            if (type.code != null && type.code.equalsIgnoreCase(code)) {
+                return type;
+            }
+        }
+        return UNKNOWN;
+    }
+}
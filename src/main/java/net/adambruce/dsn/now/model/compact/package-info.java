@@ -0,0 +1,5 @@
+/**
+ * Contains compact, immutable alternatives to the DSN Now state models, which hold numeric fields and flags as
+ * primitives rather than boxed values.
+ */
+package net.adambruce.dsn.now.model.compact;
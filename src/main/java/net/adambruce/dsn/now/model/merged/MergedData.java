@@ -1,14 +1,28 @@
 package net.adambruce.dsn.now.model.merged;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.util.LongMap;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Merged data from the DSN configuration and state endpoints.
+ * <p>
+ * The query methods answer from indices which are built from the stations on first use, once per index, and are then
+ * shared by every caller, so repeated queries against the same snapshot do not scan it. The indices are built
+ * lazily and safely for concurrent use. The stations must not be modified once the snapshot has been queried.
  */
 @Value
+@AllArgsConstructor
 public class MergedData {
     /**
      * the DSN stations.
@@ -21,4 +35,134 @@ public class MergedData {
      * @return the timestamp of the DSN state response
      */
     Instant timestamp;
-}
\ No newline at end of file
+
+    /**
+     * the spacecraft tracked by or communicating with the dishes, each joined with its configuration
+     * @return the spacecraft, in the order they were first reported
+     */
+    List<MergedSpacecraftData> spacecraft;
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<Long, List<MergedDishData>> dishesBySpacecraftId = MergedDataIndex.dishesBySpacecraftId(stations);
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<String, List<MergedDishData>> dishesBySpacecraftName = MergedDataIndex.dishesBySpacecraftName(stations);
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<String, MergedDishData> dishesByName = MergedDataIndex.dishesByName(stations);
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<String, List<MergedDishData>> dishesByActivity = MergedDataIndex.dishesByActivity(stations);
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<String, List<Signal>> signalsByBand = MergedDataIndex.signalsByBand(stations);
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    LongMap<MergedSpacecraftData> spacecraftIndexById = MergedDataIndex.spacecraftById(spacecraft);
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<String, MergedSpacecraftData> spacecraftIndexByName = MergedDataIndex.spacecraftByName(spacecraft);
+
+    /**
+     * Creates merged data without any spacecraft.
+     *
+     * @param stations the DSN stations
+     * @param timestamp the timestamp of the DSN state response
+     */
+    public MergedData(List<MergedStationData> stations, Instant timestamp) {
+        this(stations, timestamp, Collections.emptyList());
+    }
+
+    /**
+     * Finds the dishes tracking or communicating with a spacecraft.
+     * Signals report the negated ID of their spacecraft, so either sign finds the same dishes.
+     *
+     * @param spacecraftId the ID of the spacecraft, such as {@code 32} or {@code -32}
+     * @return the dishes with the spacecraft as a target or with a signal to or from it, which cannot be modified
+     */
+    public List<MergedDishData> getDishesForSpacecraft(long spacecraftId) {
+        return getDishesBySpacecraftId().getOrDefault(Math.abs(spacecraftId), Collections.emptyList());
+    }
+
+    /**
+     * Finds the dishes tracking or communicating with a spacecraft.
+     *
+     * @param spacecraftName the name of the spacecraft as reported by the DSN state, such as {@code VGR2}
+     * @return the dishes with the spacecraft as a target or with a signal to or from it, which cannot be modified
+     */
+    public List<MergedDishData> getDishesForSpacecraft(String spacecraftName) {
+        return getDishesBySpacecraftName().getOrDefault(spacecraftName, Collections.emptyList());
+    }
+
+    /**
+     * Finds a dish by name.
+     *
+     * @param name the name of the dish, such as {@code DSS14}
+     * @return the dish, or null if there is no dish with the name
+     */
+    public MergedDishData getDish(String name) {
+        return getDishesByName().get(name);
+    }
+
+    /**
+     * Finds the dishes with an activity.
+     *
+     * @param activity the activity of the dish
+     * @return the dishes with the activity, which cannot be modified
+     */
+    public List<MergedDishData> getDishesWithActivity(String activity) {
+        return getDishesByActivity().getOrDefault(activity, Collections.emptyList());
+    }
+
+    /**
+     * Finds the uplink and downlink signals in a band.
+     *
+     * @param band the band, such as {@code X}
+     * @return the signals in the band, which cannot be modified
+     */
+    public List<Signal> getSignalsInBand(String band) {
+        return getSignalsByBand().getOrDefault(band, Collections.emptyList());
+    }
+
+    /**
+     * Finds a spacecraft by ID.
+     * Signals report the negated ID of their spacecraft, so either sign finds the same spacecraft.
+     *
+     * @param spacecraftId the ID of the spacecraft, such as {@code 32} or {@code -32}
+     * @return the spacecraft, or null if no dish is tracking or communicating with it
+     */
+    public MergedSpacecraftData getSpacecraftById(long spacecraftId) {
+        return getSpacecraftIndexById().get(Math.abs(spacecraftId));
+    }
+
+    /**
+     * Finds the spacecraft which a signal is to or from.
+     * The signal is resolved by its spacecraft ID, or by its spacecraft name if it has no ID or the ID is unknown.
+     *
+     * @param signal an uplink or downlink signal of one of the dishes
+     * @return the spacecraft, or null if it cannot be resolved
+     */
+    public MergedSpacecraftData getSpacecraftForSignal(Signal signal) {
+        if (signal.getSpacecraftId() != null) {
+            MergedSpacecraftData spacecraft = getSpacecraftById(signal.getSpacecraftId());
+            if (spacecraft != null) {
+                return spacecraft;
+            }
+        }
+        return getSpacecraftIndexByName().get(signal.getSpacecraft());
+    }
+}
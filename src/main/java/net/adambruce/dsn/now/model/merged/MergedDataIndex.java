@@ -0,0 +1,151 @@
+package net.adambruce.dsn.now.model.merged;
+
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.util.LongMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Builds the indices of a {@link MergedData} snapshot.
+ * Each index of dishes or signals is an unmodifiable hash map from a key to the dishes or signals with that key, in
+ * the order they appear in the snapshot. Spacecraft are indexed by ID in a {@link LongMap}, which is never modified
+ * once built, so lookups by ID do not box. Values without a key are not indexed.
+ */
+final class MergedDataIndex {
+
+    private MergedDataIndex() {
+    }
+
+    /**
+     * Indexes the dishes by the IDs of the spacecraft they are tracking or communicating with.
+     * Signals report the negated ID of their spacecraft, so IDs are indexed without their sign.
+     */
+    static Map<Long, List<MergedDishData>> dishesBySpacecraftId(List<MergedStationData> stations) {
+        return indexDishes(stations, (dish, keys) -> {
+            forEach(dish.getTarget(), target -> keys.add(abs(target.getId())));
+            forEach(dish.getUpSignals(), signal -> keys.add(abs(signal.getSpacecraftId())));
+            forEach(dish.getDownSignals(), signal -> keys.add(abs(signal.getSpacecraftId())));
+        });
+    }
+
+    /**
+     * Indexes the dishes by the names of the spacecraft they are tracking or communicating with.
+     */
+    static Map<String, List<MergedDishData>> dishesBySpacecraftName(List<MergedStationData> stations) {
+        return indexDishes(stations, (dish, keys) -> {
+            forEach(dish.getTarget(), target -> keys.add(target.getName()));
+            forEach(dish.getUpSignals(), signal -> keys.add(signal.getSpacecraft()));
+            forEach(dish.getDownSignals(), signal -> keys.add(signal.getSpacecraft()));
+        });
+    }
+
+    /**
+     * Indexes the dishes by their activity.
+     */
+    static Map<String, List<MergedDishData>> dishesByActivity(List<MergedStationData> stations) {
+        return indexDishes(stations, (dish, keys) -> keys.add(dish.getActivity()));
+    }
+
+    /**
+     * Indexes the dishes by name. If more than one dish has the same name, the first is indexed.
+     */
+    static Map<String, MergedDishData> dishesByName(List<MergedStationData> stations) {
+        Map<String, MergedDishData> index = new HashMap<>();
+        forEachDish(stations, dish -> {
+            if (dish.getName() != null) {
+                index.putIfAbsent(dish.getName(), dish);
+            }
+        });
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Indexes the uplink and downlink signals of every dish by band.
+     */
+    static Map<String, List<Signal>> signalsByBand(List<MergedStationData> stations) {
+        Map<String, List<Signal>> index = new HashMap<>();
+        forEachDish(stations, dish -> {
+            forEach(dish.getUpSignals(), signal -> add(index, signal.getBand(), signal));
+            forEach(dish.getDownSignals(), signal -> add(index, signal.getBand(), signal));
+        });
+        return freeze(index);
+    }
+
+    /**
+     * Indexes the spacecraft by ID. Spacecraft without an ID are not indexed.
+     */
+    static LongMap<MergedSpacecraftData> spacecraftById(List<MergedSpacecraftData> spacecraft) {
+        LongMap<MergedSpacecraftData> index = new LongMap<>(spacecraft != null ? spacecraft.size() : 0);
+        forEach(spacecraft, value -> {
+            if (value.getId() != null) {
+                index.putIfAbsent(value.getId(), value);
+            }
+        });
+        return index;
+    }
+
+    /**
+     * Indexes the spacecraft by name. If more than one spacecraft has the same name, the first is indexed.
+     */
+    static Map<String, MergedSpacecraftData> spacecraftByName(List<MergedSpacecraftData> spacecraft) {
+        Map<String, MergedSpacecraftData> index = new HashMap<>();
+        forEach(spacecraft, value -> {
+            if (value.getName() != null) {
+                index.putIfAbsent(value.getName(), value);
+            }
+        });
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Indexes each dish under every key it has, once per key however many times the key occurs on the dish.
+     */
+    private static <K> Map<K, List<MergedDishData>> indexDishes(List<MergedStationData> stations,
+                                                               BiConsumer<MergedDishData, List<K>> keys) {
+        Map<K, List<MergedDishData>> index = new HashMap<>();
+        List<K> dishKeys = new ArrayList<>();
+        forEachDish(stations, dish -> {
+            dishKeys.clear();
+            keys.accept(dish, dishKeys);
+            for (K key : dishKeys) {
+                List<MergedDishData> dishes = index.get(key);
+                // Dishes are visited in turn, so the dish has already been added for this key if it was the last
+                if (dishes == null || dishes.get(dishes.size() - 1) != dish) {
+                    add(index, key, dish);
+                }
+            }
+        });
+        return freeze(index);
+    }
+
+    private static Long abs(Long id) {
+        return id != null ? Math.abs(id) : null;
+    }
+
+    private static <K, V> void add(Map<K, List<V>> index, K key, V value) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+        }
+    }
+
+    private static <K, V> Map<K, List<V>> freeze(Map<K, List<V>> index) {
+        index.replaceAll((key, values) -> Collections.unmodifiableList(values));
+        return Collections.unmodifiableMap(index);
+    }
+
+    private static void forEachDish(List<MergedStationData> stations, Consumer<MergedDishData> action) {
+        forEach(stations, station -> forEach(station.getDishes(), action));
+    }
+
+    private static <T> void forEach(List<T> values, Consumer<? super T> action) {
+        if (values != null) {
+            values.forEach(action);
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package net.adambruce.dsn.now.model.merged;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.util.LongMap;
 
 import java.util.List;
 
 /**
  * Merged dish information from the DSN configuration and state endpoints.
+ * <p>
+ * The links of the dish, which correlate its targets and signals by spacecraft, are built when the dish is created.
+ * They repeat the targets and signals, so they are left out when the dish is serialized.
  */
 @Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class MergedDishData {
     /**
      * the name of the dish
@@ -87,4 +98,55 @@ public class MergedDishData {
      * @return the targets that the dish is tracking
      */
     List<MergedTargetData> target;
-}
\ No newline at end of file
+
+    /**
+     * the links between the dish and each spacecraft it is tracking or communicating with
+     * @return the links, which cannot be modified
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    List<MergedLinkData> links;
+
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    LongMap<MergedLinkData> linksBySpacecraftId = MergedLinks.bySpacecraftId(links);
+
+    /**
+     * Creates merged dish information, correlating the targets and signals into links.
+     *
+     * @param name the name of the dish
+     * @param friendlyName the friendly name of the dish
+     * @param type the type of dish
+     * @param azimuth the azimuth of the dish (degrees)
+     * @param elevation the elevation of the dish (degrees)
+     * @param windSpeed the wind speed at the dish (km/hr)
+     * @param multipleSpacecraftPerAperture whether the dish is configured for MSPA
+     * @param array whether the dish is configured as an array
+     * @param deltaDifferentialOneWayRanging whether the dish is configured for DDOR
+     * @param activity the activity of the dish
+     * @param upSignals the uplink signals transmitting from the dish
+     * @param downSignals the downlink signals received by the dish
+     * @param target the targets that the dish is tracking
+     */
+    public MergedDishData(String name, String friendlyName, String type, Long azimuth, Long elevation,
+                          Long windSpeed, Boolean multipleSpacecraftPerAperture, Boolean array,
+                          Boolean deltaDifferentialOneWayRanging, String activity, List<Signal> upSignals,
+                          List<Signal> downSignals, List<MergedTargetData> target) {
+        this(name, friendlyName, type, azimuth, elevation, windSpeed, multipleSpacecraftPerAperture, array,
+                deltaDifferentialOneWayRanging, activity, upSignals, downSignals, target,
+                MergedLinks.link(upSignals, downSignals, target));
+    }
+
+    /**
+     * Finds the link between the dish and a spacecraft.
+     * Signals report the negated ID of their spacecraft, so either sign finds the same link.
+     *
+     * @param spacecraftId the ID of the spacecraft, such as {@code 32} or {@code -32}
+     * @return the link, or null if the dish is neither tracking nor communicating with the spacecraft
+     */
+    public MergedLinkData getLink(long spacecraftId) {
+        return getLinksBySpacecraftId().get(Math.abs(spacecraftId));
+    }
+}
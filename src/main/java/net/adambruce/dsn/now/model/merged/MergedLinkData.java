@@ -0,0 +1,86 @@
+package net.adambruce.dsn.now.model.merged;
+
+import lombok.Value;
+import net.adambruce.dsn.now.model.state.Signal;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The link between a dish and one spacecraft: the target the dish is tracking and the signals to and from the
+ * spacecraft, correlated by spacecraft ID.
+ */
+@Value
+public class MergedLinkData {
+    /**
+     * the ID of the spacecraft, as reported by its target
+     * @return the ID of the spacecraft, or null if neither the target nor the signals reported one
+     */
+    Long spacecraftId;
+
+    /**
+     * the name of the spacecraft
+     * @return the name of the spacecraft
+     */
+    String spacecraft;
+
+    /**
+     * the target that the dish is tracking
+     * @return the target, or null if the dish has signals to or from the spacecraft without tracking it
+     */
+    MergedTargetData target;
+
+    /**
+     * the uplink signals transmitting to the spacecraft
+     * @return the uplink signals transmitting to the spacecraft
+     */
+    List<Signal> upSignals;
+
+    /**
+     * the downlink signals received from the spacecraft
+     * @return the downlink signals received from the spacecraft
+     */
+    List<Signal> downSignals;
+
+    /**
+     * the up leg range (m)
+     * @return the up leg range (m)
+     */
+    Long upLegRange;
+
+    /**
+     * the down leg range (m)
+     * @return the down leg range (m)
+     */
+    Long downLegRange;
+
+    /**
+     * the Round Trip Light Time (RTLT)
+     * @return the RTLT
+     */
+    Duration roundTripLightTime;
+
+    /**
+     * the band of the first uplink signal with a band
+     * @return the uplink band, or null if there is none
+     */
+    String upBand;
+
+    /**
+     * the band of the first downlink signal with a band
+     * @return the downlink band, or null if there is none
+     */
+    String downBand;
+
+    /**
+     * the total data rate of the uplink signals
+     * @return the total uplink data rate, or null if no uplink signal reports one
+     */
+    Long upDataRate;
+
+    /**
+     * the total data rate of the downlink signals
+     * @return the total downlink data rate, or null if no downlink signal reports one
+     */
+    Long downDataRate;
+}
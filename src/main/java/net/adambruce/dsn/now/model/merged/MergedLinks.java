@@ -0,0 +1,179 @@
+package net.adambruce.dsn.now.model.merged;
+
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.util.LongMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Correlates the targets and signals of a dish into one {@link MergedLinkData} per spacecraft.
+ * <p>
+ * Targets and signals are matched as spacecraft are joined to the configuration: on the absolute value of their
+ * spacecraft ID, as targets report the ID of a spacecraft and signals report its negation, when their names agree, and
+ * otherwise on their name. Different spacecraft may share a placeholder ID, such as {@code 99}, and so are told apart
+ * by name. Each list is read once. A dish communicates with a handful of spacecraft at most, so the links being built
+ * are found by scanning them, which is cheaper than hashing at this size. Once built, the links are indexed by
+ * spacecraft ID for lookups.
+ */
+final class MergedLinks {
+
+    private MergedLinks() {
+    }
+
+    /**
+     * Builds the links of a dish, in the order their spacecraft are first reported by the targets and then the
+     * signals.
+     *
+     * @param upSignals the uplink signals of the dish, or null
+     * @param downSignals the downlink signals of the dish, or null
+     * @param targets the targets of the dish, or null
+     * @return the links, which cannot be modified
+     */
+    static List<MergedLinkData> link(List<Signal> upSignals, List<Signal> downSignals,
+                                     List<MergedTargetData> targets) {
+        List<Link> links = new ArrayList<>(targets != null ? targets.size() : 1);
+        if (targets != null) {
+            for (MergedTargetData target : targets) {
+                Link link = find(links, target.getId(), target.getName());
+                if (link.target == null) {
+                    link.target = target;
+                }
+            }
+        }
+        if (upSignals != null) {
+            for (Signal signal : upSignals) {
+                find(links, signal.getSpacecraftId(), signal.getSpacecraft()).upSignals.add(signal);
+            }
+        }
+        if (downSignals != null) {
+            for (Signal signal : downSignals) {
+                find(links, signal.getSpacecraftId(), signal.getSpacecraft()).downSignals.add(signal);
+            }
+        }
+
+        if (links.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<MergedLinkData> merged = new ArrayList<>(links.size());
+        for (Link link : links) {
+            merged.add(link.build());
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    /**
+     * Indexes the links of a dish by spacecraft ID. Links without an ID are not indexed, and of the links sharing an
+     * ID, only the first is indexed.
+     *
+     * @param links the links of the dish
+     * @return the index, which must not be modified
+     */
+    static LongMap<MergedLinkData> bySpacecraftId(List<MergedLinkData> links) {
+        LongMap<MergedLinkData> index = new LongMap<>(links.size());
+        for (MergedLinkData link : links) {
+            if (link.getSpacecraftId() != null) {
+                index.putIfAbsent(link.getSpacecraftId(), link);
+            }
+        }
+        return index;
+    }
+
+    private static Link find(List<Link> links, Long id, String name) {
+        Long key = id != null ? Math.abs(id) : null;
+        Link link = key != null ? findById(links, key, name) : null;
+        if (link == null) {
+            link = findByName(links, key, name);
+        }
+        if (link == null) {
+            link = new Link(key, name);
+            links.add(link);
+        }
+        // A link found by ID learns its name, and one found by name learns its ID, so that later matches find it
+        if (link.spacecraftId == null) {
+            link.spacecraftId = key;
+        }
+        if (link.name == null) {
+            link.name = name;
+        }
+        return link;
+    }
+
+    private static Link findById(List<Link> links, long key, String name) {
+        for (Link link : links) {
+            if (link.spacecraftId != null && link.spacecraftId == key
+                    && (name == null || link.name == null || name.equalsIgnoreCase(link.name))) {
+                return link;
+            }
+        }
+        return null;
+    }
+
+    private static Link findByName(List<Link> links, Long key, String name) {
+        for (Link link : links) {
+            // A link with a different ID is a different spacecraft, whatever its name
+            if (key != null && link.spacecraftId != null) {
+                continue;
+            }
+            if (name != null ? name.equalsIgnoreCase(link.name)
+                    : key == null && link.name == null && link.spacecraftId == null) {
+                return link;
+            }
+        }
+        return null;
+    }
+
+    private static String firstBand(List<Signal> signals) {
+        for (Signal signal : signals) {
+            if (signal.getBand() != null) {
+                return signal.getBand();
+            }
+        }
+        return null;
+    }
+
+    private static Long totalDataRate(List<Signal> signals) {
+        Long total = null;
+        for (Signal signal : signals) {
+            if (signal.getDataRate() != null) {
+                total = total != null ? total + signal.getDataRate() : signal.getDataRate();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * A link being built.
+     */
+    private static final class Link {
+
+        private Long spacecraftId;
+        private String name;
+        private final List<Signal> upSignals = new ArrayList<>(1);
+        private final List<Signal> downSignals = new ArrayList<>(1);
+        private MergedTargetData target;
+
+        Link(Long spacecraftId, String name) {
+            this.spacecraftId = spacecraftId;
+            this.name = name;
+        }
+
+        MergedLinkData build() {
+            return new MergedLinkData(
+                    spacecraftId,
+                    name,
+                    target,
+                    Collections.unmodifiableList(upSignals),
+                    Collections.unmodifiableList(downSignals),
+                    target != null ? target.getUpLegRange() : null,
+                    target != null ? target.getDownLegRange() : null,
+                    target != null ? target.getRoundTripLightTime() : null,
+                    firstBand(upSignals),
+                    firstBand(downSignals),
+                    totalDataRate(upSignals),
+                    totalDataRate(downSignals)
+            );
+        }
+    }
+}
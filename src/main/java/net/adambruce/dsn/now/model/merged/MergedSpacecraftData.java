@@ -0,0 +1,45 @@
+package net.adambruce.dsn.now.model.merged;
+
+import lombok.Value;
+
+/**
+ * A spacecraft tracked by, or communicating with, the DSN, joined with its DSN Now configuration.
+ */
+@Value
+public class MergedSpacecraftData {
+    /**
+     * the ID of the spacecraft, as reported by its targets
+     * @return the ID of the spacecraft, or null if the DSN did not report one
+     */
+    Long id;
+
+    /**
+     * the name of the spacecraft, as reported by the DSN state
+     * @return the name of the spacecraft
+     */
+    String name;
+
+    /**
+     * the explorer name of the spacecraft
+     * @return the explorer name of the spacecraft
+     */
+    String explorerName;
+
+    /**
+     * the friendly acronym of the spacecraft
+     * @return the friendly acronym of the spacecraft
+     */
+    String friendlyAcronym;
+
+    /**
+     * the friendly name of the spacecraft
+     * @return the friendly name of the spacecraft
+     */
+    String friendlyName;
+
+    /**
+     * whether the spacecraft has a thumbnail (used by DSN Now webpage)
+     * @return true if the spacecraft has a thumbnail
+     */
+    Boolean thumbnail;
+}
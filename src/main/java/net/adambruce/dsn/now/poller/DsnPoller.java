@@ -0,0 +1,404 @@
+package net.adambruce.dsn.now.poller;
+
+import lombok.extern.slf4j.Slf4j;
+import net.adambruce.dsn.now.client.DsnClient;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Polls the DSN in the background, delivering each new {@link State} and {@link MergedData} to listeners.
+ * <p>
+ * Polls never overlap: each poll is scheduled once the previous one has finished. Listeners are called on their own
+ * executor, with at most one update buffered per listener, so a slow listener never delays polling. After a failed
+ * poll, the next poll is delayed with exponential back-off.
+ * <p>
+ * The poller should be closed once it is no longer required. Closing the poller does not close the client.
+ */
+@Slf4j
+public class DsnPoller implements AutoCloseable {
+
+    private final DsnClient client;
+    private final Scheduling scheduling;
+    private final long intervalNanos;
+    private final long jitterNanos;
+    private final long maxBackoffNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final ScheduledExecutorService scheduler;
+    private final Executor listenerExecutor;
+    private final boolean ownsScheduler;
+    private final boolean ownsListenerExecutor;
+    private final LongSupplier nanoTime;
+
+    private final List<Mailbox<State>> stateListeners = new CopyOnWriteArrayList<>();
+    private final List<Mailbox<MergedData>> mergedDataListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong missedTickCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    // Only accessed from the poll task, which never runs concurrently with itself
+    private long nextTick;
+    private int consecutiveFailures;
+    private State lastState;
+    private MergedData lastMergedData;
+
+    // Guards scheduling against a concurrent close, so no poll is scheduled once the poller has been closed
+    private final Object scheduleLock = new Object();
+    private Future<?> scheduled;
+
+    DsnPoller(Builder builder) {
+        this.client = builder.client;
+        this.scheduling = builder.scheduling;
+        this.intervalNanos = builder.interval.toNanos();
+        this.jitterNanos = builder.jitter.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.overflowPolicy = builder.overflowPolicy;
+        this.ownsScheduler = builder.scheduler == null;
+        this.scheduler = ownsScheduler ? Executors.newSingleThreadScheduledExecutor(DsnPoller::newThread)
+                : builder.scheduler;
+        this.ownsListenerExecutor = builder.listenerExecutor == null;
+        this.listenerExecutor = ownsListenerExecutor ? Executors.newCachedThreadPool(DsnPoller::newThread)
+                : builder.listenerExecutor;
+        this.nanoTime = builder.nanoTime;
+    }
+
+    /**
+     * Creates a new builder for a poller using the given client.
+     *
+     * @param client the client used to fetch updates
+     * @return a new builder
+     */
+    public static Builder builder(DsnClient client) {
+        return new Builder(client);
+    }
+
+    /**
+     * Subscribes a listener to each new state.
+     * The state is only fetched while there is at least one state listener.
+     *
+     * @param listener the listener
+     * @return the subscription, used to unsubscribe the listener
+     */
+    public Subscription subscribeState(Consumer<? super State> listener) {
+        return subscribe(stateListeners, listener);
+    }
+
+    /**
+     * Subscribes a listener to each new merged state and configuration.
+     * The merged data is only fetched while there is at least one merged data listener.
+     *
+     * @param listener the listener
+     * @return the subscription, used to unsubscribe the listener
+     */
+    public Subscription subscribeMergedData(Consumer<? super MergedData> listener) {
+        return subscribe(mergedDataListeners, listener);
+    }
+
+    private <T> Subscription subscribe(List<Mailbox<T>> listeners, Consumer<? super T> listener) {
+        Mailbox<T> mailbox = new Mailbox<>(listener, listenerExecutor, overflowPolicy, droppedCount, listeners::remove);
+        listeners.add(mailbox);
+        return mailbox;
+    }
+
+    /**
+     * Starts polling. The first poll is made immediately.
+     *
+     * @throws IllegalStateException the poller has already been started, or has been closed
+     */
+    public void start() {
+        if (closed.get() || !started.compareAndSet(false, true)) {
+            throw new IllegalStateException("poller has already been started or closed");
+        }
+        log.debug("starting poller");
+        nextTick = nanoTime.getAsLong();
+        schedule(0);
+    }
+
+    /**
+     * Gets the number of polls made, including failed polls.
+     *
+     * @return the number of polls made
+     */
+    public long getPollCount() {
+        return pollCount.get();
+    }
+
+    /**
+     * Gets the number of polls which failed.
+     *
+     * @return the number of failed polls
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Gets the number of fixed-rate ticks which were skipped because the previous poll was still running.
+     *
+     * @return the number of missed ticks
+     */
+    public long getMissedTickCount() {
+        return missedTickCount.get();
+    }
+
+    /**
+     * Gets the number of updates which were discarded because a listener was still busy with a previous update.
+     *
+     * @return the number of discarded updates
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops polling, and shuts down the executors created by the poller.
+     * A poll which is already running is allowed to finish, but its results are not delivered.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        log.debug("closing poller");
+        synchronized (scheduleLock) {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
+        if (ownsListenerExecutor) {
+            ((ExecutorService) listenerExecutor).shutdown();
+        }
+    }
+
+    private void schedule(long delayNanos) {
+        synchronized (scheduleLock) {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                scheduled = scheduler.schedule(this::poll, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ex) {
+                // A scheduler set on the builder may be shut down without closing the poller
+                log.warn("scheduler rejected the next poll, polling has stopped", ex);
+            }
+        }
+    }
+
+    private void poll() {
+        pollCount.incrementAndGet();
+        try {
+            fetchAndDeliver();
+            consecutiveFailures = 0;
+            schedule(nextDelay());
+        } catch (Exception ex) {
+            failureCount.incrementAndGet();
+            consecutiveFailures++;
+            long backoff = backoff();
+            log.warn("poll failed, retrying in {}", Duration.ofNanos(backoff), ex);
+            nextTick = nanoTime.getAsLong() + backoff;
+            schedule(backoff);
+        }
+    }
+
+    private void fetchAndDeliver() throws Exception {
+        State state = null;
+        if (!stateListeners.isEmpty()) {
+            state = client.fetchState();
+            // An unchanged document is returned as the previous instance, so this is usually a reference comparison
+            if (!Objects.equals(state, lastState)) {
+                lastState = state;
+                deliver(stateListeners, state);
+            }
+        }
+        if (!mergedDataListeners.isEmpty()) {
+            // Merge the state fetched by this poll, if there was one, rather than fetching it again
+            MergedData mergedData = state != null ? client.merge(state) : client.fetchMergedData();
+            if (!Objects.equals(mergedData, lastMergedData)) {
+                lastMergedData = mergedData;
+                deliver(mergedDataListeners, mergedData);
+            }
+        }
+    }
+
+    private <T> void deliver(List<Mailbox<T>> listeners, T update) {
+        if (!closed.get()) {
+            for (Mailbox<T> listener : listeners) {
+                listener.offer(update);
+            }
+        }
+    }
+
+    private long nextDelay() {
+        long now = nanoTime.getAsLong();
+        if (scheduling == Scheduling.FIXED_DELAY) {
+            return intervalNanos + jitter();
+        }
+
+        nextTick += intervalNanos;
+        if (now > nextTick) {
+            long missed = (now - nextTick) / intervalNanos + 1;
+            missedTickCount.addAndGet(missed);
+            nextTick += missed * intervalNanos;
+            log.warn("poll overran the interval, skipped {} tick(s)", missed);
+        }
+        return nextTick - now + jitter();
+    }
+
+    private long backoff() {
+        long backoff = intervalNanos;
+        for (int i = 0; i < consecutiveFailures && backoff < maxBackoffNanos; i++) {
+            // Compare against half the maximum, as doubling could otherwise overflow
+            backoff = backoff < maxBackoffNanos / 2 ? backoff * 2 : maxBackoffNanos;
+        }
+        return Math.min(backoff, maxBackoffNanos) + jitter();
+    }
+
+    private long jitter() {
+        return jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0;
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "dsn-poller");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Builder for {@link DsnPoller}.
+     */
+    public static final class Builder {
+
+        private final DsnClient client;
+        private Scheduling scheduling = Scheduling.FIXED_RATE;
+        private Duration interval = Duration.ofSeconds(5);
+        private Duration jitter = Duration.ZERO;
+        private Duration maxBackoff = Duration.ofMinutes(5);
+        private OverflowPolicy overflowPolicy = OverflowPolicy.LATEST_WINS;
+        private ScheduledExecutorService scheduler;
+        private Executor listenerExecutor;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        private Builder(DsnClient client) {
+            this.client = client;
+        }
+
+        /**
+         * Sets how the next poll is scheduled (default {@link Scheduling#FIXED_RATE}).
+         *
+         * @param scheduling the scheduling mode
+         * @return this builder
+         */
+        public Builder scheduling(Scheduling scheduling) {
+            this.scheduling = scheduling;
+            return this;
+        }
+
+        /**
+         * Sets the interval between polls (default 5 secs).
+         *
+         * @param interval the poll interval
+         * @return this builder
+         */
+        public Builder interval(Duration interval) {
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * Sets the maximum random delay added to each poll (default none).
+         * Jitter spreads the polls of many pollers, so that they do not all reach the server at once.
+         *
+         * @param jitter the maximum jitter
+         * @return this builder
+         */
+        public Builder jitter(Duration jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets the maximum delay before retrying after consecutive failed polls (default 5 mins).
+         * The delay starts at twice the interval, and doubles with each consecutive failure up to this maximum.
+         *
+         * @param maxBackoff the maximum back-off delay
+         * @return this builder
+         */
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Sets what happens to an update when a listener is still busy with a previous one (default
+         * {@link OverflowPolicy#LATEST_WINS}).
+         *
+         * @param overflowPolicy the overflow policy
+         * @return this builder
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the executor used to run polls (default a single daemon thread owned by the poller).
+         * An executor set here is not shut down when the poller is closed.
+         *
+         * @param scheduler the poll executor
+         * @return this builder
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Sets the executor used to call listeners (default a pool of daemon threads owned by the poller).
+         * An executor set here is not shut down when the poller is closed.
+         *
+         * @param listenerExecutor the listener executor
+         * @return this builder
+         */
+        public Builder listenerExecutor(Executor listenerExecutor) {
+            this.listenerExecutor = listenerExecutor;
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        /**
+         * Creates a new poller. The poller does not poll until it is started.
+         *
+         * @return a new poller
+         */
+        public DsnPoller build() {
+            return new DsnPoller(this);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package net.adambruce.dsn.now.poller;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Hands updates off to a single listener on an executor, buffering at most one pending update.
+ * Updates are delivered to the listener one at a time, in order.
+ *
+ * @param <T> the type of update
+ */
+@Slf4j
+class Mailbox<T> implements Subscription {
+
+    private final AtomicReference<T> pending = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Consumer<? super T> listener;
+    private final Executor executor;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong droppedCount;
+    private final Consumer<Mailbox<T>> onCancel;
+
+    Mailbox(Consumer<? super T> listener, Executor executor, OverflowPolicy overflowPolicy, AtomicLong droppedCount,
+            Consumer<Mailbox<T>> onCancel) {
+        this.listener = listener;
+        this.executor = executor;
+        this.overflowPolicy = overflowPolicy;
+        this.droppedCount = droppedCount;
+        this.onCancel = onCancel;
+    }
+
+    /**
+     * Offers an update to the listener without waiting for it to be delivered.
+     *
+     * @param update the update
+     */
+    void offer(T update) {
+        boolean dropped = overflowPolicy == OverflowPolicy.LATEST_WINS
+                ? pending.getAndSet(update) != null
+                : !pending.compareAndSet(null, update);
+        if (dropped) {
+            droppedCount.incrementAndGet();
+        }
+        scheduleDrain();
+    }
+
+    @Override
+    public void cancel() {
+        onCancel.accept(this);
+        pending.set(null);
+    }
+
+    private void scheduleDrain() {
+        if (pending.get() != null && draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                // Allow a later offer to try again, in case the executor was only saturated
+                draining.set(false);
+                log.warn("executor rejected delivery to listener", ex);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            T update;
+            while ((update = pending.getAndSet(null)) != null) {
+                deliver(update);
+            }
+        } finally {
+            draining.set(false);
+        }
+        // An update may have been offered after the last check but before draining was cleared
+        scheduleDrain();
+    }
+
+    private void deliver(T update) {
+        try {
+            listener.accept(update);
+        } catch (RuntimeException ex) {
+            log.warn("listener failed to handle update", ex);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package net.adambruce.dsn.now.poller;
+
+/**
+ * What happens to an update when a listener is still busy with a previous one.
+ * Each listener buffers at most one pending update, so a slow listener never blocks the poller.
+ */
+public enum OverflowPolicy {
+    /**
+     * The pending update is replaced with the newer one, so the listener always receives the latest update.
+     */
+    LATEST_WINS,
+
+    /**
+     * The newer update is dropped, and the pending update is kept.
+     */
+    DROP
+}
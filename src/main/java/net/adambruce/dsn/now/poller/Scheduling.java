@@ -0,0 +1,17 @@
+package net.adambruce.dsn.now.poller;
+
+/**
+ * How the poller schedules the next poll.
+ */
+public enum Scheduling {
+    /**
+     * Polls start at a fixed interval from one another. Ticks which pass while a poll is still running are skipped
+     * and reported as missed, so polls never overlap.
+     */
+    FIXED_RATE,
+
+    /**
+     * Each poll starts a fixed interval after the previous poll finished.
+     */
+    FIXED_DELAY
+}
@@ -0,0 +1,13 @@
+package net.adambruce.dsn.now.poller;
+
+/**
+ * A listener's subscription to updates from a {@link DsnPoller}.
+ */
+public interface Subscription {
+
+    /**
+     * Stops delivering updates to the listener.
+     * An update which is already being delivered is not interrupted.
+     */
+    void cancel();
+}
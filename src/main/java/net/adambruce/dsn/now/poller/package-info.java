@@ -0,0 +1,4 @@
+/**
+ * Contains a background poller which delivers DSN Now updates to listeners.
+ */
+package net.adambruce.dsn.now.poller;
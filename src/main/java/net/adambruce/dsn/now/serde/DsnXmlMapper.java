@@ -0,0 +1,37 @@
+package net.adambruce.dsn.now.serde;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+
+/**
+ * Creates the Jackson mapper used to read DSN Now responses.
+ */
+public final class DsnXmlMapper {
+
+    private DsnXmlMapper() {
+    }
+
+    /**
+     * Creates a new mapper configured for reading DSN Now responses.
+     *
+     * @return a new mapper
+     */
+    public static ObjectMapper create() {
+        SimpleModule serdeModule = new SimpleModule()
+                .addDeserializer(ZoneOffset.class, new ZoneOffsetDeserializer())
+                .addDeserializer(Duration.class, new DurationDeserializer());
+
+        return XmlMapper.builder()
+                .addModule(new JavaTimeModule())
+                .addModule(serdeModule)
+                .configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, false)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .build();
+    }
+}
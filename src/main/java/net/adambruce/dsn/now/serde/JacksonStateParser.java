@@ -0,0 +1,29 @@
+package net.adambruce.dsn.now.serde;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.adambruce.dsn.now.model.state.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses DSN Now state documents using Jackson data binding.
+ */
+public class JacksonStateParser implements StateParser {
+
+    private final ObjectMapper mapper;
+
+    /**
+     * Creates a new JacksonStateParser instance.
+     *
+     * @param mapper the mapper used to read the document, see {@link DsnXmlMapper#create()}
+     */
+    public JacksonStateParser(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public State parse(InputStream inputStream) throws IOException {
+        return mapper.readValue(inputStream, State.class);
+    }
+}
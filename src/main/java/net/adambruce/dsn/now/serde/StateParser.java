@@ -0,0 +1,21 @@
+package net.adambruce.dsn.now.serde;
+
+import net.adambruce.dsn.now.model.state.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses a DSN Now state document (dsn.xml) into a {@link State}.
+ */
+public interface StateParser {
+
+    /**
+     * Parses a DSN Now state document.
+     *
+     * @param inputStream the state document
+     * @return the parsed state
+     * @throws IOException the document could not be read or parsed
+     */
+    State parse(InputStream inputStream) throws IOException;
+}
@@ -0,0 +1,281 @@
+package net.adambruce.dsn.now.serde;
+
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Parses DSN Now state documents with a streaming (StAX) pull parser.
+ * The model is built directly from element attributes, bypassing Jackson data binding. The resulting {@link State} is
+ * identical to the one produced by {@link JacksonStateParser}, but parsing allocates considerably less.
+ */
+public class StaxStateParser implements StateParser {
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    @Override
+    public State parse(InputStream inputStream) throws IOException {
+        try {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                reader.nextTag();
+                return readState(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException | DateTimeException ex) {
+            throw new IOException("failed to parse state", ex);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        return factory;
+    }
+
+    private static State readState(XMLStreamReader reader) throws XMLStreamException {
+        State state = new State();
+        while (nextElement(reader)) {
+            switch (reader.getLocalName()) {
+                case "station":
+                    state.setStation(readStation(reader));
+                    break;
+                case "dish":
+                    state.setDish(readDish(reader));
+                    break;
+                case "timestamp":
+                    state.setTimestamp(toInstant(reader.getElementText()));
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
+        return state;
+    }
+
+    private static Station readStation(XMLStreamReader reader) throws XMLStreamException {
+        Station station = new Station();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String value = reader.getAttributeValue(i);
+            switch (reader.getAttributeLocalName(i)) {
+                case "name":
+                    station.setName(value);
+                    break;
+                case "friendlyName":
+                    station.setFriendlyName(value);
+                    break;
+                case "timeUTC":
+                    station.setTime(toInstant(value));
+                    break;
+                case "timeZoneOffset":
+                    station.setTimeZoneOffset(toZoneOffset(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        skipElement(reader);
+        return station;
+    }
+
+    private static Dish readDish(XMLStreamReader reader) throws XMLStreamException {
+        Dish dish = new Dish();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String value = reader.getAttributeValue(i);
+            switch (reader.getAttributeLocalName(i)) {
+                case "name":
+                    dish.setName(value);
+                    break;
+                case "azimuthAngle":
+                    dish.setAzimuth(toLong(value));
+                    break;
+                case "elevationAngle":
+                    dish.setElevation(toLong(value));
+                    break;
+                case "windSpeed":
+                    dish.setWindSpeed(toLong(value));
+                    break;
+                case "isMSPA":
+                    dish.setMultipleSpacecraftPerAperture(toBoolean(value));
+                    break;
+                case "isArray":
+                    dish.setArray(toBoolean(value));
+                    break;
+                case "isDDOR":
+                    dish.setDeltaDifferentialOneWayRanging(toBoolean(value));
+                    break;
+                case "activity":
+                    dish.setActivity(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        while (nextElement(reader)) {
+            switch (reader.getLocalName()) {
+                case "upSignal":
+                    dish.setUpSignal(readSignal(reader));
+                    break;
+                case "downSignal":
+                    dish.setDownSignal(readSignal(reader));
+                    break;
+                case "target":
+                    dish.setTarget(readTarget(reader));
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
+        return dish;
+    }
+
+    private static Signal readSignal(XMLStreamReader reader) throws XMLStreamException {
+        Signal signal = new Signal();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String value = reader.getAttributeValue(i);
+            switch (reader.getAttributeLocalName(i)) {
+                case "active":
+                    signal.setActive(toBoolean(value));
+                    break;
+                case "signalType":
+                    signal.setSignalType(value);
+                    break;
+                case "dataRate":
+                    signal.setDataRate(toLong(value));
+                    break;
+                case "frequency":
+                    signal.setFrequency(toLong(value));
+                    break;
+                case "band":
+                    signal.setBand(value);
+                    break;
+                case "power":
+                    signal.setPower(toDouble(value));
+                    break;
+                case "spacecraft":
+                    signal.setSpacecraft(value);
+                    break;
+                case "spacecraftID":
+                    signal.setSpacecraftId(toLong(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        skipElement(reader);
+        return signal;
+    }
+
+    private static Target readTarget(XMLStreamReader reader) throws XMLStreamException {
+        Target target = new Target();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String value = reader.getAttributeValue(i);
+            switch (reader.getAttributeLocalName(i)) {
+                case "name":
+                    target.setName(value);
+                    break;
+                case "id":
+                    target.setId(toLong(value));
+                    break;
+                case "uplegRange":
+                    target.setUpLegRange(toLong(value));
+                    break;
+                case "downlegRange":
+                    target.setDownLegRange(toLong(value));
+                    break;
+                case "rtlt":
+                    target.setRoundTripLightTime(toDuration(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        skipElement(reader);
+        return target;
+    }
+
+    /**
+     * Advances to the next child element of the current element.
+     * Returns false once the end of the current element has been reached.
+     */
+    private static boolean nextElement(XMLStreamReader reader) throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Skips the remainder of the current element, including any children.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        while (nextElement(reader)) {
+            skipElement(reader);
+        }
+    }
+
+    private static Long toLong(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        return Long.parseLong(value);
+    }
+
+    private static Double toDouble(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        return Double.parseDouble(value);
+    }
+
+    private static Boolean toBoolean(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        return Boolean.valueOf(value);
+    }
+
+    private static Instant toInstant(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        return Instant.ofEpochMilli(Long.parseLong(value));
+    }
+
+    private static ZoneOffset toZoneOffset(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        return ZoneOffset.ofTotalSeconds(((int) Double.parseDouble(value)) / 1000);
+    }
+
+    private static Duration toDuration(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        double seconds = Double.parseDouble(value);
+        return seconds >= 0 ? Duration.ofSeconds((long) seconds) : null;
+    }
+}
@@ -0,0 +1,148 @@
+package net.adambruce.dsn.now.serde;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.config.Dish;
+import net.adambruce.dsn.now.model.config.Site;
+import net.adambruce.dsn.now.model.config.Spacecraft;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A bounded table of canonical strings.
+ * <p>
+ * Names, activities, bands and signal types are repeated in every DSN state, but each parse creates new strings for
+ * them. Passing the strings of each state through the same pool replaces them with a single shared instance, so
+ * snapshots which are kept for a while do not each hold their own copies, and comparing the strings of consecutive
+ * snapshots usually finds the same instance.
+ * <p>
+ * The table is four-way set associative and never grows: a new string replaces the least recently added string of its
+ * set. The pool is safe for concurrent use without locking; as strings are immutable, a race can only cause a string
+ * to be added twice or not at all.
+ */
+public final class StringPool {
+
+    private static final int WAYS = 4;
+
+    private final String[] table;
+    private final int shift;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param capacity the number of strings to hold, which is rounded up to a power of two (minimum 4)
+     */
+    public StringPool(int capacity) {
+        int size = capacity <= WAYS ? WAYS : Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new String[size];
+        this.shift = Integer.numberOfLeadingZeros(size / WAYS) + 1;
+    }
+
+    /**
+     * Gets the number of strings the pool can hold.
+     *
+     * @return the capacity of the pool
+     */
+    public int getCapacity() {
+        return table.length;
+    }
+
+    /**
+     * Gets the canonical instance of a string, adding the string to the pool if it is not present.
+     *
+     * @param value the string
+     * @return the pooled string equal to the given string, or the string itself if it was added
+     */
+    public String canonicalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        // Names such as DSS14 and DSS15 have similar hash codes, so the set is taken from the high bits of the
+        // product with the golden ratio rather than from the low bits of the hash code
+        int set = (int) (((value.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL) >>> shift);
+        int start = set * WAYS;
+        for (int i = start; i < start + WAYS; i++) {
+            String pooled = table[i];
+            if (value.equals(pooled)) {
+                return pooled;
+            }
+        }
+        System.arraycopy(table, start, table, start + 1, WAYS - 1);
+        table[start] = value;
+        return value;
+    }
+
+    /**
+     * Adds the names in a configuration to the pool, replacing the names in the configuration with their canonical
+     * instances.
+     *
+     * @param configuration the configuration
+     */
+    public void seed(Configuration configuration) {
+        forEach(configuration.getSites(), this::canonicalize);
+        forEach(configuration.getSpacecraft(), this::canonicalize);
+    }
+
+    /**
+     * Replaces the repeated strings of a state with their canonical instances: the names of stations, dishes and
+     * targets, dish activities, and the band, type and spacecraft of each signal.
+     *
+     * @param state the state
+     */
+    public void canonicalizeState(State state) {
+        forEach(state.getStations(), this::canonicalize);
+        forEach(state.getDishes(), this::canonicalize);
+    }
+
+    private void canonicalize(Site site) {
+        site.setName(canonicalize(site.getName()));
+        site.setFriendlyName(canonicalize(site.getFriendlyName()));
+        forEach(site.getDishes(), this::canonicalize);
+    }
+
+    private void canonicalize(Dish dish) {
+        dish.setName(canonicalize(dish.getName()));
+        dish.setFriendlyName(canonicalize(dish.getFriendlyName()));
+        dish.setType(canonicalize(dish.getType()));
+    }
+
+    private void canonicalize(Spacecraft spacecraft) {
+        spacecraft.setName(canonicalize(spacecraft.getName()));
+        spacecraft.setExplorerName(canonicalize(spacecraft.getExplorerName()));
+        spacecraft.setFriendlyAcronym(canonicalize(spacecraft.getFriendlyAcronym()));
+        spacecraft.setFriendlyName(canonicalize(spacecraft.getFriendlyName()));
+    }
+
+    private void canonicalize(Station station) {
+        station.setName(canonicalize(station.getName()));
+        station.setFriendlyName(canonicalize(station.getFriendlyName()));
+    }
+
+    private void canonicalize(net.adambruce.dsn.now.model.state.Dish dish) {
+        dish.setName(canonicalize(dish.getName()));
+        dish.setActivity(canonicalize(dish.getActivity()));
+        forEach(dish.getUpSignals(), this::canonicalize);
+        forEach(dish.getDownSignals(), this::canonicalize);
+        forEach(dish.getTargets(), this::canonicalize);
+    }
+
+    private void canonicalize(Signal signal) {
+        signal.setSignalType(canonicalize(signal.getSignalType()));
+        signal.setBand(canonicalize(signal.getBand()));
+        signal.setSpacecraft(canonicalize(signal.getSpacecraft()));
+    }
+
+    private void canonicalize(Target target) {
+        target.setName(canonicalize(target.getName()));
+    }
+
+    private static <T> void forEach(List<T> values, Consumer<T> action) {
+        if (values != null) {
+            values.forEach(action);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package net.adambruce.dsn.now.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.poller.DsnPoller;
+import net.adambruce.dsn.now.poller.Subscription;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves the merged data of a {@link DsnPoller} to many consumers over HTTP, so that they share one poller rather than
+ * each fetching, parsing and merging the DSN state.
+ * <p>
+ * Each snapshot is written as JSON, compressed and framed as a server-sent event once, when the poller delivers it,
+ * so each request is answered with a buffer write. Two endpoints are served:
+ * <ul>
+ *     <li>{@code GET /merged-data} - the latest snapshot, gzip compressed when the request accepts it, with an entity
+ *     tag so that a request with a matching {@code If-None-Match} is answered as not modified. Until the first
+ *     snapshot is delivered, requests are answered with {@code 503 Service Unavailable}.</li>
+ *     <li>{@code GET /merged-data/events} - a {@code text/event-stream} which sends the latest snapshot as a
+ *     {@code merged-data} event when it connects, unless its {@code Last-Event-ID} is the latest snapshot's entity
+ *     tag, and then each new snapshot as it is delivered.</li>
+ * </ul>
+ * The server uses the JDK's built-in HTTP server, and should be closed once it is no longer required. Closing the
+ * server does not close the poller.
+ */
+@Slf4j
+public class DsnServer implements AutoCloseable {
+
+    static final String SNAPSHOT_PATH = "/merged-data";
+    static final String EVENTS_PATH = "/merged-data/events";
+
+    private final DsnPoller poller;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final ObjectMapper mapper;
+    private final byte[] streamPreamble;
+
+    private final List<EventStream> streams = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile ServedSnapshot snapshot;
+    private volatile Subscription subscription;
+
+    DsnServer(Builder builder) throws IOException {
+        this.poller = builder.poller;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? Executors.newCachedThreadPool(DsnServer::newThread) : builder.executor;
+        this.mapper = builder.mapper != null ? builder.mapper : newMapper();
+        // Consumers which lose the stream reconnect after the poll interval, by which time there may be news
+        this.streamPreamble = ("retry: " + builder.reconnectDelay.toMillis() + "\n\n").getBytes(StandardCharsets.UTF_8);
+
+        this.server = HttpServer.create(builder.address, builder.backlog);
+        server.setExecutor(executor);
+        server.createContext(SNAPSHOT_PATH, this::handle);
+    }
+
+    /**
+     * Creates a new builder for a server sharing the merged data of the given poller.
+     *
+     * @param poller the poller
+     * @return a new builder
+     */
+    public static Builder builder(DsnPoller poller) {
+        return new Builder(poller);
+    }
+
+    /**
+     * Starts serving, and subscribes to the poller's merged data. The poller must be started separately.
+     *
+     * @throws IllegalStateException the server has already been started or closed
+     */
+    public void start() {
+        if (closed.get() || !started.compareAndSet(false, true)) {
+            throw new IllegalStateException("server has already been started");
+        }
+        subscription = poller.subscribeMergedData(this::publish);
+        server.start();
+        log.debug("serving merged data on {}", server.getAddress());
+    }
+
+    /**
+     * Gets the address the server is listening on, including the port chosen when it was bound to port 0.
+     *
+     * @return the address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Gets the number of connected event streams.
+     *
+     * @return the number of event streams
+     */
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    /**
+     * Publishes merged data to every consumer. Called by the poller with each new snapshot.
+     * A snapshot which cannot be written is logged, and the previous snapshot continues to be served.
+     *
+     * @param mergedData the merged data
+     */
+    void publish(MergedData mergedData) {
+        ServedSnapshot current = snapshot;
+        if (current != null && current.getMergedData() == mergedData) {
+            return;
+        }
+
+        ServedSnapshot next;
+        try {
+            next = ServedSnapshot.of(mergedData, mapper);
+        } catch (IOException ex) {
+            log.warn("failed to write merged data", ex);
+            return;
+        }
+        if (current != null && current.getEntityTag().equals(next.getEntityTag())) {
+            return;
+        }
+
+        snapshot = next;
+        for (EventStream stream : streams) {
+            stream.offer(next.getEvent());
+        }
+    }
+
+    /**
+     * Stops serving, ending every event stream, and unsubscribes from the poller.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        log.debug("closing server");
+        Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        for (EventStream stream : streams) {
+            stream.close();
+        }
+        server.stop(0);
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Handles a request to the snapshot or event stream path.
+     */
+    void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals(SNAPSHOT_PATH)) {
+            if (method.equals("GET") || method.equals("HEAD")) {
+                serveSnapshot(exchange, method.equals("GET"));
+            } else {
+                notAllowed(exchange, "GET, HEAD");
+            }
+        } else if (path.equals(EVENTS_PATH)) {
+            if (method.equals("GET")) {
+                openStream(exchange);
+            } else {
+                notAllowed(exchange, "GET");
+            }
+        } else {
+            respond(exchange, 404);
+        }
+    }
+
+    private void serveSnapshot(HttpExchange exchange, boolean sendBody) throws IOException {
+        ServedSnapshot current = snapshot;
+        Headers headers = exchange.getResponseHeaders();
+        if (current == null) {
+            headers.set("Retry-After", "5");
+            respond(exchange, 503);
+            return;
+        }
+
+        headers.set("ETag", current.getEntityTag());
+        headers.set("Cache-Control", "no-cache");
+        headers.set("Vary", "Accept-Encoding");
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), current.getEntityTag())) {
+            respond(exchange, 304);
+            return;
+        }
+
+        byte[] body = current.getJson();
+        if (acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+            headers.set("Content-Encoding", "gzip");
+            body = current.getGzip();
+        }
+        headers.set("Content-Type", "application/json");
+        if (!sendBody) {
+            headers.set("Content-Length", Integer.toString(body.length));
+            respond(exchange, 200);
+            return;
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void openStream(HttpExchange exchange) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "text/event-stream");
+        headers.set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        // Written before the stream is added, so it cannot be replaced by a snapshot offered meanwhile
+        exchange.getResponseBody().write(streamPreamble);
+        exchange.getResponseBody().flush();
+
+        EventStream stream = new EventStream(exchange, executor, streams::remove);
+        streams.add(stream);
+        // The server may have closed its streams while this one was being opened, so end it here instead
+        if (closed.get()) {
+            stream.close();
+            return;
+        }
+
+        // The snapshot is read after the stream is added, so a snapshot published meanwhile is offered at least once
+        ServedSnapshot current = snapshot;
+        if (current != null
+                && !current.getEntityTag().equals(exchange.getRequestHeaders().getFirst("Last-Event-ID"))) {
+            stream.offer(current.getEvent());
+        }
+    }
+
+    private static void notAllowed(HttpExchange exchange, String allow) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allow);
+        respond(exchange, 405);
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    /**
+     * Checks whether an {@code If-None-Match} header matches an entity tag.
+     */
+    static boolean matches(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(entityTag) || trimmed.equals("W/" + entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an {@code Accept-Encoding} header accepts gzip, which it does unless it is not listed or is
+     * listed with a quality of zero.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                for (int i = 1; i < parameters.length; i++) {
+                    String parameter = parameters[i].trim();
+                    if (parameter.startsWith("q=") && isZero(parameter.substring(2))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZero(String quality) {
+        // A q-value which cannot be parsed is treated as absent
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the mapper used to write snapshots, which writes times and durations as ISO-8601 strings.
+     */
+    static ObjectMapper newMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "dsn-server");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Builder for {@link DsnServer}.
+     */
+    public static final class Builder {
+
+        private final DsnPoller poller;
+        private InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080);
+        private int backlog;
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+        private ExecutorService executor;
+        private ObjectMapper mapper;
+
+        private Builder(DsnPoller poller) {
+            this.poller = poller;
+        }
+
+        /**
+         * Sets the address to listen on (default port 8080 on the loopback address).
+         * Use port 0 to listen on any free port, and {@link DsnServer#getAddress()} to find it.
+         *
+         * @param address the address
+         * @return this builder
+         */
+        public Builder address(InetSocketAddress address) {
+            this.address = address;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pending connections (default the system default).
+         *
+         * @param backlog the backlog, or 0 for the system default
+         * @return this builder
+         */
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * Sets how long a consumer waits before reconnecting to a lost event stream (default 5 secs).
+         *
+         * @param reconnectDelay the reconnection delay
+         * @return this builder
+         */
+        public Builder reconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+            return this;
+        }
+
+        /**
+         * Sets the executor used to handle requests and write events (default a pool of daemon threads owned by the
+         * server). An executor set here is not shut down when the server is closed.
+         *
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        Builder mapper(ObjectMapper mapper) {
+            this.mapper = mapper;
+            return this;
+        }
+
+        /**
+         * Creates a new server, bound to its address. The server does not serve until it is started.
+         *
+         * @return a new server
+         * @throws IOException the server could not be bound to its address
+         */
+        public DsnServer build() throws IOException {
+            return new DsnServer(this);
+        }
+    }
+}
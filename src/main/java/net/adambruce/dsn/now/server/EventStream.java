@@ -0,0 +1,91 @@
+package net.adambruce.dsn.now.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A server-sent event stream to one consumer.
+ * <p>
+ * Events are written on the executor, at most one at a time and in the order they were offered. Only the latest event
+ * is kept while a write is in progress, so a slow consumer skips to the latest snapshot rather than holding a backlog,
+ * and never delays other consumers. The stream is closed when a write fails, which is how a disconnected consumer is
+ * noticed.
+ */
+@Slf4j
+class EventStream {
+
+    private final HttpExchange exchange;
+    private final OutputStream body;
+    private final Executor executor;
+    private final Consumer<EventStream> onClose;
+
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final AtomicInteger requested = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Creates a stream over an exchange whose response headers have been sent.
+     *
+     * @param exchange the exchange
+     * @param executor the executor which writes events
+     * @param onClose called once when the stream is closed
+     */
+    EventStream(HttpExchange exchange, Executor executor, Consumer<EventStream> onClose) {
+        this.exchange = exchange;
+        this.body = exchange.getResponseBody();
+        this.executor = executor;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Offers an event to the stream, replacing any event which has not been written yet.
+     *
+     * @param event the encoded event
+     */
+    void offer(byte[] event) {
+        pending.set(event);
+        if (requested.getAndIncrement() == 0) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Closes the stream, ending the response.
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            exchange.close();
+            onClose.accept(this);
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            byte[] event = pending.getAndSet(null);
+            if (event != null && !closed.get()) {
+                try {
+                    body.write(event);
+                    body.flush();
+                } catch (IOException ex) {
+                    log.debug("closing event stream to {}: {}", exchange.getRemoteAddress(), ex.getMessage());
+                    close();
+                }
+            }
+            missed = requested.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
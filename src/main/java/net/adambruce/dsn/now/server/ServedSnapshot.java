@@ -0,0 +1,89 @@
+package net.adambruce.dsn.now.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import net.adambruce.dsn.now.model.merged.MergedData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Merged data in every form it is served in, encoded once when it is published so that serving it is a buffer write.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+class ServedSnapshot {
+    /**
+     * the merged data
+     * @return the merged data
+     */
+    MergedData mergedData;
+
+    /**
+     * the JSON document
+     * @return the JSON document
+     */
+    byte[] json;
+
+    /**
+     * the gzip compressed JSON document
+     * @return the gzip compressed JSON document
+     */
+    byte[] gzip;
+
+    /**
+     * the entity tag of the document, including its quotes
+     * @return the entity tag of the document
+     */
+    String entityTag;
+
+    /**
+     * the server-sent event carrying the document
+     * @return the server-sent event carrying the document
+     */
+    byte[] event;
+
+    /**
+     * Encodes merged data as a JSON document, its gzip compression, and a server-sent event carrying the document.
+     * The entity tag combines the timestamp of the state with a checksum of the document, so equal snapshots have the
+     * same tag whenever they are published, and a tag is only reused by a changed document for the same timestamp if
+     * their checksums collide.
+     *
+     * @param mergedData the merged data
+     * @param mapper the mapper used to write the JSON document
+     * @return the encoded snapshot
+     * @throws IOException the merged data could not be written
+     */
+    static ServedSnapshot of(MergedData mergedData, ObjectMapper mapper) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(mergedData);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        }
+
+        String entityTag = entityTag(mergedData, json);
+
+        // Jackson escapes line breaks within strings, so the document is a single line of event data
+        ByteArrayOutputStream event = new ByteArrayOutputStream(json.length + 64);
+        event.write(("id: " + entityTag + "\nevent: merged-data\ndata: ").getBytes(StandardCharsets.UTF_8));
+        event.write(json);
+        event.write('\n');
+        event.write('\n');
+
+        return new ServedSnapshot(mergedData, json, compressed.toByteArray(), entityTag, event.toByteArray());
+    }
+
+    private static String entityTag(MergedData mergedData, byte[] json) {
+        CRC32 checksum = new CRC32();
+        checksum.update(json, 0, json.length);
+        long timestamp = mergedData.getTimestamp() != null ? mergedData.getTimestamp().toEpochMilli() : 0;
+        return "\"" + Long.toHexString(timestamp) + "-" + Long.toHexString(checksum.getValue()) + "\"";
+    }
+}
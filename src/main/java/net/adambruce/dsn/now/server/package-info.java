@@ -0,0 +1,4 @@
+/**
+ * Contains an embedded HTTP server which shares one poller's merged data with many consumers.
+ */
+package net.adambruce.dsn.now.server;
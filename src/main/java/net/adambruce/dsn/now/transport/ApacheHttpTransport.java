@@ -0,0 +1,354 @@
+package net.adambruce.dsn.now.transport;
+
+import net.adambruce.dsn.now.util.LimitedInputStream;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fetches documents over HTTP with Apache HttpClient 5, which is the default transport.
+ * Connections are pooled and kept alive between requests, so that regular polling does not pay for a new DNS lookup,
+ * TCP connection and TLS handshake on every call.
+ * <p>
+ * Unless disabled, documents are requested with gzip or deflate compression. The compressed body is passed on as it
+ * was received, and is decompressed by the client as it is parsed.
+ */
+public class ApacheHttpTransport implements Transport {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final CloseableHttpClient httpClient;
+    private final CloseableHttpAsyncClient asyncClient;
+    private final boolean compression;
+
+    /**
+     * Creates a new transport using the given clients, for example to configure a proxy or TLS.
+     * The clients are closed when the transport is closed. Compression is left to the clients.
+     *
+     * @param httpClient the client used for blocking requests
+     * @param asyncClient the client used for asynchronous requests, which is started on first use
+     */
+    public ApacheHttpTransport(CloseableHttpClient httpClient, CloseableHttpAsyncClient asyncClient) {
+        this(httpClient, asyncClient, false);
+    }
+
+    /**
+     * Creates a new transport using the given clients, for example to configure a proxy or TLS.
+     * The clients are closed when the transport is closed. When compression is requested, the clients should be
+     * built with content compression disabled, so that compressed bodies are passed on as they were received.
+     *
+     * @param httpClient the client used for blocking requests
+     * @param asyncClient the client used for asynchronous requests, which is started on first use
+     * @param compression whether to request gzip or deflate compression
+     */
+    public ApacheHttpTransport(CloseableHttpClient httpClient, CloseableHttpAsyncClient asyncClient,
+                               boolean compression) {
+        this.httpClient = httpClient;
+        this.asyncClient = asyncClient;
+        this.compression = compression;
+    }
+
+    /**
+     * Creates a new builder for configuring the transport and its connection pools.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Fetches a document, blocking until the response headers have been received.
+     * Once the body exceeds the request's maximum size, the request is cancelled, discarding the connection, so that
+     * closing the response does not read the rest of the body.
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException the request failed, or the body is declared larger than the maximum size
+     */
+    @Override
+    public TransportResponse fetch(TransportRequest request) throws IOException {
+        HttpGet get = new HttpGet(request.getUrl());
+        addHeaders(get, request);
+
+        ClassicHttpResponse response = httpClient.executeOpen(null, get, null);
+        HttpEntity entity = response.getEntity();
+        long contentLength = entity != null ? entity.getContentLength() : 0;
+        InputStream body;
+        try {
+            if (contentLength > request.getMaxBodySize()) {
+                get.cancel();
+                throw LimitedInputStream.tooLarge(request.getMaxBodySize());
+            }
+            body = entity != null
+                    ? new LimitedInputStream(entity.getContent(), request.getMaxBodySize(), get::cancel)
+                    : new ByteArrayInputStream(EMPTY);
+        } catch (IOException | RuntimeException ex) {
+            try {
+                response.close();
+            } catch (IOException closeEx) {
+                // Closing a cancelled response fails, as its connection has already been discarded
+                ex.addSuppressed(closeEx);
+            }
+            throw ex;
+        }
+        return newResponse(response, contentLength, body);
+    }
+
+    /**
+     * Asynchronously fetches a document.
+     * The body is buffered by the I/O threads, so that reading it never blocks. Once the body exceeds the request's
+     * maximum size, the request fails and its connection is discarded.
+     *
+     * @param request the request
+     * @return a future completed with the response, or completed exceptionally if the request failed
+     */
+    @Override
+    public CompletableFuture<TransportResponse> fetchAsync(TransportRequest request) {
+        SimpleHttpRequest get = SimpleRequestBuilder.get(request.getUrl()).build();
+        addHeaders(get, request);
+
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        asyncClient.start();
+        asyncClient.execute(SimpleRequestProducer.create(get),
+                new BasicResponseConsumer<>(new LimitedEntityConsumer(request.getMaxBodySize())),
+                new FutureCallback<Message<HttpResponse, byte[]>>() {
+                    @Override
+                    public void completed(Message<HttpResponse, byte[]> response) {
+                        byte[] body = response.getBody() != null ? response.getBody() : EMPTY;
+                        future.complete(newResponse(response.getHead(), body.length, new ByteArrayInputStream(body)));
+                    }
+
+                    @Override
+                    public void failed(Exception ex) {
+                        future.completeExceptionally(ex);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        future.cancel(false);
+                    }
+                });
+        return future;
+    }
+
+    /**
+     * Closes the transport, releasing all pooled connections and stopping the asynchronous I/O threads.
+     *
+     * @throws IOException the connection pool could not be shut down cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            httpClient.close();
+        } finally {
+            asyncClient.close();
+        }
+    }
+
+    private void addHeaders(HttpRequest get, TransportRequest request) {
+        if (compression) {
+            get.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+        }
+        if (request.getEntityTag() != null) {
+            get.setHeader(HttpHeaders.IF_NONE_MATCH, request.getEntityTag());
+        }
+        if (request.getLastModified() != null) {
+            get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, request.getLastModified());
+        }
+    }
+
+    private static TransportResponse newResponse(HttpResponse response, long contentLength, InputStream body) {
+        return new TransportResponse(
+                response.getCode(),
+                getHeader(response, HttpHeaders.ETAG),
+                getHeader(response, HttpHeaders.LAST_MODIFIED),
+                getHeader(response, HttpHeaders.CONTENT_ENCODING),
+                contentLength,
+                body
+        );
+    }
+
+    private static String getHeader(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * Builder for {@link ApacheHttpTransport}.
+     */
+    public static final class Builder {
+
+        private int maxConnectionsTotal = 4;
+        private int maxConnectionsPerRoute = 2;
+        private Duration keepAlive = Duration.ofMinutes(1);
+        private Duration connectionTimeToLive = Duration.ofMinutes(15);
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration socketTimeout = Duration.ofSeconds(30);
+        private Duration responseTimeout = Duration.ofSeconds(30);
+        private boolean compression = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of pooled connections across all routes (default 4).
+         *
+         * @param maxConnectionsTotal the maximum number of pooled connections
+         * @return this builder
+         */
+        public Builder maxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections per route (default 2).
+         *
+         * @param maxConnectionsPerRoute the maximum number of pooled connections per route
+         * @return this builder
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle connection is kept alive when the server does not specify a keep-alive duration
+         * (default 1 min). Idle connections are evicted from the pool after this duration.
+         *
+         * @param keepAlive the keep-alive duration
+         * @return this builder
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Sets the total time to live of a pooled connection, regardless of activity (default 15 mins).
+         *
+         * @param connectionTimeToLive the connection time to live
+         * @return this builder
+         */
+        public Builder connectionTimeToLive(Duration connectionTimeToLive) {
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        /**
+         * Sets the timeout for establishing a new connection (default 10 secs).
+         *
+         * @param connectTimeout the connect timeout
+         * @return this builder
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the maximum period of inactivity between two consecutive data packets (default 30 secs).
+         *
+         * @param socketTimeout the socket timeout
+         * @return this builder
+         */
+        public Builder socketTimeout(Duration socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for a response once the request has been sent (default 30 secs).
+         *
+         * @param responseTimeout the response timeout
+         * @return this builder
+         */
+        public Builder responseTimeout(Duration responseTimeout) {
+            this.responseTimeout = responseTimeout;
+            return this;
+        }
+
+        /**
+         * Sets whether documents are requested with gzip or deflate compression (default true).
+         *
+         * @param compression whether to request compression
+         * @return this builder
+         */
+        public Builder compression(boolean compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Creates a new transport, along with its connection pools.
+         *
+         * @return a new transport
+         */
+        public ApacheHttpTransport build() {
+            ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.of(connectTimeout))
+                    .setSocketTimeout(Timeout.of(socketTimeout))
+                    .setTimeToLive(TimeValue.of(connectionTimeToLive))
+                    .build();
+
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                    .setResponseTimeout(Timeout.of(responseTimeout))
+                    .build();
+
+            CloseableHttpClient httpClient = HttpClients.custom()
+                    .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                            .setMaxConnTotal(maxConnectionsTotal)
+                            .setMaxConnPerRoute(maxConnectionsPerRoute)
+                            .setDefaultConnectionConfig(connectionConfig)
+                            .build())
+                    .setDefaultRequestConfig(requestConfig)
+                    .disableContentCompression()
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.of(keepAlive))
+                    .build();
+
+            CloseableHttpAsyncClient asyncClient = HttpAsyncClients.custom()
+                    .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                            .setMaxConnTotal(maxConnectionsTotal)
+                            .setMaxConnPerRoute(maxConnectionsPerRoute)
+                            .setDefaultConnectionConfig(connectionConfig)
+                            .build())
+                    .setDefaultRequestConfig(requestConfig)
+                    .disableContentCompression()
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.of(keepAlive))
+                    .build();
+
+            return new ApacheHttpTransport(httpClient, asyncClient, compression);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package net.adambruce.dsn.now.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Reads documents from the local file system, addressed by {@code file:} URLs.
+ * <p>
+ * The Last-Modified date of each response is the modification time of the file, so a file which has not changed
+ * since the previous request is answered as not modified. This is useful for serving snapshots of the DSN Now
+ * documents, such as in tests and benchmarks.
+ */
+public class FileTransport implements Transport {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+            .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+            .withZone(ZoneOffset.UTC);
+
+    @Override
+    public TransportResponse fetch(TransportRequest request) throws IOException {
+        Path path = Paths.get(URI.create(request.getUrl()));
+        String lastModified = HTTP_DATE.format(Files.getLastModifiedTime(path).toInstant());
+        if (lastModified.equals(request.getLastModified())) {
+            return new TransportResponse(HttpURLConnection.HTTP_NOT_MODIFIED, null, lastModified, 0,
+                    new ByteArrayInputStream(new byte[0]));
+        }
+        return new TransportResponse(HttpURLConnection.HTTP_OK, null, lastModified, Files.size(path),
+                Files.newInputStream(path));
+    }
+
+    @Override
+    public void close() {
+        // No resources are held between requests
+    }
+}
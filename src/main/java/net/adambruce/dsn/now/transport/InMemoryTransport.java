@@ -0,0 +1,67 @@
+package net.adambruce.dsn.now.transport;
+
+import lombok.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves documents held in memory, keyed by URL.
+ * <p>
+ * Each document is given a new entity tag whenever it is replaced, so a document which has not been replaced since
+ * the previous request is answered as not modified. This allows the client to be tested and benchmarked without a
+ * network.
+ */
+public class InMemoryTransport implements Transport {
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Sets the document served for a URL, replacing any previous document.
+     *
+     * @param url the URL
+     * @param body the document
+     * @return this transport
+     */
+    public InMemoryTransport put(String url, byte[] body) {
+        documents.put(url, new Document("\"" + version.incrementAndGet() + "\"", body));
+        return this;
+    }
+
+    /**
+     * Fetches a document.
+     *
+     * @param request the request
+     * @return the response
+     * @throws FileNotFoundException no document has been set for the URL
+     */
+    @Override
+    public TransportResponse fetch(TransportRequest request) throws FileNotFoundException {
+        Document document = documents.get(request.getUrl());
+        if (document == null) {
+            throw new FileNotFoundException("no document for " + request.getUrl());
+        }
+        if (document.getEntityTag().equals(request.getEntityTag())) {
+            return new TransportResponse(HttpURLConnection.HTTP_NOT_MODIFIED, document.getEntityTag(), null, 0,
+                    new ByteArrayInputStream(new byte[0]));
+        }
+        return new TransportResponse(HttpURLConnection.HTTP_OK, document.getEntityTag(), null,
+                document.getBody().length, new ByteArrayInputStream(document.getBody()));
+    }
+
+    @Override
+    public void close() {
+        // Documents remain available, so that the transport can be shared between clients
+    }
+
+    @Value
+    private static class Document {
+        String entityTag;
+        byte[] body;
+    }
+}
@@ -0,0 +1,56 @@
+package net.adambruce.dsn.now.transport;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Fetches documents over HTTP with the JDK's {@code java.net.http.HttpClient}, which uses HTTP/2 where the server
+ * supports it. This transport requires Java 11 or later, and cannot be created on earlier versions.
+ * <p>
+ * This class is the Java 8 version of a multi-release JAR; the implementation is selected on Java 11 or later.
+ */
+public class JdkHttpTransport implements Transport {
+
+    /**
+     * Creates a new transport with a connect timeout of 10 secs and a request timeout of 30 secs, which requests
+     * compressed documents.
+     *
+     * @throws UnsupportedOperationException the JVM is older than Java 11
+     */
+    public JdkHttpTransport() {
+        this(Duration.ofSeconds(10), Duration.ofSeconds(30));
+    }
+
+    /**
+     * Creates a new transport which requests compressed documents.
+     *
+     * @param connectTimeout the timeout for establishing a new connection
+     * @param requestTimeout the maximum time to wait for the response headers once the request has been sent
+     * @throws UnsupportedOperationException the JVM is older than Java 11
+     */
+    public JdkHttpTransport(Duration connectTimeout, Duration requestTimeout) {
+        this(connectTimeout, requestTimeout, true);
+    }
+
+    /**
+     * Creates a new transport.
+     *
+     * @param connectTimeout the timeout for establishing a new connection
+     * @param requestTimeout the maximum time to wait for the response headers once the request has been sent
+     * @param compression whether to request gzip or deflate compression
+     * @throws UnsupportedOperationException the JVM is older than Java 11
+     */
+    public JdkHttpTransport(Duration connectTimeout, Duration requestTimeout, boolean compression) {
+        throw new UnsupportedOperationException("JdkHttpTransport requires Java 11 or later");
+    }
+
+    @Override
+    public TransportResponse fetch(TransportRequest request) throws IOException {
+        throw new UnsupportedOperationException("JdkHttpTransport requires Java 11 or later");
+    }
+
+    @Override
+    public void close() {
+        // Never created, so there is nothing to close
+    }
+}
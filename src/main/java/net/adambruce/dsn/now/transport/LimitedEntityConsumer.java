@@ -0,0 +1,85 @@
+package net.adambruce.dsn.now.transport;
+
+import net.adambruce.dsn.now.util.LimitedInputStream;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Buffers an asynchronous response body, up to a maximum size.
+ * A body whose declared length is too large fails before any of it is read, and any other body fails as soon as it
+ * exceeds the maximum, which fails the exchange and discards its connection instead of reading the rest.
+ */
+final class LimitedEntityConsumer implements AsyncEntityConsumer<byte[]> {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final long maxSize;
+    private ByteArrayBuffer buffer;
+    private FutureCallback<byte[]> callback;
+    private byte[] content;
+
+    /**
+     * Creates a consumer.
+     *
+     * @param maxSize the maximum size of the body in bytes
+     */
+    LimitedEntityConsumer(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void streamStart(EntityDetails entityDetails, FutureCallback<byte[]> resultCallback) throws IOException {
+        long contentLength = entityDetails.getContentLength();
+        if (contentLength > maxSize) {
+            throw LimitedInputStream.tooLarge(maxSize);
+        }
+        this.callback = resultCallback;
+        this.buffer = new ByteArrayBuffer(contentLength > 0 ? (int) contentLength : INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+        capacityChannel.update(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void consume(ByteBuffer src) throws IOException {
+        if ((long) buffer.length() + src.remaining() > maxSize) {
+            throw LimitedInputStream.tooLarge(maxSize);
+        }
+        buffer.append(src);
+    }
+
+    @Override
+    public void streamEnd(List<? extends Header> trailers) {
+        content = buffer.toByteArray();
+        buffer = null;
+        callback.completed(content);
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        buffer = null;
+        if (callback != null) {
+            callback.failed(cause);
+        }
+    }
+
+    @Override
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public void releaseResources() {
+        buffer = null;
+    }
+}
@@ -0,0 +1,47 @@
+package net.adambruce.dsn.now.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fetches the documents requested by the DSN Now Client.
+ * <p>
+ * A transport makes conditional requests using the validators given in each {@link TransportRequest}, and answers
+ * with status 304 when the document has not been modified. A transport may ask for the document to be compressed,
+ * in which case it returns the body as sent and reports its content coding, so that it is decompressed as it is
+ * parsed. Implementations must be thread-safe.
+ * <p>
+ * A transport which reads from the network enforces the request's maximum body size as the body arrives: once it is
+ * exceeded, the request fails and the connection is discarded rather than drained.
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * Fetches a document, blocking until the response headers have been received.
+     * The caller must close the response once the body has been read.
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException the request failed
+     */
+    TransportResponse fetch(TransportRequest request) throws IOException;
+
+    /**
+     * Asynchronously fetches a document.
+     * The caller must close the response once the body has been read. The default implementation fetches on the
+     * calling thread, which suits transports that never wait on the network.
+     *
+     * @param request the request
+     * @return a future completed with the response, or completed exceptionally if the request failed
+     */
+    default CompletableFuture<TransportResponse> fetchAsync(TransportRequest request) {
+        CompletableFuture<TransportResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(fetch(request));
+        } catch (IOException | RuntimeException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,47 @@
+package net.adambruce.dsn.now.transport;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * A request for a document, along with the validators from the previous response to make the request conditional.
+ */
+@Value
+@AllArgsConstructor
+public class TransportRequest {
+    /**
+     * the URL of the document
+     * @return the URL of the document
+     */
+    String url;
+
+    /**
+     * the entity tag of the previous response, or null to not make the request conditional on it
+     * @return the entity tag of the previous response
+     */
+    String entityTag;
+
+    /**
+     * the Last-Modified date of the previous response, or null to not make the request conditional on it
+     * @return the Last-Modified date of the previous response
+     */
+    String lastModified;
+
+    /**
+     * the maximum size of the body in bytes, beyond which a network transport stops reading and fails the request
+     * @return the maximum size of the body
+     */
+    long maxBodySize;
+
+    /**
+     * Creates a request whose body is not limited in size.
+     *
+     * @param url the URL of the document
+     * @param entityTag the entity tag of the previous response, or null to not make the request conditional on it
+     * @param lastModified the Last-Modified date of the previous response, or null to not make the request
+     *                     conditional on it
+     */
+    public TransportRequest(String url, String entityTag, String lastModified) {
+        this(url, entityTag, lastModified, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,74 @@
+package net.adambruce.dsn.now.transport;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A response to a {@link TransportRequest}.
+ * Closing the response closes the body, releasing any connection it was read from.
+ * <p>
+ * The body is given as it was sent, so a compressed body is left compressed, and its content coding is reported
+ * alongside it for the client to decode.
+ */
+@Value
+@AllArgsConstructor
+public class TransportResponse implements Closeable {
+    /**
+     * the status code, using HTTP status codes for all transports
+     * @return the status code
+     */
+    int status;
+
+    /**
+     * the entity tag of the document, or null if there is none
+     * @return the entity tag of the document
+     */
+    String entityTag;
+
+    /**
+     * the Last-Modified date of the document, in HTTP date format, or null if there is none
+     * @return the Last-Modified date of the document
+     */
+    String lastModified;
+
+    /**
+     * the content coding of the body, such as {@code gzip}, or null if the body is not encoded
+     * @return the content coding of the body
+     */
+    String contentEncoding;
+
+    /**
+     * the length of the body in bytes, or -1 if it is not known in advance
+     * @return the length of the body
+     */
+    long contentLength;
+
+    /**
+     * the body, which is empty for a not modified response
+     * @return the body
+     */
+    InputStream body;
+
+    /**
+     * Creates a response whose body is not encoded.
+     *
+     * @param status the status code
+     * @param entityTag the entity tag of the document, or null if there is none
+     * @param lastModified the Last-Modified date of the document, or null if there is none
+     * @param contentLength the length of the body in bytes, or -1 if it is not known in advance
+     * @param body the body
+     */
+    public TransportResponse(int status, String entityTag, String lastModified, long contentLength,
+                             InputStream body) {
+        this(status, entityTag, lastModified, null, contentLength, body);
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains the transports used by the DSN Now Client to fetch documents, over HTTP or from local sources.
+ */
+package net.adambruce.dsn.now.transport;
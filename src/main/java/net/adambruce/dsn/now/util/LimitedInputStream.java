@@ -0,0 +1,78 @@
+package net.adambruce.dsn.now.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stream which fails once more than a maximum number of bytes have been read from it, first aborting the request
+ * it is read from, so that closing the stream does not drain the rest of the body. It limits both response bodies as
+ * they are received and decompressed bodies as they are decoded.
+ */
+public final class LimitedInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private final Runnable abort;
+    private long size;
+
+    /**
+     * Creates a limited stream.
+     *
+     * @param in the stream to read from
+     * @param maxSize the maximum number of bytes which may be read
+     * @param abort called once the maximum is exceeded, before the read fails
+     */
+    public LimitedInputStream(InputStream in, long maxSize, Runnable abort) {
+        super(in);
+        this.maxSize = maxSize;
+        this.abort = abort;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int next = in.read();
+        if (next != -1) {
+            count(1);
+        }
+        return next;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long read) throws IOException {
+        size += read;
+        if (size > maxSize) {
+            abort.run();
+            throw tooLarge(maxSize);
+        }
+    }
+
+    /**
+     * Creates the exception for a body which exceeds its maximum size.
+     *
+     * @param maxSize the maximum size of the body
+     * @return the exception
+     */
+    public static IOException tooLarge(long maxSize) {
+        return new IOException("response body exceeds the maximum size of " + maxSize + " bytes");
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains collections and streams shared by the client, its transports and its models.
+ */
+package net.adambruce.dsn.now.util;
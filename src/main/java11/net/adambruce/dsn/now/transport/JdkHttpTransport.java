@@ -0,0 +1,211 @@
+package net.adambruce.dsn.now.transport;
+
+import net.adambruce.dsn.now.util.LimitedInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Fetches documents over HTTP with the JDK's {@code java.net.http.HttpClient}, which uses HTTP/2 where the server
+ * supports it. This transport requires Java 11 or later, and cannot be created on earlier versions.
+ * <p>
+ * Connections are pooled by the underlying client, and released once it is no longer referenced. Unless disabled,
+ * documents are requested with gzip or deflate compression, and the compressed body is passed on as it was received.
+ */
+public class JdkHttpTransport implements Transport {
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final boolean compression;
+
+    /**
+     * Creates a new transport with a connect timeout of 10 secs and a request timeout of 30 secs, which requests
+     * compressed documents.
+     */
+    public JdkHttpTransport() {
+        this(Duration.ofSeconds(10), Duration.ofSeconds(30));
+    }
+
+    /**
+     * Creates a new transport which requests compressed documents.
+     *
+     * @param connectTimeout the timeout for establishing a new connection
+     * @param requestTimeout the maximum time to wait for the response headers once the request has been sent
+     */
+    public JdkHttpTransport(Duration connectTimeout, Duration requestTimeout) {
+        this(connectTimeout, requestTimeout, true);
+    }
+
+    /**
+     * Creates a new transport.
+     *
+     * @param connectTimeout the timeout for establishing a new connection
+     * @param requestTimeout the maximum time to wait for the response headers once the request has been sent
+     * @param compression whether to request gzip or deflate compression
+     */
+    public JdkHttpTransport(Duration connectTimeout, Duration requestTimeout, boolean compression) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.compression = compression;
+    }
+
+    /**
+     * Fetches a document, blocking until the response headers have been received.
+     * Once the body exceeds the request's maximum size, reading it fails. Closing the client's body stream cancels its
+     * subscription rather than reading the rest of the body, so closing the response then closes the connection.
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException the request failed, or the body is declared larger than the maximum size
+     */
+    @Override
+    public TransportResponse fetch(TransportRequest request) throws IOException {
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(newRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for " + request.getUrl());
+        }
+
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        if (contentLength > request.getMaxBodySize()) {
+            response.body().close();
+            throw LimitedInputStream.tooLarge(request.getMaxBodySize());
+        }
+        // The response is aborted once it is closed, so there is nothing more to abort when the body is too large
+        return newResponse(response.headers(), response.statusCode(), contentLength,
+                new LimitedInputStream(response.body(), request.getMaxBodySize(), () -> { }));
+    }
+
+    /**
+     * Asynchronously fetches a document.
+     * The body is buffered by the client's threads, so that reading it never blocks. Once the body exceeds the
+     * request's maximum size, the request fails and the body subscription is cancelled, which closes the connection.
+     *
+     * @param request the request
+     * @return a future completed with the response, or completed exceptionally if the request failed
+     */
+    @Override
+    public CompletableFuture<TransportResponse> fetchAsync(TransportRequest request) {
+        return httpClient.sendAsync(newRequest(request), info -> new LimitedBodySubscriber(
+                        info.headers().firstValueAsLong("Content-Length").orElse(-1), request.getMaxBodySize()))
+                .thenApply(response -> newResponse(response.headers(), response.statusCode(),
+                        response.body().length, new ByteArrayInputStream(response.body())));
+    }
+
+    @Override
+    public void close() {
+        // The client has no close method before Java 21, and releases its connections once unreferenced
+    }
+
+    private HttpRequest newRequest(TransportRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()))
+                .timeout(requestTimeout)
+                .GET();
+        if (compression) {
+            builder.header("Accept-Encoding", "gzip, deflate");
+        }
+        if (request.getEntityTag() != null) {
+            builder.header("If-None-Match", request.getEntityTag());
+        }
+        if (request.getLastModified() != null) {
+            builder.header("If-Modified-Since", request.getLastModified());
+        }
+        return builder.build();
+    }
+
+    private static TransportResponse newResponse(HttpHeaders headers, int status, long contentLength,
+                                                 InputStream body) {
+        return new TransportResponse(
+                status,
+                headers.firstValue("ETag").orElse(null),
+                headers.firstValue("Last-Modified").orElse(null),
+                headers.firstValue("Content-Encoding").orElse(null),
+                contentLength,
+                body
+        );
+    }
+
+    /**
+     * Buffers a response body, up to a maximum size.
+     * A body whose declared length is too large fails before any of it is read, and any other body fails as soon as
+     * it exceeds the maximum.
+     */
+    static final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+        private final long contentLength;
+        private final long maxSize;
+        private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        private final ByteArrayOutputStream buffer;
+        private Flow.Subscription subscription;
+
+        LimitedBodySubscriber(long contentLength, long maxSize) {
+            this.contentLength = contentLength;
+            this.maxSize = maxSize;
+            this.buffer = new ByteArrayOutputStream(contentLength > 0 && contentLength <= maxSize
+                    ? (int) contentLength : 8 * 1024);
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (contentLength > maxSize) {
+                fail();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            // Items arriving after a failure fail again without being buffered, so the buffer never exceeds the maximum
+            for (ByteBuffer item : items) {
+                if ((long) buffer.size() + item.remaining() > maxSize) {
+                    fail();
+                    return;
+                }
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                buffer.write(bytes, 0, bytes.length);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(buffer.toByteArray());
+        }
+
+        private void fail() {
+            subscription.cancel();
+            body.completeExceptionally(LimitedInputStream.tooLarge(maxSize));
+        }
+    }
+}
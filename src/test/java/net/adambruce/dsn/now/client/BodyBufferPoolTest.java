@@ -0,0 +1,32 @@
+package net.adambruce.dsn.now.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BodyBufferPoolTest {
+
+    @Test
+    void shouldReuseReleasedBuffers() {
+        BodyBufferPool pool = new BodyBufferPool(1);
+        BodyBuffer buffer = pool.acquire();
+
+        pool.release(buffer);
+
+        assertSame(buffer, pool.acquire());
+    }
+
+    @Test
+    void shouldDiscardBuffersReleasedToFullPool() {
+        BodyBufferPool pool = new BodyBufferPool(1);
+        BodyBuffer buffer1 = pool.acquire();
+        BodyBuffer buffer2 = pool.acquire();
+
+        pool.release(buffer1);
+        pool.release(buffer2);
+
+        assertSame(buffer1, pool.acquire());
+        assertNotSame(buffer2, pool.acquire());
+    }
+}
@@ -0,0 +1,106 @@
+package net.adambruce.dsn.now.client;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodyBufferTest {
+
+    private final BodyBuffer buffer = new BodyBuffer();
+
+    @Test
+    void shouldReadBodyOfKnownLength() throws IOException {
+        byte[] body = bytes(100_000);
+
+        buffer.readFrom(new ByteArrayInputStream(body), body.length, Integer.MAX_VALUE);
+
+        assertEquals(body.length, buffer.size());
+        assertEquals(body.length, buffer.capacity());
+        assertArrayEquals(body, IOUtils.toByteArray(buffer.toInputStream()));
+    }
+
+    @Test
+    void shouldGrowForBodyOfUnknownLength() throws IOException {
+        byte[] body = bytes(100_000);
+
+        buffer.readFrom(new ByteArrayInputStream(body), -1, Integer.MAX_VALUE);
+
+        assertEquals(body.length, buffer.size());
+        assertEquals(128 * 1024, buffer.capacity());
+        assertArrayEquals(body, IOUtils.toByteArray(buffer.toInputStream()));
+    }
+
+    @Test
+    void shouldComputeChecksumWhileReading() throws IOException {
+        byte[] body = bytes(100_000);
+        CRC32 expected = new CRC32();
+        expected.update(body, 0, body.length);
+
+        buffer.readFrom(new ByteArrayInputStream(body), -1, Integer.MAX_VALUE);
+        assertEquals(expected.getValue(), buffer.checksum());
+
+        buffer.readFrom(new ByteArrayInputStream(body), body.length, Integer.MAX_VALUE);
+        assertEquals(expected.getValue(), buffer.checksum());
+    }
+
+    @Test
+    void shouldReuseCapacityForLaterBodies() throws IOException {
+        buffer.readFrom(new ByteArrayInputStream(bytes(100_000)), -1, Integer.MAX_VALUE);
+        buffer.readFrom(new ByteArrayInputStream(bytes(10)), 10, Integer.MAX_VALUE);
+
+        assertEquals(10, buffer.size());
+        assertEquals(128 * 1024, buffer.capacity());
+        assertArrayEquals(bytes(10), IOUtils.toByteArray(buffer.toInputStream()));
+    }
+
+    @Test
+    void shouldAllowBodyOfMaximumSize() throws IOException {
+        buffer.readFrom(new ByteArrayInputStream(bytes(100)), -1, 100);
+
+        assertEquals(100, buffer.size());
+    }
+
+    @Test
+    void shouldRejectBodyLargerThanMaximumSize() {
+        InputStream unknownLength = new ByteArrayInputStream(bytes(101));
+        InputStream knownLength = new ByteArrayInputStream(bytes(101));
+
+        assertThrows(IOException.class, () -> buffer.readFrom(unknownLength, -1, 100));
+        assertThrows(IOException.class, () -> buffer.readFrom(knownLength, 101, 100));
+    }
+
+    @Test
+    void shouldCompareBodies() throws IOException {
+        buffer.readFrom(new ByteArrayInputStream(bytes(100_000)), -1, Integer.MAX_VALUE);
+        byte[] changed = bytes(100_000);
+        changed[99_999]++;
+
+        assertTrue(buffer.contentEquals(read(bytes(100_000))));
+        assertFalse(buffer.contentEquals(read(changed)));
+        assertFalse(buffer.contentEquals(read(bytes(10))));
+    }
+
+    private static BodyBuffer read(byte[] body) throws IOException {
+        BodyBuffer other = new BodyBuffer();
+        other.readFrom(new ByteArrayInputStream(body), body.length, Integer.MAX_VALUE);
+        return other;
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,55 @@
+package net.adambruce.dsn.now.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachedResponseTest {
+
+    private static final byte[] BODY = "<dsn><dish name=\"DSS14\"/></dsn>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SAME_LENGTH = "<dsn><dish name=\"DSS43\"/></dsn>".getBytes(StandardCharsets.UTF_8);
+
+    private final BodyBuffer buffer = new BodyBuffer();
+
+    @Test
+    void shouldRecogniseSameBody() throws IOException {
+        read(BODY);
+
+        assertTrue(cached(BODY, buffer.checksum()).hasSameBody(buffer));
+    }
+
+    @Test
+    void shouldRejectBodyWithDifferentLengthOrChecksum() throws IOException {
+        read(BODY);
+        long checksum = buffer.checksum();
+
+        read(SAME_LENGTH);
+        assertFalse(cached(BODY, checksum).hasSameBody(buffer));
+
+        read("<dsn/>".getBytes(StandardCharsets.UTF_8));
+        assertFalse(cached(BODY, buffer.checksum()).hasSameBody(buffer));
+    }
+
+    @Test
+    void shouldRejectDifferentBodyWithCollidingChecksum() throws IOException {
+        read(SAME_LENGTH);
+
+        // A body of the same length whose checksum collides is still compared byte for byte
+        assertFalse(cached(BODY, buffer.checksum()).hasSameBody(buffer));
+    }
+
+    private void read(byte[] body) throws IOException {
+        buffer.readFrom(new ByteArrayInputStream(body), body.length, Integer.MAX_VALUE);
+    }
+
+    private static CachedResponse<String> cached(byte[] body, long checksum) throws IOException {
+        BodyBuffer cachedBody = new BodyBuffer();
+        cachedBody.readFrom(new ByteArrayInputStream(body), body.length, Integer.MAX_VALUE);
+        return new CachedResponse<>(null, null, "value", cachedBody, checksum);
+    }
+}
@@ -0,0 +1,77 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.config.Dish;
+import net.adambruce.dsn.now.model.config.Site;
+import net.adambruce.dsn.now.model.config.Spacecraft;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ConfigurationIndexTest {
+
+    @Test
+    void shouldFindEntriesIgnoringCase() {
+        Dish dish = dish("DSS63");
+        Site site = site("mdscc", dish);
+        Spacecraft spacecraft = spacecraft("ace");
+
+        ConfigurationIndex index = new ConfigurationIndex(configuration(site, spacecraft));
+
+        assertSame(site, index.getSite("MDSCC"));
+        assertSame(dish, index.getDish("dss63"));
+        assertSame(spacecraft, index.getSpacecraft("ACE"));
+    }
+
+    @Test
+    void shouldNotFindMissingEntries() {
+        ConfigurationIndex index = new ConfigurationIndex(configuration(site("mdscc", dish("DSS63")), spacecraft("ace")));
+
+        assertNull(index.getSite("gdscc"));
+        assertNull(index.getDish("DSS14"));
+        assertNull(index.getSpacecraft("vgr1"));
+    }
+
+    @Test
+    void shouldIndexFirstOfDuplicateNames() {
+        Dish dish = dish("DSS63");
+        Site site = site("mdscc", dish, dish("dss63"));
+        Configuration configuration = configuration(site, spacecraft("ace"));
+        configuration.setSites(Arrays.asList(site, site("MDSCC")));
+
+        ConfigurationIndex index = new ConfigurationIndex(configuration);
+
+        assertSame(site, index.getSite("mdscc"));
+        assertSame(dish, index.getDish("DSS63"));
+    }
+
+    private static Configuration configuration(Site site, Spacecraft spacecraft) {
+        Configuration configuration = new Configuration();
+        configuration.setSites(Collections.singletonList(site));
+        configuration.setSpacecraft(Collections.singletonList(spacecraft));
+        return configuration;
+    }
+
+    private static Site site(String name, Dish... dishes) {
+        Site site = new Site();
+        site.setName(name);
+        site.setDishes(Arrays.asList(dishes));
+        return site;
+    }
+
+    private static Dish dish(String name) {
+        Dish dish = new Dish();
+        dish.setName(name);
+        return dish;
+    }
+
+    private static Spacecraft spacecraft(String name) {
+        Spacecraft spacecraft = new Spacecraft();
+        spacecraft.setName(name);
+        return spacecraft;
+    }
+}
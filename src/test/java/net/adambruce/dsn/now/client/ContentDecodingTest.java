@@ -0,0 +1,106 @@
+package net.adambruce.dsn.now.client;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContentDecodingTest {
+
+    private static final byte[] BODY = "<dsn><dish name=\"DSS14\"/><dish name=\"DSS43\"/></dsn>"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void shouldNotDecodeBodyWithoutContentEncoding() throws IOException {
+        InputStream body = new ByteArrayInputStream(BODY);
+
+        assertSame(body, ContentDecoding.decode(body, null, BODY.length));
+        assertSame(body, ContentDecoding.decode(body, "identity", BODY.length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "x-gzip", "GZIP", "identity, gzip", "gzip, "})
+    void shouldDecodeGzip(String contentEncoding) throws IOException {
+        assertArrayEquals(BODY, decode(gzip(BODY), contentEncoding, BODY.length));
+    }
+
+    @Test
+    void shouldDecodeDeflate() throws IOException {
+        assertArrayEquals(BODY, decode(deflate(BODY), "deflate", BODY.length));
+    }
+
+    @Test
+    void shouldDecodeCodingsInReverseOrder() throws IOException {
+        assertArrayEquals(BODY, decode(gzip(deflate(BODY)), "deflate, gzip", BODY.length));
+    }
+
+    @Test
+    void shouldDecodeOneByteAtATime() throws IOException {
+        try (InputStream decoded = ContentDecoding.decode(new ByteArrayInputStream(gzip(BODY)), "gzip",
+                BODY.length)) {
+            for (byte expected : BODY) {
+                assertEquals(expected, (byte) decoded.read());
+            }
+            assertEquals(-1, decoded.read());
+        }
+    }
+
+    @Test
+    void shouldRejectDecodedBodyLargerThanMaxSize() throws IOException {
+        byte[] compressed = gzip(BODY);
+
+        IOException ex = assertThrows(IOException.class, () -> decode(compressed, "gzip", BODY.length - 1));
+        assertEquals("response body exceeds the maximum size of " + (BODY.length - 1) + " bytes",
+                ex.getMessage());
+        assertThrows(IOException.class, () -> {
+            try (InputStream decoded = ContentDecoding.decode(new ByteArrayInputStream(compressed), "gzip", 1)) {
+                decoded.read();
+                decoded.read();
+            }
+        });
+    }
+
+    @Test
+    void shouldRejectUnsupportedContentEncoding() {
+        IOException ex = assertThrows(IOException.class,
+                () -> ContentDecoding.decode(new ByteArrayInputStream(BODY), "br", BODY.length));
+        assertEquals("unsupported content encoding: br", ex.getMessage());
+    }
+
+    private static byte[] decode(byte[] body, String contentEncoding, int maxSize) throws IOException {
+        try (InputStream decoded = ContentDecoding.decode(new ByteArrayInputStream(body), contentEncoding,
+                maxSize)) {
+            return IOUtils.toByteArray(decoded);
+        }
+    }
+
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,10 +1,14 @@
 package net.adambruce.dsn.now.client;
 
+import net.adambruce.dsn.now.metrics.ClientMetrics;
+import net.adambruce.dsn.now.metrics.Endpoint;
 import net.adambruce.dsn.now.model.config.Configuration;
 import net.adambruce.dsn.now.model.config.Site;
 import net.adambruce.dsn.now.model.config.Spacecraft;
 import net.adambruce.dsn.now.model.merged.MergedData;
 import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedLinkData;
+import net.adambruce.dsn.now.model.merged.MergedSpacecraftData;
 import net.adambruce.dsn.now.model.merged.MergedStationData;
 import net.adambruce.dsn.now.model.merged.MergedTargetData;
 import net.adambruce.dsn.now.model.state.Dish;
@@ -12,35 +16,71 @@ import net.adambruce.dsn.now.model.state.Signal;
 import net.adambruce.dsn.now.model.state.State;
 import net.adambruce.dsn.now.model.state.Station;
 import net.adambruce.dsn.now.model.state.Target;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import net.adambruce.dsn.now.serde.JacksonStateParser;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+import net.adambruce.dsn.now.transport.ApacheHttpTransport;
+import net.adambruce.dsn.now.transport.InMemoryTransport;
 import org.apache.commons.io.IOUtils;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.HttpClientResponseHandler;
-import org.apache.hc.core5.http.io.entity.BasicHttpEntity;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -48,288 +88,977 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class DeepSpaceNetworkClientTest {
 
+    private static final String CONFIG_PATH = "/apps/dsn-now/config.xml";
+    private static final String DSN_PATH = "/dsn/data/dsn.xml";
+
     @Mock
-    private CloseableHttpClient configClient;
+    private CloseableHttpClient httpClient;
 
     @Mock
-    private CloseableHttpClient dsnClient;
+    private CloseableHttpAsyncClient asyncClient;
 
     @Mock
-    private ClassicHttpResponse httpResponse;
+    private ClientMetrics metrics;
+
+    private DeepSpaceNetworkClient client;
 
-    private final DeepSpaceNetworkClient client = DeepSpaceNetworkClient.newDeepSpaceNetworkClient();
+    @BeforeEach
+    void setUp() {
+        client = newClient(DeepSpaceNetworkClient.builder().executor(Runnable::run));
+    }
 
     @Test
-    void shouldCreateNewClientWithDefaultMaxConfigAge() {
-        DeepSpaceNetworkClient.newDeepSpaceNetworkClient();
+    void shouldCreateNewClientWithDefaultMaxConfigAge() throws Exception {
+        DeepSpaceNetworkClient.newDeepSpaceNetworkClient().close();
     }
 
     @Test
-    void shouldCreateNewClientWithMaxConfigAge() {
-        DeepSpaceNetworkClient.newDeepSpaceNetworkClient(Duration.ofMinutes(1));
+    void shouldCreateNewClientWithMaxConfigAge() throws Exception {
+        DeepSpaceNetworkClient.newDeepSpaceNetworkClient(Duration.ofMinutes(1)).close();
     }
 
     @Test
-    void shouldFetchConfiguration() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class)) {
-            staticHttpClient.when(HttpClients::createDefault).thenReturn(configClient);
-            byte[] response = getBytes("config/config.xml");
-            when(configClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(response);
+    void shouldCreateNewClientWithBuilder() throws Exception {
+        DeepSpaceNetworkClient.builder()
+                .configurationUrl("http://localhost/apps/dsn-now/config.xml")
+                .stateUrl("http://localhost/dsn/data/dsn.xml")
+                .maxConfigurationAge(Duration.ofMinutes(1))
+                .maxConnectionsTotal(8)
+                .maxConnectionsPerRoute(4)
+                .keepAlive(Duration.ofSeconds(30))
+                .connectionTimeToLive(Duration.ofMinutes(5))
+                .connectTimeout(Duration.ofSeconds(5))
+                .socketTimeout(Duration.ofSeconds(10))
+                .responseTimeout(Duration.ofSeconds(10))
+                .compression(false)
+                .stateParser(new StaxStateParser())
+                .executor(Runnable::run)
+                .build()
+                .close();
+    }
 
-            Configuration configuration = client.fetchConfiguration();
+    @Test
+    void shouldFetchFromConfiguredUrls() throws Exception {
+        DeepSpaceNetworkClient mirrorClient = newClient(DeepSpaceNetworkClient.builder()
+                .configurationUrl("http://localhost/mirror/config.xml")
+                .stateUrl("http://localhost/mirror/dsn.xml"));
+        when(httpClient.executeOpen(isNull(), get("/mirror/config.xml"), isNull())).thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get("/mirror/dsn.xml"), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
 
-            ArgumentCaptor<HttpClientResponseHandler> handlerCaptor = ArgumentCaptor.forClass(HttpClientResponseHandler.class);
-            verify(configClient, times(1)).execute(any(HttpGet.class), handlerCaptor.capture());
+        MergedData mergedData = mirrorClient.fetchMergedData();
 
-            // Verify our response handler is working as expected
-            when(httpResponse.getEntity()).thenReturn(new BasicHttpEntity(new ByteArrayInputStream(response), response.length, ContentType.APPLICATION_XML));
-            byte[] responseBytes = (byte[])handlerCaptor.getValue().handleResponse(httpResponse);
-            assertArrayEquals(response, responseBytes);
+        assertEquals(3, mergedData.getStations().size());
+    }
 
-            assertSite(configuration.getSites().get(0), "mdscc", "Madrid", -4.2480085, 40.2413554);
-            assertSite(configuration.getSites().get(1), "gdscc", "Goldstone", -116.8895382, 35.2443523);
-            assertSite(configuration.getSites().get(2), "cdscc", "Canberra", 148.9812673, -35.2209189);
+    @Test
+    void shouldFetchWithTransport() throws Exception {
+        InMemoryTransport transport = new InMemoryTransport()
+                .put("memory:config.xml", getBytes("config/config.xml"))
+                .put("memory:dsn.xml", getBytes("dsn/dsn.xml"));
+        DeepSpaceNetworkClient memoryClient = DeepSpaceNetworkClient.builder()
+                .configurationUrl("memory:config.xml")
+                .stateUrl("memory:dsn.xml")
+                .transport(transport)
+                .build();
+
+        MergedData mergedData = memoryClient.fetchMergedData();
+        State state = memoryClient.fetchStateAsync().get();
+
+        assertEquals(3, mergedData.getStations().size());
+        assertEquals(1, memoryClient.getNotModifiedCount());
+        assertEquals(mergedData.getTimestamp(), state.getTimestamp());
+    }
 
-            assertSpacecraft(configuration.getSpacecraft().get(0), "ace", "sc_ace", null, "Advanced Composition Explorer", true);
-            assertSpacecraft(configuration.getSpacecraft().get(1), "apm1", "", null, "Astrobotic Peregrine 1 Mission", true);
-            assertSpacecraft(configuration.getSpacecraft().get(2), "agm1", "", null, "Astrobotic Griffin Lander", true);
+    @Test
+    void shouldReuseHttpClientBetweenRequests() throws Exception {
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
 
-            assertSpacecraft(configuration.getSpacecraft().get(29), "em1", "", "art1", "Human Space Flight: Artemis I", true);
-        }
+        client.fetchState();
+        client.fetchState();
+
+        verify(httpClient, times(2)).executeOpen(isNull(), get(DSN_PATH), isNull());
+        verify(httpClient, never()).close();
+    }
+
+    @Test
+    void shouldCloseHttpClientWhenClosed() throws Exception {
+        client.close();
+
+        verify(httpClient, times(1)).close();
+        verify(asyncClient, times(1)).close();
+    }
+
+    @Test
+    void shouldCloseAsyncClientWhenHttpClientFailsToClose() throws Exception {
+        doThrow(new IOException()).when(httpClient).close();
+
+        assertThrows(IOException.class, client::close);
+
+        verify(asyncClient, times(1)).close();
+    }
+
+    @Test
+    void shouldFetchConfiguration() throws Exception {
+        byte[] response = getBytes("config/config.xml");
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenAnswer(respond(ok(response)));
+
+        Configuration configuration = client.fetchConfiguration();
+
+
+        assertSite(configuration.getSites().get(0), "mdscc", "Madrid", -4.2480085, 40.2413554);
+        assertSite(configuration.getSites().get(1), "gdscc", "Goldstone", -116.8895382, 35.2443523);
+        assertSite(configuration.getSites().get(2), "cdscc", "Canberra", 148.9812673, -35.2209189);
+
+        assertSpacecraft(configuration.getSpacecraft().get(0), "ace", "sc_ace", null, "Advanced Composition Explorer", true);
+        assertSpacecraft(configuration.getSpacecraft().get(1), "apm1", "", null, "Astrobotic Peregrine 1 Mission", true);
+        assertSpacecraft(configuration.getSpacecraft().get(2), "agm1", "", null, "Astrobotic Griffin Lander", true);
+
+        assertSpacecraft(configuration.getSpacecraft().get(29), "em1", "", "art1", "Human Space Flight: Artemis I", true);
     }
 
     @Test
     void shouldFetchDsnData() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class)) {
-            staticHttpClient.when(HttpClients::createDefault).thenReturn(dsnClient);
-            byte[] response = getBytes("dsn/dsn.xml");
-            when(dsnClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(response);
+        byte[] response = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(response)));
 
-            State state = client.fetchState();
+        State state = client.fetchState();
 
-            ArgumentCaptor<HttpClientResponseHandler> handlerCaptor = ArgumentCaptor.forClass(HttpClientResponseHandler.class);
-            verify(dsnClient, times(1)).execute(any(HttpGet.class), handlerCaptor.capture());
 
-            // Verify our response handler is working as expected
-            when(httpResponse.getEntity()).thenReturn(new BasicHttpEntity(new ByteArrayInputStream(response), response.length, ContentType.APPLICATION_XML));
-            byte[] responseBytes = (byte[])handlerCaptor.getValue().handleResponse(httpResponse);
-            assertArrayEquals(response, responseBytes);
+        assertStation(state.getStations().get(0), "gdscc", "Goldstone", Instant.ofEpochMilli(1770497799000L), ZoneOffset.ofTotalSeconds(-28800));
 
-            assertStation(state.getStations().get(0), "gdscc", "Goldstone", Instant.ofEpochMilli(1770497799000L), ZoneOffset.ofTotalSeconds(-28800));
+        assertDish(state.getDishes().get(0), "DSS14", 0L, 90L, null, false, false, false, "Antenna Unplanned Maintenance");
+        assertTarget(state.getDishes().get(0).getTargets().get(0), "DSS", 99L, -1L, -1L, null);
 
-            assertDish(state.getDishes().get(0), "DSS14", 0L, 90L, null, false, false, false, "Antenna Unplanned Maintenance");
-            assertTarget(state.getDishes().get(0).getTargets().get(0), "DSS", 99L, -1L, -1L, null);
+        assertDish(state.getDishes().get(1), "DSS25", 251L, 13L, 8L, false, false, false, "DSN Very Long Baseline Interferometry");
+        assertTarget(state.getDishes().get(1).getTargets().get(0), "DSN", 99L, -1L, -1L, null);
 
-            assertDish(state.getDishes().get(1), "DSS25", 251L, 13L, 8L, false, false, false, "DSN Very Long Baseline Interferometry");
-            assertTarget(state.getDishes().get(1).getTargets().get(0), "DSN", 99L, -1L, -1L, null);
+        assertDish(state.getDishes().get(2), "DSS24", 179L, 18L, 8L, false, false, false, "Spacecraft Telemetry, Tracking, and Command");
+        assertSignal(state.getDishes().get(2).getUpSignals().get(0), true, "data", 0L, 0L, "S", 0.2, "MMS2", -109L);
+        assertSignal(state.getDishes().get(2).getDownSignals().get(0), true, "data", 1250000L, 0L, "S", -110D, "MMS2", -109L);
+        assertTarget(state.getDishes().get(2).getTargets().get(0), "MMS2", 109L, 130000L, 130000L, 0.87);
 
-            assertDish(state.getDishes().get(2), "DSS24", 179L, 18L, 8L, false, false, false, "Spacecraft Telemetry, Tracking, and Command");
-            assertSignal(state.getDishes().get(2).getUpSignals().get(0), true, "data", 0L, 0L, "S", 0.2, "MMS2", -109L);
-            assertSignal(state.getDishes().get(2).getDownSignals().get(0), true, "data", 1250000L, 0L, "S", -110D, "MMS2", -109L);
-            assertTarget(state.getDishes().get(2).getTargets().get(0), "MMS2", 109L, 130000L, 130000L, 0.87);
+        assertDish(state.getDishes().get(3), "DSS26", 180L, 90L, 8L, false, false, false, "Spacecraft Telemetry, Tracking, and Command");
+        assertSignal(state.getDishes().get(3).getUpSignals().get(0), false, "none", 0L, 0L, "X", 0D, "SOHO", -21L);
+        assertSignal(state.getDishes().get(3).getDownSignals().get(0), false, "none", 0L, 0L, "S", -480D, "SOHO", -21L);
+        assertTarget(state.getDishes().get(3).getTargets().get(0), "SOHO", 21L, 1640000L, 1640000L, 10.9);
+    }
 
-            assertDish(state.getDishes().get(3), "DSS26", 180L, 90L, 8L, false, false, false, "Spacecraft Telemetry, Tracking, and Command");
-            assertSignal(state.getDishes().get(3).getUpSignals().get(0), false, "none", 0L, 0L, "X", 0D, "SOHO", -21L);
-            assertSignal(state.getDishes().get(3).getDownSignals().get(0), false, "none", 0L, 0L, "S", -480D, "SOHO", -21L);
-            assertTarget(state.getDishes().get(3).getTargets().get(0), "SOHO", 21L, 1640000L, 1640000L, 10.9);
-        }
+    @Test
+    void shouldFetchDsnDataWithStaxStateParser() throws Exception {
+        byte[] response = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(response)));
+
+        DeepSpaceNetworkClient staxClient = newClient(DeepSpaceNetworkClient.builder().stateParser(new StaxStateParser()));
+
+        assertEquals(client.fetchState(), staxClient.fetchState());
     }
 
     @Test
     void shouldMergeConfigAndDsnData() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class)) {
-            staticHttpClient.when(HttpClients::createDefault)
-                    .thenReturn(configClient)
-                    .thenReturn(dsnClient);
+        byte[] configResponse = getBytes("config/config.xml");
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenAnswer(respond(ok(configResponse)));
+
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(dsnResponse)));
+
+        MergedData mergedData = client.fetchMergedData();
+
+        verify(httpClient, times(1)).executeOpen(isNull(), get(CONFIG_PATH), isNull());
+        verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
+
+        assertMergedStation(
+                mergedData.getStations().get(0),
+                "mdscc", "Madrid", -4.2480085, 40.2413554, Instant.ofEpochMilli(1770497799000L),
+                ZoneOffset.ofTotalSeconds(3600)
+        );
+
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(0),
+                "DSS63", "DSS 63", "70M",  131L, 65L, 2L, false, false, false,
+                "Spacecraft Telemetry, Tracking, and Command"
+        );
+        assertMergedTarget(mergedData.getStations().get(0).getDishes().get(0).getTarget().get(0),
+                "JNO", 61L, 651000000L, 651000000L, 4350.0, "sc_juno", null, "Juno", true);
+        Signal junoDown = mergedData.getStations().get(0).getDishes().get(0).getDownSignals().get(0);
+        assertEquals(-61L, junoDown.getSpacecraftId());
+        assertEquals(new MergedSpacecraftData(61L, "JNO", "sc_juno", null, "Juno", true),
+                mergedData.getSpacecraftForSignal(junoDown));
+        MergedLinkData junoLink = mergedData.getStations().get(0).getDishes().get(0).getLink(61);
+        assertEquals(Collections.singletonList(junoDown), junoLink.getDownSignals());
+        assertEquals(651000000L, junoLink.getDownLegRange());
+
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(1),
+                "DSS65", "DSS 65", "34MHEF",  null, null, null, null, null, null, null
+        );
+
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(2),
+                "DSS53", "DSS 53", "34M",  0L, 90L, null, false, false, false,
+                "Engineering Upgrades"
+        );
+
+        assertEquals(Instant.ofEpochMilli(1770497799000L), mergedData.getTimestamp());
+    }
 
-            byte[] configResponse = getBytes("config/config.xml");
-            when(configClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(configResponse);
+    @Test
+    void shouldMergeConfigAndDsnDataWithMissingStationData() throws Exception {
+        byte[] configResponse = getBytes("config/config.xml");
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenAnswer(respond(ok(configResponse)));
 
-            byte[] dsnResponse = getBytes("dsn/dsn.xml");
-            when(dsnClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(dsnResponse);
+        byte[] dsnResponse = getBytes("dsn/dsnWithoutStations.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(dsnResponse)));
 
-            MergedData mergedData = client.fetchMergedData();
+        MergedData mergedData = client.fetchMergedData();
 
-            verify(configClient, times(1)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
-            verify(dsnClient, times(1)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
+        verify(httpClient, times(1)).executeOpen(isNull(), get(CONFIG_PATH), isNull());
+        verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
 
-            assertMergedStation(
-                    mergedData.getStations().get(0),
-                    "mdscc", "Madrid", -4.2480085, 40.2413554, Instant.ofEpochMilli(1770497799000L),
-                    ZoneOffset.ofTotalSeconds(3600)
-            );
+        assertMergedStation(
+                mergedData.getStations().get(0),
+                "mdscc", "Madrid", -4.2480085, 40.2413554, null, null
+        );
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(0),
-                    "DSS63", "DSS 63", "70M",  131L, 65L, 2L, false, false, false,
-                    "Spacecraft Telemetry, Tracking, and Command"
-            );
-            assertMergedTarget(mergedData.getStations().get(0).getDishes().get(0).getTarget().get(0),
-                    "JNO", 61L, 651000000L, 651000000L, 4350.0, "sc_juno", null, "Juno", true);
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(0),
+                "DSS63", "DSS 63", "70M",  131L, 65L, 2L, false, false, false,
+                "Spacecraft Telemetry, Tracking, and Command"
+        );
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(1),
-                    "DSS65", "DSS 65", "34MHEF",  null, null, null, null, null, null, null
-            );
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(1),
+                "DSS65", "DSS 65", "34MHEF",  null, null, null, null, null, null, null
+        );
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(2),
-                    "DSS53", "DSS 53", "34M",  0L, 90L, null, false, false, false,
-                    "Engineering Upgrades"
-            );
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(2),
+                "DSS53", "DSS 53", "34M",  0L, 90L, null, false, false, false,
+                "Engineering Upgrades"
+        );
 
-            assertEquals(Instant.ofEpochMilli(1770497799000L), mergedData.getTimestamp());
-        }
+        assertEquals(Instant.ofEpochMilli(1770497799000L), mergedData.getTimestamp());
     }
 
     @Test
-    void shouldMergeConfigAndDsnDataWithMissingStationData() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class)) {
-            staticHttpClient.when(HttpClients::createDefault)
-                    .thenReturn(configClient)
-                    .thenReturn(dsnClient);
+    void shouldNotFetchConfigurationIfAlreadyPopulatedWhenFetchingMergedData() throws Exception {
+        byte[] configResponse = getBytes("config/config.xml");
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenAnswer(respond(ok(configResponse)));
 
-            byte[] configResponse = getBytes("config/config.xml");
-            when(configClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(configResponse);
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(dsnResponse)));
 
-            byte[] dsnResponse = getBytes("dsn/dsnWithoutStations.xml");
-            when(dsnClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(dsnResponse);
+        client.fetchConfiguration();
+        MergedData mergedData = client.fetchMergedData();
 
-            MergedData mergedData = client.fetchMergedData();
+        verify(httpClient, times(1)).executeOpen(isNull(), get(CONFIG_PATH), isNull());
+        verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
 
-            verify(configClient, times(1)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
-            verify(dsnClient, times(1)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
+        assertMergedStation(
+                mergedData.getStations().get(0),
+                "mdscc", "Madrid", -4.2480085, 40.2413554, Instant.ofEpochMilli(1770497799000L),
+                ZoneOffset.ofTotalSeconds(3600)
+        );
 
-            assertMergedStation(
-                    mergedData.getStations().get(0),
-                    "mdscc", "Madrid", -4.2480085, 40.2413554, null, null
-            );
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(0),
+                "DSS63", "DSS 63", "70M",  131L, 65L, 2L, false, false, false,
+                "Spacecraft Telemetry, Tracking, and Command"
+        );
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(0),
-                    "DSS63", "DSS 63", "70M",  131L, 65L, 2L, false, false, false,
-                    "Spacecraft Telemetry, Tracking, and Command"
-            );
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(1),
+                "DSS65", "DSS 65", "34MHEF",  null, null, null, null, null, null, null
+        );
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(1),
-                    "DSS65", "DSS 65", "34MHEF",  null, null, null, null, null, null, null
-            );
+        assertMergedDish(mergedData.getStations().get(0).getDishes().get(2),
+                "DSS53", "DSS 53", "34M",  0L, 90L, null, false, false, false,
+                "Engineering Upgrades"
+        );
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(2),
-                    "DSS53", "DSS 53", "34M",  0L, 90L, null, false, false, false,
-                    "Engineering Upgrades"
-            );
+        assertEquals(Instant.ofEpochMilli(1770497799000L), mergedData.getTimestamp());
+    }
 
-            assertEquals(Instant.ofEpochMilli(1770497799000L), mergedData.getTimestamp());
-        }
+    @Test
+    void shouldRefreshExpiredConfigInBackground() throws Exception {
+        DeepSpaceNetworkClient expiringClient = newClient(DeepSpaceNetworkClient.builder()
+                .maxConfigurationAge(Duration.ofMillis(-1))
+                .executor(Runnable::run));
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull()))
+                .thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any()))
+                .thenAnswer(complete(asyncOk(getBytes("config/configWithOneSite.xml"))));
+
+        MergedData mergedData1 = expiringClient.fetchMergedData();
+        MergedData mergedData2 = expiringClient.fetchMergedData();
+        MergedData mergedData3 = expiringClient.fetchMergedData();
+
+        verify(httpClient, times(1)).executeOpen(isNull(), get(CONFIG_PATH), isNull());
+        verify(asyncClient, times(2)).execute(asyncGet(CONFIG_PATH), any(), any());
+        verify(httpClient, times(3)).executeOpen(isNull(), get(DSN_PATH), isNull());
+
+        // The expired configuration is served while the refresh is in flight, and replaced once it completes
+        assertEquals(3, mergedData1.getStations().size());
+        assertEquals(3, mergedData2.getStations().size());
+        assertEquals(1, mergedData3.getStations().size());
     }
 
     @Test
-    void shouldNotFetchConfigurationIfAlreadyPopulatedWhenFetchingMergedData() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class)) {
-            staticHttpClient.when(HttpClients::createDefault)
-                    .thenReturn(configClient)
-                    .thenReturn(dsnClient);
+    void shouldContinueWithExpiredConfigWhenBackgroundRefreshFails() throws Exception {
+        DeepSpaceNetworkClient expiringClient = newClient(DeepSpaceNetworkClient.builder()
+                .maxConfigurationAge(Duration.ofMillis(-1))
+                .executor(Runnable::run));
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull()))
+                .thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any())).thenAnswer(invocation -> {
+            invocation.<FutureCallback<Message<HttpResponse, byte[]>>>getArgument(2).failed(new IOException());
+            return null;
+        });
+
+        expiringClient.fetchMergedData();
+        MergedData mergedData1 = expiringClient.fetchMergedData();
+        MergedData mergedData2 = expiringClient.fetchMergedData();
+
+        // Each failed refresh is retried on the next fetch
+        verify(asyncClient, times(2)).execute(asyncGet(CONFIG_PATH), any(), any());
+        assertEquals(3, mergedData1.getStations().size());
+        assertEquals(3, mergedData2.getStations().size());
+    }
 
-            byte[] configResponse = getBytes("config/config.xml");
-            when(configClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(configResponse);
+    @Test
+    void shouldShareInFlightConfigurationFetch() throws Exception {
+        List<FutureCallback<Message<HttpResponse, byte[]>>> callbacks = new ArrayList<>();
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any())).thenAnswer(invocation -> {
+            callbacks.add(invocation.getArgument(2));
+            return null;
+        });
+
+        CompletableFuture<Configuration> future1 = client.fetchConfigurationAsync();
+        CompletableFuture<Configuration> future2 = client.fetchConfigurationAsync();
+        CompletableFuture<Configuration> future3 = client.fetchConfigurationAsync();
+        future3.cancel(true);
+        callbacks.get(0).completed(asyncOk(getBytes("config/config.xml")));
+
+        verify(asyncClient, times(1)).execute(asyncGet(CONFIG_PATH), any(), any());
+        assertSame(future1.get(), future2.get());
+        assertTrue(future3.isCancelled());
+    }
 
-            byte[] dsnResponse = getBytes("dsn/dsn.xml");
-            when(dsnClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(dsnResponse);
+    @Test
+    void shouldUseCachedStateWhenNotModified() throws Exception {
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse,
+                        new BasicHeader(HttpHeaders.ETAG, "\"abc\""),
+                        new BasicHeader(HttpHeaders.LAST_MODIFIED, "Sat, 07 Feb 2026 20:56:39 GMT"))))
+                .thenAnswer(respond(notModified()));
+
+        State state1 = client.fetchState();
+        State state2 = client.fetchState();
+
+        ArgumentCaptor<HttpGet> requestCaptor = ArgumentCaptor.forClass(HttpGet.class);
+        verify(httpClient, times(2)).executeOpen(isNull(), requestCaptor.capture(), isNull());
+
+        assertFalse(requestCaptor.getAllValues().get(0).containsHeader(HttpHeaders.IF_NONE_MATCH));
+        assertFalse(requestCaptor.getAllValues().get(0).containsHeader(HttpHeaders.IF_MODIFIED_SINCE));
+        assertEquals("\"abc\"", requestCaptor.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+        assertEquals("Sat, 07 Feb 2026 20:56:39 GMT",
+                requestCaptor.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_MODIFIED_SINCE).getValue());
+
+        assertSame(state1, state2);
+        assertEquals(1, client.getNotModifiedCount());
+    }
 
-            client.fetchConfiguration();
-            MergedData mergedData = client.fetchMergedData();
+    @Test
+    void shouldUseCachedConfigurationWhenNotModified() throws Exception {
+        byte[] configResponse = getBytes("config/config.xml");
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull()))
+                .thenAnswer(respond(ok(configResponse, new BasicHeader(HttpHeaders.ETAG, "\"abc\""))))
+                .thenAnswer(respond(notModified()));
 
-            verify(configClient, times(1)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
-            verify(dsnClient, times(1)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
+        Configuration configuration1 = client.fetchConfiguration();
+        Configuration configuration2 = client.fetchConfiguration();
 
-            assertMergedStation(
-                    mergedData.getStations().get(0),
-                    "mdscc", "Madrid", -4.2480085, 40.2413554, Instant.ofEpochMilli(1770497799000L),
-                    ZoneOffset.ofTotalSeconds(3600)
-            );
+        ArgumentCaptor<HttpGet> requestCaptor = ArgumentCaptor.forClass(HttpGet.class);
+        verify(httpClient, times(2)).executeOpen(isNull(), requestCaptor.capture(), isNull());
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(0),
-                    "DSS63", "DSS 63", "70M",  131L, 65L, 2L, false, false, false,
-                    "Spacecraft Telemetry, Tracking, and Command"
-            );
+        assertEquals("\"abc\"", requestCaptor.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+        assertFalse(requestCaptor.getAllValues().get(1).containsHeader(HttpHeaders.IF_MODIFIED_SINCE));
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(1),
-                    "DSS65", "DSS 65", "34MHEF",  null, null, null, null, null, null, null
-            );
+        assertSame(configuration1, configuration2);
+        assertEquals(1, client.getNotModifiedCount());
+    }
 
-            assertMergedDish(mergedData.getStations().get(0).getDishes().get(2),
-                    "DSS53", "DSS 53", "34M",  0L, 90L, null, false, false, false,
-                    "Engineering Upgrades"
-            );
+    @Test
+    void shouldDeserializeStateWhenModified() throws Exception {
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        byte[] modifiedResponse = withoutFirstNewline(dsnResponse);
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(modifiedResponse)));
+
+        State state1 = client.fetchState();
+        State state2 = client.fetchState();
+
+        ArgumentCaptor<HttpGet> requestCaptor = ArgumentCaptor.forClass(HttpGet.class);
+        verify(httpClient, times(2)).executeOpen(isNull(), requestCaptor.capture(), isNull());
+
+        assertFalse(requestCaptor.getAllValues().get(1).containsHeader(HttpHeaders.IF_NONE_MATCH));
+        assertFalse(requestCaptor.getAllValues().get(1).containsHeader(HttpHeaders.IF_MODIFIED_SINCE));
+
+        assertNotSame(state1, state2);
+        assertEquals(state1, state2);
+        assertEquals(0, client.getNotModifiedCount());
+        assertEquals(0, client.getUnchangedCount());
+    }
 
-            assertEquals(Instant.ofEpochMilli(1770497799000L), mergedData.getTimestamp());
-        }
+    @Test
+    void shouldDecompressStateAsItIsParsed() throws Exception {
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(ContentDecodingTest.gzip(dsnResponse),
+                        new BasicHeader(HttpHeaders.CONTENT_ENCODING, "gzip"))));
+        DeepSpaceNetworkClient meteredClient = newClient(DeepSpaceNetworkClient.builder().metrics(metrics));
+
+        State plain = meteredClient.fetchState();
+        State compressed = meteredClient.fetchState();
+
+        assertEquals(plain, compressed);
+        // The bytes received are recorded as they were sent
+        verify(metrics).recordRequest(eq(Endpoint.STATE), anyLong(), eq(HttpStatus.SC_OK),
+                eq((long) ContentDecodingTest.gzip(dsnResponse).length));
     }
 
     @Test
-    void shouldFetchNewConfigWhenExistingConfigHasExpired() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class);
-             MockedStatic<Instant> staticInstant = mockStatic(Instant.class)) {
-            staticHttpClient.when(HttpClients::createDefault)
-                    .thenReturn(configClient)
-                    .thenReturn(dsnClient)
-                    .thenReturn(configClient)
-                    .thenReturn(dsnClient);
+    void shouldShareStringsBetweenStates() throws Exception {
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull()))
+                .thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(withoutFirstNewline(dsnResponse))));
+
+        MergedData mergedData = client.fetchMergedData();
+        State state = client.fetchState();
+
+        Dish dish = state.getDishes().get(1);
+        MergedDishData mergedDish = mergedData.getStations().stream()
+                .flatMap(station -> station.getDishes().stream())
+                .filter(merged -> merged.getName().equals(dish.getName()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertSame(mergedDish.getName(), dish.getName());
+        assertSame(mergedDish.getActivity(), dish.getActivity());
+        Station station = state.getStations().get(0);
+        MergedStationData mergedStation = mergedData.getStations().stream()
+                .filter(merged -> merged.getName().equals(station.getName()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertSame(mergedStation.getFriendlyName(), station.getFriendlyName());
+    }
 
-            byte[] configResponse = getBytes("config/config.xml");
-            byte[] configResponse2 = getBytes("config/configWithOneSite.xml");
-            when(configClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class)))
-                    .thenReturn(configResponse)
-                    .thenReturn(configResponse2);
+    @Test
+    void shouldNotShareStringsWithoutStringPool() throws Exception {
+        DeepSpaceNetworkClient unpooledClient = newClient(DeepSpaceNetworkClient.builder().stringPoolSize(0));
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(withoutFirstNewline(dsnResponse))));
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull()))
+                .thenAnswer(respond(ok(getBytes("config/config.xml"))));
+
+        State state1 = unpooledClient.fetchState();
+        State state2 = unpooledClient.fetchState();
+        unpooledClient.fetchConfiguration();
+
+        assertEquals(state1, state2);
+        assertNotSame(state1.getDishes().get(0).getActivity(), state2.getDishes().get(0).getActivity());
+    }
 
-            byte[] dsnResponse = getBytes("dsn/dsn.xml");
-            when(dsnClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenReturn(dsnResponse);
+    @Test
+    void shouldUseCachedStateWhenUnchanged() throws Exception {
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(dsnResponse, new BasicHeader(HttpHeaders.ETAG, "\"abc\""))))
+                .thenAnswer(respond(notModified()));
+
+        State state1 = client.fetchState();
+        State state2 = client.fetchState();
+        State state3 = client.fetchState();
+
+        ArgumentCaptor<HttpGet> requestCaptor = ArgumentCaptor.forClass(HttpGet.class);
+        verify(httpClient, times(3)).executeOpen(isNull(), requestCaptor.capture(), isNull());
+
+        // The validators of an unchanged response are still used for the next request
+        assertEquals("\"abc\"", requestCaptor.getAllValues().get(2).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+
+        assertSame(state1, state2);
+        assertSame(state1, state3);
+        assertEquals(1, client.getUnchangedCount());
+        assertEquals(1, client.getNotModifiedCount());
+    }
 
-            Instant firstAssignment = mock(Instant.class);
+    @Test
+    void shouldCompareWithLatestBodyAfterReusingBuffers() throws Exception {
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        byte[] modifiedResponse = withoutFirstNewline(dsnResponse);
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(modifiedResponse)))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(dsnResponse)));
+
+        State state1 = client.fetchState();
+        State state2 = client.fetchState();
+        State state3 = client.fetchState();
+        State state4 = client.fetchState();
+
+        // Each changed body is parsed, as the buffer given up by the cache is reused for the next body
+        assertNotSame(state1, state2);
+        assertNotSame(state2, state3);
+        assertSame(state3, state4);
+        assertEquals(1, client.getUnchangedCount());
+    }
 
-            Instant firstAssignmentPlusExpiry = mock(Instant.class);
-            when(firstAssignment.plus(any(Duration.class))).thenReturn(firstAssignmentPlusExpiry);
+    @Test
+    void shouldReuseMergedDataWhenUnchanged() throws Exception {
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        byte[] modifiedResponse = withoutFirstNewline(dsnResponse);
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull()))
+                .thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(dsnResponse)))
+                .thenAnswer(respond(ok(modifiedResponse)));
+
+        MergedData mergedData1 = client.fetchMergedData();
+        MergedData mergedData2 = client.fetchMergedData();
+        MergedData mergedData3 = client.fetchMergedData();
+
+        assertSame(mergedData1, mergedData2);
+        // A changed document with an equal state is merged again, reusing every part of the previous merge
+        assertSame(mergedData1, mergedData3);
+    }
 
-            Instant firstComparison = mock(Instant.class);
-            when(firstComparison.isAfter(firstAssignmentPlusExpiry)).thenReturn(false);
+    @Test
+    void shouldFetchDsnDataAsync() throws Exception {
+        byte[] response = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(response)));
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(complete(asyncOk(response)));
 
-            Instant secondComparison = mock(Instant.class);
-            when(secondComparison.isAfter(firstAssignmentPlusExpiry)).thenReturn(true);
+        State state = client.fetchStateAsync().get();
 
-            Instant secondAssignment = mock(Instant.class);
+        verify(asyncClient, times(1)).start();
+        assertEquals(client.fetchState(), state);
+    }
 
-            staticInstant.when(Instant::now)
-                    .thenReturn(firstAssignment) // Assignment in fetchConfiguration
-                    .thenReturn(firstComparison) // Check for expiry (OK)
-                    .thenReturn(secondComparison) // Check for expiry (Expired)
-                    .thenReturn(secondAssignment); // Assignment in fetchConfiguration
+    @Test
+    void shouldFetchConfigurationAsync() throws Exception {
+        byte[] configResponse = getBytes("config/config.xml");
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any())).thenAnswer(complete(asyncOk(configResponse)));
+
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(dsnResponse)));
+
+        Configuration configuration = client.fetchConfigurationAsync().get();
+        MergedData mergedData = client.fetchMergedData();
+
+        verify(httpClient, never()).executeOpen(isNull(), get(CONFIG_PATH), isNull());
+        assertSite(configuration.getSites().get(0), "mdscc", "Madrid", -4.2480085, 40.2413554);
+        assertEquals(configuration.getSites().size(), mergedData.getStations().size());
+    }
 
-            MergedData mergedData1 = client.fetchMergedData();
-            MergedData mergedData2 = client.fetchMergedData();
+    @Test
+    void shouldDeserializeAsyncResponsesOnExecutor() throws Exception {
+        AtomicInteger tasks = new AtomicInteger();
+        Executor executor = command -> {
+            tasks.incrementAndGet();
+            command.run();
+        };
+        DeepSpaceNetworkClient executorClient = newClient(DeepSpaceNetworkClient.builder().executor(executor));
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(complete(asyncOk(getBytes("dsn/dsn.xml"))));
+
+        executorClient.fetchStateAsync().get();
+
+        assertEquals(1, tasks.get());
+    }
+
+    @Test
+    void shouldFetchConfigAndDsnDataConcurrentlyWhenMergingAsync() throws Exception {
+        List<FutureCallback<Message<HttpResponse, byte[]>>> callbacks = new ArrayList<>();
+        when(asyncClient.execute(any(AsyncRequestProducer.class), any(), any())).thenAnswer(invocation -> {
+            callbacks.add(invocation.getArgument(2));
+            return null;
+        });
+
+        CompletableFuture<MergedData> future = client.fetchMergedDataAsync();
+
+        // Both requests are in flight before either has completed
+        ArgumentCaptor<AsyncRequestProducer> requestCaptor = ArgumentCaptor.forClass(AsyncRequestProducer.class);
+        verify(asyncClient, times(2)).execute(requestCaptor.capture(), any(), any());
+        assertEquals(CONFIG_PATH, requestOf(requestCaptor.getAllValues().get(0)).getPath());
+        assertEquals(DSN_PATH, requestOf(requestCaptor.getAllValues().get(1)).getPath());
+        assertFalse(future.isDone());
+
+        callbacks.get(1).completed(asyncOk(getBytes("dsn/dsn.xml")));
+        callbacks.get(0).completed(asyncOk(getBytes("config/config.xml")));
+        MergedData mergedData = future.get();
+
+        assertMergedStation(
+                mergedData.getStations().get(0),
+                "mdscc", "Madrid", -4.2480085, 40.2413554, Instant.ofEpochMilli(1770497799000L),
+                ZoneOffset.ofTotalSeconds(3600)
+        );
+        assertEquals(Instant.ofEpochMilli(1770497799000L), mergedData.getTimestamp());
+    }
 
-            verify(configClient, times(2)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
-            verify(dsnClient, times(2)).execute(any(HttpGet.class), any(HttpClientResponseHandler.class));
+    @Test
+    void shouldNotFetchConfigurationAsyncIfAlreadyPopulatedWhenMergingAsync() throws Exception {
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any())).thenAnswer(complete(asyncOk(getBytes("config/config.xml"))));
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(complete(asyncOk(getBytes("dsn/dsn.xml"))));
+
+        MergedData mergedData1 = client.fetchMergedDataAsync().get();
+        MergedData mergedData2 = client.fetchMergedDataAsync().get();
 
-            assertEquals(3, mergedData1.getStations().size());
-            assertEquals(1, mergedData2.getStations().size());
+        verify(asyncClient, times(1)).execute(asyncGet(CONFIG_PATH), any(), any());
+        verify(asyncClient, times(2)).execute(asyncGet(DSN_PATH), any(), any());
+        assertEquals(mergedData1, mergedData2);
+    }
+
+    @Test
+    void shouldRefreshExpiredConfigInBackgroundAsync() throws Exception {
+        DeepSpaceNetworkClient expiringClient = newClient(DeepSpaceNetworkClient.builder()
+                .maxConfigurationAge(Duration.ofMillis(-1))
+                .executor(Runnable::run));
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any()))
+                .thenAnswer(complete(asyncOk(getBytes("config/config.xml"))))
+                .thenAnswer(complete(asyncOk(getBytes("config/configWithOneSite.xml"))));
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(complete(asyncOk(getBytes("dsn/dsn.xml"))));
+
+        MergedData mergedData1 = expiringClient.fetchMergedDataAsync().get();
+        MergedData mergedData2 = expiringClient.fetchMergedDataAsync().get();
+        MergedData mergedData3 = expiringClient.fetchMergedDataAsync().get();
+
+        verify(asyncClient, times(3)).execute(asyncGet(CONFIG_PATH), any(), any());
+        assertEquals(3, mergedData1.getStations().size());
+        assertEquals(3, mergedData2.getStations().size());
+        assertEquals(1, mergedData3.getStations().size());
+    }
+
+    @Test
+    void shouldUseCachedStateAsyncWhenNotModified() throws Exception {
+        Message<HttpResponse, byte[]> response = asyncOk(getBytes("dsn/dsn.xml"));
+        response.getHead().setHeader(HttpHeaders.ETAG, "\"abc\"");
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any()))
+                .thenAnswer(complete(response))
+                .thenAnswer(complete(asyncResponse(HttpStatus.SC_NOT_MODIFIED, null)));
+
+        State state1 = client.fetchStateAsync().get();
+        State state2 = client.fetchStateAsync().get();
+
+        ArgumentCaptor<AsyncRequestProducer> requestCaptor = ArgumentCaptor.forClass(AsyncRequestProducer.class);
+        verify(asyncClient, times(2)).execute(requestCaptor.capture(), any(), any());
+        assertEquals("\"abc\"", requestOf(requestCaptor.getAllValues().get(1)).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+        assertSame(state1, state2);
+        assertEquals(1, client.getNotModifiedCount());
+    }
+
+    @Test
+    void shouldServeStateFromCacheWithinMaxAge() throws Exception {
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+
+        State state1 = client.fetchState(Duration.ofMinutes(1));
+        State state2 = client.fetchState(Duration.ofMinutes(1));
+        State state3 = client.fetchStateAsync(Duration.ofMinutes(1)).get();
+
+        verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
+        verify(asyncClient, never()).execute(any(AsyncRequestProducer.class), any(), any());
+        assertSame(state1, state2);
+        assertSame(state1, state3);
+    }
+
+    @Test
+    void shouldFetchStateOlderThanMaxAge() throws Exception {
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(complete(asyncOk(getBytes("dsn/dsn.xml"))));
+
+        client.fetchState(Duration.ofMillis(-1));
+        client.fetchState(Duration.ofMillis(-1));
+        client.fetchStateAsync(Duration.ofMillis(-1)).get();
+
+        verify(httpClient, times(2)).executeOpen(isNull(), get(DSN_PATH), isNull());
+        verify(asyncClient, times(1)).execute(asyncGet(DSN_PATH), any(), any());
+    }
+
+    @Test
+    void shouldServeStateFromCacheWithinBuilderTtl() throws Exception {
+        DeepSpaceNetworkClient cachingClient = newClient(DeepSpaceNetworkClient.builder()
+                .stateCacheTtl(Duration.ofMinutes(1))
+                .executor(Runnable::run));
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+
+        State state = cachingClient.fetchState();
+        MergedData mergedData1 = cachingClient.fetchMergedData();
+        MergedData mergedData2 = cachingClient.fetchMergedDataAsync().get();
+
+        verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
+        verify(asyncClient, never()).execute(any(AsyncRequestProducer.class), any(), any());
+        assertSame(state, cachingClient.fetchStateAsync().get());
+        assertEquals(mergedData1, mergedData2);
+    }
+
+    @Test
+    void shouldFetchMergedDataWithMaxAge() throws Exception {
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+
+        MergedData mergedData1 = client.fetchMergedData(Duration.ofMinutes(1));
+        MergedData mergedData2 = client.fetchMergedDataAsync(Duration.ofMinutes(1)).get();
+
+        verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
+        assertEquals(mergedData1, mergedData2);
+    }
+
+    @Test
+    void shouldMergeStateWithoutFetchingItAgain() throws Exception {
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenAnswer(respond(ok(getBytes("config/config.xml"))));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+
+        State state = client.fetchState();
+        MergedData mergedData1 = client.merge(state);
+        MergedData mergedData2 = client.merge(state);
+
+        verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
+        assertEquals(state.getTimestamp(), mergedData1.getTimestamp());
+        assertSame(mergedData1, mergedData2);
+    }
+
+    @Test
+    void shouldShareInFlightStateFetch() throws Exception {
+        List<FutureCallback<Message<HttpResponse, byte[]>>> callbacks = new ArrayList<>();
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(invocation -> {
+            callbacks.add(invocation.getArgument(2));
+            return null;
+        });
+
+        CompletableFuture<State> future1 = client.fetchStateAsync(Duration.ZERO);
+        CompletableFuture<State> future2 = client.fetchStateAsync(Duration.ZERO);
+        CompletableFuture<State> future3 = client.fetchStateAsync(Duration.ZERO);
+        future1.cancel(true);
+        callbacks.get(0).completed(asyncOk(getBytes("dsn/dsn.xml")));
+
+        verify(asyncClient, times(1)).execute(asyncGet(DSN_PATH), any(), any());
+        assertSame(future2.get(), future3.get());
+        assertSame(future2.get(), client.fetchStateAsync(Duration.ofMinutes(1)).get());
+    }
+
+    @Test
+    void shouldNotFetchStateRefreshedWhileWaitingForRequest() throws Exception {
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+        Instant fetched = Instant.now();
+
+        try (MockedStatic<Instant> staticInstant = mockStatic(Instant.class, CALLS_REAL_METHODS)) {
+            // The state is stale when first checked, but fresh by the time the request would be made
+            staticInstant.when(Instant::now)
+                    .thenReturn(fetched)
+                    .thenReturn(fetched.plus(Duration.ofMinutes(2)), fetched)
+                    .thenReturn(fetched.plus(Duration.ofMinutes(2)), fetched);
+
+            State state1 = client.fetchState(Duration.ofMinutes(1));
+            State state2 = client.fetchState(Duration.ofMinutes(1));
+            State state3 = client.fetchStateAsync(Duration.ofMinutes(1)).get();
+
+            verify(httpClient, times(1)).executeOpen(isNull(), get(DSN_PATH), isNull());
+            verify(asyncClient, never()).execute(any(AsyncRequestProducer.class), any(), any());
+            assertSame(state1, state2);
+            assertSame(state1, state3);
         }
     }
 
+    @Test
+    void shouldRecordMetrics() throws Exception {
+        DeepSpaceNetworkClient metricsClient = newClient(DeepSpaceNetworkClient.builder().metrics(metrics));
+        byte[] configResponse = getBytes("config/config.xml");
+        byte[] dsnResponse = getBytes("dsn/dsn.xml");
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull()))
+                .thenAnswer(respond(ok(configResponse)));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull()))
+                .thenAnswer(respond(ok(dsnResponse, new BasicHeader(HttpHeaders.ETAG, "\"abc\""))))
+                .thenAnswer(respond(notModified()));
+
+        metricsClient.fetchMergedData();
+        metricsClient.fetchMergedData();
+
+        verify(metrics).recordConfigurationCacheMiss();
+        verify(metrics).recordConfigurationCacheHit();
+        verify(metrics).recordConfigurationRefresh();
+        verify(metrics).recordRequest(eq(Endpoint.CONFIGURATION), anyLong(), eq(HttpStatus.SC_OK),
+                eq((long) configResponse.length));
+        verify(metrics).recordRequest(eq(Endpoint.STATE), anyLong(), eq(HttpStatus.SC_OK),
+                eq((long) dsnResponse.length));
+        verify(metrics).recordRequest(eq(Endpoint.STATE), anyLong(), eq(HttpStatus.SC_NOT_MODIFIED), eq(0L));
+        verify(metrics).recordParse(eq(Endpoint.CONFIGURATION), anyLong());
+        verify(metrics).recordParse(eq(Endpoint.STATE), anyLong());
+        // Neither document changed, so the second fetch reuses the first merge
+        verify(metrics).recordMerge(anyLong());
+        verify(metrics, never()).recordFailure(any(), any());
+    }
+
+    @Test
+    void shouldRecordMetricsAsync() throws Exception {
+        DeepSpaceNetworkClient metricsClient = newClient(DeepSpaceNetworkClient.builder()
+                .maxConfigurationAge(Duration.ofMillis(-1))
+                .metrics(metrics)
+                .executor(Runnable::run));
+        byte[] configResponse = getBytes("config/config.xml");
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any())).thenAnswer(complete(asyncOk(configResponse)));
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any()))
+                .thenAnswer(complete(asyncOk(getBytes("dsn/dsn.xml"))))
+                .thenAnswer(complete(asyncResponse(HttpStatus.SC_NOT_MODIFIED, null)));
+
+        metricsClient.fetchMergedDataAsync().get();
+        metricsClient.fetchMergedDataAsync().get();
+
+        // The second merge finds the configuration expired, and refreshes it in the background
+        verify(metrics, times(2)).recordConfigurationCacheMiss();
+        verify(metrics, times(2)).recordConfigurationRefresh();
+        verify(metrics, times(2)).recordRequest(eq(Endpoint.CONFIGURATION), anyLong(), eq(HttpStatus.SC_OK),
+                eq((long) configResponse.length));
+        verify(metrics).recordRequest(eq(Endpoint.STATE), anyLong(), eq(HttpStatus.SC_NOT_MODIFIED), eq(0L));
+        verify(metrics).recordParse(eq(Endpoint.CONFIGURATION), anyLong());
+        verify(metrics).recordMerge(anyLong());
+        verify(metrics, never()).recordFailure(any(), any());
+    }
+
+    @Test
+    void shouldRecordFailureMetrics() throws Exception {
+        DeepSpaceNetworkClient metricsClient = newClient(DeepSpaceNetworkClient.builder()
+                .metrics(metrics)
+                .executor(Runnable::run));
+        IOException failure = new IOException();
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenThrow(failure);
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any())).thenAnswer(complete(asyncOk("<configuration>".getBytes())));
+
+        assertThrows(IOException.class, metricsClient::fetchState);
+        assertThrows(ExecutionException.class, () -> metricsClient.fetchConfigurationAsync().get());
+
+        verify(metrics).recordFailure(Endpoint.STATE, failure);
+        verify(metrics).recordFailure(eq(Endpoint.CONFIGURATION), any(IOException.class));
+    }
+
+    @Test
+    void shouldHandleDsnErrorAsync() {
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(invocation -> {
+            invocation.<FutureCallback<Message<HttpResponse, byte[]>>>getArgument(2).failed(new IOException());
+            return null;
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> client.fetchStateAsync().get());
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldHandleCancelledRequestAsync() {
+        when(asyncClient.execute(asyncGet(DSN_PATH), any(), any())).thenAnswer(invocation -> {
+            invocation.<FutureCallback<Message<HttpResponse, byte[]>>>getArgument(2).cancelled();
+            return null;
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> client.fetchStateAsync().get());
+        assertInstanceOf(CancellationException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldHandleMalformedResponseAsync() {
+        when(asyncClient.execute(asyncGet(CONFIG_PATH), any(), any())).thenAnswer(complete(asyncOk("<configuration>".getBytes())));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> client.fetchConfigurationAsync().get());
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldRejectResponseLargerThanMaxBodySize() throws Exception {
+        DeepSpaceNetworkClient limitedClient = newClient(DeepSpaceNetworkClient.builder().maxBodySize(1024));
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenAnswer(respond(ok(getBytes("dsn/dsn.xml"))));
+
+        IOException exception = assertThrows(IOException.class, limitedClient::fetchState);
+        assertEquals("response body exceeds the maximum size of 1024 bytes", exception.getMessage());
+    }
+
     @Test
     void shouldHandleDsnError() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class)) {
-            staticHttpClient.when(HttpClients::createDefault).thenReturn(dsnClient);
-            when(dsnClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenThrow(new IOException());
+        when(httpClient.executeOpen(isNull(), get(DSN_PATH), isNull())).thenThrow(new IOException());
 
-            assertThrows(Exception.class, client::fetchState);
-        }
+        assertThrows(Exception.class, client::fetchState);
     }
 
     @Test
     void shouldHandleConfigError() throws Exception {
-        try (MockedStatic<HttpClients> staticHttpClient = mockStatic(HttpClients.class)) {
-            staticHttpClient.when(HttpClients::createDefault).thenReturn(configClient);
-            when(configClient.execute(any(HttpGet.class), any(HttpClientResponseHandler.class))).thenThrow(new IOException());
+        when(httpClient.executeOpen(isNull(), get(CONFIG_PATH), isNull())).thenThrow(new IOException());
+
+        assertThrows(Exception.class, client::fetchConfiguration);
+    }
+
+    private DeepSpaceNetworkClient newClient(DeepSpaceNetworkClient.Builder builder) {
+        return builder.transport(new ApacheHttpTransport(httpClient, asyncClient)).build();
+    }
 
-            assertThrows(Exception.class, client::fetchConfiguration);
+    private static AsyncRequestProducer asyncGet(String path) {
+        return argThat(producer -> producer != null && path.equals(requestOf(producer).getPath()));
+    }
+
+    private static HttpRequest requestOf(AsyncRequestProducer producer) {
+        AtomicReference<HttpRequest> request = new AtomicReference<>();
+        try {
+            producer.sendRequest((head, entity, context) -> request.set(head), null);
+        } catch (HttpException | IOException ex) {
+            throw new AssertionError(ex);
+        }
+        return request.get();
+    }
+
+    private static Answer<Object> complete(Message<HttpResponse, byte[]> response) {
+        return invocation -> {
+            invocation.<FutureCallback<Message<HttpResponse, byte[]>>>getArgument(2).completed(response);
+            return null;
+        };
+    }
+
+    private static Message<HttpResponse, byte[]> asyncOk(byte[] body) {
+        return asyncResponse(HttpStatus.SC_OK, body);
+    }
+
+    private static Message<HttpResponse, byte[]> asyncResponse(int status, byte[] body) {
+        return new Message<>(new BasicHttpResponse(status), body);
+    }
+
+    private static HttpGet get(String path) {
+        return argThat(request -> request != null && path.equals(request.getPath()));
+    }
+
+    private static Answer<Object> respond(ClassicHttpResponse response) {
+        return invocation -> response;
+    }
+
+    private static ClassicHttpResponse ok(byte[] body, Header... headers) {
+        BasicClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_OK);
+        response.setHeaders(headers);
+        response.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_XML));
+        return response;
+    }
+
+    private static byte[] withoutFirstNewline(byte[] body) {
+        // Keep the length, so that the body can only be told apart by its content
+        byte[] modified = body.clone();
+        for (int i = 0; i < modified.length; i++) {
+            if (modified[i] == '\n') {
+                modified[i] = ' ';
+                break;
+            }
         }
+        return modified;
+    }
+
+    private static ClassicHttpResponse notModified() {
+        return new BasicClassicHttpResponse(HttpStatus.SC_NOT_MODIFIED);
     }
 
     private static byte[] getBytes(String filePath) {
@@ -0,0 +1,190 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.journal.SnapshotJournal;
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReplayClientTest {
+
+    private static final Instant T0 = Instant.parse("2026-02-07T20:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void shouldReplayDirectoryInFileNameOrder() throws Exception {
+        copy("dsn/dsnWithoutDishes.xml", "2.xml");
+        copy("dsn/dsn.xml", "1.xml");
+        copy("config/config.xml", "config.xml");
+        Files.write(directory.resolve("notes.txt"), new byte[0]);
+
+        try (ReplayClient client = ReplayClient.fromDirectory(directory)
+                .speed(ReplayClient.AS_FAST_AS_POSSIBLE)
+                .build()) {
+            assertEquals(readConfiguration(), client.fetchConfiguration());
+            assertEquals(parse("dsn/dsn.xml"), client.fetchState());
+            assertEquals(parse("dsn/dsnWithoutDishes.xml"), client.fetchState());
+            assertThrows(EOFException.class, client::fetchState);
+        }
+    }
+
+    @Test
+    void shouldReplayJournalAtGivenSpeed() throws Exception {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            journal.append(state(0));
+            journal.append(state(5));
+            journal.append(state(15));
+        }
+
+        try (ReplayClient client = paced(ReplayClient.fromJournal(directory).speed(2))) {
+            assertEquals(state(0), client.fetchState());
+            now.addAndGet(Duration.ofSeconds(1).toNanos());
+            assertEquals(state(5), client.fetchState());
+            assertEquals(state(15), client.fetchState());
+        }
+
+        assertEquals(Arrays.asList(Duration.ofMillis(1500).toNanos(), Duration.ofSeconds(5).toNanos()), sleeps);
+    }
+
+    @Test
+    void shouldReplayInRealTimeAndNotWaitForStatesWithoutTimestamp() throws Exception {
+        copy("dsn/dsnWithoutTimestamp.xml", "1.xml");
+        copy("dsn/dsn.xml", "2.xml");
+        copy("dsn/dsn.xml", "3.xml");
+
+        try (ReplayClient client = paced(ReplayClient.fromDirectory(directory))) {
+            assertNull(client.fetchState().getTimestamp());
+            client.fetchState();
+            now.addAndGet(1);
+            client.fetchState();
+        }
+
+        assertEquals(new ArrayList<>(), sleeps);
+    }
+
+    @Test
+    void shouldShareRecentlyReplayedState() throws Exception {
+        copy("dsn/dsn.xml", "1.xml");
+        copy("dsn/dsn.xml", "2.xml");
+
+        try (ReplayClient client = ReplayClient.fromDirectory(directory).executor(Runnable::run).build()) {
+            State first = client.fetchStateAsync(Duration.ofHours(1)).get();
+
+            assertSame(first, client.fetchState(Duration.ofHours(1)));
+            assertSame(first, client.fetchStateAsync(Duration.ofHours(1)).get());
+            assertNotSame(first, client.fetchStateAsync().get());
+            assertThrows(EOFException.class, () -> client.fetchState(Duration.ZERO));
+        }
+    }
+
+    @Test
+    void shouldMergeReplayedStatesWithConfiguration() throws Exception {
+        copy("dsn/dsn.xml", "1.xml");
+        copy("dsn/dsn.xml", "2.xml");
+        Configuration configuration = readConfiguration();
+
+        try (ReplayClient client = ReplayClient.fromDirectory(directory)
+                .configuration(configuration)
+                .executor(Runnable::run)
+                .build()) {
+            assertSame(configuration, client.fetchConfigurationAsync().get());
+            MergedData merged = client.fetchMergedDataAsync().get();
+            assertEquals(configuration.getSites().size(), merged.getStations().size());
+            assertEquals(merged, client.fetchMergedData(Duration.ofHours(1)));
+            assertEquals(merged, client.fetchMergedDataAsync(Duration.ofHours(1)).get());
+            assertEquals(merged, client.fetchMergedData());
+            assertSame(merged, client.merge(client.fetchState(Duration.ofHours(1))));
+        }
+    }
+
+    @Test
+    void shouldFailWithoutConfiguration() throws Exception {
+        copy("dsn/dsn.xml", "1.xml");
+
+        try (ReplayClient client = ReplayClient.fromDirectory(directory).executor(Runnable::run).build()) {
+            assertThrows(IllegalStateException.class, client::fetchMergedData);
+            ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> client.fetchConfigurationAsync().get());
+            assertInstanceOf(IllegalStateException.class, ex.getCause());
+            assertEquals(parse("dsn/dsn.xml"), client.fetchState());
+        }
+    }
+
+    @Test
+    void shouldFailOnUnreadableDocument() throws Exception {
+        Files.write(directory.resolve("1.xml"), "<dsn>".getBytes());
+
+        try (ReplayClient client = ReplayClient.fromDirectory(directory).stateParser(new StaxStateParser()).build()) {
+            assertThrows(IOException.class, client::fetchState);
+        }
+    }
+
+    private ReplayClient paced(ReplayClient.Builder builder) throws IOException {
+        return builder
+                .nanoTime(now::get)
+                .sleeper(nanos -> {
+                    sleeps.add(nanos);
+                    now.addAndGet(nanos);
+                })
+                .build();
+    }
+
+    private void copy(String resource, String name) throws IOException {
+        Files.write(directory.resolve(name), getBytes(resource));
+    }
+
+    private static State parse(String resource) throws IOException {
+        return new StaxStateParser().parse(new ByteArrayInputStream(getBytes(resource)));
+    }
+
+    private static Configuration readConfiguration() throws IOException {
+        return DsnXmlMapper.create().readValue(getBytes("config/config.xml"), Configuration.class);
+    }
+
+    private static State state(int second) {
+        Dish dish = new Dish();
+        dish.setName("DSS43");
+        dish.setAzimuth((long) second);
+        State state = new State();
+        state.setDish(dish);
+        state.setTimestamp(T0.plusSeconds(second));
+        return state;
+    }
+
+    private static byte[] getBytes(String resource) throws IOException {
+        try (InputStream stream = ReplayClientTest.class.getClassLoader().getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(stream);
+        }
+    }
+}
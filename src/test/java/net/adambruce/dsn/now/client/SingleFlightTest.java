@@ -0,0 +1,160 @@
+package net.adambruce.dsn.now.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void shouldRunTask() throws Exception {
+        assertEquals("a", singleFlight.call(() -> "a"));
+        assertEquals("b", singleFlight.call(() -> "b"));
+    }
+
+    @Test
+    void shouldPropagateTaskFailureAndAllowRetry() throws Exception {
+        IOException failure = new IOException();
+
+        assertSame(failure, assertThrows(IOException.class, () -> singleFlight.call(() -> {
+            throw failure;
+        })));
+        assertEquals("a", singleFlight.call(() -> "a"));
+    }
+
+    @Test
+    void shouldShareInFlightAsyncTask() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> future1 = singleFlight.callAsync(() -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> future2 = singleFlight.callAsync(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("b");
+        });
+
+        assertNotSame(future1, future2);
+        assertFalse(future1.isDone());
+
+        pending.complete("a");
+
+        assertEquals("a", future2.get());
+        assertEquals(1, calls.get());
+        assertEquals("c", singleFlight.callAsync(() -> CompletableFuture.completedFuture("c")).get());
+    }
+
+    @Test
+    void shouldGiveEachAsyncCallerItsOwnFuture() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> future1 = singleFlight.callAsync(() -> pending);
+        CompletableFuture<String> future2 = singleFlight.callAsync(() -> pending);
+        CompletableFuture<String> future3 = singleFlight.callAsync(() -> pending);
+        future1.cancel(true);
+        future2.obtrudeValue("b");
+
+        assertFalse(pending.isDone());
+        assertFalse(future3.isDone());
+
+        pending.complete("a");
+
+        assertTrue(future1.isCancelled());
+        assertEquals("b", future2.get());
+        assertEquals("a", future3.get());
+    }
+
+    @Test
+    void shouldPropagateAsyncTaskFailure() throws Exception {
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException());
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> singleFlight.callAsync(() -> failed).get());
+
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertEquals("a", singleFlight.callAsync(() -> CompletableFuture.completedFuture("a")).get());
+    }
+
+    @Test
+    void shouldFailAsyncWhenTaskCannotBeStarted() throws Exception {
+        IllegalStateException failure = new IllegalStateException();
+
+        CompletableFuture<String> future = singleFlight.callAsync(() -> {
+            throw failure;
+        });
+
+        assertTrue(future.isCompletedExceptionally());
+        assertSame(failure, assertThrows(ExecutionException.class, future::get).getCause());
+        assertEquals("a", singleFlight.callAsync(() -> CompletableFuture.completedFuture("a")).get());
+    }
+
+    @Test
+    void shouldWaitForInFlightTask() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        singleFlight.callAsync(() -> pending);
+
+        CompletableFuture<String> follower = callOnNewThread();
+        pending.complete("a");
+
+        assertEquals("a", follower.get());
+    }
+
+    @Test
+    void shouldRethrowInFlightException() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        singleFlight.callAsync(() -> pending);
+
+        CompletableFuture<String> follower = callOnNewThread();
+        IOException failure = new IOException();
+        pending.completeExceptionally(failure);
+
+        assertSame(failure, assertThrows(ExecutionException.class, follower::get).getCause());
+    }
+
+    @Test
+    void shouldRethrowInFlightError() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        singleFlight.callAsync(() -> pending);
+
+        CompletableFuture<String> follower = callOnNewThread();
+        AssertionError failure = new AssertionError();
+        pending.completeExceptionally(failure);
+
+        assertSame(failure, assertThrows(ExecutionException.class, follower::get).getCause());
+    }
+
+    /**
+     * Calls the single flight from a new thread, returning once that thread is waiting for the in-flight task.
+     */
+    private CompletableFuture<String> callOnNewThread() throws InterruptedException {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(singleFlight.call(() -> "unexpected"));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,330 @@
+package net.adambruce.dsn.now.client;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.config.Site;
+import net.adambruce.dsn.now.model.config.Spacecraft;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedSpacecraftData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StateMergerTest {
+
+    private final Configuration configuration = configuration(
+            spacecraft("vgr2", "Voyager 2"),
+            spacecraft("dsn", "Testing"),
+            spacecraft("mro", "Mars Reconnaissance Orbiter"));
+
+    private final Signal voyagerUp = signal(-32L, "VGR2");
+    private final Signal voyagerDown = signal(-32L, "vgr2");
+    private final Signal marsDown = signal(null, "MRO");
+    private final Signal sohoDown = signal(-21L, null);
+
+    private final MergedData merged = merge(state(), null);
+
+    @Test
+    void shouldJoinEachSpacecraftOnce() {
+        List<MergedSpacecraftData> spacecraft = merged.getSpacecraft();
+
+        assertEquals(Arrays.asList(
+                new MergedSpacecraftData(32L, "VGR2", null, null, "Voyager 2", null),
+                new MergedSpacecraftData(99L, "DSN", null, null, "Testing", null),
+                new MergedSpacecraftData(null, "MRO", null, null, "Mars Reconnaissance Orbiter", null),
+                new MergedSpacecraftData(21L, null, null, null, null, null)), spacecraft);
+        assertThrows(UnsupportedOperationException.class, () -> spacecraft.remove(0));
+    }
+
+    @Test
+    void shouldJoinTargetsById() {
+        List<MergedTargetData> dss63 = dish(0).getTarget();
+
+        assertEquals("Voyager 2", dss63.get(0).getFriendlyName());
+        assertEquals("Testing", dss63.get(1).getFriendlyName());
+        assertNull(dss63.get(2).getFriendlyName());
+    }
+
+    @Test
+    void shouldJoinTargetsByNameWhenIdHasAnotherName() {
+        MergedTargetData dss = dish(1).getTarget().get(0);
+
+        assertEquals("DSS", dss.getName());
+        assertEquals(99L, dss.getId());
+        assertNull(dss.getFriendlyName());
+        assertEquals("DSN", merged.getSpacecraftById(99).getName());
+    }
+
+    @Test
+    void shouldResolveSignalsToSpacecraft() {
+        MergedSpacecraftData voyager = merged.getSpacecraftById(32);
+
+        assertSame(voyager, merged.getSpacecraftForSignal(voyagerUp));
+        assertSame(voyager, merged.getSpacecraftForSignal(voyagerDown));
+        assertEquals("Mars Reconnaissance Orbiter", merged.getSpacecraftForSignal(marsDown).getFriendlyName());
+        // The first report of ID 21 has no name, so the later SOHO target does not change it
+        assertSame(merged.getSpacecraftById(21), merged.getSpacecraftForSignal(sohoDown));
+        assertNull(merged.getSpacecraftForSignal(signal(-61L, "JNO")));
+    }
+
+    @Test
+    void shouldReturnPreviousMergeOfEqualState() {
+        assertSame(merged, merge(state(), previous(state(), merged)));
+    }
+
+    @Test
+    void shouldReuseUnchangedDishesAndStations() {
+        State state = state();
+        state.getDishes().get(0).setAzimuth(90L);
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertEquals(90L, next.getStations().get(0).getDishes().get(0).getAzimuth());
+        assertSame(merged.getStations().get(0).getDishes().get(1), next.getStations().get(0).getDishes().get(1));
+        assertSame(merged.getStations().get(1), next.getStations().get(1));
+        assertSame(merged.getSpacecraft(), next.getSpacecraft());
+        assertEquals(merge(state, null), next);
+    }
+
+    @ParameterizedTest
+    @MethodSource("dishChanges")
+    void shouldRebuildChangedDish(Consumer<Dish> change) {
+        State state = state();
+        change.accept(state.getDishes().get(0));
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertNotSame(merged.getStations().get(0).getDishes().get(0), next.getStations().get(0).getDishes().get(0));
+        assertSame(merged.getStations().get(0).getDishes().get(1), next.getStations().get(0).getDishes().get(1));
+        assertEquals(merge(state, null), next);
+    }
+
+    static Stream<Consumer<Dish>> dishChanges() {
+        return Stream.of(
+                dish -> dish.setAzimuth(1L),
+                dish -> dish.setElevation(1L),
+                dish -> dish.setWindSpeed(1L),
+                dish -> dish.setMultipleSpacecraftPerAperture(true),
+                dish -> dish.setArray(true),
+                dish -> dish.setDeltaDifferentialOneWayRanging(true),
+                dish -> dish.setActivity("Calibration"),
+                dish -> dish.getUpSignals().clear(),
+                dish -> dish.getDownSignals().set(0, signal(-32L, "VGR2")),
+                dish -> dish.getTargets().remove(2),
+                dish -> dish.getTargets().get(0).setName("VGR"),
+                dish -> dish.getTargets().get(0).setId(31L),
+                dish -> dish.getTargets().get(0).setUpLegRange(1L),
+                dish -> dish.getTargets().get(0).setDownLegRange(1L),
+                dish -> dish.getTargets().get(0).setRoundTripLightTime(Duration.ofSeconds(1)),
+                dish -> dish.setName("DSS14"));
+    }
+
+    @Test
+    void shouldRebuildDishWhichLostItsState() {
+        State state = state();
+        state.getDishes().remove(1);
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertNull(next.getStations().get(0).getDishes().get(1).getUpSignals());
+        assertSame(merged.getStations().get(0).getDishes().get(0), next.getStations().get(0).getDishes().get(0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stationChanges")
+    void shouldRebuildChangedStation(Consumer<List<Station>> change) {
+        State state = state();
+        change.accept(state.getStations());
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertNotSame(merged.getStations().get(0), next.getStations().get(0));
+        assertSame(merged.getStations().get(0).getDishes(), next.getStations().get(0).getDishes());
+        assertEquals(merge(state, null), next);
+    }
+
+    static Stream<Consumer<List<Station>>> stationChanges() {
+        return Stream.of(
+                stations -> stations.get(0).setTime(Instant.ofEpochSecond(1)),
+                stations -> stations.get(0).setTimeZoneOffset(ZoneOffset.ofHours(1)),
+                stations -> stations.remove(0));
+    }
+
+    @Test
+    void shouldReuseStationWithoutState() {
+        State state = state();
+        state.getStations().remove(0);
+        MergedData previous = merge(state, null);
+
+        assertSame(previous.getStations().get(0), merge(state, previous(state, previous)).getStations().get(0));
+    }
+
+    @Test
+    void shouldReuseDishesOfChangedStation() {
+        State state = state();
+        state.getStations().get(0).setTime(Instant.ofEpochSecond(1));
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertEquals(Instant.ofEpochSecond(1), next.getStations().get(0).getTime());
+        assertSame(merged.getStations().get(0).getDishes(), next.getStations().get(0).getDishes());
+        assertSame(merged.getStations().get(1), next.getStations().get(1));
+    }
+
+    @Test
+    void shouldRebuildChangedSpacecraft() {
+        State state = state();
+        state.getDishes().get(0).getTargets().set(0, target(32L, "VGR"));
+        state.getDishes().get(1).getTargets().add(target(61L, "JNO"));
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertEquals("VGR", next.getSpacecraftById(32).getName());
+        assertEquals("JNO", next.getSpacecraftById(61).getName());
+        assertSame(merged.getSpacecraftById(99), next.getSpacecraftById(99));
+        assertEquals(merge(state, null), next);
+    }
+
+    @Test
+    void shouldShareStationsWithNewTimestamp() {
+        State state = state();
+        state.setTimestamp(Instant.ofEpochSecond(1));
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertEquals(Instant.ofEpochSecond(1), next.getTimestamp());
+        assertSame(merged.getStations(), next.getStations());
+    }
+
+    @Test
+    void shouldJoinNewSpacecraftWithoutId() {
+        State state = state();
+        state.getDishes().get(1).getDownSignals().add(signal(null, "JNO"));
+
+        MergedData next = merge(state, previous(state(), merged));
+
+        assertEquals(new MergedSpacecraftData(null, "JNO", null, null, null, null), next.getSpacecraft().get(4));
+        assertSame(merged.getSpacecraft().get(2), next.getSpacecraft().get(2));
+    }
+
+    @Test
+    void shouldNotReuseMergeOfAnotherConfiguration() {
+        Configuration other = configuration(spacecraft("vgr2", "Voyager"));
+
+        MergedData next = StateMerger.merge(other, new ConfigurationIndex(other), state(),
+                previous(state(), merged));
+
+        assertEquals("Voyager", next.getSpacecraftById(32).getFriendlyName());
+        assertEquals(merged.getStations().get(1), next.getStations().get(1));
+        assertNotSame(merged.getStations().get(1), next.getStations().get(1));
+    }
+
+    private MergedData merge(State state, CachedMerge previous) {
+        return StateMerger.merge(configuration, new ConfigurationIndex(configuration), state, previous);
+    }
+
+    private CachedMerge previous(State state, MergedData mergedData) {
+        return new CachedMerge(configuration, state, mergedData);
+    }
+
+    private State state() {
+        State state = state(
+                dish("DSS63", Collections.singletonList(voyagerUp), Arrays.asList(voyagerDown, marsDown, sohoDown),
+                        target(32L, "VGR2"), target(99L, "DSN"), target(null, null)),
+                dish("DSS65", Collections.emptyList(), Arrays.asList(marsDown, sohoDown),
+                        target(99L, "DSS"), target(21L, "SOHO")));
+        state.getStations().add(station("mdscc"));
+        state.getStations().add(station("gdscc"));
+        state.setTimestamp(Instant.EPOCH);
+        return state;
+    }
+
+    private MergedDishData dish(int index) {
+        return merged.getStations().get(0).getDishes().get(index);
+    }
+
+    private static Configuration configuration(Spacecraft... spacecraft) {
+        Configuration configuration = new Configuration();
+        configuration.setSites(Arrays.asList(site("mdscc", "DSS63", "DSS65"), site("gdscc", "DSS14")));
+        configuration.setSpacecraft(Arrays.asList(spacecraft));
+        return configuration;
+    }
+
+    private static Site site(String name, String... dishes) {
+        Site site = new Site();
+        site.setName(name);
+        site.setDishes(Arrays.stream(dishes).map(StateMergerTest::configDish).collect(Collectors.toList()));
+        return site;
+    }
+
+    private static net.adambruce.dsn.now.model.config.Dish configDish(String name) {
+        net.adambruce.dsn.now.model.config.Dish dish = new net.adambruce.dsn.now.model.config.Dish();
+        dish.setName(name);
+        return dish;
+    }
+
+    private static Spacecraft spacecraft(String name, String friendlyName) {
+        Spacecraft spacecraft = new Spacecraft();
+        spacecraft.setName(name);
+        spacecraft.setFriendlyName(friendlyName);
+        return spacecraft;
+    }
+
+    private static State state(Dish... dishes) {
+        State state = new State();
+        state.getDishes().addAll(Arrays.asList(dishes));
+        return state;
+    }
+
+    private static Dish dish(String name, List<Signal> upSignals, List<Signal> downSignals, Target... targets) {
+        Dish dish = new Dish();
+        dish.setName(name);
+        dish.getUpSignals().addAll(upSignals);
+        dish.getDownSignals().addAll(downSignals);
+        dish.getTargets().addAll(Arrays.asList(targets));
+        return dish;
+    }
+
+    private static Station station(String name) {
+        Station station = new Station();
+        station.setName(name);
+        station.setTime(Instant.EPOCH);
+        return station;
+    }
+
+    private static Target target(Long id, String name) {
+        Target target = new Target();
+        target.setId(id);
+        target.setName(name);
+        return target;
+    }
+
+    private static Signal signal(Long spacecraftId, String spacecraft) {
+        Signal signal = new Signal();
+        signal.setSpacecraftId(spacecraftId);
+        signal.setSpacecraft(spacecraft);
+        return signal;
+    }
+}
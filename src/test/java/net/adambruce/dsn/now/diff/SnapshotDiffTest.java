@@ -0,0 +1,236 @@
+package net.adambruce.dsn.now.diff;
+
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedStationData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Target;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotDiffTest {
+
+    @Test
+    void shouldEmitNothingForIdenticalStates() {
+        assertTrue(SnapshotDiff.diff(state(dish("DSS14")), state(dish("DSS14"))).isEmpty());
+        assertTrue(SnapshotDiff.diff((State) null, null).isEmpty());
+    }
+
+    @Test
+    void shouldEmitDishAddedWithItsSignalsAndTargets() {
+        Dish dish = dish("DSS14");
+        dish.setUpSignal(signal(true, 1L, "X", 100L));
+        dish.setDownSignal(signal(false, 1L, "X", 100L));
+        dish.setTarget(target(1L, "VGR1"));
+
+        assertEquals(Arrays.asList(
+                new DishAdded("DSS14"),
+                new SignalStarted("DSS14", SignalDirection.UP, 1L, "X"),
+                new TargetAcquired("DSS14", 1L, "VGR1")
+        ), SnapshotDiff.diff(null, state(dish)));
+    }
+
+    @Test
+    void shouldEmitDishRemovedAfterItsSignalsAndTargets() {
+        Dish dish = dish("DSS14");
+        dish.setDownSignal(signal(true, 1L, "X", 100L));
+        dish.setTarget(target(1L, "VGR1"));
+
+        assertEquals(Arrays.asList(
+                new SignalStopped("DSS14", SignalDirection.DOWN, 1L, "X"),
+                new TargetLost("DSS14", 1L, "VGR1"),
+                new DishRemoved("DSS14")
+        ), SnapshotDiff.diff(state(dish), new State()));
+    }
+
+    @Test
+    void shouldEmitAntennaMoved() {
+        Dish previous = dish("DSS14");
+        previous.setAzimuth(10L);
+        previous.setElevation(20L);
+        Dish azimuthOnly = dish("DSS14");
+        azimuthOnly.setAzimuth(11L);
+        azimuthOnly.setElevation(20L);
+        Dish elevationOnly = dish("DSS14");
+        elevationOnly.setAzimuth(10L);
+        elevationOnly.setElevation(21L);
+
+        assertEquals(Collections.singletonList(new AntennaMoved("DSS14", 10L, 20L, 11L, 20L)),
+                SnapshotDiff.diff(state(previous), state(azimuthOnly)));
+        assertEquals(Collections.singletonList(new AntennaMoved("DSS14", 10L, 20L, 10L, 21L)),
+                SnapshotDiff.diff(state(previous), state(elevationOnly)));
+    }
+
+    @Test
+    void shouldEmitActivityChanged() {
+        Dish previous = dish("DSS14");
+        previous.setActivity("Calibration");
+        Dish current = dish("DSS14");
+        current.setActivity("Spacecraft Telemetry");
+
+        assertEquals(Collections.singletonList(new ActivityChanged("DSS14", "Calibration", "Spacecraft Telemetry")),
+                SnapshotDiff.diff(state(previous), state(current)));
+    }
+
+    @Test
+    void shouldEmitSignalChanges() {
+        Dish previous = dish("DSS14");
+        previous.setDownSignal(signal(false, 1L, "X", 0L));
+        previous.setDownSignal(signal(true, 2L, "X", 100L));
+        previous.setDownSignal(signal(true, 3L, "X", 100L));
+        previous.setDownSignal(signal(true, 3L, "Ka", 100L));
+        previous.setDownSignal(signal(false, 4L, "X", 0L));
+        previous.setDownSignal(signal(true, 5L, "S", 100L));
+        previous.setDownSignal(signal(false, 6L, "S", 100L));
+        Dish current = dish("DSS14");
+        current.setDownSignal(signal(true, 1L, "X", 100L));
+        current.setDownSignal(signal(false, 2L, "X", 100L));
+        current.setDownSignal(signal(true, 3L, "X", 200L));
+        current.setDownSignal(signal(true, 3L, "Ka", 100L));
+        current.setDownSignal(signal(null, 4L, "X", 0L));
+
+        assertEquals(Arrays.asList(
+                new SignalStarted("DSS14", SignalDirection.DOWN, 1L, "X"),
+                new SignalStopped("DSS14", SignalDirection.DOWN, 2L, "X"),
+                new DataRateChanged("DSS14", SignalDirection.DOWN, 3L, "X", 100L, 200L),
+                new SignalStopped("DSS14", SignalDirection.DOWN, 5L, "S")
+        ), SnapshotDiff.diff(state(previous), state(current)));
+    }
+
+    @Test
+    void shouldEmitTargetChanges() {
+        Dish previous = dish("DSS14");
+        previous.setTarget(target(1L, "VGR1"));
+        previous.setTarget(target(2L, "VGR2"));
+        Dish current = dish("DSS14");
+        current.setTarget(target(2L, "VGR2"));
+        current.setTarget(target(3L, "JNO"));
+
+        assertEquals(Arrays.asList(
+                new TargetAcquired("DSS14", 3L, "JNO"),
+                new TargetLost("DSS14", 1L, "VGR1")
+        ), SnapshotDiff.diff(state(previous), state(current)));
+    }
+
+    @Test
+    void shouldMatchDuplicateSignalsAndTargetsByCount() {
+        Dish previous = dish("DSS43");
+        previous.setDownSignal(signal(true, 99L, "X", 100L));
+        previous.setDownSignal(signal(true, 99L, "X", 100L));
+        previous.setTarget(target(99L, "DSN"));
+        previous.setTarget(target(99L, "DSN"));
+        Dish same = dish("DSS43");
+        same.setDownSignal(signal(true, 99L, "X", 100L));
+        same.setDownSignal(signal(true, 99L, "X", 100L));
+        same.setTarget(target(99L, "DSN"));
+        same.setTarget(target(99L, "DSN"));
+        Dish more = dish("DSS43");
+        more.setDownSignal(signal(true, 99L, "X", 100L));
+        more.setDownSignal(signal(true, 99L, "X", 200L));
+        more.setDownSignal(signal(true, 99L, "X", 100L));
+        more.setTarget(target(99L, "DSN"));
+        more.setTarget(target(99L, "DSN"));
+        more.setTarget(target(99L, "DSN"));
+        Dish fewer = dish("DSS43");
+        fewer.setDownSignal(signal(true, 99L, "X", 100L));
+        fewer.setTarget(target(99L, "DSN"));
+
+        // Duplicates are paired in order, so an unchanged dish emits nothing on every poll
+        assertTrue(SnapshotDiff.diff(state(previous), state(same)).isEmpty());
+        assertEquals(Arrays.asList(
+                new DataRateChanged("DSS43", SignalDirection.DOWN, 99L, "X", 100L, 200L),
+                new SignalStarted("DSS43", SignalDirection.DOWN, 99L, "X"),
+                new TargetAcquired("DSS43", 99L, "DSN")
+        ), SnapshotDiff.diff(state(previous), state(more)));
+        assertEquals(Arrays.asList(
+                new SignalStopped("DSS43", SignalDirection.DOWN, 99L, "X"),
+                new TargetLost("DSS43", 99L, "DSN")
+        ), SnapshotDiff.diff(state(previous), state(fewer)));
+    }
+
+    @Test
+    void shouldNotCompareSharedDishes() {
+        MergedDishData shared = mergedDish("DSS14", "Calibration", null,
+                Collections.singletonList(signal(true, 1L, "X", 100L)), Collections.emptyList());
+
+        assertTrue(SnapshotDiff.diff(merged(shared), merged(shared)).isEmpty());
+    }
+
+    @Test
+    void shouldMatchFirstOfDuplicateDishes() {
+        Dish first = dish("DSS14");
+        Dish duplicate = dish("DSS14");
+        duplicate.setActivity("Calibration");
+
+        assertTrue(SnapshotDiff.diff(state(first, duplicate), state(dish("DSS14"))).isEmpty());
+    }
+
+    @Test
+    void shouldDiffMergedData() {
+        MergedDishData previous = mergedDish("DSS14", "Calibration", null, null, Collections.emptyList());
+        MergedDishData current = mergedDish("DSS14", "Spacecraft Telemetry",
+                Collections.singletonList(signal(true, 1L, "X", 100L)),
+                Collections.singletonList(signal(true, 1L, "X", 100L)),
+                Collections.singletonList(new MergedTargetData("VGR1", 1L, null, null, null, null, null, null, null)));
+        MergedDishData added = mergedDish("DSS63", null, null, null, null);
+
+        assertEquals(Arrays.asList(
+                new ActivityChanged("DSS14", "Calibration", "Spacecraft Telemetry"),
+                new SignalStarted("DSS14", SignalDirection.UP, 1L, "X"),
+                new SignalStarted("DSS14", SignalDirection.DOWN, 1L, "X"),
+                new TargetAcquired("DSS14", 1L, "VGR1"),
+                new DishAdded("DSS63")
+        ), SnapshotDiff.diff(merged(previous), merged(current, added)));
+        assertTrue(SnapshotDiff.diff((MergedData) null, null).isEmpty());
+    }
+
+    private static State state(Dish... dishes) {
+        State state = new State();
+        for (Dish dish : dishes) {
+            state.setDish(dish);
+        }
+        return state;
+    }
+
+    private static Dish dish(String name) {
+        Dish dish = new Dish();
+        dish.setName(name);
+        return dish;
+    }
+
+    private static Signal signal(Boolean active, Long spacecraftId, String band, Long dataRate) {
+        Signal signal = new Signal();
+        signal.setActive(active);
+        signal.setSpacecraftId(spacecraftId);
+        signal.setBand(band);
+        signal.setDataRate(dataRate);
+        return signal;
+    }
+
+    private static Target target(Long id, String name) {
+        Target target = new Target();
+        target.setId(id);
+        target.setName(name);
+        return target;
+    }
+
+    private static MergedDishData mergedDish(String name, String activity, List<Signal> upSignals,
+                                             List<Signal> downSignals, List<MergedTargetData> targets) {
+        return new MergedDishData(name, null, null, null, null, null, null, null, null, activity, upSignals,
+                downSignals, targets);
+    }
+
+    private static MergedData merged(MergedDishData... dishes) {
+        MergedStationData station = new MergedStationData("gdscc", null, null, null, null, null, Arrays.asList(dishes));
+        return new MergedData(Collections.singletonList(station), null);
+    }
+}
@@ -0,0 +1,36 @@
+package net.adambruce.dsn.now.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongSeriesTest {
+
+    @Test
+    void shouldGrowAsValuesAreAdded() {
+        LongSeries series = new LongSeries();
+        long[] expected = new long[100];
+        for (int i = 0; i < 100; i++) {
+            series.add(i * 1000L, i * 2L);
+            expected[i] = i * 2L;
+        }
+
+        assertEquals(100, series.size());
+        assertEquals(Instant.ofEpochSecond(99), series.getTimestamp(99));
+        assertEquals(198, series.getValue(99));
+        assertArrayEquals(expected, series.toValueArray());
+    }
+
+    @Test
+    void shouldRejectIndexOutsideSeries() {
+        LongSeries series = new LongSeries();
+        series.add(0, 1);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> series.getValue(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> series.getTimestampMillis(-1));
+    }
+}
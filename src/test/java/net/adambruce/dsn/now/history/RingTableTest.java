@@ -0,0 +1,105 @@
+package net.adambruce.dsn.now.history;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RingTableTest {
+
+    private final RingTable table = new RingTable(2, 1);
+
+    @Test
+    void shouldGrowWhenFull() {
+        for (int i = 0; i < 300; i++) {
+            append(i);
+        }
+
+        assertEquals(300, table.size());
+        assertEquals(512, table.capacity());
+        assertRows(0, 300);
+    }
+
+    @Test
+    void shouldReuseEvictedSlots() {
+        for (int i = 0; i < 256; i++) {
+            append(i);
+        }
+        table.evictBefore(200);
+        for (int i = 256; i < 456; i++) {
+            append(i);
+        }
+
+        assertEquals(256, table.size());
+        assertEquals(256, table.capacity());
+        assertRows(200, 456);
+    }
+
+    @Test
+    void shouldKeepOrderWhenGrowingAfterWrapping() {
+        for (int i = 0; i < 256; i++) {
+            append(i);
+        }
+        table.evictBefore(100);
+        for (int i = 256; i < 456; i++) {
+            append(i);
+        }
+
+        assertEquals(356, table.size());
+        assertEquals(512, table.capacity());
+        assertRows(100, 456);
+    }
+
+    @Test
+    void shouldFindFirstRowAtOrAfterTimestamp() {
+        append(10);
+        append(20);
+        append(20);
+        append(30);
+
+        assertEquals(0, table.firstIndexAtOrAfter(5));
+        assertEquals(1, table.firstIndexAtOrAfter(20));
+        assertEquals(3, table.firstIndexAtOrAfter(21));
+        assertEquals(4, table.firstIndexAtOrAfter(31));
+    }
+
+    @Test
+    void shouldKeepOrderWhenResizingAfterWrapping() {
+        for (int i = 0; i < 256; i++) {
+            append(i);
+        }
+        table.evictBefore(200);
+        for (int i = 256; i < 300; i++) {
+            append(i);
+        }
+        table.resize(100);
+
+        assertEquals(100, table.size());
+        assertEquals(100, table.capacity());
+        assertRows(200, 300);
+        assertEquals(256, table.nextCapacity());
+    }
+
+    @Test
+    void shouldEstimateBytesOfCapacity() {
+        append(1);
+        append(2);
+
+        assertEquals(2 * Long.BYTES + Integer.BYTES, table.rowBytes());
+        assertEquals(256 * (2 * Long.BYTES + Integer.BYTES), table.bytes());
+    }
+
+    private void append(int timestamp) {
+        int slot = table.append(timestamp);
+        table.setLong(slot, 1, timestamp * 10L);
+        table.setInt(slot, 0, -timestamp);
+    }
+
+    private void assertRows(int from, int to) {
+        for (int i = 0; i < to - from; i++) {
+            int slot = table.slot(i);
+            assertEquals(from + i, table.getTimestamp(slot));
+            assertEquals((from + i) * 10L, table.getLong(slot, 1));
+            assertEquals(-(from + i), table.getInt(slot, 0));
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package net.adambruce.dsn.now.history;
+
+import net.adambruce.dsn.now.diff.SignalDirection;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedStationData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Signal;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotHistoryTest {
+
+    private static final Instant T0 = Instant.parse("2026-02-07T20:00:00Z");
+    private static final long DISH_BYTES = DishSample.LONG_COLUMNS * Long.BYTES
+            + DishSample.INT_COLUMNS * Integer.BYTES;
+
+    private final SnapshotHistory history = SnapshotHistory.builder().build();
+
+    @Test
+    void shouldQueryDishFieldBetweenTimes() {
+        for (int i = 0; i < 10; i++) {
+            history.record(merged(T0.plusSeconds(i * 5L),
+                    dish("DSS43", (long) i, 10L + i, Collections.emptyList(), Collections.emptyList(), null),
+                    dish("DSS14", 0L, 0L, null, null, null)));
+        }
+
+        LongSeries elevation = history.getDishSeries("DSS43", DishField.ELEVATION, T0.plusSeconds(10),
+                T0.plusSeconds(20));
+
+        assertArrayEquals(new long[]{12, 13, 14}, elevation.toValueArray());
+        assertEquals(T0.plusSeconds(10), elevation.getTimestamp(0));
+        assertEquals(T0.plusSeconds(20), elevation.getTimestamp(2));
+    }
+
+    @Test
+    void shouldLeaveMissingValuesOutOfSeries() {
+        history.record(merged(T0, dish("DSS43", null, null, null, null, null)));
+        history.record(merged(T0.plusSeconds(5), dish("DSS43", 1L, null, null, null, null)));
+
+        assertArrayEquals(new long[]{1}, history.getDishSeries("DSS43", DishField.AZIMUTH, T0, T0.plusSeconds(5))
+                .toValueArray());
+        assertEquals(0, history.getDishSeries("DSS43", DishField.WIND_SPEED, T0, T0.plusSeconds(5)).size());
+        assertEquals(0, history.getDishSeries("DSS99", DishField.AZIMUTH, T0, T0.plusSeconds(5)).size());
+    }
+
+    @Test
+    void shouldPassDishSamplesToConsumer() {
+        history.record(merged(T0, dish("DSS14", 0L, 0L, null, null, null),
+                dish("DSS43", 96L, 23L, null, null, null)));
+
+        List<String> samples = new ArrayList<>();
+        history.forEachDishSample("DSS43", T0, T0, sample -> samples.add(sample.getTimestamp() + " "
+                + sample.getName() + " " + sample.getActivity() + " " + sample.getAzimuth() + " "
+                + sample.getElevation() + " " + sample.getWindSpeed()));
+
+        assertEquals(Collections.singletonList(T0 + " DSS43 Tracking 96 23 " + SnapshotHistory.MISSING), samples);
+    }
+
+    @Test
+    void shouldQuerySignalsBySpacecraftId() {
+        Signal up = signal(true, -61L, "X", 0L, 18.0);
+        Signal down = signal(null, -61L, null, 200000L, null);
+        Signal other = signal(true, -74L, "S", 1L, 1.0);
+        history.record(merged(T0, dish("DSS63", null, null, Arrays.asList(up, other),
+                Collections.singletonList(down), null)));
+
+        List<SignalSample> copies = new ArrayList<>();
+        List<String> samples = new ArrayList<>();
+        history.forEachSignalSample(61, T0, T0, sample -> {
+            copies.add(sample);
+            samples.add(sample.getTimestampMillis() + " " + sample.getTimestamp() + " " + sample.getDish() + " "
+                    + sample.getSpacecraftId() + " " + sample.getDirection() + " " + sample.isActive() + " "
+                    + sample.getBand() + " " + sample.getDataRate() + " " + sample.getFrequency() + " "
+                    + sample.getPower());
+        });
+
+        assertEquals(Arrays.asList(
+                T0.toEpochMilli() + " " + T0 + " DSS63 -61 UP true X 0 " + SnapshotHistory.MISSING + " 18.0",
+                T0.toEpochMilli() + " " + T0 + " DSS63 -61 DOWN false null 200000 " + SnapshotHistory.MISSING
+                        + " NaN"
+        ), samples);
+        // The same view is reused for each sample
+        assertTrue(copies.get(0) == copies.get(1));
+        assertEquals(SignalDirection.DOWN, copies.get(0).getDirection());
+    }
+
+    @Test
+    void shouldQueryTargetsBySpacecraftId() {
+        MergedTargetData juno = new MergedTargetData("JNO", 61L, 651000000L, 651000001L, Duration.ofMinutes(72),
+                null, null, null, null);
+        MergedTargetData unknown = new MergedTargetData(null, null, null, null, null, null, null, null, null);
+        history.record(merged(T0, dish("DSS63", null, null, null, null, Arrays.asList(juno, unknown))));
+        history.record(merged(T0.plusSeconds(5), dish("DSS63", null, null, null, null,
+                Collections.singletonList(juno))));
+
+        List<String> samples = new ArrayList<>();
+        history.forEachTargetSample(-61, T0, T0, sample -> samples.add(sample.getTimestampMillis() + " "
+                + sample.getTimestamp() + " " + sample.getDish() + " " + sample.getId() + " " + sample.getName()
+                + " " + sample.getUpLegRange() + " " + sample.getDownLegRange() + " "
+                + sample.getRoundTripLightTimeMillis()));
+
+        assertEquals(Collections.singletonList(T0.toEpochMilli() + " " + T0 + " DSS63 61 JNO 651000000 651000001 "
+                + Duration.ofMinutes(72).toMillis()), samples);
+        assertArrayEquals(new long[]{651000000, 651000000},
+                history.getTargetSeries(61, TargetField.UP_LEG_RANGE, T0, T0.plusSeconds(5)).toValueArray());
+        assertArrayEquals(new long[]{651000001},
+                history.getTargetSeries(61, TargetField.DOWN_LEG_RANGE, T0, T0).toValueArray());
+        assertEquals(0, history.getTargetSeries(SnapshotHistory.MISSING, TargetField.ROUND_TRIP_LIGHT_TIME, T0,
+                T0.plusSeconds(5)).size());
+    }
+
+    @Test
+    void shouldEvictSnapshotsOlderThanMaxAge() {
+        SnapshotHistory bounded = SnapshotHistory.builder().maxAge(Duration.ofMinutes(1)).build();
+        assertNull(bounded.getOldest());
+
+        for (int i = 0; i <= 120; i++) {
+            bounded.record(merged(T0.plusSeconds(i), dish("DSS43", (long) i, null, null, null, null)));
+        }
+
+        assertEquals(T0.plusSeconds(60), bounded.getOldest());
+        assertEquals(61, bounded.getDishSeries("DSS43", DishField.AZIMUTH, T0, T0.plusSeconds(120)).size());
+    }
+
+    @Test
+    void shouldEvictOldestSnapshotsWhenOverMemoryBudget() {
+        long budget = 10 * DISH_BYTES + stringBytes("DSS43", "Tracking");
+        SnapshotHistory bounded = SnapshotHistory.builder().maxBytes(budget).build();
+
+        for (int i = 0; i < 20; i++) {
+            bounded.record(merged(T0.plusSeconds(i), dish("DSS43", (long) i, null, null, null, null)));
+        }
+
+        assertEquals(budget, bounded.getEstimatedBytes());
+        assertEquals(T0.plusSeconds(10), bounded.getOldest());
+    }
+
+    @Test
+    void shouldEvictOldestSnapshotsToMakeRoomForNewStrings() {
+        long budget = 10 * DISH_BYTES + stringBytes("DSS43", "Tracking");
+        SnapshotHistory bounded = SnapshotHistory.builder().maxBytes(budget).build();
+
+        for (int i = 0; i < 10; i++) {
+            bounded.record(merged(T0.plusSeconds(i), dish("DSS43", (long) i, null, null, null, null)));
+        }
+        bounded.record(merged(T0.plusSeconds(10), dish("DSS14", 10L, null, null, null, null)));
+
+        assertTrue(bounded.getEstimatedBytes() <= budget);
+        assertEquals(T0.plusSeconds(4), bounded.getOldest());
+        assertEquals(1, bounded.getDishSeries("DSS14", DishField.AZIMUTH, T0, T0.plusSeconds(10)).size());
+    }
+
+    @Test
+    void shouldRemoveStringsOnceTheirSnapshotsAreEvicted() {
+        SnapshotHistory bounded = SnapshotHistory.builder().maxAge(Duration.ofMinutes(1)).build();
+
+        long[] bytes = new long[2];
+        for (int i = 0; i < 200; i++) {
+            Signal signal = signal(true, -(long) i, String.format("B%03d", i), null, null);
+            MergedTargetData target = new MergedTargetData(String.format("T%03d", i), (long) i, null, null, null,
+                    null, null, null, null);
+            bounded.record(merged(T0.plusSeconds(i), dish(String.format("DSS%03d", i), null, null,
+                    Collections.singletonList(signal), null, Collections.singletonList(target))));
+            if (i == 99 || i == 199) {
+                bytes[i / 100] = bounded.getEstimatedBytes();
+            }
+        }
+
+        assertEquals(bytes[0], bytes[1]);
+        List<DishSample> samples = new ArrayList<>();
+        bounded.forEachDishSample("DSS100", T0, T0.plusSeconds(200), samples::add);
+        assertTrue(samples.isEmpty());
+    }
+
+    @Test
+    void shouldNotMatchUnknownDishWithUnnamedDishes() {
+        history.record(merged(T0, dish(null, 1L, 2L, null, null, null)));
+
+        List<DishSample> samples = new ArrayList<>();
+        history.forEachDishSample("DSS99", T0, T0, samples::add);
+
+        assertTrue(samples.isEmpty());
+        assertEquals(0, history.getDishSeries("DSS99", DishField.AZIMUTH, T0, T0).size());
+    }
+
+    @Test
+    void shouldKeepNewestSnapshotWhenItExceedsMemoryBudget() {
+        SnapshotHistory bounded = SnapshotHistory.builder().maxBytes(1).build();
+
+        bounded.record(merged(T0, dish("DSS43", 1L, null, null, null, null)));
+        bounded.record(merged(T0.plusSeconds(5), dish("DSS43", 2L, null, null, null, null)));
+
+        assertEquals(T0.plusSeconds(5), bounded.getOldest());
+        assertFalse(bounded.getEstimatedBytes() <= 1);
+    }
+
+    @Test
+    void shouldRejectSnapshotsOutOfOrder() {
+        history.record(merged(T0.plusSeconds(5)));
+        history.record(merged(T0.plusSeconds(5)));
+
+        assertThrows(IllegalArgumentException.class, () -> history.record(merged(T0)));
+    }
+
+    @Test
+    void shouldRejectSnapshotsWithoutTimestamp() {
+        assertThrows(IllegalArgumentException.class, () -> history.record(merged(null)));
+        assertNull(history.getOldest());
+    }
+
+    private static long stringBytes(String... strings) {
+        StringDictionary dictionary = new StringDictionary();
+        for (String string : strings) {
+            dictionary.encode(string);
+        }
+        return dictionary.bytes();
+    }
+
+    private static MergedDishData dish(String name, Long azimuth, Long elevation, List<Signal> upSignals,
+                                       List<Signal> downSignals, List<MergedTargetData> targets) {
+        return new MergedDishData(name, null, null, azimuth, elevation, null, null, null, null, "Tracking",
+                upSignals, downSignals, targets);
+    }
+
+    private static Signal signal(Boolean active, Long spacecraftId, String band, Long dataRate, Double power) {
+        Signal signal = new Signal();
+        signal.setActive(active);
+        signal.setSpacecraftId(spacecraftId);
+        signal.setBand(band);
+        signal.setDataRate(dataRate);
+        signal.setPower(power);
+        return signal;
+    }
+
+    private static MergedData merged(Instant timestamp, MergedDishData... dishes) {
+        MergedStationData station = new MergedStationData("gdscc", null, null, null, null, null, Arrays.asList(dishes));
+        return new MergedData(Collections.singletonList(station), timestamp);
+    }
+}
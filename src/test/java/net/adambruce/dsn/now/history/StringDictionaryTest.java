@@ -0,0 +1,55 @@
+package net.adambruce.dsn.now.history;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StringDictionaryTest {
+
+    private final StringDictionary dictionary = new StringDictionary();
+
+    @Test
+    void shouldEncodeEachStringOnce() {
+        int code = dictionary.encode("DSS43");
+
+        assertEquals(code, dictionary.encode("DSS43"));
+        assertEquals(code, dictionary.find("DSS43"));
+        assertEquals("DSS43", dictionary.decode(code));
+        assertEquals(StringDictionary.NULL, dictionary.encode(null));
+        assertEquals(StringDictionary.NULL, dictionary.find("DSS14"));
+        assertNull(dictionary.decode(StringDictionary.NULL));
+    }
+
+    @Test
+    void shouldRemoveStringOnceNoLongerReferenced() {
+        int code = dictionary.retain(dictionary.encode("DSS43"));
+        long bytes = dictionary.bytes();
+
+        dictionary.release(code);
+        assertEquals(code, dictionary.find("DSS43"));
+        dictionary.release(code);
+        assertEquals(StringDictionary.NULL, dictionary.find("DSS43"));
+        assertEquals(0, dictionary.bytes());
+
+        assertEquals(code, dictionary.encode("DSS14"));
+        assertEquals(bytes, dictionary.bytes());
+        assertEquals("DSS14", dictionary.decode(code));
+    }
+
+    @Test
+    void shouldIgnoreReferencesToNull() {
+        dictionary.release(dictionary.retain(StringDictionary.NULL));
+
+        assertEquals(0, dictionary.bytes());
+    }
+
+    @Test
+    void shouldGrowReferenceCounts() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, dictionary.encode("DSS" + i));
+        }
+
+        assertEquals("DSS99", dictionary.decode(99));
+    }
+}
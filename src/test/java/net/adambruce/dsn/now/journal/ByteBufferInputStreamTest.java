@@ -0,0 +1,27 @@
+package net.adambruce.dsn.now.journal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ByteBufferInputStreamTest {
+
+    @Test
+    void shouldReadBytesUntilEndOfBuffer() {
+        ByteBufferInputStream stream = new ByteBufferInputStream(ByteBuffer.wrap(new byte[]{1, (byte) 0xFF, 3}));
+        byte[] bytes = new byte[4];
+
+        assertEquals(3, stream.available());
+        assertEquals(1, stream.read());
+        assertEquals(0xFF, stream.read());
+        assertEquals(0, stream.read(bytes, 0, 0));
+        assertEquals(1, stream.read(bytes, 1, 3));
+        assertArrayEquals(new byte[]{0, 3, 0, 0}, bytes);
+        assertEquals(0, stream.available());
+        assertEquals(-1, stream.read());
+        assertEquals(-1, stream.read(bytes, 0, 4));
+    }
+}
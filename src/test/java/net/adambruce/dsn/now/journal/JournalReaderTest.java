@@ -0,0 +1,220 @@
+package net.adambruce.dsn.now.journal;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static net.adambruce.dsn.now.journal.SnapshotJournalTest.T0;
+import static net.adambruce.dsn.now.journal.SnapshotJournalTest.azimuths;
+import static net.adambruce.dsn.now.journal.SnapshotJournalTest.replay;
+import static net.adambruce.dsn.now.journal.SnapshotJournalTest.state;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalReaderTest {
+
+    private static final Instant END = T0.plusSeconds(3600);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayBinaryAndXmlEntries() throws IOException {
+        byte[] xml = getBytes("dsn/dsn.xml");
+        State parsed = new StaxStateParser().parse(new ByteArrayInputStream(xml));
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            journal.append(state(0));
+            journal.appendXml(T0.plusSeconds(1), xml);
+        }
+
+        List<State> states = new ArrayList<>();
+        try (JournalReader reader = JournalReader.open(directory)) {
+            reader.replay(Instant.EPOCH, END, states::add);
+        }
+
+        assertEquals(2, states.size());
+        assertEquals(state(0), states.get(0));
+        assertEquals(parsed, states.get(1));
+    }
+
+    @Test
+    void shouldSeekToRangeWithinAndAcrossSegments() throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).maxSegmentSize(200).indexInterval(1).build()) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(state(i));
+            }
+        }
+
+        try (JournalReader reader = JournalReader.open(directory)) {
+            assertEquals(azimuths(5, 13), replay(reader, T0.plusSeconds(5), T0.plusSeconds(12)));
+            assertEquals(azimuths(0, 1), replay(reader, Instant.EPOCH, T0));
+            assertEquals(azimuths(19, 20), replay(reader, T0.plusSeconds(19), END));
+            assertEquals(Collections.emptyList(), replay(reader, END, END));
+        }
+    }
+
+    @Test
+    void shouldIterateOverRange() throws IOException {
+        appendStates(3);
+
+        try (JournalReader reader = JournalReader.open(directory)) {
+            Iterator<State> states = reader.iterator(T0.plusSeconds(1), END);
+            assertTrue(states.hasNext());
+            assertTrue(states.hasNext());
+            assertEquals(state(1), states.next());
+            assertEquals(state(2), states.next());
+            assertFalse(states.hasNext());
+            assertThrows(NoSuchElementException.class, states::next);
+        }
+    }
+
+    @Test
+    void shouldStopAtTornTail() throws IOException {
+        appendStates(3);
+        Path segment = Segment.segmentPath(directory, 0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        assertEquals(azimuths(0, 2), replayAll());
+    }
+
+    @Test
+    void shouldStopAtCorruptEntry() throws IOException {
+        appendStates(3);
+        int second = secondEntryOffset();
+        corrupt(second + Segment.ENTRY_HEADER_SIZE, 0x7F);
+
+        assertEquals(azimuths(0, 1), replayAll());
+    }
+
+    @Test
+    void shouldStopAtNegativeLength() throws IOException {
+        appendStates(3);
+        corrupt(Segment.HEADER_SIZE, 0xFF);
+
+        assertEquals(Collections.emptyList(), replayAll());
+    }
+
+    @Test
+    void shouldReplayWithoutIndex() throws IOException {
+        appendStates(3);
+        Files.delete(Segment.indexPath(directory, 0));
+
+        assertEquals(azimuths(1, 3), replayFrom(T0.plusSeconds(1)));
+    }
+
+    @Test
+    void shouldFailOnUnknownFormat() throws IOException {
+        appendStates(1);
+        corrupt(Segment.HEADER_SIZE + Integer.BYTES + Long.BYTES, 9);
+
+        try (JournalReader reader = JournalReader.open(directory)) {
+            IOException ex = assertThrows(IOException.class, () -> reader.replay(Instant.EPOCH, END, state -> { }));
+            assertEquals("journal entry has unknown format 9", ex.getMessage());
+        }
+    }
+
+    @Test
+    void shouldFailOnFileWhichIsNotSegment() throws IOException {
+        Files.write(Segment.segmentPath(directory, 0), "<dsn></dsn>".getBytes());
+
+        IOException ex = assertThrows(IOException.class, () -> JournalReader.open(directory));
+        assertTrue(ex.getMessage().endsWith("is not a journal segment"));
+    }
+
+    @Test
+    void shouldFailOnSegmentWithWrongVersion() throws IOException {
+        appendStates(1);
+        corrupt(Integer.BYTES, 2);
+
+        assertThrows(IOException.class, () -> JournalReader.open(directory));
+    }
+
+    @Test
+    void shouldReplayMergedData() throws IOException {
+        byte[] xml = getBytes("dsn/dsn.xml");
+        Configuration configuration = DsnXmlMapper.create().readValue(getBytes("config/config.xml"), Configuration.class);
+        State state = new StaxStateParser().parse(new ByteArrayInputStream(xml));
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            journal.append(state);
+        }
+
+        List<MergedData> merged = new ArrayList<>();
+        try (JournalReader reader = JournalReader.open(directory)) {
+            reader.replayMergedData(Instant.EPOCH, state.getTimestamp(), configuration, merged::add);
+        }
+
+        assertEquals(1, merged.size());
+        assertEquals(state.getTimestamp(), merged.get(0).getTimestamp());
+        assertEquals(configuration.getSites().size(), merged.get(0).getStations().size());
+    }
+
+    @Test
+    void shouldReplayNothingOnceClosed() throws IOException {
+        appendStates(3);
+
+        JournalReader reader = JournalReader.open(directory);
+        reader.close();
+
+        assertEquals(Collections.emptyList(), replay(reader, Instant.EPOCH, END));
+    }
+
+    private void appendStates(int count) throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            for (int i = 0; i < count; i++) {
+                journal.append(state(i));
+            }
+        }
+    }
+
+    private int secondEntryOffset() throws IOException {
+        Segment.Entry entry = new Segment.Entry();
+        Segment segment = Segment.open(directory, 0);
+        assertTrue(segment.read(segment.firstOffset(), entry));
+        return entry.next;
+    }
+
+    private void corrupt(int offset, int value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(Segment.segmentPath(directory, 0).toFile(), "rw")) {
+            file.seek(offset);
+            file.write(value);
+        }
+    }
+
+    private List<Long> replayAll() throws IOException {
+        return replayFrom(Instant.EPOCH);
+    }
+
+    private List<Long> replayFrom(Instant from) throws IOException {
+        try (JournalReader reader = JournalReader.open(directory)) {
+            return replay(reader, from, END);
+        }
+    }
+
+    private static byte[] getBytes(String resource) throws IOException {
+        try (InputStream stream = JournalReaderTest.class.getClassLoader().getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(stream);
+        }
+    }
+}
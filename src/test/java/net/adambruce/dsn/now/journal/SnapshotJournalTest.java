@@ -0,0 +1,195 @@
+package net.adambruce.dsn.now.journal;
+
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.State;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotJournalTest {
+
+    static final Instant T0 = Instant.parse("2026-02-07T20:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRotateSegmentsAtMaxSize() throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).maxSegmentSize(60).build()) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(state(i));
+            }
+        }
+
+        assertEquals(10, countFiles(".journal"));
+        assertEquals(10, countFiles(".index"));
+        assertEquals(azimuths(0, 10), replayAll());
+    }
+
+    @Test
+    void shouldWriteSnapshotLargerThanMaxSizeToItsOwnSegment() throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).maxSegmentSize(1).build()) {
+            journal.append(state(0));
+        }
+
+        assertEquals(1, countFiles(".journal"));
+        assertEquals(azimuths(0, 1), replayAll());
+    }
+
+    @Test
+    void shouldSyncEveryFewSnapshotsOrAfterInterval() throws IOException {
+        AtomicLong now = new AtomicLong();
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory)
+                .syncEvery(2)
+                .syncInterval(Duration.ofSeconds(1))
+                .nanoTime(now::get)
+                .build()) {
+            journal.append(state(0));
+            journal.append(state(1));
+            now.addAndGet(Duration.ofSeconds(1).toNanos());
+            journal.append(state(2));
+            journal.sync();
+        }
+
+        assertEquals(azimuths(0, 3), replayAll());
+    }
+
+    @Test
+    void shouldContinueInNewSegmentWhenReopened() throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            journal.append(state(0));
+            journal.append(state(1));
+        }
+        Files.write(directory.resolve("notes.txt"), new byte[0]);
+        Files.write(directory.resolve("latest.journal"), new byte[0]);
+
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append(state(0)));
+            journal.append(state(1));
+            journal.append(state(2));
+        }
+
+        assertEquals(3, countFiles(".journal"));
+        List<Long> expected = azimuths(0, 3);
+        expected.add(2, 1L);
+        assertEquals(expected, replayAll());
+    }
+
+    @Test
+    void shouldReplaceEmptyLastSegmentWhenReopened() throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            journal.append(state(1));
+        }
+        SnapshotJournal.builder(directory).build().close();
+
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append(state(0)));
+            journal.append(state(2));
+        }
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append(state(1)));
+        }
+
+        assertEquals(3, countFiles(".journal"));
+        assertEquals(3, countFiles(".index"));
+        assertEquals(azimuths(1, 3), replayAll());
+    }
+
+    @Test
+    void shouldRecoverNewestSnapshotPastMissingSegments() throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).maxSegmentSize(60).build()) {
+            journal.append(state(1));
+            journal.append(state(2));
+        }
+        // Segment 1 is left empty, as by a crash, and the segment after it is missing
+        Files.write(Segment.segmentPath(directory, 1), new byte[0]);
+        Files.write(Segment.segmentPath(directory, 3), new byte[0]);
+
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append(state(0)));
+            journal.append(state(3));
+        }
+
+        assertEquals(Arrays.asList(1L, 3L), replayAll());
+    }
+
+    @Test
+    void shouldReopenAfterCrashBeforeSegmentHeader() throws IOException {
+        Files.createDirectories(directory);
+        Files.write(Segment.segmentPath(directory, 0), new byte[0]);
+
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            journal.append(state(0));
+        }
+
+        assertEquals(azimuths(0, 1), replayAll());
+    }
+
+    @Test
+    void shouldRejectSnapshotsWithoutTimestampOrOutOfOrder() throws IOException {
+        try (SnapshotJournal journal = SnapshotJournal.builder(directory).build()) {
+            journal.append(state(1));
+            journal.appendXml(T0.plusSeconds(1), new byte[0]);
+
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new State()));
+            assertThrows(IllegalArgumentException.class, () -> journal.append(state(0)));
+            assertThrows(IllegalArgumentException.class, () -> journal.appendXml(T0, new byte[0]));
+        }
+    }
+
+    @Test
+    void shouldRejectAppendsOnceClosed() throws IOException {
+        SnapshotJournal journal = SnapshotJournal.builder(directory.resolve("nested")).build();
+        journal.close();
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> journal.append(state(0)));
+        assertThrows(IllegalStateException.class, journal::sync);
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).count();
+        }
+    }
+
+    private List<Long> replayAll() throws IOException {
+        try (JournalReader reader = JournalReader.open(directory)) {
+            return replay(reader, Instant.EPOCH, T0.plusSeconds(3600));
+        }
+    }
+
+    static List<Long> replay(JournalReader reader, Instant from, Instant to) throws IOException {
+        List<Long> azimuths = new ArrayList<>();
+        reader.replay(from, to, state -> azimuths.add(state.getDishes().get(0).getAzimuth()));
+        return azimuths;
+    }
+
+    static List<Long> azimuths(int from, int to) {
+        return Stream.iterate((long) from, i -> i + 1).limit(to - from).collect(Collectors.toList());
+    }
+
+    static State state(int second) {
+        Dish dish = new Dish();
+        dish.setName("DSS43");
+        dish.setAzimuth((long) second);
+        State state = new State();
+        state.setDish(dish);
+        state.setTimestamp(T0.plusSeconds(second));
+        return state;
+    }
+}
@@ -0,0 +1,78 @@
+package net.adambruce.dsn.now.journal;
+
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateCodecTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"dsn/dsn.xml", "dsn/dsnWithMultipleTargets.xml", "dsn/dsnWithoutTimeOrTimeZone.xml",
+            "dsn/dsnWithoutTimestamp.xml", "dsn/dsnWithoutDishes.xml"})
+    void shouldRoundTripParsedStates(String resource) throws IOException {
+        State state;
+        try (InputStream xml = StateCodecTest.class.getClassLoader().getResourceAsStream(resource)) {
+            state = new StaxStateParser().parse(xml);
+        }
+
+        assertEquals(state, roundTrip(state));
+    }
+
+    @Test
+    void shouldRoundTripNullsAndExtremes() throws IOException {
+        Station station = new Station();
+        Dish dish = new Dish();
+        dish.setAzimuth(Long.MIN_VALUE);
+        dish.setElevation(Long.MAX_VALUE);
+        dish.setArray(true);
+        dish.setMultipleSpacecraftPerAperture(false);
+        dish.setActivity("Télémétrie");
+        dish.setUpSignal(new Signal());
+        dish.setTarget(new Target());
+        State state = new State();
+        state.setStation(station);
+        state.setDish(dish);
+
+        assertEquals(state, roundTrip(state));
+    }
+
+    @Test
+    void shouldEncodeMoreCompactlyThanXml() throws IOException {
+        byte[] xml;
+        try (InputStream stream = StateCodecTest.class.getClassLoader().getResourceAsStream("dsn/dsn.xml")) {
+            xml = IOUtils.toByteArray(stream);
+        }
+
+        assertTrue(encode(new StaxStateParser().parse(new ByteArrayInputStream(xml))).length < xml.length / 2);
+    }
+
+    private static State roundTrip(State state) throws IOException {
+        ByteBuffer encoded = ByteBuffer.wrap(encode(state));
+        State decoded = StateCodec.decode(encoded);
+        assertEquals(0, encoded.remaining());
+        return decoded;
+    }
+
+    private static byte[] encode(State state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StateCodec.encode(state, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,19 @@
+package net.adambruce.dsn.now.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+class ClientMetricsTest {
+
+    @Test
+    void shouldDiscardMeasurementsWhenNoop() {
+        ClientMetrics.NOOP.recordRequest(Endpoint.STATE, 1, 200, 1);
+        ClientMetrics.NOOP.recordParse(Endpoint.STATE, 1);
+        ClientMetrics.NOOP.recordMerge(1);
+        ClientMetrics.NOOP.recordConfigurationCacheHit();
+        ClientMetrics.NOOP.recordConfigurationCacheMiss();
+        ClientMetrics.NOOP.recordConfigurationRefresh();
+        ClientMetrics.NOOP.recordFailure(Endpoint.STATE, new IOException());
+    }
+}
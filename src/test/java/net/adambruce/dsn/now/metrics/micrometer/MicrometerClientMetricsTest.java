@@ -0,0 +1,74 @@
+package net.adambruce.dsn.now.metrics.micrometer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.adambruce.dsn.now.metrics.Endpoint;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MicrometerClientMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final MicrometerClientMetrics metrics = new MicrometerClientMetrics(registry);
+
+    @Test
+    void shouldRecordRequests() {
+        metrics.recordRequest(Endpoint.STATE, 1_000_000, 200, 100);
+        metrics.recordRequest(Endpoint.STATE, 3_000_000, 200, 300);
+        metrics.recordRequest(Endpoint.STATE, 1_000_000, 304, 0);
+        metrics.recordRequest(Endpoint.CONFIGURATION, 1_000_000, 999, 10);
+        metrics.recordRequest(Endpoint.CONFIGURATION, 1_000_000, -1, 10);
+
+        assertEquals(3, registry.get("dsn.client.requests").tag("endpoint", "state").timer().count());
+        assertEquals(5, registry.get("dsn.client.requests").tag("endpoint", "state").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(400, registry.get("dsn.client.response.size").tag("endpoint", "state").summary().totalAmount());
+        assertEquals(2, registry.get("dsn.client.responses").tags("endpoint", "state", "status", "200").counter()
+                .count());
+        assertEquals(1, registry.get("dsn.client.responses").tags("endpoint", "state", "status", "304").counter()
+                .count());
+        assertEquals(1, registry.get("dsn.client.responses").tags("endpoint", "configuration", "status", "999")
+                .counter().count());
+        assertEquals(1, registry.get("dsn.client.responses").tags("endpoint", "configuration", "status", "-1")
+                .counter().count());
+    }
+
+    @Test
+    void shouldRecordParseAndMerge() {
+        metrics.recordParse(Endpoint.CONFIGURATION, 2_000_000);
+        metrics.recordMerge(1_000_000);
+
+        assertEquals(2, registry.get("dsn.client.parse").tag("endpoint", "configuration").timer()
+                .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, registry.get("dsn.client.parse").tag("endpoint", "state").timer().count());
+        assertEquals(1, registry.get("dsn.client.merge").timer().count());
+    }
+
+    @Test
+    void shouldRecordConfigurationCache() {
+        metrics.recordConfigurationCacheHit();
+        metrics.recordConfigurationCacheHit();
+        metrics.recordConfigurationCacheMiss();
+        metrics.recordConfigurationRefresh();
+
+        assertEquals(2, registry.get("dsn.client.configuration.cache").tag("result", "hit").counter().count());
+        assertEquals(1, registry.get("dsn.client.configuration.cache").tag("result", "miss").counter().count());
+        assertEquals(1, registry.get("dsn.client.configuration.refreshes").counter().count());
+    }
+
+    @Test
+    void shouldRecordFailuresByType() {
+        metrics.recordFailure(Endpoint.STATE, new IOException());
+        metrics.recordFailure(Endpoint.STATE, new IOException());
+        metrics.recordFailure(Endpoint.STATE, new IllegalStateException());
+
+        assertEquals(2, registry.get("dsn.client.failures").tags("endpoint", "state", "exception", "IOException")
+                .counter().count());
+        assertEquals(1, registry.get("dsn.client.failures")
+                .tags("endpoint", "state", "exception", "IllegalStateException").counter().count());
+    }
+}
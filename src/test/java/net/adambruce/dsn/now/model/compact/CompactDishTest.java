@@ -0,0 +1,90 @@
+package net.adambruce.dsn.now.model.compact;
+
+import net.adambruce.dsn.now.client.ConfigurationMerger;
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedStationData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.model.state.Target;
+import net.adambruce.dsn.now.serde.DsnXmlMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactDishTest {
+
+    @Test
+    void shouldRoundTripMergedDishes() throws IOException {
+        MergedData merged = merge();
+        int reported = 0;
+
+        for (MergedStationData station : merged.getStations()) {
+            for (MergedDishData dish : station.getDishes()) {
+                CompactDish compact = CompactDish.from(dish);
+                assertEquals(dish.getFriendlyName(), compact.getFriendlyName());
+                assertEquals(dish.getType(), compact.getType());
+                if (dish.getUpSignals() != null) {
+                    assertEquals(dish, compact.toMergedDishData());
+                    reported++;
+                } else {
+                    assertEquals(Collections.emptyList(), compact.toMergedDishData().getUpSignals());
+                }
+            }
+        }
+
+        assertTrue(reported > 0);
+    }
+
+    @Test
+    void shouldKeepSpacecraftInformationOfMergedTargets() throws IOException {
+        MergedTargetData target = merge().getStations().stream()
+                .flatMap(station -> station.getDishes().stream())
+                .flatMap(dish -> dish.getTarget().stream())
+                .filter(merged -> merged.getFriendlyName() != null)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+
+        CompactTarget compact = CompactTarget.from(target);
+
+        assertEquals(target.getName(), compact.getName());
+        assertEquals(OptionalLong.of(target.getId()), compact.getId());
+        assertEquals(OptionalLong.of(target.getUpLegRange()), compact.getUpLegRange());
+        assertEquals(OptionalLong.of(target.getDownLegRange()), compact.getDownLegRange());
+        assertEquals(target.getExplorerName(), compact.getExplorerName());
+        assertEquals(target.getFriendlyAcronym(), compact.getFriendlyAcronym());
+        assertEquals(target.getFriendlyName(), compact.getFriendlyName());
+        assertTrue(compact.isThumbnailReported());
+        assertEquals(target.getThumbnail(), compact.isThumbnail());
+        assertEquals(target, compact.toMergedTargetData());
+        assertEquals(target.getRoundTripLightTime(), compact.toTarget().getRoundTripLightTime());
+    }
+
+    @Test
+    void shouldReportMissingTargetFields() {
+        CompactTarget compact = CompactTarget.from(new Target());
+
+        assertEquals(OptionalLong.empty(), compact.getId());
+        assertEquals(OptionalLong.empty(), compact.getUpLegRange());
+        assertEquals(OptionalLong.empty(), compact.getDownLegRange());
+        assertFalse(compact.isThumbnailReported());
+        assertFalse(compact.isThumbnail());
+        assertNull(compact.toMergedTargetData().getThumbnail());
+    }
+
+    private static MergedData merge() throws IOException {
+        Configuration configuration;
+        try (InputStream stream = CompactDishTest.class.getClassLoader().getResourceAsStream("config/config.xml")) {
+            configuration = DsnXmlMapper.create().readValue(stream, Configuration.class);
+        }
+        return new ConfigurationMerger(configuration).apply(CompactStateTest.parse("dsn/dsn.xml"));
+    }
+}
@@ -0,0 +1,89 @@
+package net.adambruce.dsn.now.model.compact;
+
+import net.adambruce.dsn.now.model.state.Signal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactSignalTest {
+
+    @Test
+    void shouldExposeSignalFields() {
+        Signal signal = new Signal();
+        signal.setActive(true);
+        signal.setSignalType("data");
+        signal.setBand("X");
+        signal.setDataRate(160L);
+        signal.setFrequency(8_420_000_000L);
+        signal.setPower(-155.5);
+        signal.setSpacecraft("VGR1");
+        signal.setSpacecraftId(-31L);
+
+        CompactSignal compact = CompactSignal.from(signal);
+
+        assertTrue(compact.isActiveReported());
+        assertTrue(compact.isActive());
+        assertEquals(SignalType.DATA, compact.getSignalType());
+        assertEquals(Band.X, compact.getBand());
+        assertEquals(OptionalLong.of(160), compact.getDataRate());
+        assertEquals(OptionalLong.of(8_420_000_000L), compact.getFrequency());
+        assertEquals(OptionalDouble.of(-155.5), compact.getPower());
+        assertEquals("VGR1", compact.getSpacecraft());
+        assertEquals(OptionalLong.of(-31), compact.getSpacecraftId());
+        assertEquals(signal, compact.toSignal());
+    }
+
+    @Test
+    void shouldReportMissingSignalFields() {
+        Signal signal = new Signal();
+        signal.setActive(false);
+
+        CompactSignal compact = CompactSignal.from(signal);
+
+        assertTrue(compact.isActiveReported());
+        assertFalse(compact.isActive());
+        assertFalse(CompactSignal.from(new Signal()).isActiveReported());
+        assertEquals(SignalType.UNKNOWN, compact.getSignalType());
+        assertEquals(Band.UNKNOWN, compact.getBand());
+        assertEquals(OptionalLong.empty(), compact.getDataRate());
+        assertEquals(OptionalLong.empty(), compact.getFrequency());
+        assertEquals(OptionalDouble.empty(), compact.getPower());
+        assertEquals(OptionalLong.empty(), compact.getSpacecraftId());
+        assertEquals(signal, compact.toSignal());
+        assertEquals(new Signal(), CompactSignal.from(new Signal()).toSignal());
+    }
+
+    @Test
+    void shouldTreatUnrecognisedCodesAsUnknown() {
+        Signal signal = new Signal();
+        signal.setSignalType("telemetry");
+        signal.setBand("W");
+
+        Signal converted = CompactSignal.from(signal).toSignal();
+
+        assertNull(converted.getSignalType());
+        assertNull(converted.getBand());
+        assertEquals(Band.KA, Band.of("ka"));
+        assertEquals(SignalType.NONE, SignalType.of("NONE"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Band.class)
+    void shouldLookUpBandByCode(Band band) {
+        assertEquals(band, Band.of(band.getCode()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SignalType.class)
+    void shouldLookUpSignalTypeByCode(SignalType type) {
+        assertEquals(type, SignalType.of(type.getCode()));
+    }
+}
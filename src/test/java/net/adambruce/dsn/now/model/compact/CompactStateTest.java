@@ -0,0 +1,122 @@
+package net.adambruce.dsn.now.model.compact;
+
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+import net.adambruce.dsn.now.serde.StaxStateParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactStateTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"dsn/dsn.xml", "dsn/dsnWithMultipleTargets.xml", "dsn/dsnWithoutTimeOrTimeZone.xml",
+            "dsn/dsnWithoutTimestamp.xml", "dsn/dsnWithoutDishes.xml", "dsn/dsnWithoutStations.xml"})
+    void shouldRoundTripParsedStates(String resource) throws IOException {
+        State state = parse(resource);
+
+        CompactState compact = CompactState.from(state);
+
+        assertEquals(state.getTimestamp(), compact.getTimestamp());
+        assertEquals(state, compact.toState());
+        assertEquals(compact, CompactState.from(compact.toState()));
+    }
+
+    @Test
+    void shouldExposeDishFields() throws IOException {
+        State state = parse("dsn/dsn.xml");
+        Dish dish = state.getDishes().get(0);
+
+        CompactDish compact = CompactState.from(state).getDishes().get(0);
+
+        assertEquals(dish.getName(), compact.getName());
+        assertEquals(OptionalLong.of(dish.getAzimuth()), compact.getAzimuth());
+        assertEquals(OptionalLong.of(dish.getElevation()), compact.getElevation());
+        assertEquals(OptionalLong.empty(), compact.getWindSpeed());
+        assertTrue(compact.isMultipleSpacecraftPerApertureReported());
+        assertEquals(dish.getMultipleSpacecraftPerAperture(), compact.isMultipleSpacecraftPerAperture());
+        assertTrue(compact.isArrayReported());
+        assertEquals(dish.getArray(), compact.isArray());
+        assertTrue(compact.isDeltaDifferentialOneWayRangingReported());
+        assertEquals(dish.getDeltaDifferentialOneWayRanging(), compact.isDeltaDifferentialOneWayRanging());
+        assertEquals(dish.getActivity(), compact.getActivity());
+        assertEquals(dish.getUpSignals().size(), compact.getUpSignals().size());
+        assertEquals(dish.getDownSignals().size(), compact.getDownSignals().size());
+        assertEquals(dish.getTargets().size(), compact.getTargets().size());
+        assertThrows(UnsupportedOperationException.class, () -> compact.getTargets().clear());
+    }
+
+    @Test
+    void shouldRoundTripMissingAndExtremeValues() {
+        Dish dish = new Dish();
+        dish.setAzimuth(Long.MIN_VALUE);
+        dish.setElevation(Long.MAX_VALUE);
+        dish.setArray(true);
+        dish.setMultipleSpacecraftPerAperture(false);
+        Target target = new Target();
+        target.setRoundTripLightTime(Duration.ofSeconds(12, 345));
+        dish.setTarget(target);
+        dish.setTarget(new Target());
+        State state = new State();
+        state.setStation(new Station());
+        state.setDish(dish);
+        state.setDish(new Dish());
+        Dish ddor = new Dish();
+        ddor.setDeltaDifferentialOneWayRanging(true);
+        ddor.setMultipleSpacecraftPerAperture(true);
+        state.setDish(ddor);
+
+        CompactState compact = CompactState.from(state);
+        CompactDish first = compact.getDishes().get(0);
+        CompactDish empty = compact.getDishes().get(1);
+
+        assertEquals(state, compact.toState());
+        assertEquals(OptionalLong.of(Long.MIN_VALUE), first.getAzimuth());
+        assertFalse(first.isDeltaDifferentialOneWayRangingReported());
+        assertFalse(first.isDeltaDifferentialOneWayRanging());
+        assertTrue(first.isArray());
+        assertTrue(compact.getDishes().get(2).isDeltaDifferentialOneWayRanging());
+        assertTrue(compact.getDishes().get(2).isMultipleSpacecraftPerAperture());
+        assertFalse(empty.isMultipleSpacecraftPerApertureReported());
+        assertFalse(empty.isMultipleSpacecraftPerAperture());
+        assertFalse(empty.isArrayReported());
+        assertFalse(empty.isArray());
+        assertEquals(OptionalLong.empty(), empty.getAzimuth());
+        assertEquals(OptionalLong.empty(), empty.getElevation());
+        assertEquals(OptionalLong.empty(), empty.getWindSpeed());
+        assertSame(empty.getUpSignals(), empty.getTargets());
+        assertEquals(OptionalLong.of(12_000_000_345L), first.getTargets().get(0).getRoundTripLightTimeNanos());
+        assertEquals(OptionalLong.empty(), first.getTargets().get(1).getRoundTripLightTimeNanos());
+    }
+
+    @Test
+    void shouldCopyStations() throws IOException {
+        State state = parse("dsn/dsn.xml");
+
+        CompactState compact = CompactState.from(state);
+        state.getStations().get(0).setName("changed");
+
+        assertNotSame(state.getStations().get(0), compact.getStations().get(0));
+        assertEquals("gdscc", compact.getStations().get(0).getName());
+    }
+
+    static State parse(String resource) throws IOException {
+        try (InputStream stream = CompactStateTest.class.getClassLoader().getResourceAsStream(resource)) {
+            return new StaxStateParser().parse(stream);
+        }
+    }
+}
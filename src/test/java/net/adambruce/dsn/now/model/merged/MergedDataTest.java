@@ -0,0 +1,199 @@
+package net.adambruce.dsn.now.model.merged;
+
+import net.adambruce.dsn.now.model.state.Signal;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MergedDataTest {
+
+    private static final String TELEMETRY = "Spacecraft Telemetry, Tracking, and Command";
+
+    // Signals report the negated ID of their spacecraft, as in the DSN state
+    private final Signal voyagerDown = signal(-32L, "VGR2", "X");
+    private final Signal voyagerUp = signal(-32L, "VGR2", "S");
+    private final Signal marsDown = signal(-76L, "MRO", "X");
+    private final Signal noBand = signal(null, null, null);
+
+    private final MergedDishData dss43 = dish("DSS43", TELEMETRY, Collections.singletonList(voyagerUp),
+            Arrays.asList(voyagerDown, voyagerDown), Collections.singletonList(target(32L, "VGR2")));
+    private final MergedDishData dss35 = dish("DSS35", TELEMETRY, null, Collections.singletonList(voyagerDown),
+            Collections.emptyList());
+    private final MergedDishData dss14 = dish("DSS14", "Antenna Unplanned Maintenance", null, null,
+            Collections.singletonList(target(null, null)));
+    private final MergedDishData dss25 = dish("DSS25", null, Collections.singletonList(noBand),
+            Collections.singletonList(marsDown), Collections.singletonList(target(76L, "MRO")));
+
+    private final MergedData data = new MergedData(Arrays.asList(
+            station("cdscc", Arrays.asList(dss43, dss35)),
+            station("gdscc", Arrays.asList(dss14, dss25, dish("DSS14", null, null, null, null),
+                    dish(null, null, null, null, null))),
+            station("mdscc", null)), Instant.EPOCH);
+
+    @Test
+    void shouldFindDishesBySpacecraftId() {
+        assertEquals(Arrays.asList(dss43, dss35), data.getDishesForSpacecraft(32));
+        assertEquals(Collections.singletonList(dss25), data.getDishesForSpacecraft(76));
+        assertEquals(Arrays.asList(dss43, dss35), data.getDishesForSpacecraft(-32));
+        assertTrue(data.getDishesForSpacecraft(99).isEmpty());
+    }
+
+    @Test
+    void shouldFindDishesWithOnlySignalsBySpacecraftId() {
+        MergedDishData dss26 = dish("DSS26", null, null, Collections.singletonList(signal(-74L, "MMS1", "S")),
+                Collections.emptyList());
+        MergedData merged = new MergedData(Collections.singletonList(station("gdscc",
+                Collections.singletonList(dss26))), Instant.EPOCH);
+
+        assertEquals(Collections.singletonList(dss26), merged.getDishesForSpacecraft(74));
+        assertEquals(Collections.singletonList(dss26), merged.getDishesForSpacecraft(-74));
+    }
+
+    @Test
+    void shouldFindDishesBySpacecraftName() {
+        assertEquals(Arrays.asList(dss43, dss35), data.getDishesForSpacecraft("VGR2"));
+        assertEquals(Collections.singletonList(dss25), data.getDishesForSpacecraft("MRO"));
+        assertTrue(data.getDishesForSpacecraft("JUNO").isEmpty());
+        assertTrue(data.getDishesForSpacecraft(null).isEmpty());
+    }
+
+    @Test
+    void shouldFindDishByName() {
+        assertSame(dss43, data.getDish("DSS43"));
+        // The first dish with a name is indexed
+        assertSame(dss14, data.getDish("DSS14"));
+        assertNull(data.getDish("DSS99"));
+        assertNull(data.getDish(null));
+    }
+
+    @Test
+    void shouldFindDishesWithActivity() {
+        assertEquals(Arrays.asList(dss43, dss35), data.getDishesWithActivity(TELEMETRY));
+        assertEquals(Collections.singletonList(dss14), data.getDishesWithActivity("Antenna Unplanned Maintenance"));
+        assertTrue(data.getDishesWithActivity("None").isEmpty());
+    }
+
+    @Test
+    void shouldFindSignalsInBand() {
+        assertEquals(Arrays.asList(voyagerDown, voyagerDown, voyagerDown, marsDown), data.getSignalsInBand("X"));
+        assertEquals(Collections.singletonList(voyagerUp), data.getSignalsInBand("S"));
+        assertTrue(data.getSignalsInBand("Ka").isEmpty());
+    }
+
+    @Test
+    void shouldReturnUnmodifiableResults() {
+        List<MergedDishData> dishes = data.getDishesForSpacecraft(32);
+
+        assertThrows(UnsupportedOperationException.class, () -> dishes.add(dss14));
+        assertThrows(UnsupportedOperationException.class, () -> data.getSignalsInBand("X").clear());
+    }
+
+    @Test
+    void shouldBuildEachIndexOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<MergedDishData>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return data.getDishesForSpacecraft(32);
+                }));
+            }
+            start.countDown();
+
+            List<MergedDishData> first = results.get(0).get();
+            for (Future<List<MergedDishData>> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldIgnoreIndicesInEqualityAndToString() {
+        MergedData copy = new MergedData(data.getStations(), data.getTimestamp());
+        data.getDish("DSS43");
+
+        assertEquals(copy, data);
+        assertEquals(copy.hashCode(), data.hashCode());
+        assertEquals(copy.toString(), data.toString());
+    }
+
+    @Test
+    void shouldFindSpacecraftByIdOfEitherSign() {
+        MergedSpacecraftData voyager = spacecraft(32L, "VGR2");
+        MergedData merged = new MergedData(data.getStations(), Instant.EPOCH,
+                Arrays.asList(voyager, spacecraft(32L, "VGR"), spacecraft(null, "MRO"), spacecraft(null, null)));
+
+        assertSame(voyager, merged.getSpacecraftById(32));
+        assertSame(voyager, merged.getSpacecraftById(-32));
+        assertNull(merged.getSpacecraftById(76));
+    }
+
+    @Test
+    void shouldFindSpacecraftForSignal() {
+        MergedSpacecraftData voyager = spacecraft(32L, "VGR2");
+        MergedSpacecraftData mars = spacecraft(null, "MRO");
+        MergedData merged = new MergedData(data.getStations(), Instant.EPOCH, Arrays.asList(voyager, mars));
+
+        assertSame(voyager, merged.getSpacecraftForSignal(signal(-32L, "VGR2", "X")));
+        // A signal whose ID is unknown falls back to its name
+        assertSame(mars, merged.getSpacecraftForSignal(marsDown));
+        assertSame(mars, merged.getSpacecraftForSignal(signal(null, "MRO", "X")));
+        assertNull(merged.getSpacecraftForSignal(noBand));
+    }
+
+    @Test
+    void shouldAnswerQueriesWithoutStations() {
+        MergedData empty = new MergedData(null, null);
+
+        assertTrue(empty.getDishesForSpacecraft(32).isEmpty());
+        assertNull(empty.getDish("DSS43"));
+        assertTrue(empty.getSpacecraft().isEmpty());
+        assertNull(new MergedData(null, null, null).getSpacecraftById(32));
+        assertNull(new MergedData(null, null, null).getSpacecraftForSignal(marsDown));
+    }
+
+    private static MergedStationData station(String name, List<MergedDishData> dishes) {
+        return new MergedStationData(name, null, null, null, null, null, dishes);
+    }
+
+    private static MergedDishData dish(String name, String activity, List<Signal> upSignals,
+                                       List<Signal> downSignals, List<MergedTargetData> targets) {
+        return new MergedDishData(name, null, null, null, null, null, null, null, null, activity, upSignals,
+                downSignals, targets);
+    }
+
+    private static MergedTargetData target(Long id, String name) {
+        return new MergedTargetData(name, id, null, null, null, null, null, null, null);
+    }
+
+    private static MergedSpacecraftData spacecraft(Long id, String name) {
+        return new MergedSpacecraftData(id, name, null, null, null, null);
+    }
+
+    private static Signal signal(Long spacecraftId, String spacecraft, String band) {
+        Signal signal = new Signal();
+        signal.setSpacecraftId(spacecraftId);
+        signal.setSpacecraft(spacecraft);
+        signal.setBand(band);
+        return signal;
+    }
+}
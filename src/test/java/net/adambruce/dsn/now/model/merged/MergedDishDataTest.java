@@ -0,0 +1,188 @@
+package net.adambruce.dsn.now.model.merged;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.adambruce.dsn.now.model.state.Signal;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MergedDishDataTest {
+
+    private final MergedTargetData voyager = target(32L, "VGR2", 21400000000L, Duration.ofSeconds(142000));
+    private final MergedTargetData mars = target(74L, "MRO", 355000000L, Duration.ofSeconds(2370));
+
+    private final Signal voyagerUp = signal(-32L, "VGR2", "S", null);
+    private final Signal voyagerDownX = signal(-32L, "VGR2", "X", 160L);
+    private final Signal voyagerDownKa = signal(-32L, "VGR2", "Ka", 40L);
+    private final Signal marsDown = signal(null, "MRO", null, 2000000L);
+    private final Signal sohoDown = signal(-21L, "SOHO", "S", null);
+
+    private final MergedDishData dish = dish(Collections.singletonList(voyagerUp),
+            Arrays.asList(voyagerDownX, marsDown, voyagerDownKa, sohoDown),
+            Arrays.asList(voyager, mars, target(32L, "VGR2", null, null)));
+
+    @Test
+    void shouldCorrelateSignalsWithTargets() {
+        MergedLinkData link = dish.getLinks().get(0);
+
+        assertEquals(32L, link.getSpacecraftId());
+        assertEquals("VGR2", link.getSpacecraft());
+        assertSame(voyager, link.getTarget());
+        assertEquals(Collections.singletonList(voyagerUp), link.getUpSignals());
+        assertEquals(Arrays.asList(voyagerDownX, voyagerDownKa), link.getDownSignals());
+        assertEquals(21400000000L, link.getUpLegRange());
+        assertEquals(21400000000L, link.getDownLegRange());
+        assertEquals(Duration.ofSeconds(142000), link.getRoundTripLightTime());
+        assertEquals("S", link.getUpBand());
+        assertEquals("X", link.getDownBand());
+        assertNull(link.getUpDataRate());
+        assertEquals(200L, link.getDownDataRate());
+    }
+
+    @Test
+    void shouldCorrelateSignalsWithoutIdByName() {
+        MergedLinkData link = dish.getLinks().get(1);
+
+        assertSame(mars, link.getTarget());
+        assertEquals(Collections.singletonList(marsDown), link.getDownSignals());
+        assertTrue(link.getUpSignals().isEmpty());
+        assertNull(link.getUpBand());
+        assertNull(link.getDownBand());
+        assertEquals(2000000L, link.getDownDataRate());
+    }
+
+    @Test
+    void shouldLinkSignalsWithoutTarget() {
+        MergedLinkData link = dish.getLinks().get(2);
+
+        assertEquals(3, dish.getLinks().size());
+        assertEquals(21L, link.getSpacecraftId());
+        assertNull(link.getTarget());
+        assertNull(link.getRoundTripLightTime());
+        assertEquals(Collections.singletonList(sohoDown), link.getDownSignals());
+    }
+
+    @Test
+    void shouldMatchOnIdOnlyWhenNamesAgree() {
+        MergedTargetData first = target(99L, "TEST", null, null);
+        MergedTargetData second = target(99L, "DSN", null, null);
+        Signal secondUp = signal(-99L, "dsn", null, null);
+        Signal firstUp = signal(-99L, null, null, null);
+        Signal firstDown = signal(null, "test", null, null);
+
+        MergedDishData placeholders = dish(Arrays.asList(secondUp, firstUp), Collections.singletonList(firstDown),
+                Arrays.asList(first, second));
+
+        List<MergedLinkData> links = placeholders.getLinks();
+        assertEquals(2, links.size());
+        assertSame(first, links.get(0).getTarget());
+        assertEquals(Collections.singletonList(firstUp), links.get(0).getUpSignals());
+        assertEquals(Collections.singletonList(firstDown), links.get(0).getDownSignals());
+        assertSame(second, links.get(1).getTarget());
+        assertEquals(99L, links.get(1).getSpacecraftId());
+        assertEquals(Collections.singletonList(secondUp), links.get(1).getUpSignals());
+        assertSame(links.get(0), placeholders.getLink(99));
+    }
+
+    @Test
+    void shouldMatchOnNameWhenIdIsMissing() {
+        MergedTargetData named = target(null, "MRO", null, null);
+        MergedTargetData unnamed = target(5L, null, null, null);
+        MergedTargetData other = target(null, "JUNO", null, null);
+        Signal namedUp = signal(-74L, "MRO", null, null);
+        Signal unnamedUp = signal(-5L, "MMS1", null, null);
+        Signal unnamedDown = signal(null, "MMS1", null, null);
+        Signal unknownUp = signal(-8L, null, null, null);
+        Signal emptyUp = signal(null, null, null, null);
+        Signal emptyDown = signal(null, null, null, null);
+
+        MergedDishData partial = dish(Arrays.asList(namedUp, unnamedUp, unknownUp, emptyUp),
+                Arrays.asList(unnamedDown, emptyDown), Arrays.asList(named, unnamed, other));
+
+        List<MergedLinkData> links = partial.getLinks();
+        assertEquals(5, links.size());
+        assertEquals(74L, links.get(0).getSpacecraftId());
+        assertEquals(Collections.singletonList(namedUp), links.get(0).getUpSignals());
+        assertEquals("MMS1", links.get(1).getSpacecraft());
+        assertEquals(Collections.singletonList(unnamedUp), links.get(1).getUpSignals());
+        assertEquals(Collections.singletonList(unnamedDown), links.get(1).getDownSignals());
+        assertNull(links.get(2).getSpacecraftId());
+        assertEquals(8L, links.get(3).getSpacecraftId());
+        assertEquals(Collections.singletonList(emptyUp), links.get(4).getUpSignals());
+        assertEquals(Collections.singletonList(emptyDown), links.get(4).getDownSignals());
+    }
+
+    @Test
+    void shouldFindLinkByIdOfEitherSign() {
+        assertSame(dish.getLinks().get(0), dish.getLink(32));
+        assertSame(dish.getLinks().get(0), dish.getLink(-32));
+        assertSame(dish.getLinks().get(2), dish.getLink(-21));
+        assertNull(dish.getLink(61));
+        assertNull(dish(Collections.singletonList(signal(null, null, null, null)), null, null).getLink(0));
+    }
+
+    @Test
+    void shouldReturnUnmodifiableLinks() {
+        List<MergedLinkData> links = dish.getLinks();
+
+        assertThrows(UnsupportedOperationException.class, () -> links.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> links.get(0).getDownSignals().clear());
+    }
+
+    @Test
+    void shouldHaveNoLinksWithoutTargetsOrSignals() {
+        assertTrue(dish(null, null, null).getLinks().isEmpty());
+        assertTrue(dish(Collections.emptyList(), Collections.emptyList(), Collections.emptyList()).getLinks().isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreLinksInEqualityAndToString() {
+        MergedDishData copy = dish(dish.getUpSignals(), dish.getDownSignals(), dish.getTarget());
+
+        assertEquals(dish, copy);
+        assertEquals(dish.hashCode(), copy.hashCode());
+        assertFalse(dish.toString().contains("links"));
+    }
+
+    @Test
+    void shouldLeaveLinksOutOfJson() throws Exception {
+        dish.getLink(32);
+
+        JsonNode json = JsonMapper.builder().addModule(new JavaTimeModule()).build().valueToTree(dish);
+
+        assertEquals(4, json.get("downSignals").size());
+        assertFalse(json.has("links"));
+        assertFalse(json.has("linksBySpacecraftId"));
+    }
+
+    private static MergedDishData dish(List<Signal> upSignals, List<Signal> downSignals,
+                                       List<MergedTargetData> targets) {
+        return new MergedDishData("DSS43", null, null, null, null, null, null, null, null, null, upSignals,
+                downSignals, targets);
+    }
+
+    private static MergedTargetData target(Long id, String name, Long range, Duration roundTripLightTime) {
+        return new MergedTargetData(name, id, range, range, roundTripLightTime, null, null, null, null);
+    }
+
+    private static Signal signal(Long spacecraftId, String spacecraft, String band, Long dataRate) {
+        Signal signal = new Signal();
+        signal.setSpacecraftId(spacecraftId);
+        signal.setSpacecraft(spacecraft);
+        signal.setBand(band);
+        signal.setDataRate(dataRate);
+        return signal;
+    }
+}
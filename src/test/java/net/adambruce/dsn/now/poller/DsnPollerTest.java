@@ -0,0 +1,325 @@
+package net.adambruce.dsn.now.poller;
+
+import net.adambruce.dsn.now.client.DeepSpaceNetworkClient;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.state.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DsnPollerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Mock
+    private DeepSpaceNetworkClient client;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private ScheduledFuture<Object> future;
+
+    private final Queue<Runnable> polls = new ArrayDeque<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            polls.add(invocation.getArgument(0));
+            delays.add(invocation.<TimeUnit>getArgument(2).toNanos(invocation.getArgument(1)));
+            return future;
+        });
+    }
+
+    @Test
+    void shouldDeliverNewStateToListeners() throws Exception {
+        State state1 = state(1);
+        State state2 = state(2);
+        when(client.fetchState()).thenReturn(state1, state(1), state2);
+        List<State> received = new ArrayList<>();
+
+        DsnPoller poller = builder().build();
+        poller.subscribeState(received::add);
+        poller.start();
+        runPolls(3);
+
+        assertEquals(Arrays.asList(state1, state2), received);
+        assertEquals(3, poller.getPollCount());
+        verify(client, never()).fetchMergedData();
+    }
+
+    @Test
+    void shouldDeliverNewMergedDataToListeners() throws Exception {
+        MergedData mergedData1 = mergedData(1);
+        MergedData mergedData2 = mergedData(2);
+        when(client.fetchMergedData()).thenReturn(mergedData1, mergedData(1), mergedData2);
+        List<MergedData> received = new ArrayList<>();
+
+        DsnPoller poller = builder().build();
+        poller.subscribeMergedData(received::add);
+        poller.start();
+        runPolls(3);
+
+        assertEquals(Arrays.asList(mergedData1, mergedData2), received);
+        verify(client, never()).fetchState();
+    }
+
+    @Test
+    void shouldMergeStateFetchedForStateListeners() throws Exception {
+        State state = state(1);
+        MergedData mergedData = mergedData(1);
+        when(client.fetchState()).thenReturn(state);
+        when(client.merge(state)).thenReturn(mergedData);
+        List<Object> received = new ArrayList<>();
+
+        DsnPoller poller = builder().build();
+        poller.subscribeState(received::add);
+        poller.subscribeMergedData(received::add);
+        poller.start();
+        runPolls(1);
+
+        assertEquals(Arrays.asList(state, mergedData), received);
+        verify(client, never()).fetchMergedData();
+    }
+
+    @Test
+    void shouldStopDeliveringToCancelledListeners() throws Exception {
+        when(client.fetchState()).thenReturn(state(1), state(2));
+        List<State> received = new ArrayList<>();
+
+        DsnPoller poller = builder().build();
+        Subscription subscription = poller.subscribeState(received::add);
+        poller.start();
+        runPolls(1);
+        subscription.cancel();
+        runPolls(1);
+
+        assertEquals(Collections.singletonList(state(1)), received);
+        verify(client, times(1)).fetchState();
+    }
+
+    @Test
+    void shouldPollAtFixedRate() {
+        DsnPoller poller = builder().build();
+        poller.start();
+
+        runPolls(1, 2 * SECOND);
+        runPolls(1, 0);
+
+        assertEquals(Arrays.asList(0L, 3 * SECOND, 5 * SECOND), delays);
+        assertEquals(0, poller.getMissedTickCount());
+    }
+
+    @Test
+    void shouldSkipMissedTicksAtFixedRate() {
+        DsnPoller poller = builder().build();
+        poller.start();
+
+        runPolls(1, 12 * SECOND);
+
+        // The ticks at 5s and 10s passed during the poll, so the next poll is at 15s
+        assertEquals(Arrays.asList(0L, 3 * SECOND), delays);
+        assertEquals(2, poller.getMissedTickCount());
+    }
+
+    @Test
+    void shouldPollWithFixedDelay() {
+        DsnPoller poller = builder().scheduling(Scheduling.FIXED_DELAY).build();
+        poller.start();
+
+        runPolls(1, 2 * SECOND);
+
+        assertEquals(Arrays.asList(0L, 5 * SECOND), delays);
+    }
+
+    @Test
+    void shouldAddJitterToDelay() {
+        DsnPoller poller = builder().scheduling(Scheduling.FIXED_DELAY).jitter(Duration.ofSeconds(1)).build();
+        poller.start();
+
+        runPolls(1);
+
+        long delay = delays.get(1);
+        assertTrue(delay >= 5 * SECOND && delay <= 6 * SECOND);
+    }
+
+    @Test
+    void shouldBackOffAfterFailures() throws Exception {
+        when(client.fetchState())
+                .thenThrow(new IOException())
+                .thenThrow(new IOException())
+                .thenThrow(new IOException())
+                .thenThrow(new IOException())
+                .thenReturn(state(1));
+
+        DsnPoller poller = builder().maxBackoff(Duration.ofSeconds(30)).build();
+        poller.subscribeState(state -> { });
+        poller.start();
+        runPolls(5);
+
+        assertEquals(Arrays.asList(0L, 10 * SECOND, 20 * SECOND, 30 * SECOND, 30 * SECOND, 5 * SECOND), delays);
+        assertEquals(4, poller.getFailureCount());
+    }
+
+    @Test
+    void shouldLimitBackOffWhenIntervalExceedsMaximum() throws Exception {
+        when(client.fetchState()).thenThrow(new IOException());
+
+        DsnPoller poller = builder().maxBackoff(Duration.ofSeconds(1)).build();
+        poller.subscribeState(state -> { });
+        poller.start();
+        runPolls(1);
+
+        assertEquals(Arrays.asList(0L, SECOND), delays);
+    }
+
+    @Test
+    void shouldCountDroppedUpdates() throws Exception {
+        when(client.fetchState()).thenReturn(state(1), state(2));
+        Queue<Runnable> deliveries = new ArrayDeque<>();
+        List<State> received = new ArrayList<>();
+
+        DsnPoller poller = builder().listenerExecutor(deliveries::add).overflowPolicy(OverflowPolicy.DROP).build();
+        poller.subscribeState(received::add);
+        poller.start();
+        runPolls(2);
+        deliveries.poll().run();
+
+        assertEquals(Collections.singletonList(state(1)), received);
+        assertEquals(1, poller.getDroppedCount());
+    }
+
+    @Test
+    void shouldNotStartTwice() {
+        DsnPoller poller = builder().build();
+        poller.start();
+
+        assertThrows(IllegalStateException.class, poller::start);
+    }
+
+    @Test
+    void shouldNotStartOnceClosed() {
+        DsnPoller poller = builder().build();
+        poller.close();
+
+        assertThrows(IllegalStateException.class, poller::start);
+    }
+
+    @Test
+    void shouldCancelNextPollWhenClosed() {
+        DsnPoller poller = builder().build();
+        poller.start();
+        poller.close();
+        poller.close();
+
+        verify(future).cancel(false);
+        verify(scheduler, never()).shutdown();
+    }
+
+    @Test
+    void shouldNotDeliverOrRescheduleAfterClosedDuringPoll() throws Exception {
+        List<State> received = new ArrayList<>();
+        DsnPoller poller = builder().build();
+        when(client.fetchState()).thenAnswer(invocation -> {
+            poller.close();
+            return state(1);
+        });
+        poller.subscribeState(received::add);
+        poller.start();
+        runPolls(1);
+
+        assertTrue(received.isEmpty());
+        assertEquals(Collections.singletonList(0L), delays);
+    }
+
+    @Test
+    void shouldStopPollingWhenSchedulerRejectsPoll() {
+        DsnPoller poller = builder().build();
+        poller.start();
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any()))
+                .thenThrow(new RejectedExecutionException());
+
+        runPolls(1);
+
+        assertEquals(1, poller.getPollCount());
+        assertEquals(0, poller.getFailureCount());
+        assertTrue(polls.isEmpty());
+    }
+
+    @Test
+    void shouldShutDownOwnedExecutorsWhenClosed() {
+        DsnPoller poller = DsnPoller.builder(client).build();
+        poller.start();
+        poller.close();
+    }
+
+    @Test
+    void shouldNotFailClosingOwnedExecutorsBeforeStarting() {
+        DsnPoller.builder(client).build().close();
+    }
+
+    private DsnPoller.Builder builder() {
+        return DsnPoller.builder(client)
+                .interval(Duration.ofSeconds(5))
+                .scheduler(scheduler)
+                .listenerExecutor(Runnable::run)
+                .nanoTime(now::get);
+    }
+
+    private void runPolls(int count) {
+        runPolls(count, 0);
+    }
+
+    /**
+     * Runs the scheduled polls in order, advancing the clock to each poll, and by the given duration during it.
+     */
+    private void runPolls(int count, long duration) {
+        for (int i = 0; i < count; i++) {
+            now.addAndGet(delays.get(delays.size() - 1));
+            Runnable poll = polls.poll();
+            now.addAndGet(duration);
+            poll.run();
+        }
+    }
+
+    private static State state(long timestamp) {
+        State state = new State();
+        state.setTimestamp(Instant.ofEpochMilli(timestamp));
+        return state;
+    }
+
+    private static MergedData mergedData(long timestamp) {
+        return new MergedData(Collections.emptyList(), Instant.ofEpochMilli(timestamp));
+    }
+}
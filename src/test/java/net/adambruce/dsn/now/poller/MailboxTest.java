@@ -0,0 +1,139 @@
+package net.adambruce.dsn.now.poller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailboxTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final List<String> received = new ArrayList<>();
+
+    @Test
+    void shouldDeliverUpdateOnExecutor() {
+        Mailbox<String> mailbox = newMailbox(OverflowPolicy.LATEST_WINS);
+
+        mailbox.offer("a");
+
+        assertTrue(received.isEmpty());
+        runTasks();
+        assertEquals(Collections.singletonList("a"), received);
+    }
+
+    @Test
+    void shouldDeliverLatestUpdateWhenListenerIsBusy() {
+        Mailbox<String> mailbox = newMailbox(OverflowPolicy.LATEST_WINS);
+
+        mailbox.offer("a");
+        mailbox.offer("b");
+        mailbox.offer("c");
+        runTasks();
+
+        assertEquals(Collections.singletonList("c"), received);
+        assertEquals(2, droppedCount.get());
+    }
+
+    @Test
+    void shouldDropNewUpdatesWhenListenerIsBusy() {
+        Mailbox<String> mailbox = newMailbox(OverflowPolicy.DROP);
+
+        mailbox.offer("a");
+        mailbox.offer("b");
+        mailbox.offer("c");
+        runTasks();
+
+        assertEquals(Collections.singletonList("a"), received);
+        assertEquals(2, droppedCount.get());
+    }
+
+    @Test
+    void shouldDeliverUpdateOfferedDuringDelivery() {
+        AtomicReference<Mailbox<String>> self = new AtomicReference<>();
+        Mailbox<String> mailbox = new Mailbox<>(update -> {
+            received.add(update);
+            if (update.equals("a")) {
+                self.get().offer("b");
+            }
+        }, tasks::add, OverflowPolicy.LATEST_WINS, droppedCount, m -> { });
+        self.set(mailbox);
+
+        mailbox.offer("a");
+        runTasks();
+
+        assertEquals(Arrays.asList("a", "b"), received);
+        assertEquals(0, droppedCount.get());
+    }
+
+    @Test
+    void shouldContinueDeliveringAfterListenerFails() {
+        Mailbox<String> mailbox = new Mailbox<>(update -> {
+            received.add(update);
+            throw new IllegalStateException();
+        }, tasks::add, OverflowPolicy.LATEST_WINS, droppedCount, m -> { });
+
+        mailbox.offer("a");
+        runTasks();
+        mailbox.offer("b");
+        runTasks();
+
+        assertEquals(Arrays.asList("a", "b"), received);
+    }
+
+    @Test
+    void shouldRetryDeliveryAfterExecutorRejectsIt() {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        Mailbox<String> mailbox = new Mailbox<>(received::add, task -> {
+            if (reject.get()) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(task);
+        }, OverflowPolicy.LATEST_WINS, droppedCount, m -> { });
+
+        mailbox.offer("a");
+        reject.set(false);
+        mailbox.offer("b");
+        runTasks();
+
+        assertEquals(Collections.singletonList("b"), received);
+        assertEquals(1, droppedCount.get());
+    }
+
+    @Test
+    void shouldDiscardPendingUpdateWhenCancelled() {
+        AtomicReference<Mailbox<String>> cancelled = new AtomicReference<>();
+        Mailbox<String> mailbox = new Mailbox<>(received::add, tasks::add, OverflowPolicy.LATEST_WINS, droppedCount,
+                cancelled::set);
+
+        mailbox.offer("a");
+        mailbox.cancel();
+        runTasks();
+
+        assertSame(mailbox, cancelled.get());
+        assertTrue(received.isEmpty());
+    }
+
+    private Mailbox<String> newMailbox(OverflowPolicy overflowPolicy) {
+        return new Mailbox<>(received::add, tasks::add, overflowPolicy, droppedCount, m -> { });
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package net.adambruce.dsn.now.serde;
+
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import net.adambruce.dsn.now.model.state.Station;
+import net.adambruce.dsn.now.model.state.Target;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StaxStateParserTest {
+
+    private final StateParser jacksonStateParser = new JacksonStateParser(DsnXmlMapper.create());
+
+    private final StaxStateParser staxStateParser = new StaxStateParser();
+
+    @ParameterizedTest
+    @MethodSource("stateDocuments")
+    void shouldParseStateEquivalentToJackson(Path document) throws IOException {
+        byte[] bytes = Files.readAllBytes(document);
+
+        State expected = jacksonStateParser.parse(new ByteArrayInputStream(bytes));
+        State actual = staxStateParser.parse(new ByteArrayInputStream(bytes));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void shouldParseState() throws IOException {
+        State state = staxStateParser.parse(getStream("dsn/dsn.xml"));
+
+        Station station = state.getStations().get(0);
+        assertEquals("gdscc", station.getName());
+        assertEquals("Goldstone", station.getFriendlyName());
+        assertEquals(Instant.ofEpochMilli(1770497799000L), station.getTime());
+        assertEquals(ZoneOffset.ofHours(-8), station.getTimeZoneOffset());
+
+        Dish dish = state.getDishes().get(2);
+        assertEquals("DSS24", dish.getName());
+        assertEquals(179L, dish.getAzimuth());
+        assertEquals(18L, dish.getElevation());
+        assertEquals(8L, dish.getWindSpeed());
+        assertEquals(false, dish.getMultipleSpacecraftPerAperture());
+        assertEquals(false, dish.getArray());
+        assertEquals(false, dish.getDeltaDifferentialOneWayRanging());
+        assertEquals("Spacecraft Telemetry, Tracking, and Command", dish.getActivity());
+
+        Signal signal = dish.getDownSignals().get(0);
+        assertEquals(true, signal.getActive());
+        assertEquals("data", signal.getSignalType());
+        assertEquals(1250000L, signal.getDataRate());
+        assertEquals(0L, signal.getFrequency());
+        assertEquals("S", signal.getBand());
+        assertEquals(-110D, signal.getPower());
+        assertEquals("MMS2", signal.getSpacecraft());
+        assertEquals(-109L, signal.getSpacecraftId());
+
+        Target target = dish.getTargets().get(0);
+        assertEquals("MMS2", target.getName());
+        assertEquals(109L, target.getId());
+        assertEquals(130000L, target.getUpLegRange());
+        assertEquals(130000L, target.getDownLegRange());
+        assertEquals(Duration.ZERO, target.getRoundTripLightTime());
+
+        assertEquals(Instant.ofEpochMilli(1770497799000L), state.getTimestamp());
+    }
+
+    @Test
+    void shouldParseEmptyAttributesAsNull() throws IOException {
+        String document = "<dsn>"
+                + "<station name=\"gdscc\" friendlyName=\"Goldstone\" timeUTC=\"\" timeZoneOffset=\"\"/>"
+                + "<dish name=\"DSS14\" azimuthAngle=\"\" elevationAngle=\"\" windSpeed=\"\" isMSPA=\"\" isArray=\"\""
+                + " isDDOR=\"\" activity=\"\">"
+                + "<upSignal active=\"\" signalType=\"\" dataRate=\"\" frequency=\"\" band=\"\" power=\"\""
+                + " spacecraft=\"\" spacecraftID=\"\"/>"
+                + "<target name=\"\" id=\"\" uplegRange=\"\" downlegRange=\"\" rtlt=\"\"/>"
+                + "</dish>"
+                + "<timestamp></timestamp>"
+                + "</dsn>";
+
+        State state = assertEquivalentToJackson(document);
+
+        assertNull(state.getStations().get(0).getTime());
+        assertNull(state.getStations().get(0).getTimeZoneOffset());
+        assertNull(state.getDishes().get(0).getAzimuth());
+        assertNull(state.getDishes().get(0).getMultipleSpacecraftPerAperture());
+        assertNull(state.getDishes().get(0).getUpSignals().get(0).getPower());
+        assertNull(state.getDishes().get(0).getTargets().get(0).getRoundTripLightTime());
+        assertNull(state.getTimestamp());
+    }
+
+    @Test
+    void shouldIgnoreUnknownElementsAndAttributes() throws IOException {
+        String document = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<!-- DSN Now -->"
+                + "<dsn version=\"2\">"
+                + "<station name=\"gdscc\" unknown=\"value\"><unknown><nested/></unknown></station>"
+                + "<dish name=\"DSS14\" unknown=\"value\">"
+                + "<upSignal unknown=\"value\"><unknown/></upSignal>"
+                + "<downSignal unknown=\"value\"/>"
+                + "<target unknown=\"value\"><unknown/></target>"
+                + "<unknown><nested><nested/></nested></unknown>"
+                + "</dish>"
+                + "<unknown name=\"DSS15\"><dish name=\"DSS15\"/></unknown>"
+                + "<timestamp>1770497799000</timestamp>"
+                + "</dsn>";
+
+        State state = assertEquivalentToJackson(document);
+
+        assertEquals(1, state.getStations().size());
+        assertEquals(1, state.getDishes().size());
+        assertEquals(1, state.getDishes().get(0).getUpSignals().size());
+        assertEquals(1, state.getDishes().get(0).getDownSignals().size());
+        assertEquals(1, state.getDishes().get(0).getTargets().size());
+    }
+
+    @Test
+    void shouldThrowWhenDocumentIsMalformed() {
+        assertThrows(IOException.class, () -> parse("<dsn><dish name=\"DSS14\"></dsn>"));
+    }
+
+    @Test
+    void shouldThrowWhenNumberIsMalformed() {
+        assertThrows(IOException.class, () -> parse("<dsn><dish name=\"DSS14\" azimuthAngle=\"north\"/></dsn>"));
+    }
+
+    @Test
+    void shouldThrowWhenZoneOffsetIsOutOfRange() {
+        assertThrows(IOException.class, () -> parse("<dsn><station timeZoneOffset=\"864000000.0\"/></dsn>"));
+    }
+
+    private State assertEquivalentToJackson(String document) throws IOException {
+        State expected = jacksonStateParser.parse(toStream(document));
+        State actual = parse(document);
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    private State parse(String document) throws IOException {
+        return staxStateParser.parse(toStream(document));
+    }
+
+    private static InputStream toStream(String document) {
+        return new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream getStream(String filePath) {
+        return StaxStateParserTest.class.getClassLoader().getResourceAsStream(filePath);
+    }
+
+    private static Stream<Path> stateDocuments() throws IOException, URISyntaxException {
+        Path directory = Paths.get(StaxStateParserTest.class.getClassLoader().getResource("dsn").toURI());
+        return Files.list(directory).sorted();
+    }
+}
@@ -0,0 +1,144 @@
+package net.adambruce.dsn.now.serde;
+
+import net.adambruce.dsn.now.model.config.Configuration;
+import net.adambruce.dsn.now.model.config.Site;
+import net.adambruce.dsn.now.model.state.Dish;
+import net.adambruce.dsn.now.model.state.Signal;
+import net.adambruce.dsn.now.model.state.State;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StringPoolTest {
+
+    private final StateParser parser = new StaxStateParser();
+
+    @ParameterizedTest
+    @CsvSource({"-1, 4", "0, 4", "4, 4", "5, 8", "1000, 1024", "1024, 1024"})
+    void shouldRoundCapacityToPowerOfTwo(int capacity, int expected) {
+        assertEquals(expected, new StringPool(capacity).getCapacity());
+    }
+
+    @Test
+    void shouldReturnPooledInstance() {
+        StringPool pool = new StringPool(16);
+        String first = new String("DSS14");
+        String second = new String("DSS14");
+
+        assertSame(first, pool.canonicalize(first));
+        assertSame(first, pool.canonicalize(second));
+        assertNull(pool.canonicalize(null));
+    }
+
+    @Test
+    void shouldKeepFourStringsPerSet() {
+        // A pool of four strings has a single set, so every string competes for it
+        StringPool pool = new StringPool(4);
+        String[] strings = {new String("a"), new String("b"), new String("c"), new String("d")};
+        for (String string : strings) {
+            pool.canonicalize(string);
+        }
+        for (String string : strings) {
+            assertSame(string, pool.canonicalize(new String(string)));
+        }
+
+        // The least recently added string is replaced
+        String e = new String("e");
+        pool.canonicalize(e);
+        assertSame(e, pool.canonicalize(new String("e")));
+        assertSame(strings[3], pool.canonicalize(new String("d")));
+        assertNotSame(strings[0], pool.canonicalize(new String("a")));
+    }
+
+    @Test
+    void shouldShareStringsBetweenStates() throws IOException {
+        StringPool pool = new StringPool(4096);
+        State first = parse("dsn/dsn.xml");
+        State second = parse("dsn/dsn.xml");
+        pool.canonicalizeState(first);
+        pool.canonicalizeState(second);
+
+        assertEquals(first, second);
+        assertSame(first.getStations().get(0).getName(), second.getStations().get(0).getName());
+        assertSame(first.getStations().get(0).getFriendlyName(), second.getStations().get(0).getFriendlyName());
+        for (int i = 0; i < first.getDishes().size(); i++) {
+            Dish dish = first.getDishes().get(i);
+            Dish other = second.getDishes().get(i);
+            assertSame(dish.getName(), other.getName());
+            assertSame(dish.getActivity(), other.getActivity());
+            for (int j = 0; j < dish.getDownSignals().size(); j++) {
+                assertSignalShared(dish.getDownSignals().get(j), other.getDownSignals().get(j));
+            }
+            for (int j = 0; j < dish.getUpSignals().size(); j++) {
+                assertSignalShared(dish.getUpSignals().get(j), other.getUpSignals().get(j));
+            }
+            for (int j = 0; j < dish.getTargets().size(); j++) {
+                assertSame(dish.getTargets().get(j).getName(), other.getTargets().get(j).getName());
+            }
+        }
+    }
+
+    @Test
+    void shouldSeedFromConfiguration() throws IOException {
+        StringPool pool = new StringPool(4096);
+        Configuration configuration = DsnXmlMapper.create()
+                .readValue(getStream("config/config.xml"), Configuration.class);
+        pool.seed(configuration);
+
+        Site site = configuration.getSites().get(0);
+        assertSame(site.getName(), pool.canonicalize(new String(site.getName())));
+        assertSame(site.getFriendlyName(), pool.canonicalize(new String(site.getFriendlyName())));
+        assertSame(site.getDishes().get(0).getName(), pool.canonicalize(new String("DSS63")));
+        assertSame(site.getDishes().get(0).getType(), pool.canonicalize(new String("70M")));
+        assertSame(configuration.getSpacecraft().get(0).getName(),
+                pool.canonicalize(new String(configuration.getSpacecraft().get(0).getName())));
+
+        // Names from a later state are the instances from the configuration
+        State state = parse("dsn/dsn.xml");
+        pool.canonicalizeState(state);
+        Dish dish = state.getDishes().stream()
+                .filter(d -> d.getName().equals("DSS63"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertSame(site.getDishes().get(0).getName(), dish.getName());
+    }
+
+    @Test
+    void shouldIgnoreMissingLists() {
+        StringPool pool = new StringPool(16);
+        Configuration configuration = new Configuration();
+        pool.seed(configuration);
+        configuration.setSites(Collections.singletonList(new Site()));
+        pool.seed(configuration);
+
+        State state = new State();
+        pool.canonicalizeState(state);
+        state.setDish(new Dish());
+        pool.canonicalizeState(state);
+
+        assertNull(state.getDishes().get(0).getName());
+    }
+
+    private State parse(String resource) throws IOException {
+        return parser.parse(getStream(resource));
+    }
+
+    private static void assertSignalShared(Signal signal, Signal other) {
+        assertSame(signal.getSignalType(), other.getSignalType());
+        assertSame(signal.getBand(), other.getBand());
+        assertSame(signal.getSpacecraft(), other.getSpacecraft());
+    }
+
+    private static InputStream getStream(String filePath) {
+        return StringPoolTest.class.getClassLoader().getResourceAsStream(filePath);
+    }
+}
@@ -0,0 +1,354 @@
+package net.adambruce.dsn.now.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import net.adambruce.dsn.now.model.merged.MergedDishData;
+import net.adambruce.dsn.now.model.merged.MergedStationData;
+import net.adambruce.dsn.now.model.merged.MergedTargetData;
+import net.adambruce.dsn.now.poller.DsnPoller;
+import net.adambruce.dsn.now.poller.Subscription;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DsnServerTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Mock
+    private DsnPoller poller;
+
+    @Mock
+    private Subscription subscription;
+
+    private Consumer<? super MergedData> listener;
+    private DsnServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(poller.subscribeMergedData(any())).thenAnswer(invocation -> {
+            listener = invocation.getArgument(0);
+            return subscription;
+        });
+        server = DsnServer.builder(poller)
+                .address(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .reconnectDelay(Duration.ofSeconds(2))
+                .build();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void shouldBeUnavailableBeforeFirstSnapshot() throws IOException {
+        HttpURLConnection connection = open(DsnServer.SNAPSHOT_PATH);
+
+        assertEquals(503, connection.getResponseCode());
+        assertEquals("5", connection.getHeaderField("Retry-After"));
+    }
+
+    @Test
+    void shouldServeLatestSnapshotAsJson() throws IOException {
+        listener.accept(mergedData(1000, 10L));
+        listener.accept(mergedData(2000, 20L));
+
+        HttpURLConnection connection = open(DsnServer.SNAPSHOT_PATH);
+        JsonNode json = JSON.readTree(connection.getInputStream());
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("application/json", connection.getContentType());
+        assertEquals("no-cache", connection.getHeaderField("Cache-Control"));
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertEquals("1970-01-01T00:00:02Z", json.get("timestamp").asText());
+        JsonNode dish = json.get("stations").get(0).get("dishes").get(0);
+        assertEquals("DSS43", dish.get("name").asText());
+        assertEquals(20L, dish.get("azimuth").asLong());
+        assertEquals("PT1M", dish.get("target").get(0).get("roundTripLightTime").asText());
+    }
+
+    @Test
+    void shouldServeCompressedSnapshot() throws IOException {
+        listener.accept(mergedData(1000, 10L));
+        byte[] json = IOUtils.toByteArray(open(DsnServer.SNAPSHOT_PATH).getInputStream());
+
+        HttpURLConnection connection = open(DsnServer.SNAPSHOT_PATH);
+        connection.setRequestProperty("Accept-Encoding", "deflate, gzip;q=0.8");
+
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+        try (InputStream body = new GZIPInputStream(connection.getInputStream())) {
+            assertArrayEquals(json, IOUtils.toByteArray(body));
+        }
+    }
+
+    @Test
+    void shouldAnswerMatchingEntityTagAsNotModified() throws IOException {
+        listener.accept(mergedData(1000, 10L));
+        String entityTag = open(DsnServer.SNAPSHOT_PATH).getHeaderField("ETag");
+
+        HttpURLConnection notModified = open(DsnServer.SNAPSHOT_PATH);
+        notModified.setRequestProperty("If-None-Match", "\"other\", " + entityTag);
+        HttpURLConnection modified = open(DsnServer.SNAPSHOT_PATH);
+        modified.setRequestProperty("If-None-Match", "\"other\"");
+
+        assertEquals(304, notModified.getResponseCode());
+        assertEquals(entityTag, notModified.getHeaderField("ETag"));
+        assertEquals(200, modified.getResponseCode());
+    }
+
+    @Test
+    void shouldAnswerHeadWithoutBody() throws IOException {
+        listener.accept(mergedData(1000, 10L));
+        int length = IOUtils.toByteArray(open(DsnServer.SNAPSHOT_PATH).getInputStream()).length;
+
+        HttpURLConnection connection = open(DsnServer.SNAPSHOT_PATH);
+        connection.setRequestMethod("HEAD");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(length, connection.getContentLength());
+    }
+
+    @Test
+    void shouldRejectOtherMethodsAndPaths() throws IOException {
+        HttpURLConnection post = open(DsnServer.SNAPSHOT_PATH);
+        post.setRequestMethod("POST");
+        HttpURLConnection headEvents = open(DsnServer.EVENTS_PATH);
+        headEvents.setRequestMethod("HEAD");
+
+        assertEquals(405, post.getResponseCode());
+        assertEquals("GET, HEAD", post.getHeaderField("Allow"));
+        assertEquals(405, headEvents.getResponseCode());
+        assertEquals("GET", headEvents.getHeaderField("Allow"));
+        assertEquals(404, open(DsnServer.SNAPSHOT_PATH + "/other").getResponseCode());
+    }
+
+    @Test
+    void shouldStreamSnapshots() throws IOException {
+        listener.accept(mergedData(1000, 10L));
+        HttpURLConnection connection = open(DsnServer.EVENTS_PATH);
+
+        try (BufferedReader events = reader(connection)) {
+            assertEquals("text/event-stream", connection.getContentType());
+            assertEquals("retry: 2000", events.readLine());
+            assertEquals("", events.readLine());
+            assertEquals(10L, readEvent(events).get("stations").get(0).get("dishes").get(0).get("azimuth").asLong());
+
+            listener.accept(mergedData(2000, 20L));
+
+            assertEquals(20L, readEvent(events).get("stations").get(0).get("dishes").get(0).get("azimuth").asLong());
+            assertEquals(1, server.getStreamCount());
+        }
+    }
+
+    @Test
+    void shouldResumeStreamFromLastEventId() throws IOException {
+        listener.accept(mergedData(1000, 10L));
+        String entityTag = open(DsnServer.SNAPSHOT_PATH).getHeaderField("ETag");
+        HttpURLConnection connection = open(DsnServer.EVENTS_PATH);
+        connection.setRequestProperty("Last-Event-ID", entityTag);
+
+        try (BufferedReader events = reader(connection)) {
+            events.readLine();
+            events.readLine();
+            listener.accept(mergedData(2000, 20L));
+
+            assertEquals(20L, readEvent(events).get("stations").get(0).get("dishes").get(0).get("azimuth").asLong());
+        }
+    }
+
+    @Test
+    void shouldNotPublishUnchangedSnapshot() throws IOException {
+        MergedData mergedData = mergedData(1000, 10L);
+        listener.accept(mergedData);
+        String entityTag = open(DsnServer.SNAPSHOT_PATH).getHeaderField("ETag");
+        HttpURLConnection connection = open(DsnServer.EVENTS_PATH);
+        connection.setRequestProperty("Last-Event-ID", entityTag);
+
+        try (BufferedReader events = reader(connection)) {
+            events.readLine();
+            events.readLine();
+            listener.accept(mergedData);
+            listener.accept(mergedData(1000, 10L));
+            listener.accept(mergedData(1000, 30L));
+
+            // Only the changed snapshot is sent
+            assertEquals(30L, readEvent(events).get("stations").get(0).get("dishes").get(0).get("azimuth").asLong());
+        }
+        assertNotEquals(entityTag, open(DsnServer.SNAPSHOT_PATH).getHeaderField("ETag"));
+    }
+
+    @Test
+    void shouldKeepServingPreviousSnapshotWhenWriteFails() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        try (DsnServer failing = DsnServer.builder(poller)
+                .address(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .mapper(mapper)
+                .build()) {
+            failing.start();
+
+            // Instants cannot be written without the time module
+            listener.accept(mergedData(1000, 10L));
+
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:"
+                    + failing.getAddress().getPort() + DsnServer.SNAPSHOT_PATH).openConnection();
+            assertEquals(503, connection.getResponseCode());
+        }
+    }
+
+    @Test
+    void shouldEndStreamsWhenClosed() throws IOException {
+        HttpURLConnection connection = open(DsnServer.EVENTS_PATH);
+
+        try (BufferedReader events = reader(connection)) {
+            events.readLine();
+            events.readLine();
+            waitForStreams(1);
+            server.close();
+            server.close();
+
+            assertNull(events.readLine());
+            assertEquals(0, server.getStreamCount());
+        }
+        verify(subscription).cancel();
+    }
+
+    @Test
+    void shouldEndStreamOpenedWhileClosing() throws IOException {
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getRequestURI()).thenReturn(URI.create(DsnServer.EVENTS_PATH));
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+        server.close();
+
+        server.handle(exchange);
+
+        verify(exchange).close();
+    }
+
+    @Test
+    void shouldNotStartTwice() {
+        assertThrows(IllegalStateException.class, server::start);
+        server.close();
+        assertThrows(IllegalStateException.class, server::start);
+    }
+
+    @Test
+    void shouldNotShutDownProvidedExecutor() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            DsnServer.builder(mock(DsnPoller.class))
+                    .address(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                    .backlog(10)
+                    .executor(executor)
+                    .build()
+                    .close();
+
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldMatchEntityTags() {
+        assertTrue(DsnServer.matches("\"a\"", "\"a\""));
+        assertTrue(DsnServer.matches("W/\"a\"", "\"a\""));
+        assertTrue(DsnServer.matches("*", "\"a\""));
+        assertTrue(DsnServer.matches("\"b\" , \"a\"", "\"a\""));
+        assertFalse(DsnServer.matches("\"b\"", "\"a\""));
+        assertFalse(DsnServer.matches(null, "\"a\""));
+    }
+
+    @Test
+    void shouldAcceptGzip() {
+        assertTrue(DsnServer.acceptsGzip("gzip"));
+        assertTrue(DsnServer.acceptsGzip("deflate, X-GZIP"));
+        assertTrue(DsnServer.acceptsGzip("gzip;level=1;q=0.5"));
+        assertFalse(DsnServer.acceptsGzip("gzip;q=0"));
+        assertTrue(DsnServer.acceptsGzip("gzip;q=abc"));
+        assertFalse(DsnServer.acceptsGzip("deflate, br"));
+        assertFalse(DsnServer.acceptsGzip(null));
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:"
+                + server.getAddress().getPort() + path).openConnection();
+        connection.setReadTimeout(5000);
+        return connection;
+    }
+
+    private void waitForStreams(int count) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (server.getStreamCount() != count && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(count, server.getStreamCount());
+    }
+
+    private static BufferedReader reader(HttpURLConnection connection) throws IOException {
+        return new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static JsonNode readEvent(BufferedReader events) throws IOException {
+        assertTrue(events.readLine().startsWith("id: \""));
+        assertEquals("event: merged-data", events.readLine());
+        String data = events.readLine();
+        assertTrue(data.startsWith("data: "));
+        assertEquals("", events.readLine());
+        return JSON.readTree(data.substring("data: ".length()));
+    }
+
+    private static MergedData mergedData(long timestamp, Long azimuth) {
+        MergedTargetData target = new MergedTargetData("VGR2", 32L, null, null, Duration.ofMinutes(1), null, null,
+                null, null);
+        MergedDishData dish = new MergedDishData("DSS43", null, null, azimuth, null, null, null, null, null, null,
+                Collections.emptyList(), Collections.emptyList(), Collections.singletonList(target));
+        MergedStationData station = new MergedStationData("cdscc", null, null, null, null, null,
+                Collections.singletonList(dish));
+        return new MergedData(Collections.singletonList(station), Instant.ofEpochMilli(timestamp));
+    }
+}
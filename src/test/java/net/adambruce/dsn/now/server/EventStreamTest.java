@@ -0,0 +1,129 @@
+package net.adambruce.dsn.now.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EventStreamTest {
+
+    private static final byte[] FIRST = "first".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SECOND = "second".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] THIRD = "third".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private HttpExchange exchange;
+
+    @Mock
+    private OutputStream body;
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final List<EventStream> closed = new ArrayList<>();
+    private EventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        when(exchange.getResponseBody()).thenReturn(body);
+        stream = new EventStream(exchange, tasks::add, closed::add);
+    }
+
+    @Test
+    void shouldWriteEventsInOrder() throws IOException {
+        stream.offer(FIRST);
+        runTasks();
+        stream.offer(SECOND);
+        runTasks();
+
+        verify(body).write(FIRST);
+        verify(body).write(SECOND);
+        verify(body, times(2)).flush();
+    }
+
+    @Test
+    void shouldKeepOnlyLatestEventWhileWriting() throws IOException {
+        stream.offer(FIRST);
+        stream.offer(SECOND);
+        stream.offer(THIRD);
+
+        // One drain is scheduled however many events are offered before it runs
+        assertEquals(1, tasks.size());
+        runTasks();
+
+        verify(body, never()).write(FIRST);
+        verify(body, never()).write(SECOND);
+        verify(body).write(THIRD);
+    }
+
+    @Test
+    void shouldWriteEventOfferedDuringWrite() throws IOException {
+        stream.offer(FIRST);
+        Runnable drain = tasks.remove();
+        stream.offer(SECOND);
+        drain.run();
+
+        assertTrue(tasks.isEmpty());
+        verify(body).write(SECOND);
+    }
+
+    @Test
+    void shouldCloseWhenWriteFails() throws IOException {
+        doThrow(new IOException("Broken pipe")).when(body).write(FIRST);
+        stream.offer(FIRST);
+        runTasks();
+        stream.offer(SECOND);
+        runTasks();
+
+        verify(body, never()).write(SECOND);
+        verify(exchange).close();
+        assertEquals(1, closed.size());
+    }
+
+    @Test
+    void shouldCloseWhenExecutorRejectsWrite() throws IOException {
+        EventStream rejected = new EventStream(exchange, task -> {
+            throw new RejectedExecutionException();
+        }, closed::add);
+
+        rejected.offer(FIRST);
+
+        verify(body, never()).write(any());
+        verify(exchange).close();
+        assertEquals(1, closed.size());
+    }
+
+    @Test
+    void shouldCloseOnce() {
+        stream.close();
+        stream.close();
+
+        verify(exchange).close();
+        assertEquals(1, closed.size());
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove().run();
+        }
+    }
+}
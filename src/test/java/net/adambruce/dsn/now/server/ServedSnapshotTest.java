@@ -0,0 +1,51 @@
+package net.adambruce.dsn.now.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.adambruce.dsn.now.model.merged.MergedData;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServedSnapshotTest {
+
+    private final ObjectMapper mapper = DsnServer.newMapper();
+
+    @Test
+    void shouldEncodeSnapshot() throws IOException {
+        ServedSnapshot snapshot = ServedSnapshot.of(new MergedData(Collections.emptyList(),
+                Instant.ofEpochMilli(4096)), mapper);
+        String json = new String(snapshot.getJson(), StandardCharsets.UTF_8);
+
+        assertTrue(json.contains("\"timestamp\":\"1970-01-01T00:00:04.096Z\""));
+        try (InputStream decompressed = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzip()))) {
+            assertArrayEquals(snapshot.getJson(), IOUtils.toByteArray(decompressed));
+        }
+        assertTrue(snapshot.getEntityTag().matches("\"1000-[0-9a-f]+\""));
+        assertEquals("id: " + snapshot.getEntityTag() + "\nevent: merged-data\ndata: " + json + "\n\n",
+                new String(snapshot.getEvent(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldTagSnapshotsByContent() throws IOException {
+        Instant timestamp = Instant.ofEpochMilli(4096);
+        String entityTag = ServedSnapshot.of(new MergedData(Collections.emptyList(), timestamp), mapper)
+                .getEntityTag();
+
+        assertEquals(entityTag, ServedSnapshot.of(new MergedData(Collections.emptyList(), timestamp), mapper)
+                .getEntityTag());
+        assertNotEquals(entityTag, ServedSnapshot.of(new MergedData(null, timestamp), mapper).getEntityTag());
+        assertTrue(ServedSnapshot.of(new MergedData(null, null), mapper).getEntityTag().startsWith("\"0-"));
+    }
+}
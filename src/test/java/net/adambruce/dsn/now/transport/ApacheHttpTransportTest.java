@@ -0,0 +1,231 @@
+package net.adambruce.dsn.now.transport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.mockito.ArgumentCaptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ApacheHttpTransportTest {
+
+    private static final byte[] BODY = "<dsn/>".getBytes(StandardCharsets.UTF_8);
+    private static final int LARGE_BODY = 64 * 1024 * 1024;
+
+    private final List<String> acceptEncoding = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Integer> bytesWritten = new LinkedBlockingQueue<>();
+
+    @Mock
+    private CloseableHttpClient httpClient;
+
+    @Mock
+    private CloseableHttpAsyncClient asyncClient;
+
+    @Mock
+    private ClassicHttpResponse response;
+
+    @Mock
+    private HttpEntity entity;
+
+    @Test
+    void shouldCreateTransportWithBuilder() throws Exception {
+        ApacheHttpTransport.builder().build().close();
+        ApacheHttpTransport.builder().compression(false).build().close();
+    }
+
+    @Test
+    void shouldCloseResponseWhenBodyCannotBeOpened() throws Exception {
+        when(httpClient.executeOpen(isNull(), any(), isNull())).thenReturn(response);
+        when(response.getEntity()).thenReturn(entity);
+        when(entity.getContent()).thenThrow(new IOException());
+        ApacheHttpTransport transport = new ApacheHttpTransport(httpClient, asyncClient);
+
+        assertThrows(IOException.class, () -> transport.fetch(new TransportRequest("http://localhost/dsn.xml", null,
+                null)));
+        verify(response).close();
+    }
+
+    @Test
+    void shouldCancelRequestWhenDeclaredBodyIsTooLarge() throws Exception {
+        ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+        when(httpClient.executeOpen(isNull(), request.capture(), isNull())).thenReturn(response);
+        when(response.getEntity()).thenReturn(entity);
+        when(entity.getContentLength()).thenReturn(1025L);
+        ApacheHttpTransport transport = new ApacheHttpTransport(httpClient, asyncClient);
+
+        IOException ex = assertThrows(IOException.class, () -> transport.fetch(
+                new TransportRequest("http://localhost/dsn.xml", null, null, 1024)));
+        assertEquals("response body exceeds the maximum size of 1024 bytes", ex.getMessage());
+        assertTrue(request.getValue().isCancelled());
+        verify(response).close();
+    }
+
+    @Test
+    void shouldRequestCompression() throws Exception {
+        BasicClassicHttpResponse compressed = new BasicClassicHttpResponse(HttpStatus.SC_OK);
+        compressed.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+        when(httpClient.executeOpen(isNull(), request.capture(), isNull())).thenReturn(compressed);
+        ApacheHttpTransport transport = new ApacheHttpTransport(httpClient, asyncClient, true);
+
+        try (TransportResponse response = transport.fetch(new TransportRequest("http://localhost/dsn.xml", null,
+                null))) {
+            assertEquals("gzip", response.getContentEncoding());
+            assertEquals(0, response.getContentLength());
+        }
+        assertEquals("gzip, deflate", request.getValue().getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue());
+    }
+
+    @Test
+    void shouldLeaveCompressionToGivenClients() throws Exception {
+        ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+        when(httpClient.executeOpen(isNull(), request.capture(), isNull()))
+                .thenReturn(new BasicClassicHttpResponse(HttpStatus.SC_OK));
+        ApacheHttpTransport transport = new ApacheHttpTransport(httpClient, asyncClient);
+
+        try (TransportResponse response = transport.fetch(new TransportRequest("http://localhost/dsn.xml", null,
+                null))) {
+            assertNull(response.getContentEncoding());
+        }
+        assertFalse(request.getValue().containsHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void shouldFetchDocumentAsync() throws Exception {
+        HttpServer server = startServer(exchange -> {
+            exchange.getResponseHeaders().set("Content-Encoding", "deflate");
+            respond(exchange, BODY.length, BODY.length);
+        });
+        try (ApacheHttpTransport transport = ApacheHttpTransport.builder().build();
+             TransportResponse response = transport.fetchAsync(new TransportRequest(url(server), null, null,
+                     BODY.length)).get()) {
+            assertEquals(HttpStatus.SC_OK, response.getStatus());
+            assertEquals("deflate", response.getContentEncoding());
+            assertEquals(BODY.length, response.getContentLength());
+            assertArrayEquals(BODY, IOUtils.toByteArray(response.getBody()));
+        } finally {
+            server.stop(0);
+        }
+        assertEquals("gzip, deflate", acceptEncoding.get(0));
+    }
+
+    @Test
+    void shouldFetchNotModifiedAsync() throws Exception {
+        HttpServer server = startServer(exchange -> {
+            exchange.sendResponseHeaders(HttpStatus.SC_NOT_MODIFIED, -1);
+            exchange.close();
+        });
+        try (ApacheHttpTransport transport = ApacheHttpTransport.builder().build();
+             TransportResponse response = transport.fetchAsync(new TransportRequest(url(server), "\"abc\"", null))
+                     .get()) {
+            assertEquals(HttpStatus.SC_NOT_MODIFIED, response.getStatus());
+            assertEquals(-1, response.getBody().read());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void shouldAbortWhenBodyExceedsMaxSize(boolean contentLengthKnown) throws Exception {
+        HttpServer server = startServer(exchange -> respond(exchange, contentLengthKnown ? LARGE_BODY : 0,
+                LARGE_BODY));
+        try (ApacheHttpTransport transport = ApacheHttpTransport.builder().build()) {
+            TransportRequest request = new TransportRequest(url(server), null, null, 1024);
+
+            IOException ex = assertThrows(IOException.class, () -> {
+                try (TransportResponse response = transport.fetch(request)) {
+                    IOUtils.toByteArray(response.getBody());
+                }
+            });
+            assertEquals("response body exceeds the maximum size of 1024 bytes", ex.getMessage());
+            assertAborted();
+
+            ExecutionException async = assertThrows(ExecutionException.class,
+                    () -> transport.fetchAsync(request).get());
+            assertEquals("response body exceeds the maximum size of 1024 bytes", async.getCause().getMessage());
+            assertAborted();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private HttpServer startServer(HttpHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/dsn.xml", exchange -> {
+            acceptEncoding.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            handler.handle(exchange);
+        });
+        server.start();
+        return server;
+    }
+
+    /**
+     * Writes a body of the given size, recording how much was written before the client went away.
+     */
+    private void respond(HttpExchange exchange, long contentLength, int size) throws IOException {
+        exchange.sendResponseHeaders(HttpStatus.SC_OK, contentLength);
+        int written = 0;
+        try (OutputStream body = exchange.getResponseBody()) {
+            byte[] chunk = new byte[Math.min(size, 64 * 1024)];
+            System.arraycopy(BODY, 0, chunk, 0, Math.min(BODY.length, chunk.length));
+            while (written < size) {
+                body.write(chunk, 0, Math.min(chunk.length, size - written));
+                written += Math.min(chunk.length, size - written);
+            }
+        } catch (IOException ex) {
+            // The client aborted the response
+        } finally {
+            bytesWritten.offer(written);
+        }
+    }
+
+    private void assertAborted() throws InterruptedException {
+        Integer bytes = bytesWritten.poll(10, TimeUnit.SECONDS);
+        assertNotNull(bytes);
+        // Socket buffers take up some of the body, but a drained response would be written in full
+        assertTrue(bytes < LARGE_BODY, "wrote " + bytes + " bytes");
+    }
+
+    private static String url(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort() + "/dsn.xml";
+    }
+}
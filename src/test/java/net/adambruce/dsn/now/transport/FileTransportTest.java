@@ -0,0 +1,83 @@
+package net.adambruce.dsn.now.transport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileTransportTest {
+
+    private final FileTransport transport = new FileTransport();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReadFile() throws Exception {
+        Path file = write("<dsn/>", Instant.ofEpochSecond(1770497799L));
+
+        try (TransportResponse response = transport.fetch(new TransportRequest(file.toUri().toString(), null, null))) {
+            assertEquals(HttpURLConnection.HTTP_OK, response.getStatus());
+            assertNull(response.getEntityTag());
+            assertEquals("Sat, 07 Feb 2026 20:56:39 GMT", response.getLastModified());
+            assertEquals(6, response.getContentLength());
+            assertEquals("<dsn/>", read(response));
+        }
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenFileIsUnchanged() throws Exception {
+        Path file = write("<dsn/>", Instant.ofEpochSecond(1770497799L));
+
+        try (TransportResponse response = transport.fetch(new TransportRequest(file.toUri().toString(), null,
+                "Sat, 07 Feb 2026 20:56:39 GMT"))) {
+            assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, response.getStatus());
+            assertEquals("", read(response));
+        }
+    }
+
+    @Test
+    void shouldReadFileAsync() throws Exception {
+        Path file = write("<dsn/>", Instant.ofEpochSecond(1770497799L));
+
+        try (TransportResponse response = transport.fetchAsync(new TransportRequest(file.toUri().toString(), null,
+                null)).get()) {
+            assertEquals("<dsn/>", read(response));
+        }
+    }
+
+    @Test
+    void shouldFailWhenFileIsMissing() {
+        String url = directory.resolve("missing.xml").toUri().toString();
+
+        assertThrows(IOException.class, () -> transport.fetch(new TransportRequest(url, null, null)));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> transport.fetchAsync(new TransportRequest(url, null, null)).get());
+        assertInstanceOf(IOException.class, exception.getCause());
+        transport.close();
+    }
+
+    private Path write(String content, Instant lastModified) throws IOException {
+        Path file = Files.write(directory.resolve("dsn.xml"), content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.from(lastModified));
+        return file;
+    }
+
+    private static String read(TransportResponse response) throws IOException {
+        byte[] buffer = new byte[64];
+        int length = Math.max(response.getBody().read(buffer), 0);
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+}
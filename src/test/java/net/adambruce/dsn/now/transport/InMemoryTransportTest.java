@@ -0,0 +1,50 @@
+package net.adambruce.dsn.now.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.net.HttpURLConnection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InMemoryTransportTest {
+
+    private static final String URL = "memory:dsn.xml";
+
+    private final InMemoryTransport transport = new InMemoryTransport();
+
+    @Test
+    void shouldServeDocument() throws Exception {
+        transport.put(URL, new byte[] {1, 2, 3});
+
+        TransportResponse response = transport.fetch(new TransportRequest(URL, null, null));
+
+        assertEquals(HttpURLConnection.HTTP_OK, response.getStatus());
+        assertEquals(3, response.getContentLength());
+        assertEquals(1, response.getBody().read());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedUntilDocumentIsReplaced() throws Exception {
+        transport.put(URL, new byte[] {1});
+        String entityTag = transport.fetch(new TransportRequest(URL, null, null)).getEntityTag();
+
+        TransportResponse notModified = transport.fetch(new TransportRequest(URL, entityTag, null));
+        transport.put(URL, new byte[] {2});
+        TransportResponse replaced = transport.fetch(new TransportRequest(URL, entityTag, null));
+
+        assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, notModified.getStatus());
+        assertEquals(-1, notModified.getBody().read());
+        assertEquals(HttpURLConnection.HTTP_OK, replaced.getStatus());
+        assertNotEquals(entityTag, replaced.getEntityTag());
+    }
+
+    @Test
+    void shouldFailWhenDocumentIsMissing() {
+        transport.close();
+
+        assertThrows(FileNotFoundException.class, () -> transport.fetch(new TransportRequest(URL, null, null)));
+    }
+}
@@ -0,0 +1,206 @@
+package net.adambruce.dsn.now.transport;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@EnabledForJreRange(min = JRE.JAVA_11)
+class JdkHttpTransportTest {
+
+    private static final String ENTITY_TAG = "\"abc\"";
+    private static final String LAST_MODIFIED = "Sat, 07 Feb 2026 20:56:39 GMT";
+    private static final byte[] BODY = "<dsn/>".getBytes(StandardCharsets.UTF_8);
+    private static final int LARGE_BODY = 64 * 1024 * 1024;
+
+    private final List<String> ifNoneMatch = new ArrayList<>();
+    private final List<String> ifModifiedSince = new ArrayList<>();
+    private final List<String> acceptEncoding = new ArrayList<>();
+    private final BlockingQueue<Integer> bytesWritten = new LinkedBlockingQueue<>();
+    private final JdkHttpTransport transport = new JdkHttpTransport();
+    private HttpServer server;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/dsn.xml", exchange -> {
+            String entityTag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(entityTag);
+            ifModifiedSince.add(exchange.getRequestHeaders().getFirst("If-Modified-Since"));
+            acceptEncoding.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            if (ENTITY_TAG.equals(entityTag)) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", ENTITY_TAG);
+            exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+            if (exchange.getRequestHeaders().containsKey("Accept-Encoding")) {
+                // Not actually compressed, as only the headers are of interest
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, BODY.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(BODY);
+            }
+        });
+        server.createContext("/large.xml", exchange -> {
+            boolean chunked = exchange.getRequestURI().getQuery() != null;
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, chunked ? 0 : LARGE_BODY);
+            int written = 0;
+            try (OutputStream body = exchange.getResponseBody()) {
+                byte[] chunk = new byte[64 * 1024];
+                for (; written < LARGE_BODY; written += chunk.length) {
+                    body.write(chunk);
+                }
+            } catch (IOException ex) {
+                // The client aborted the response
+            } finally {
+                bytesWritten.offer(written);
+            }
+        });
+        server.createContext("/truncated.xml", exchange -> {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, BODY.length * 2L);
+            exchange.getResponseBody().write(BODY);
+            exchange.close();
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/dsn.xml";
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.close();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldFetchDocument() throws Exception {
+        try (TransportResponse response = transport.fetch(new TransportRequest(url, null, null))) {
+            assertEquals(HttpURLConnection.HTTP_OK, response.getStatus());
+            assertEquals(ENTITY_TAG, response.getEntityTag());
+            assertEquals(LAST_MODIFIED, response.getLastModified());
+            assertEquals(BODY.length, response.getContentLength());
+            assertEquals(BODY.length, response.getBody().read(new byte[64]));
+            assertEquals("gzip", response.getContentEncoding());
+        }
+        assertNull(ifNoneMatch.get(0));
+        assertNull(ifModifiedSince.get(0));
+        assertEquals("gzip, deflate", acceptEncoding.get(0));
+    }
+
+    @Test
+    void shouldNotRequestCompressionWhenDisabled() throws Exception {
+        JdkHttpTransport uncompressed = new JdkHttpTransport(Duration.ofSeconds(10), Duration.ofSeconds(30), false);
+        try (TransportResponse response = uncompressed.fetch(new TransportRequest(url, null, null))) {
+            assertNull(response.getContentEncoding());
+        }
+        assertNull(acceptEncoding.get(0));
+    }
+
+    @Test
+    void shouldSendValidators() throws Exception {
+        try (TransportResponse response = transport.fetch(new TransportRequest(url, ENTITY_TAG, LAST_MODIFIED))) {
+            assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, response.getStatus());
+            assertEquals(-1, response.getContentLength());
+            assertEquals(-1, response.getBody().read());
+        }
+        assertEquals(ENTITY_TAG, ifNoneMatch.get(0));
+        assertEquals(LAST_MODIFIED, ifModifiedSince.get(0));
+    }
+
+    @Test
+    void shouldFetchDocumentAsync() throws Exception {
+        try (TransportResponse response = transport.fetchAsync(new TransportRequest(url, null, null)).get()) {
+            assertEquals(HttpURLConnection.HTTP_OK, response.getStatus());
+            assertEquals(BODY.length, response.getContentLength());
+            assertEquals(BODY.length, response.getBody().read(new byte[64]));
+        }
+    }
+
+    @Test
+    void shouldRejectDeclaredBodyLargerThanMaxSize() throws Exception {
+        TransportRequest request = new TransportRequest(url.replace("/dsn.xml", "/large.xml"), null, null, 1024);
+
+        IOException ex = assertThrows(IOException.class, () -> transport.fetch(request));
+        assertEquals("response body exceeds the maximum size of 1024 bytes", ex.getMessage());
+        assertAborted();
+    }
+
+    @Test
+    void shouldAbortFetchWhenBodyExceedsMaxSize() throws Exception {
+        TransportRequest request = new TransportRequest(url.replace("/dsn.xml", "/large.xml?chunked"), null, null,
+                1024);
+
+        IOException ex = assertThrows(IOException.class, () -> {
+            try (TransportResponse response = transport.fetch(request)) {
+                byte[] buffer = new byte[8 * 1024];
+                while (response.getBody().read(buffer, 0, buffer.length) != -1) {
+                    // Read until the body exceeds the maximum size
+                }
+            }
+        });
+        assertEquals("response body exceeds the maximum size of 1024 bytes", ex.getMessage());
+        assertAborted();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/large.xml", "/large.xml?chunked"})
+    void shouldAbortAsyncFetchWhenBodyExceedsMaxSize(String path) throws Exception {
+        TransportRequest request = new TransportRequest(url.replace("/dsn.xml", path), null, null, 1024);
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> transport.fetchAsync(request).get());
+        assertEquals("response body exceeds the maximum size of 1024 bytes", ex.getCause().getMessage());
+        assertAborted();
+    }
+
+    @Test
+    void shouldFailAsyncFetchWhenBodyIsTruncated() {
+        TransportRequest request = new TransportRequest(url.replace("/dsn.xml", "/truncated.xml"), null, null);
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> transport.fetchAsync(request).get());
+        assertInstanceOf(IOException.class, ex.getCause());
+    }
+
+    @Test
+    void shouldFailWhenInterrupted() {
+        Thread.currentThread().interrupt();
+
+        assertThrows(InterruptedIOException.class, () -> transport.fetch(new TransportRequest(url, null, null)));
+        assertTrue(Thread.interrupted());
+    }
+
+    private void assertAborted() throws InterruptedException {
+        Integer written = bytesWritten.poll(10, TimeUnit.SECONDS);
+        assertNotNull(written);
+        // Socket buffers take up some of the body, but a drained response would be written in full
+        assertTrue(written < LARGE_BODY, "wrote " + written + " bytes");
+    }
+}
@@ -0,0 +1,69 @@
+package net.adambruce.dsn.now.transport;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class LimitedEntityConsumerTest {
+
+    @Mock
+    private FutureCallback<byte[]> callback;
+
+    @Mock
+    private CapacityChannel capacityChannel;
+
+    private final LimitedEntityConsumer consumer = new LimitedEntityConsumer(4);
+
+    @Test
+    void shouldBufferBodyUpToMaxSize() throws Exception {
+        consumer.streamStart(new BasicEntityDetails(-1, ContentType.APPLICATION_XML), callback);
+        consumer.updateCapacity(capacityChannel);
+        consumer.consume(ByteBuffer.wrap(new byte[]{1, 2}));
+        consumer.consume(ByteBuffer.wrap(new byte[]{3, 4}));
+        consumer.streamEnd(Collections.emptyList());
+
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, consumer.getContent());
+        verify(callback).completed(consumer.getContent());
+        verify(capacityChannel).update(Integer.MAX_VALUE);
+        consumer.releaseResources();
+    }
+
+    @Test
+    void shouldFailWhenDeclaredBodyIsTooLarge() {
+        IOException ex = assertThrows(IOException.class, () -> consumer.streamStart(
+                new BasicEntityDetails(5, ContentType.APPLICATION_XML), callback));
+        assertEquals("response body exceeds the maximum size of 4 bytes", ex.getMessage());
+
+        consumer.failed(ex);
+        verifyNoInteractions(callback);
+    }
+
+    @Test
+    void shouldFailWhenBodyExceedsMaxSize() throws Exception {
+        consumer.streamStart(new BasicEntityDetails(4, ContentType.APPLICATION_XML), callback);
+        consumer.consume(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        IOException ex = assertThrows(IOException.class, () -> consumer.consume(ByteBuffer.wrap(new byte[]{4, 5})));
+        consumer.failed(ex);
+
+        verify(callback).failed(ex);
+        assertNull(consumer.getContent());
+    }
+}
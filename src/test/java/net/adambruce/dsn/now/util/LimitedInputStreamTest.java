@@ -0,0 +1,61 @@
+package net.adambruce.dsn.now.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LimitedInputStreamTest {
+
+    private final AtomicInteger aborts = new AtomicInteger();
+
+    @Test
+    void shouldReadBodyUpToMaxSize() throws IOException {
+        InputStream in = limited(4, 4);
+
+        assertEquals(0, in.read());
+        assertEquals(3, in.read(new byte[8], 0, 8));
+        assertEquals(-1, in.read());
+        assertEquals(-1, in.read(new byte[8], 0, 8));
+        assertEquals(0, aborts.get());
+    }
+
+    @Test
+    void shouldAbortWhenReadExceedsMaxSize() throws IOException {
+        InputStream in = limited(8, 4);
+        in.read(new byte[4], 0, 4);
+
+        IOException ex = assertThrows(IOException.class, in::read);
+        assertEquals("response body exceeds the maximum size of 4 bytes", ex.getMessage());
+        assertThrows(IOException.class, () -> limited(8, 4).read(new byte[8], 0, 8));
+        assertEquals(2, aborts.get());
+    }
+
+    @Test
+    void shouldCountSkippedBytes() throws IOException {
+        InputStream in = limited(8, 4);
+
+        assertEquals(4, in.skip(4));
+        assertThrows(IOException.class, () -> in.skip(1));
+        assertEquals(1, aborts.get());
+    }
+
+    @Test
+    void shouldNotSupportMark() {
+        assertFalse(limited(8, 4).markSupported());
+    }
+
+    private InputStream limited(int size, long maxSize) {
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = (byte) i;
+        }
+        return new LimitedInputStream(new ByteArrayInputStream(body), maxSize, aborts::incrementAndGet);
+    }
+}
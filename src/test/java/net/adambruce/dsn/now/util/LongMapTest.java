@@ -0,0 +1,79 @@
+package net.adambruce.dsn.now.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongMapTest {
+
+    @Test
+    void shouldGetValuesByKey() {
+        LongMap<String> map = new LongMap<>();
+
+        assertNull(map.put(32, "VGR2"));
+        assertNull(map.put(-32, "signal"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+
+        assertEquals("VGR2", map.get(32));
+        assertEquals("signal", map.get(-32));
+        assertEquals("zero", map.get(0));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(61));
+        assertTrue(map.containsKey(32));
+        assertFalse(map.containsKey(61));
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void shouldReplaceValues() {
+        LongMap<String> map = new LongMap<>();
+        map.put(32, "VGR2");
+
+        assertEquals("VGR2", map.put(32, "Voyager 2"));
+        assertEquals("Voyager 2", map.putIfAbsent(32, "VGR"));
+        assertNull(map.putIfAbsent(61, "JNO"));
+
+        assertEquals("Voyager 2", map.get(32));
+        assertEquals("JNO", map.get(61));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void shouldGrowBeyondExpectedSize() {
+        LongMap<Long> map = new LongMap<>(4);
+        for (long key = -1000; key < 1000; key++) {
+            map.put(key * 1024, key);
+        }
+
+        assertEquals(2000, map.size());
+        for (long key = -1000; key < 1000; key++) {
+            assertEquals(key, map.get(key * 1024));
+        }
+        assertNull(map.get(1000 * 1024));
+    }
+
+    @Test
+    void shouldClearEntries() {
+        LongMap<String> map = new LongMap<>(16);
+        map.put(32, "VGR2");
+        assertFalse(map.isEmpty());
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(32));
+        map.put(32, "VGR2");
+        assertEquals("VGR2", map.get(32));
+    }
+
+    @Test
+    void shouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LongMap<>(-1));
+        assertThrows(NullPointerException.class, () -> new LongMap<>().put(32, null));
+    }
+}